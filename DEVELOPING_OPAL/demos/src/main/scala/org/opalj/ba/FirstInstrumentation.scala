@@ -6,7 +6,6 @@ import java.io.ByteArrayInputStream
 
 import org.opalj.io.writeAndOpen
 import org.opalj.da.ClassFileReader.ClassFile
-import org.opalj.bc.Assembler
 import org.opalj.br.ObjectType
 import org.opalj.br.IntegerType
 import org.opalj.br.MethodDescriptor.JustReturnsString
@@ -84,7 +83,7 @@ object FirstInstrumentation extends App {
                     }
             }
         }
-    val newRawCF = Assembler(toDA(cf.copy(methods = newMethods)))
+    val newRawCF = ClassFileWriter(cf.copy(methods = newMethods))
 
     //
     // THE FOLLOWING IS NOT RELATED TO BYTECODE MANIPULATION, BUT SHOWS ASPECTS OF OPAL WHICH ARE
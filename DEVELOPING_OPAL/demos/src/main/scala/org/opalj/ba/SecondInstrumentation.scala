@@ -11,7 +11,6 @@ import org.opalj.util.InMemoryClassLoader
 import org.opalj.da.ClassFileReader.ClassFile
 import org.opalj.ai.BaseAI
 import org.opalj.ai.domain.l0.TypeCheckingDomain
-import org.opalj.bc.Assembler
 import org.opalj.br.ObjectType
 import org.opalj.br.ClassHierarchy
 import org.opalj.br.MethodDescriptor.JustTakes
@@ -84,7 +83,7 @@ object SecondInstrumentation extends App {
         }
     }
     val newCF = cf.copy(methods = newMethods)
-    val newRawCF = Assembler(toDA(newCF))
+    val newRawCF = ClassFileWriter(newCF)
 
     //
     // THE FOLLOWING IS NOT RELATED TO BYTECODE MANIPULATION, BUT SHOWS ASPECTS OF OPAL WHICH ARE
@@ -0,0 +1,130 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import java.net.URL
+
+import scala.util.control.NonFatal
+
+import org.opalj.util.Nanoseconds
+import org.opalj.util.PerformanceEvaluation.time
+import org.opalj.br.Attributes
+import org.opalj.br.ClassFile
+import org.opalj.br.ClassHierarchy
+import org.opalj.br.Method
+import org.opalj.br.Methods
+import org.opalj.br.MethodDescriptor.JustTakes
+import org.opalj.br.ObjectType
+import org.opalj.br.analyses.BasicReport
+import org.opalj.br.analyses.Project
+import org.opalj.br.analyses.ProjectAnalysisApplication
+import org.opalj.br.instructions.ACONST_NULL
+import org.opalj.br.instructions.GETSTATIC
+import org.opalj.br.instructions.INVOKEVIRTUAL
+import org.opalj.br.instructions.LabeledIFNONNULL
+import org.opalj.br.instructions.LoadString
+import org.opalj.br.instructions.POP
+
+/**
+ * Instruments all methods of a project – e.g., the JDK – which have a stack map table and
+ * compares the time required to update the stack map tables using the [[StackMapTableUpdater]]
+ * with the time required to compute them from scratch using
+ * [[CodeAttributeBuilder.computeStackMapTable]].
+ *
+ * Each method is instrumented by adding a conditional branch at the beginning of the method
+ * and by printing the name of the method before every return instruction.
+ */
+object StackMapTableUpdateBenchmark extends ProjectAnalysisApplication {
+
+    final val PrintStreamType = ObjectType("java/io/PrintStream")
+
+    override def title: String = "Stack Map Table Update Benchmark"
+
+    override def description: String = {
+        "Instruments all methods and compares the time required to update the stack map tables "+
+            "with the time required to compute them from scratch."
+    }
+
+    def instrument(m: Method): LabeledCode = {
+        val code = m.body.get
+        val lCode = LabeledCode(code)
+        lCode.insert(
+            0, InsertionPosition.At,
+            Seq(
+                GETSTATIC("java/lang/System", "out", PrintStreamType.toJVMTypeName),
+                LabeledIFNONNULL(Symbol("instrumentation$entry")),
+                ACONST_NULL,
+                POP,
+                Symbol("instrumentation$entry")
+            )
+        )
+        code.iterate { (pc, instruction) =>
+            if (instruction.isReturnInstruction) {
+                lCode.insert(
+                    pc, InsertionPosition.Before,
+                    Seq(
+                        GETSTATIC("java/lang/System", "out", PrintStreamType.toJVMTypeName),
+                        LoadString(m.name),
+                        INVOKEVIRTUAL(PrintStreamType, "println", JustTakes(ObjectType.String))
+                    )
+                )
+            }
+        }
+        lCode
+    }
+
+    override def doAnalyze(
+        theProject:    Project[URL],
+        parameters:    Seq[String],
+        isInterrupted: () => Boolean
+    ): BasicReport = {
+        implicit val classHierarchy: ClassHierarchy = theProject.classHierarchy
+
+        var instrumentedMethods = 0
+        var updatedStackMapTables = 0
+        var computedStackMapTables = 0
+        var updateTime = Nanoseconds.None
+        var computationTime = Nanoseconds.None
+
+        for {
+            cf <- theProject.allClassFiles
+            if cf.majorVersion >= bi.Java7MajorVersion
+            m <- cf.methodsWithBody
+            originalCode = m.body.get
+            if originalCode.stackMapTable.isDefined
+            if !isInterrupted()
+        } {
+            val codeAttributeBuilder = instrument(m).result
+            // the Java 5 version ensures that no stack map table is computed
+            val (code, _) = codeAttributeBuilder(bi.Java5Version, m)
+            instrumentedMethods += 1
+
+            time {
+                StackMapTableUpdater(
+                    originalCode, codeAttributeBuilder.pcMapping, code,
+                    m.isStatic, cf.thisType, m.name, m.descriptor
+                )
+            } { t => updateTime += t } foreach { _ => updatedStackMapTables += 1 }
+
+            val fakeClassFile = ClassFile(
+                majorVersion = cf.majorVersion,
+                thisType = cf.thisType,
+                methods = Methods(Method(m.accessFlags, m.name, m.descriptor, Attributes(code)))
+            )
+            time {
+                try {
+                    CodeAttributeBuilder.computeStackMapTable(fakeClassFile.methods.head)
+                    computedStackMapTables += 1
+                } catch {
+                    case NonFatal(_) => // e.g., the class hierarchy is incomplete
+                }
+            } { t => computationTime += t }
+        }
+
+        BasicReport(
+            s"instrumented methods: $instrumentedMethods\n"+
+                s"updated stack map tables: $updatedStackMapTables (${updateTime.toSeconds})\n"+
+                s"computed stack map tables: $computedStackMapTables (${computationTime.toSeconds})"
+        )
+    }
+}
@@ -12,7 +12,6 @@ import org.opalj.io.writeAndOpen
 import org.opalj.ai.BaseAI
 import org.opalj.ai.domain.l0.TypeCheckingDomain
 import org.opalj.da.ClassFileReader.ClassFile
-import org.opalj.bc.Assembler
 import org.opalj.br.ObjectType
 import org.opalj.br.MethodDescriptor.JustTakes
 import org.opalj.br.analyses.Project
@@ -174,7 +173,7 @@ object ThirdInstrumentation extends App {
         }
     }
     val newCF = cf.copy(methods = newMethods)
-    val newRawCF = Assembler(toDA(newCF))
+    val newRawCF = ClassFileWriter(newCF)
 
     //
     // THE FOLLOWING IS NOT RELATED TO BYTECODE MANIPULATION, BUT SHOWS ASPECTS OF OPAL WHICH ARE
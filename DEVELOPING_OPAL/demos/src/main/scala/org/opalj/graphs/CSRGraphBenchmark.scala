@@ -0,0 +1,57 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package graphs
+
+import org.opalj.collection.IntIterator
+import org.opalj.util.PerformanceEvaluation.time
+
+/**
+ * Compares the time required by the SCC algorithms of [[CSRGraph]] with the time required by
+ * [[org.opalj.graphs.sccs]] and [[org.opalj.graphs.closedSCCs]] using a random graph.
+ *
+ * The (optional) parameters are the number of nodes and the maximum number of successors
+ * per node.
+ */
+object CSRGraphBenchmark extends App {
+
+    val nodesCount = if (args.length > 0) args(0).toInt else 200000
+    val maxSuccessors = if (args.length > 1) args(1).toInt else 2
+
+    val random = new java.util.Random(0L)
+    val successors = Array.fill(nodesCount) {
+        Array.fill(random.nextInt(maxSuccessors + 1))(random.nextInt(nodesCount))
+    }
+
+    def intIterator(is: Array[Int]): IntIterator = new IntIterator {
+        private[this] var i = 0
+        override def hasNext: Boolean = i < is.length
+        override def next(): Int = { val v = is(i); i += 1; v }
+    }
+
+    val es = (n: Int) => intIterator(successors(n))
+    val nodes = successors.indices.map(Integer.valueOf)
+    val objectEs = (n: Integer) => successors(n).toSeq.map(Integer.valueOf)
+
+    for { run <- 1 to 3 } {
+        println(s"run $run")
+        val oldSCCs = time {
+            graphs.sccs(successors.length, es, true)
+        } { t => println(s"graphs.sccs: ${t.toSeconds}") }
+        val newSCCs = time {
+            CSRGraph(successors.length, es).sccs()
+        } { t => println(s"CSRGraph.sccs (including the graph's construction): ${t.toSeconds}") }
+        val parSCCs = time {
+            CSRGraph(successors.length, es).parSCCs()
+        } { t => println(s"CSRGraph.parSCCs (including the graph's construction): ${t.toSeconds}") }
+        assert(newSCCs.componentsCount == parSCCs.componentsCount)
+        assert(oldSCCs.size == newSCCs.toLists(true).size)
+
+        val oldClosedSCCs = time {
+            graphs.closedSCCs[Integer](nodes, objectEs)
+        } { t => println(s"graphs.closedSCCs: ${t.toSeconds}") }
+        val newClosedSCCs = time {
+            CSRGraph.closedSCCs[Integer](nodes, objectEs)
+        } { t => println(s"CSRGraph.closedSCCs: ${t.toSeconds}") }
+        assert(oldClosedSCCs.size == newClosedSCCs.size)
+    }
+}
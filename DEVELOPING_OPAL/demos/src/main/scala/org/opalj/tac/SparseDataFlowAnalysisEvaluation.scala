@@ -0,0 +1,164 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj.tac
+
+import java.net.URL
+
+import org.opalj.util.Nanoseconds
+import org.opalj.util.PerformanceEvaluation.time
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.value.ValueInformation
+import org.opalj.br.Method
+import org.opalj.br.analyses.BasicReport
+import org.opalj.br.analyses.Project
+import org.opalj.br.analyses.ProjectAnalysisApplication
+import org.opalj.br.cfg.CFG
+
+/**
+ * Compares the performance of a sparse data-flow analysis (see [[SparseBitVectorAnalysis]]) with
+ * the performance of the same analysis when implemented as a dense data-flow analysis that
+ * propagates the facts of all variables along the control-flow graph
+ * (see [[org.opalj.br.cfg.CFG.performForwardDataFlowAnalysis]]).
+ *
+ * The analysis computes for each variable the parameters on which its value (transitively)
+ * depends. The three-address code of all methods is computed upfront; hence, only the data-flow
+ * analyses are measured. Additionally, the results of both analyses are compared.
+ */
+object SparseDataFlowAnalysisEvaluation extends ProjectAnalysisApplication {
+
+    type V = DUVar[ValueInformation]
+    type Facts = Map[Int, IntTrieSet]
+
+    override def title: String = "Sparse vs. dense data-flow analysis"
+
+    override def description: String = {
+        "Measures the time required to compute the parameters each variable depends on using "+
+            "a sparse and a dense data-flow analysis."
+    }
+
+    def parameterFact(origin: Int): Int = {
+        if (origin < 0 && !org.opalj.ai.isImplicitOrExternalException(origin)) -origin - 1 else -1
+    }
+
+    def uVars(expr: Expr[V]): List[V] = {
+        if (expr.isVar)
+            List(expr.asVar)
+        else
+            (0 until expr.subExprCount).toList.flatMap(i => uVars(expr.subExpr(i)))
+    }
+
+    def dependencies(origin: Int, facts: Facts): IntTrieSet = {
+        if (origin >= 0) {
+            facts.getOrElse(origin, IntTrieSet.empty)
+        } else {
+            val fact = parameterFact(origin)
+            if (fact >= 0) IntTrieSet(fact) else IntTrieSet.empty
+        }
+    }
+
+    def dependencies(uVar: V, facts: Facts): IntTrieSet = {
+        uVar.definedBy.foldLeft(IntTrieSet.empty) { (deps, defSite) =>
+            deps ++ dependencies(defSite, facts)
+        }
+    }
+
+    def denseAnalysis(code: TACode[TACMethodParameter, V]): Array[Facts] = {
+        def transfer(facts: Facts, stmt: Stmt[V], index: Int, succId: CFG.SuccessorId): Facts = {
+            stmt match {
+                case Assignment(_, _, expr) =>
+                    val exprDependencies = uVars(expr).foldLeft(IntTrieSet.empty) { (deps, uVar) =>
+                        deps ++ dependencies(uVar, facts)
+                    }
+                    facts.updated(index, exprDependencies)
+                case caughtException: CaughtException[V] =>
+                    val exceptionDependencies = caughtException.origins.foldLeft(IntTrieSet.empty) {
+                        (deps, origin) => deps ++ dependencies(origin, facts)
+                    }
+                    facts.updated(index, exceptionDependencies)
+                case _ =>
+                    facts
+            }
+        }
+
+        def join(oldFacts: Facts, newFacts: Facts): Facts = {
+            var facts = oldFacts
+            newFacts foreach { e =>
+                val (defSite, dependencies) = e
+                val oldDependencies = facts.getOrElse(defSite, IntTrieSet.empty)
+                val joinedDependencies = oldDependencies ++ dependencies
+                if (joinedDependencies.size != oldDependencies.size || !facts.contains(defSite))
+                    facts = facts.updated(defSite, joinedDependencies)
+            }
+            facts
+        }
+
+        code.cfg.performForwardDataFlowAnalysis(Map.empty[Int, IntTrieSet], transfer, join)._1
+    }
+
+    def sparseAnalysis(m: Method, code: TACode[TACMethodParameter, V]): SparseBitVectorAnalysis = {
+        // the fact 0 is the implicit this parameter
+        new SparseBitVectorAnalysis(code, m.descriptor.parametersCount + 1) {
+
+            override def originFacts(origin: Int, facts: BitVector): Unit = {
+                val fact = parameterFact(origin)
+                if (fact >= 0) facts += fact
+            }
+
+            override def transfer(index: Int, expr: Expr[V], facts: BitVector): Unit = {
+                facts.addFactsOfOperands(expr)
+            }
+        }.solve()
+    }
+
+    override def doAnalyze(
+        project:       Project[URL],
+        parameters:    Seq[String],
+        isInterrupted: () => Boolean
+    ): BasicReport = {
+        val tacProvider = project.get(EagerDetachedTACAIKey)
+        val methods = project.allMethodsWithBody.toArray
+        val codes = methods.map(tacProvider)
+
+        def average(times: Seq[Nanoseconds]): String = {
+            new Nanoseconds(times.foldLeft(0L)(_ + _.timeSpan) / times.size).toSeconds.toString
+        }
+
+        var denseTime = ""
+        val denseFacts = time(2, 4, 5, codes.map(denseAnalysis)) { (_, times) =>
+            denseTime = average(times)
+        }
+
+        var sparseTime = ""
+        val sparseResults = time(2, 4, 5, methods.lazyZip(codes).map(sparseAnalysis)) { (_, times) =>
+            sparseTime = average(times)
+        }
+
+        var comparedUsesCount = 0
+        var differences = List.empty[String]
+        methods.indices foreach { i =>
+            val code = codes(i)
+            val sparse = sparseResults(i)
+            code.stmts.iterator.zipWithIndex foreach { stmtAndIndex =>
+                val (stmt, index) = stmtAndIndex
+                val facts = denseFacts(i)(index)
+                if (facts ne null) {
+                    stmt.forallSubExpressions[V] { subExpr =>
+                        uVars(subExpr) foreach { uVar =>
+                            if (sparse.facts(uVar) != dependencies(uVar, facts))
+                                differences ::= s"${methods(i).toJava}: $index: $stmt"
+                            comparedUsesCount += 1
+                        }
+                        true
+                    }
+                }
+            }
+        }
+
+        BasicReport(
+            s"analyzed methods: ${methods.length}\n"+
+                s"dense data-flow analysis (average): $denseTime\n"+
+                s"sparse data-flow analysis (average): $sparseTime\n"+
+                s"compared uses: $comparedUsesCount; differences: ${differences.size}"+
+                differences.take(10).mkString("\n\t", "\n\t", "")
+        )
+    }
+}
@@ -10,8 +10,8 @@ import java.util.zip.ZipOutputStream
 import java.util.zip.ZipEntry
 
 import org.opalj.io.process
+import org.opalj.ba.ClassFileWriter
 import org.opalj.br.analyses.Project
-import org.opalj.bc.Assembler
 import org.opalj.br.analyses.SomeProject
 
 /**
@@ -96,7 +96,7 @@ object ProjectSerializer {
             val classFileName = s"${cf.fqn}.class"
             val targetFile = new File(s"${targetFolder.getAbsolutePath}/$classFileName")
 
-            val b = Assembler(ba.toDA(cf))
+            val b = ClassFileWriter(cf)
             process(new BufferedOutputStream(new FileOutputStream(targetFile))) {
                 bos => bos.write(b)
             }
@@ -0,0 +1,252 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ai
+package domain
+
+import java.util.{BitSet => JBitSet}
+
+import scala.collection.mutable.ArrayBuilder
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap
+
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.collection.immutable.IntTrieSet1
+import org.opalj.collection.mutable.{Locals => Registers}
+import org.opalj.br.PC
+
+/**
+ * An immutable and compact representation of the def/use information collected by
+ * [[RecordDefUse]]; see [[RecordCompactDefUse]] for its usage.
+ *
+ * The information is stored using plain `int` arrays in the ''compressed sparse row'' format.
+ * All sets of value origins are stored in one array; the value origins of the set with the id
+ * `s` are stored at the indexes `setOffsets(s)` (inclusive) to `setOffsets(s+1)` (exclusive).
+ * Given that the sets are extensively shared by the operands and registers of the
+ * instructions, each set is stored only once. The operands and registers of the instructions
+ * then just refer to the ids of their sets; for the instruction with the program counter `pc`
+ * the ids are stored at the indexes `operandOffsets(pc)` to `operandOffsets(pc+1)` and
+ * `localOffsets(pc)` to `localOffsets(pc+1)`, respectively. Uninitialized registers and values
+ * which are not used are represented by the set id `-1`.
+ *
+ * The returned `ValueOrigins` are created on demand; the `foreach...` methods and `isUsed`
+ * directly read the arrays and do not create any sets.
+ */
+final class CompactDefUse private (
+        private[this] val parametersOffset:          Int,
+        private[this] val evaluatedPCs:              JBitSet,
+        private[this] val setOffsets:                Array[Int],
+        private[this] val origins:                   Array[Int],
+        private[this] val operandOffsets:            Array[Int],
+        private[this] val operandSets:               Array[Int],
+        private[this] val localOffsets:              Array[Int],
+        private[this] val localSets:                 Array[Int],
+        private[this] val usedSets:                  Array[Int],
+        private[this] val usedExternalExceptionSets: Array[Int]
+) {
+
+    /** The number of distinct sets of value origins. */
+    def setsCount: Int = setOffsets.length - 1
+
+    /** @see [[RecordDefUse.operandOrigin]] */
+    def operandOrigin(pc: PC, stackIndex: Int): ValueOrigins = {
+        if (!evaluatedPCs.get(pc) || stackIndex >= operandsCount(pc))
+            throw new IndexOutOfBoundsException(s"$pc: no operand with index $stackIndex");
+
+        valueOrigins(operandSets(operandOffsets(pc) + stackIndex))
+    }
+
+    /** @see [[RecordDefUse.foreachOperandOrigin]] */
+    def foreachOperandOrigin[U](pc: PC, stackIndex: Int)(f: ValueOrigin => U): Unit = {
+        if (!evaluatedPCs.get(pc) || stackIndex >= operandsCount(pc))
+            throw new IndexOutOfBoundsException(s"$pc: no operand with index $stackIndex");
+
+        foreachValueOrigin(operandSets(operandOffsets(pc) + stackIndex))(f)
+    }
+
+    /**
+     * Returns the origins of all operands of the instruction with the given pc (top-most operand
+     * first) or `null` if the instruction was not evaluated.
+     */
+    def operandOrigins(pc: PC): List[ValueOrigins] = {
+        if (!evaluatedPCs.get(pc))
+            return null;
+
+        var operandOrigins = List.empty[ValueOrigins]
+        var i = operandOffsets(pc + 1) - 1
+        while (i >= operandOffsets(pc)) {
+            operandOrigins ::= valueOrigins(operandSets(i))
+            i -= 1
+        }
+        operandOrigins
+    }
+
+    /** @see [[RecordDefUse.localOrigin]] */
+    def localOrigin(pc: PC, registerIndex: Int): ValueOrigins = {
+        if (!evaluatedPCs.get(pc) || registerIndex >= localsCount(pc))
+            throw new IndexOutOfBoundsException(s"$pc: no register with index $registerIndex");
+
+        valueOrigins(localSets(localOffsets(pc) + registerIndex))
+    }
+
+    /** @see [[RecordDefUse.foreachLocalOrigin]] */
+    def foreachLocalOrigin[U](pc: PC, registerIndex: Int)(f: ValueOrigin => U): Unit = {
+        if (!evaluatedPCs.get(pc) || registerIndex >= localsCount(pc))
+            throw new IndexOutOfBoundsException(s"$pc: no register with index $registerIndex");
+
+        foreachValueOrigin(localSets(localOffsets(pc) + registerIndex))(f)
+    }
+
+    /**
+     * Returns the origins of the values stored in the registers of the instruction with the
+     * given pc or `null` if the instruction was not evaluated; uninitialized registers are
+     * represented by `null` values.
+     */
+    def localOrigins(pc: PC): IndexedSeq[ValueOrigins] = {
+        if (!evaluatedPCs.get(pc))
+            return null;
+
+        (localOffsets(pc) until localOffsets(pc + 1)).map(i => valueOrigins(localSets(i)))
+    }
+
+    /** @see [[RecordDefUse.usedBy]] */
+    def usedBy(valueOrigin: ValueOrigin): ValueOrigins = valueOrigins(usedSetId(valueOrigin))
+
+    /** @see [[RecordDefUse.foreachUsedBy]] */
+    def foreachUsedBy[U](valueOrigin: ValueOrigin)(f: ValueOrigin => U): Unit = {
+        foreachValueOrigin(usedSetId(valueOrigin))(f)
+    }
+
+    /** @see [[RecordDefUse.isUsed]] */
+    def isUsed(valueOrigin: ValueOrigin): Boolean = usedSetId(valueOrigin) != -1
+
+    /**
+     * Returns the instructions which use the (external) exception raised by the instruction
+     * with the given pc or `null` if the exception is not used.
+     */
+    def externalExceptionsUsedBy(pc: PC): ValueOrigins = {
+        valueOrigins(usedExternalExceptionSets(pc))
+    }
+
+    private[this] def operandsCount(pc: PC): Int = operandOffsets(pc + 1) - operandOffsets(pc)
+
+    private[this] def localsCount(pc: PC): Int = localOffsets(pc + 1) - localOffsets(pc)
+
+    private[this] def usedSetId(valueOrigin: ValueOrigin): Int = {
+        if (valueOrigin > ImmediateVMExceptionsOriginOffset)
+            usedSets(valueOrigin + parametersOffset)
+        else
+            usedExternalExceptionSets(underlyingPC(valueOrigin))
+    }
+
+    private[this] def foreachValueOrigin[U](setId: Int)(f: ValueOrigin => U): Unit = {
+        if (setId == -1)
+            return ;
+
+        var i = setOffsets(setId)
+        val end = setOffsets(setId + 1)
+        while (i < end) {
+            f(origins(i))
+            i += 1
+        }
+    }
+
+    private[this] def valueOrigins(setId: Int): ValueOrigins = {
+        if (setId == -1)
+            return null;
+
+        val start = setOffsets(setId)
+        val end = setOffsets(setId + 1)
+        if (end - start == 1)
+            return IntTrieSet1(origins(start));
+
+        var valueOrigins = IntTrieSet.empty
+        var i = start
+        while (i < end) {
+            valueOrigins += origins(i)
+            i += 1
+        }
+        valueOrigins
+    }
+}
+
+object CompactDefUse {
+
+    /**
+     * Creates the compact representation of the def/use information stored in the given
+     * arrays; see [[RecordDefUse]] for the structure of the arrays.
+     */
+    private[domain] def apply(
+        parametersOffset:       Int,
+        defOps:                 Array[List[ValueOrigins]],
+        defLocals:              Array[Registers[ValueOrigins]],
+        used:                   Array[ValueOrigins],
+        usedExternalExceptions: Array[ValueOrigins]
+    ): CompactDefUse = {
+        val codeSize = defOps.length
+
+        // The sets are shared (not just equal) whenever the underlying value is passed on
+        // unchanged; hence, an identity based map suffices to store each set only once.
+        val setIds = new Reference2IntOpenHashMap[ValueOrigins]()
+        setIds.defaultReturnValue(-1)
+        val setOffsets = ArrayBuilder.make[Int]
+        setOffsets += 0
+        val origins = ArrayBuilder.make[Int]
+        var originsCount = 0
+
+        def setId(valueOrigins: ValueOrigins): Int = {
+            if (valueOrigins eq null)
+                return -1;
+
+            val setId = setIds.getInt(valueOrigins)
+            if (setId != -1)
+                return setId;
+
+            val newSetId = setIds.size
+            setIds.put(valueOrigins, newSetId)
+            valueOrigins foreach { vo => origins += vo; originsCount += 1 }
+            setOffsets += originsCount
+            newSetId
+        }
+
+        val evaluatedPCs = new JBitSet(codeSize)
+        val operandOffsets = new Array[Int](codeSize + 1)
+        val operandSets = ArrayBuilder.make[Int]
+        var operandSetsCount = 0
+        val localOffsets = new Array[Int](codeSize + 1)
+        val localSets = ArrayBuilder.make[Int]
+        var localSetsCount = 0
+
+        var pc = 0
+        while (pc < codeSize) {
+            operandOffsets(pc) = operandSetsCount
+            localOffsets(pc) = localSetsCount
+            val ops = defOps(pc)
+            if (ops ne null) {
+                evaluatedPCs.set(pc)
+                ops foreach { op => operandSets += setId(op); operandSetsCount += 1 }
+                val locals = defLocals(pc)
+                if (locals ne null) {
+                    locals foreach { l => localSets += setId(l); localSetsCount += 1 }
+                }
+            }
+            pc += 1
+        }
+        operandOffsets(codeSize) = operandSetsCount
+        localOffsets(codeSize) = localSetsCount
+        val usedSets = used.map(setId)
+        val usedExternalExceptionSets = usedExternalExceptions.map(setId)
+
+        new CompactDefUse(
+            parametersOffset,
+            evaluatedPCs,
+            setOffsets.result(),
+            origins.result(),
+            operandOffsets,
+            operandSets.result(),
+            localOffsets,
+            localSets.result(),
+            usedSets,
+            usedExternalExceptionSets
+        )
+    }
+}
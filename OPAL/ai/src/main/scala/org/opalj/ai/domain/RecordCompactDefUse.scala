@@ -0,0 +1,26 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ai
+package domain
+
+/**
+ * Records the def/use information (see [[RecordDefUse]]), but stores it - after the abstract
+ * interpretation has ended - using a compact representation based on plain `int` arrays
+ * (see [[CompactDefUse]]).
+ *
+ * The compact representation requires significantly less memory, in particular, for methods
+ * with many instructions; hence, this domain should be used whenever the def/use information is
+ * kept alive for a longer period of time, e.g., when the results of abstract interpretations
+ * are cached. However, querying the information is slightly more expensive, because the
+ * returned sets of value origins are created on demand.
+ */
+trait RecordCompactDefUse extends RecordDefUse { defUseDomain: Domain with TheCode =>
+
+    abstract override def abstractInterpretationEnded(
+        aiResult: AIResult { val domain: defUseDomain.type }
+    ): Unit = {
+        super.abstractInterpretationEnded(aiResult)
+
+        if (!aiResult.wasAborted) compactDefUseInformation()
+    }
+}
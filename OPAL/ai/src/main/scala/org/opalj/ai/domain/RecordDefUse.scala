@@ -96,6 +96,10 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
     // negative values indicate that the values are parameters.
     private[this] var defLocals: Array[Registers[ValueOrigins]] = _ // initialized by initProperties
 
+    // The compact representation of the def/use information (see compactDefUseInformation);
+    // if available, the above arrays are no longer available.
+    private[this] var compactDefUse: CompactDefUse = _
+
     abstract override def initProperties(code: Code, cfJoins: IntTrieSet, locals: Locals): Unit = {
         val codeSize = code.codeSize
         val defOps = new Array[List[ValueOrigins]](codeSize)
@@ -120,6 +124,7 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
 
         this.used = new Array(codeSize + parametersOffset)
         this.usedExternalExceptions = new Array(codeSize)
+        this.compactDefUse = null
 
         super.initProperties(code, cfJoins, locals)
     }
@@ -148,13 +153,23 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
      * The first/top value on the stack has index 0 and the second value - if it exists -
      * has index two; independent of the computational category of the values.
      */
-    def operandOrigin(pc: PC, stackIndex: Int): ValueOrigins = defOps(pc)(stackIndex)
+    def operandOrigin(pc: PC, stackIndex: Int): ValueOrigins = {
+        if (compactDefUse ne null)
+            compactDefUse.operandOrigin(pc, stackIndex)
+        else
+            defOps(pc)(stackIndex)
+    }
 
     /**
      * Returns the instruction(s) which define(s) the value found in the register variable with
      * index `registerIndex` and the program counter `pc`.
      */
-    def localOrigin(pc: PC, registerIndex: Int): ValueOrigins = defLocals(pc)(registerIndex)
+    def localOrigin(pc: PC, registerIndex: Int): ValueOrigins = {
+        if (compactDefUse ne null)
+            compactDefUse.localOrigin(pc, registerIndex)
+        else
+            defLocals(pc)(registerIndex)
+    }
 
     /**
      * Returns the instructions which use the value or the external exception identified by
@@ -162,12 +177,65 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
      * the pc of the value origin pc is `ai.underlyingPC(valueOrigin)`
      */
     def usedBy(valueOrigin: ValueOrigin): ValueOrigins = {
-        if (valueOrigin > ImmediateVMExceptionsOriginOffset)
+        if (compactDefUse ne null)
+            compactDefUse.usedBy(valueOrigin)
+        else if (valueOrigin > ImmediateVMExceptionsOriginOffset)
             used(valueOrigin + parametersOffset)
         else
             usedExternalExceptions(underlyingPC(valueOrigin))
     }
 
+    /**
+     * Calls the given function for each instruction which defines the value found on the
+     * operand stack with the given index (see `operandOrigin`). Unlike `operandOrigin`, no set
+     * is created if the information is stored using the compact representation.
+     */
+    def foreachOperandOrigin[U](pc: PC, stackIndex: Int)(f: ValueOrigin => U): Unit = {
+        if (compactDefUse ne null)
+            compactDefUse.foreachOperandOrigin(pc, stackIndex)(f)
+        else
+            defOps(pc)(stackIndex).foreach(f)
+    }
+
+    /**
+     * Calls the given function for each instruction which defines the value found in the
+     * register with the given index (see `localOrigin`). Unlike `localOrigin`, no set is created
+     * if the information is stored using the compact representation.
+     */
+    def foreachLocalOrigin[U](pc: PC, registerIndex: Int)(f: ValueOrigin => U): Unit = {
+        if (compactDefUse ne null) {
+            compactDefUse.foreachLocalOrigin(pc, registerIndex)(f)
+        } else {
+            val origins = defLocals(pc)(registerIndex)
+            if (origins ne null) origins.foreach(f)
+        }
+    }
+
+    /**
+     * Calls the given function for each instruction which uses the value or the external
+     * exception identified by the given value origin (see `usedBy`). Unlike `usedBy`, no set is
+     * created if the information is stored using the compact representation.
+     */
+    def foreachUsedBy[U](valueOrigin: ValueOrigin)(f: ValueOrigin => U): Unit = {
+        if (compactDefUse ne null) {
+            compactDefUse.foreachUsedBy(valueOrigin)(f)
+        } else {
+            val usedBy = this.usedBy(valueOrigin)
+            if (usedBy ne null) usedBy.foreach(f)
+        }
+    }
+
+    /**
+     * Returns `true` if the value or the external exception identified by the given value origin
+     * is used; i.e., if `usedBy` would return a non-null value.
+     */
+    def isUsed(valueOrigin: ValueOrigin): Boolean = {
+        if (compactDefUse ne null)
+            compactDefUse.isUsed(valueOrigin)
+        else
+            this.usedBy(valueOrigin) ne null
+    }
+
     /**
      * Returns the instructions which use the value or the external exception identified by
      * the given value origin. Basically, the same as `usedBy` except that an empty set of
@@ -187,7 +255,11 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
      */
     def safeExternalExceptionsUsedBy(pc: Int): ValueOrigins = {
         // There is no offset to subtract over here, because external exceptions are never parameters!
-        val usedBy = usedExternalExceptions(pc)
+        val usedBy =
+            if (compactDefUse ne null)
+                compactDefUse.externalExceptionsUsedBy(pc)
+            else
+                usedExternalExceptions(pc)
         if (usedBy eq null)
             NoValueOrigins
         else
@@ -203,13 +275,11 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
 
         // 1. check if the parameters are used...
         val parametersOffset = this.parametersOffset
-        val defLocals0 = defLocals(0)
         var parameterIndex = 0
         while (parameterIndex < parametersOffset) {
-            if (defLocals0(parameterIndex) ne null) /*we may have parameters with comp. type 2*/ {
+            if (localOrigin(0, parameterIndex) ne null) /*we may have parameters with comp. type 2*/ {
                 val unusedParameter = -parameterIndex - 1
-                val usedBy = this.usedBy(unusedParameter)
-                if (usedBy eq null) { unused += unusedParameter }
+                if (!isUsed(unusedParameter)) { unused += unusedParameter }
             }
             parameterIndex += 1
         }
@@ -221,7 +291,7 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
                 // though it put a value on the stack, we don't have a new def-site.
                 instruction.expressionResult match {
                     case NoExpression        => // nothing to do
-                    case Stack | Register(_) => if (usedBy(pc) eq null) { unused += pc }
+                    case Stack | Register(_) => if (!isUsed(pc)) { unused += pc }
                 }
             }
         }
@@ -1303,6 +1373,39 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
         }
     }
 
+    /**
+     * Replaces the def/use information by a compact representation which only uses plain `int`
+     * arrays (see [[CompactDefUse]]). Afterwards, the information can no longer be updated.
+     *
+     * This method is intended to be called after the def/use information was computed; i.e.,
+     * at the end of `abstractInterpretationEnded`.
+     */
+    protected[this] def compactDefUseInformation(): Unit = {
+        if (compactDefUse ne null)
+            return ;
+
+        compactDefUse = CompactDefUse(parametersOffset, defOps, defLocals, used, usedExternalExceptions)
+        defOps = null
+        defLocals = null
+        used = null
+        usedExternalExceptions = null
+    }
+
+    // Returns the origins of the operands (top-most first) or null if the instruction is dead.
+    private[this] def operandOrigins(pc: PC): List[ValueOrigins] = {
+        if (compactDefUse ne null) compactDefUse.operandOrigins(pc) else defOps(pc)
+    }
+
+    // Returns the origins of the registers (in order) or null if the instruction is dead.
+    private[this] def localOrigins(pc: PC): Seq[ValueOrigins] = {
+        if (compactDefUse ne null) {
+            compactDefUse.localOrigins(pc)
+        } else {
+            val locals = defLocals(pc)
+            if (locals eq null) null else locals.toSeq.reverse
+        }
+    }
+
     // #############################################################################################
     // #
     // #
@@ -1325,7 +1428,7 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
     def dumpDefUseTable(): Node = {
         val instructions = code.instructions
         val perInstruction =
-            defOps.zip(defLocals).zipWithIndex.
+            instructions.indices.map(pc => (operandOrigins(pc), localOrigins(pc))).zipWithIndex.
                 filter(e => e._1._1 != null || e._1._2 != null).
                 map { e =>
                     val ((os, ls), i) = e
@@ -1341,7 +1444,7 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
                         if (ls eq null)
                             <i>{ "N/A" }</i>
                         else
-                            ls.toSeq.reverse.map { e =>
+                            ls.map { e =>
                                 <li>{ if (e eq null) "N/A" else e.mkString("{", ",", "}") }</li>
                             }
 
@@ -1381,11 +1484,14 @@ trait RecordDefUse extends RecordCFG { defUseDomain: Domain with TheCode =>
 
         // 1. create set of all def sites
         var defSites: Set[ValueOrigin] = Set.empty
-        defOps.iterator.filter(_ ne null).foreach { _.foreach { _.foreach { defSites += _ } } }
+        val pcs = code.instructions.indices
+        pcs.iterator.map(operandOrigins).filter(_ ne null).foreach {
+            _.foreach { _.foreach { defSites += _ } }
+        }
         for {
-            defLocalsPerPC <- this.defLocals
+            defLocalsPerPC <- pcs.iterator.map(localOrigins)
             if defLocalsPerPC ne null
-            defLocalsPerPCPerRegister <- defLocalsPerPC.toSeq
+            defLocalsPerPCPerRegister <- defLocalsPerPC
             if defLocalsPerPCPerRegister ne null
             valueOrigin <- defLocalsPerPCPerRegister
         } {
@@ -0,0 +1,181 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ai
+package domain
+package l2
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.collection.immutable.ArraySeq
+
+import org.opalj.value.AProperSObjectValue
+import org.opalj.value.ASArrayValue
+import org.opalj.value.IsIntegerValue
+import org.opalj.value.IsNullValue
+import org.opalj.value.IsPrimitiveValue
+import org.opalj.value.IsReferenceValue
+import org.opalj.value.TheIntegerValue
+import org.opalj.value.ValueInformation
+import org.opalj.br.ArrayType
+import org.opalj.br.ClassHierarchy
+import org.opalj.br.Method
+import org.opalj.br.ObjectType
+import org.opalj.br.analyses.ProjectInformationKey
+import org.opalj.br.analyses.SomeProject
+
+/**
+ * The domain independent summary of the result of the invocation of a method.
+ */
+sealed abstract class CalleeSummary
+
+object CalleeSummary {
+
+    /** The called method returns normally, but does not return a value. */
+    case object ReturnsVoid extends CalleeSummary
+
+    /** The called method never returns normally. */
+    case object AlwaysThrowsException extends CalleeSummary
+
+    /**
+     * The called method returns the operand with the given index (the operand at index 0 is
+     * the last argument).
+     */
+    case class ReturnsOperand(index: Int) extends CalleeSummary
+
+    /** The called method returns a value which is described by the given value information. */
+    case class ReturnsValue(value: ValueInformation) extends CalleeSummary
+}
+
+/**
+ * A thread-safe cache of the summaries of the results of the abstract interpretations of
+ * called methods. A summary is stored per method and the canonical form (see
+ * [[CalleeSummaries.canonicalForm]]) of the arguments of the invocation; i.e., the summary is
+ * valid for all invocations where the arguments have the same canonical form.
+ *
+ * To bound the size of the cache, at most `maxSummariesPerMethod` summaries are stored for the
+ * arguments as is. Afterwards, the arguments of further invocations are generalized
+ * (see [[widen]]) to their (declared) types. Overall, at most `maxSummaries` summaries are
+ * stored; afterwards, new summaries are no longer stored.
+ *
+ * @see [[CalleeSummariesKey]] to get the cache which is shared by all domains of a project.
+ */
+class CalleeSummaries(
+        val maxSummariesPerMethod: Int = CalleeSummaries.DefaultMaxSummariesPerMethod,
+        val maxSummaries:          Int = CalleeSummaries.DefaultMaxSummaries
+)(
+        implicit
+        classHierarchy: ClassHierarchy
+) {
+
+    private[this] val summaries = {
+        new ConcurrentHashMap[Method, ConcurrentHashMap[ArraySeq[ValueInformation], CalleeSummary]]()
+    }
+
+    private[this] val summariesCount = new AtomicInteger(0)
+
+    /**
+     * The number of stored summaries.
+     */
+    def size: Int = summariesCount.get
+
+    /**
+     * Returns the arguments – given in canonical form and in declaration order – which are used to
+     * look up and to store the summary of an invocation of the given method with the given
+     * arguments. The arguments are generalized if too many different arguments were
+     * already used to invoke the method.
+     */
+    def summarizedArguments(
+        method:    Method,
+        arguments: ArraySeq[ValueInformation]
+    ): ArraySeq[ValueInformation] = {
+        val methodSummaries = summaries.get(method)
+        if ((methodSummaries ne null) &&
+            methodSummaries.size >= maxSummariesPerMethod &&
+            !methodSummaries.containsKey(arguments)) {
+            arguments.map(widen)
+        } else {
+            arguments
+        }
+    }
+
+    /**
+     * Generalizes the given value to the type of the value; only the nullness of reference
+     * values is kept.
+     */
+    protected def widen(value: ValueInformation): ValueInformation = {
+        value match {
+            case _: IsNullValue => value
+            case v: IsReferenceValue =>
+                v.leastUpperType match {
+                    case Some(objectType: ObjectType) =>
+                        AProperSObjectValue(v.isNull, classHierarchy.isKnownToBeFinal(objectType), objectType)
+                    case Some(arrayType: ArrayType) =>
+                        ASArrayValue(v.isNull, classHierarchy.isKnownToBeFinal(arrayType), arrayType)
+                    case None => value
+                }
+            case v: IsPrimitiveValue[_] => ValueInformation.forProperValue(v.primitiveType)
+            case _                      => value
+        }
+    }
+
+    /**
+     * Returns the summary of the invocation of the given method with the given (summarized)
+     * arguments if available.
+     */
+    def get(method: Method, arguments: ArraySeq[ValueInformation]): Option[CalleeSummary] = {
+        val methodSummaries = summaries.get(method)
+        if (methodSummaries eq null)
+            None
+        else
+            Option(methodSummaries.get(arguments))
+    }
+
+    /**
+     * Stores the summary of the invocation of the given method with the given (summarized)
+     * arguments unless the cache is full.
+     */
+    def put(method: Method, arguments: ArraySeq[ValueInformation], summary: CalleeSummary): Unit = {
+        if (summariesCount.get < maxSummaries) {
+            val methodSummaries = summaries.computeIfAbsent(method, _ => new ConcurrentHashMap())
+            if (methodSummaries.putIfAbsent(arguments, summary) eq null) {
+                summariesCount.incrementAndGet()
+            }
+        }
+    }
+}
+
+object CalleeSummaries {
+
+    final val DefaultMaxSummariesPerMethod = 8
+
+    final val DefaultMaxSummaries = 1 << 20
+
+    /**
+     * Returns the canonical form of the given value; in addition to
+     * [[org.opalj.value.ValueInformation.toCanonicalForm]], integer values for which
+     * the precise value is known are represented by the respective [[TheIntegerValue]].
+     */
+    def canonicalForm(value: ValueInformation): ValueInformation = {
+        value match {
+            case v: IsIntegerValue if v.lowerBound == v.upperBound => TheIntegerValue(v.lowerBound)
+            case _                                                 => value.toCanonicalForm
+        }
+    }
+}
+
+/**
+ * Key to get the [[CalleeSummaries]] which are shared by all domains of a project that
+ * use summaries of called methods (see [[SharedCalleeSummaries]]).
+ */
+object CalleeSummariesKey extends ProjectInformationKey[CalleeSummaries, Nothing] {
+
+    /**
+     * The CalleeSummariesKey has no special prerequisites.
+     */
+    override def requirements(project: SomeProject): Seq[ProjectInformationKey[Nothing, Nothing]] = Nil
+
+    override def compute(project: SomeProject): CalleeSummaries = {
+        new CalleeSummaries()(project.classHierarchy)
+    }
+}
@@ -9,6 +9,9 @@ import org.opalj.br.analyses.Project
 
 /**
  * Performs a simple invocation of the immediately called methods.
+ *
+ * To share the summaries of the invocations with all other domains of the same project, mix in
+ * [[SharedCalleeSummaries]].
  */
 class DefaultPerformInvocationsDomain[Source](
         project: Project[Source],
@@ -4,14 +4,21 @@ package ai
 package domain
 package l2
 
+import scala.collection.immutable.ArraySeq
+
 import org.opalj.log.OPALLogger
 import org.opalj.log.Warn
 import org.opalj.log.Error
+import org.opalj.value.ValueInformation
 import org.opalj.br.Method
 import org.opalj.br.VoidType
 import org.opalj.br.ObjectType
 import org.opalj.br.ReferenceType
 import org.opalj.br.MethodDescriptor
+import org.opalj.ai.domain.l2.CalleeSummary.AlwaysThrowsException
+import org.opalj.ai.domain.l2.CalleeSummary.ReturnsOperand
+import org.opalj.ai.domain.l2.CalleeSummary.ReturnsValue
+import org.opalj.ai.domain.l2.CalleeSummary.ReturnsVoid
 
 /**
  * Mix in this trait if methods that are called by `invokeXYZ` instructions should
@@ -44,6 +51,18 @@ trait PerformInvocations extends MethodCallsHandling {
      */
     def calledMethodAI: AI[_ >: CalledMethodDomain]
 
+    /**
+     * The cache of the summaries of called methods which is used to avoid interpreting the
+     * same method with the same arguments again; if `None`, called methods are always
+     * interpreted.
+     *
+     * The summaries are only used if `useExceptionsThrownByCalledMethod` is `false`.
+     *
+     * @note A cache must only be shared by domains which use the same kind of
+     *       [[CalledMethodDomain]] and the same [[calledMethodAI]].
+     */
+    def calleeSummaries: Option[CalleeSummaries] = None
+
     protected[this] def doInvoke(
         method:             Method,
         calledMethodDomain: CalledMethodDomain
@@ -142,14 +161,84 @@ trait PerformInvocations extends MethodCallsHandling {
                 s"${method.toJava} does not have a body (is the project self-consistent?)"
         )
 
-        val calledMethodDomain = this.calledMethodDomain(method)
-        val parameters = mapOperandsToParameters(operands, method, calledMethodDomain)
-        val aiResult = doInvoke(method, calledMethodDomain)(parameters)
+        calleeSummaries match {
+            case Some(summaries) if !useExceptionsThrownByCalledMethod =>
+                doInvokeUsingSummaries(pc, method, operands, fallback, summaries)
+            case _ =>
+                val calledMethodDomain = this.calledMethodDomain(method)
+                val parameters = mapOperandsToParameters(operands, method, calledMethodDomain)
+                val aiResult = doInvoke(method, calledMethodDomain)(parameters)
 
-        if (aiResult.wasAborted)
-            fallback()
-        else
-            transformResult(pc, method, operands, calledMethodDomain)(parameters, aiResult)
+                if (aiResult.wasAborted)
+                    fallback()
+                else
+                    transformResult(pc, method, operands, calledMethodDomain)(parameters, aiResult)
+        }
+    }
+
+    /**
+     * Performs the invocation of the given method using the summary of a previous invocation
+     * with the same (summarized) arguments if available. Otherwise, the method is interpreted
+     * using operands which only capture the summarized arguments to ensure that the result is
+     * valid for all invocations with the same summarized arguments.
+     */
+    private[this] def doInvokeUsingSummaries(
+        pc:        Int,
+        method:    Method,
+        operands:  Operands,
+        fallback:  () => MethodCallResult,
+        summaries: CalleeSummaries
+    ): MethodCallResult = {
+        // the operands are stored in reverse order
+        val arguments = summaries.summarizedArguments(
+            method,
+            operands.foldLeft(List.empty[ValueInformation]) { (args, op) =>
+                CalleeSummaries.canonicalForm(op) :: args
+            }.to(ArraySeq)
+        )
+        val summary = summaries.get(method, arguments) match {
+            case Some(summary) => summary
+            case None =>
+                val summarizedOperands = arguments.foldLeft(List.empty[DomainValue]) { (ops, arg) =>
+                    InitializedDomainValue(pc, arg) :: ops
+                }
+                val calledMethodDomain = this.calledMethodDomain(method)
+                val parameters = mapOperandsToParameters(summarizedOperands, method, calledMethodDomain)
+                val aiResult = doInvoke(method, calledMethodDomain)(parameters)
+                if (aiResult.wasAborted)
+                    return fallback();
+
+                // returned parameters are mapped back to the summarized operands
+                val result = transformResult(
+                    pc, method, summarizedOperands, calledMethodDomain
+                )(
+                    parameters, aiResult
+                )
+                def summarizeValue(value: DomainValue): CalleeSummary = {
+                    val index = summarizedOperands.indexWhere(_ eq value)
+                    if (index >= 0) ReturnsOperand(index)
+                    else ReturnsValue(CalleeSummaries.canonicalForm(value))
+                }
+                val summary = result match {
+                    case ComputedValue(value)                       => summarizeValue(value)
+                    case ComputedValueOrException(value, _)         => summarizeValue(value)
+                    case ThrowsException(_)                         => AlwaysThrowsException
+                    case _: ComputationWithSideEffectOrException[_] => ReturnsVoid
+                    case ComputationWithSideEffectOnly              => ReturnsVoid
+                    case _                                          => return result;
+                }
+                summaries.put(method, arguments, summary)
+                summary
+        }
+
+        // the first and all further invocations use the summary to get the same results
+        val exceptions = getPotentialExceptions(pc)
+        summary match {
+            case ReturnsVoid           => MethodCallResult(exceptions)
+            case AlwaysThrowsException => ThrowsException(exceptions)
+            case ReturnsOperand(index) => MethodCallResult(operands(index), exceptions)
+            case ReturnsValue(value)   => MethodCallResult(InitializedDomainValue(pc, value), exceptions)
+        }
     }
 
     protected[this] def testAndDoInvoke(
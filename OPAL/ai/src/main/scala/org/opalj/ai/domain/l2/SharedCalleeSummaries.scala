@@ -0,0 +1,23 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ai
+package domain
+package l2
+
+/**
+ * Mix in this trait to use the summaries of called methods which are shared by all domains of
+ * the project (see [[CalleeSummariesKey]]); i.e., a called method is only interpreted once per
+ * (canonical form of its) arguments.
+ *
+ * The results of the calling method may differ from the results computed without summaries,
+ * because the called method is interpreted using the canonical forms of the arguments.
+ *
+ * @note All domains of a project which mix in this trait must use the same kind of
+ *       `CalledMethodDomain` and the same `calledMethodAI`.
+ */
+trait SharedCalleeSummaries extends PerformInvocations {
+    callingDomain: ValuesFactory with ReferenceValuesDomain with Configuration with TheProject with TheCode =>
+
+    override val calleeSummaries: Option[CalleeSummaries] = Some(project.get(CalleeSummariesKey))
+
+}
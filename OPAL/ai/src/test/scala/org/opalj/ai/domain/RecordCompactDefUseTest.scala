@@ -0,0 +1,78 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ai
+package domain
+
+import java.net.URL
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.Method
+import org.opalj.br.analyses.Project
+
+/**
+ * Tests that the compact representation of the def/use information is identical to the
+ * default representation.
+ */
+@RunWith(classOf[JUnitRunner])
+class RecordCompactDefUseTest extends AnyFlatSpec with Matchers {
+
+    val project: Project[URL] = Project(locateTestResources("ai.jar", "bi"))
+
+    class CompactDefUseDomain(project: Project[URL], method: Method)
+        extends l1.DefaultDomainWithCFGAndDefUse(project, method)
+        with RecordCompactDefUse
+
+    behavior of "the compact def/use information"
+
+    it should "be identical to the default def/use information" in {
+        var comparedMethodsCount = 0
+        project.allMethodsWithBody foreach { m =>
+            val d = BaseAI(m, new l1.DefaultDomainWithCFGAndDefUse(project, m)).domain
+            val aiResult = BaseAI(m, new CompactDefUseDomain(project, m))
+            val cd = aiResult.domain
+
+            val code = m.body.get
+            for {
+                (ops, pc) <- aiResult.operandsArray.iterator.zipWithIndex
+                if ops ne null
+            } {
+                ops.indices foreach { stackIndex =>
+                    cd.operandOrigin(pc, stackIndex) should be(d.operandOrigin(pc, stackIndex))
+                    var origins = IntTrieSet.empty
+                    cd.foreachOperandOrigin(pc, stackIndex) { origins += _ }
+                    origins should be(d.operandOrigin(pc, stackIndex))
+                }
+                (0 until code.maxLocals) foreach { registerIndex =>
+                    cd.localOrigin(pc, registerIndex) should be(d.localOrigin(pc, registerIndex))
+                    var origins = IntTrieSet.empty
+                    cd.foreachLocalOrigin(pc, registerIndex) { origins += _ }
+                    origins should be(Option(d.localOrigin(pc, registerIndex)).getOrElse(IntTrieSet.empty))
+                }
+                cd.usedBy(pc) should be(d.usedBy(pc))
+                cd.isUsed(pc) should be(d.usedBy(pc) ne null)
+                var usedBy = IntTrieSet.empty
+                cd.foreachUsedBy(pc) { usedBy += _ }
+                usedBy should be(d.safeUsedBy(pc))
+                cd.safeExternalExceptionsUsedBy(pc) should be(d.safeExternalExceptionsUsedBy(pc))
+            }
+            for {
+                registerIndex <- 0 until code.maxLocals
+                parameters = d.localOrigin(0, registerIndex)
+                if parameters ne null
+                parameter <- parameters.iterator
+            } {
+                cd.usedBy(parameter) should be(d.usedBy(parameter))
+            }
+            cd.unused should be(d.unused)
+            cd.dumpDefUseTable().toString should be(d.dumpDefUseTable().toString)
+            comparedMethodsCount += 1
+        }
+        info(s"compared the def/use information of $comparedMethodsCount methods")
+    }
+}
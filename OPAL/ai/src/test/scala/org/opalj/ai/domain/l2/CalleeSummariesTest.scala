@@ -0,0 +1,85 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ai
+package domain
+package l2
+
+import scala.collection.immutable.ArraySeq
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.value.AnIntegerValue
+import org.opalj.value.TheIntegerValue
+import org.opalj.br.Method
+import org.opalj.br.analyses.Project
+
+/**
+ * Tests that the summaries of called methods are shared across domains.
+ */
+@RunWith(classOf[JUnitRunner])
+class CalleeSummariesTest extends AnyFlatSpec with Matchers {
+
+    import PerformInvocationsTestFixture._
+
+    behavior of "the summaries of called methods"
+
+    class SummarizingDomain(
+            project:                      Project[java.net.URL],
+            method:                       Method,
+            override val calleeSummaries: Option[CalleeSummaries]
+    ) extends DefaultPerformInvocationsDomain[java.net.URL](project, method)
+        with DefaultRecordMethodCallResults
+
+    it should "only be used by the DefaultPerformInvocationsDomain if requested" in {
+        val method = StaticCalls.findMethod("callDivBy4").head
+
+        new DefaultPerformInvocationsDomain(project, method).calleeSummaries should be(None)
+
+        val domain = new DefaultPerformInvocationsDomain(project, method) with SharedCalleeSummaries
+        domain.calleeSummaries.get should be theSameInstanceAs project.get(CalleeSummariesKey)
+    }
+
+    it should "be reused when the same method is analyzed again" in {
+        val summaries = new CalleeSummaries()(project.classHierarchy)
+        val method = StaticCalls.findMethod("callDivBy4").head
+
+        val domain1 = new SummarizingDomain(project, method, Some(summaries))
+        BaseAI(method, domain1)
+        domain1.returnedValue(domain1, -1).flatMap(domain1.intValueOption(_)) should equal(Some(25))
+        val summariesCount = summaries.size
+        summariesCount should be > 0
+
+        val domain2 = new SummarizingDomain(project, method, Some(summaries))
+        BaseAI(method, domain2)
+        domain2.returnedValue(domain2, -1).flatMap(domain2.intValueOption(_)) should equal(Some(25))
+        summaries.size should be(summariesCount)
+    }
+
+    it should "map returned parameters to the operands of the calling method" in {
+        val summaries = new CalleeSummaries()(project.classHierarchy)
+        val method = StaticCalls.findMethod("uselessReferenceTest").head
+
+        // the first invocation computes the summary, the second one uses it
+        for { _ <- 1 to 2 } {
+            val domain = new SummarizingDomain(project, method, Some(summaries))
+            BaseAI(method, domain)
+            // the returned value is only known to be "true" if "o" is mapped back to "o"
+            domain.returnedValue(domain, -1).flatMap(domain.intValueOption(_)) should equal(Some(1))
+        }
+        summaries.size should be(1)
+    }
+
+    it should "generalize the arguments if a method was called with too many different arguments" in {
+        val summaries = new CalleeSummaries(maxSummariesPerMethod = 1)(project.classHierarchy)
+        val method = StaticCalls.findMethod("divBy4").head
+
+        val arguments = ArraySeq(TheIntegerValue(100))
+        summaries.summarizedArguments(method, arguments) should be(arguments)
+        summaries.put(method, arguments, CalleeSummary.ReturnsValue(TheIntegerValue(25)))
+        summaries.summarizedArguments(method, arguments) should be(arguments)
+        summaries.summarizedArguments(method, ArraySeq(TheIntegerValue(8))) should be(ArraySeq(AnIntegerValue))
+    }
+}
@@ -5,6 +5,8 @@ package checking
 
 import scala.collection.Set
 
+import org.opalj.br.VirtualSourceElement
+
 /**
  * An architecture checker validates if the implemented architecture
  * complies with the expected/specified one.
@@ -15,6 +17,24 @@ sealed trait ArchitectureChecker {
 
     def violations(): Set[SpecificationViolation]
 
+    /**
+     * Determines the violations after some classes have changed.
+     *
+     * By default, all violations are recomputed. Checkers whose violations only depend on
+     * the involved source elements can reuse those previous violations that do not
+     * involve an element of a changed class.
+     *
+     * @param previousViolations The violations found by the corresponding checker before
+     *        the classes were changed.
+     * @param isChanged Returns `true` if the source element belongs to a changed class.
+     */
+    def violations(
+        previousViolations: Set[SpecificationViolation],
+        isChanged:          VirtualSourceElement => Boolean
+    ): Set[SpecificationViolation] = {
+        violations()
+    }
+
 }
 
 /**
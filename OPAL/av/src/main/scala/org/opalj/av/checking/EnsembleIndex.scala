@@ -0,0 +1,98 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package av
+package checking
+
+import java.util.Arrays
+
+import scala.collection.Map
+import scala.collection.Set
+
+import org.opalj.br.VirtualSourceElement
+import org.opalj.de.ColumnarDependencyStore
+
+/**
+ * Maps the ids of the source elements of a [[org.opalj.de.ColumnarDependencyStore]] to the
+ * ensembles they belong to. The ensembles of a source element are stored in a bit set (one
+ * bit per ensemble); hence, testing whether an element belongs to one of a set of ensembles
+ * only requires the intersection of two (usually one word long) bit sets.
+ *
+ * @param ensembles The ensembles and their extensions.
+ */
+final class EnsembleIndex(
+        val dependencyStore: ColumnarDependencyStore,
+        ensembles:           Map[Symbol, Set[VirtualSourceElement]]
+) {
+
+    private[this] val ensembleIds: Map[Symbol, Int] = ensembles.keys.zipWithIndex.toMap
+
+    private[this] val words: Int = (ensembleIds.size + 63) / 64
+
+    private[this] val memberships: Array[Long] = {
+        new Array[Long](dependencyStore.sourceElementsCount * words)
+    }
+
+    private[this] val membersIds: Array[Array[Int]] = {
+        val membersIds = new Array[Array[Int]](ensembleIds.size)
+        ensembles foreach { e =>
+            val (ensemble, extension) = e
+            val ensembleId = ensembleIds(ensemble)
+            val wordIndex = ensembleId >> 6
+            val bit = 1L << ensembleId
+            val ids = new Array[Int](extension.size)
+            var idsCount = 0
+            extension foreach { sourceElement =>
+                val id = dependencyStore.sourceElementId(sourceElement)
+                if (id >= 0) {
+                    memberships(id * words + wordIndex) |= bit
+                    ids(idsCount) = id
+                    idsCount += 1
+                }
+            }
+            val sortedIds = Arrays.copyOf(ids, idsCount)
+            Arrays.sort(sortedIds)
+            membersIds(ensembleId) = sortedIds
+        }
+        membersIds
+    }
+
+    /**
+     * The ids of those members of the given ensemble that have (incoming or outgoing)
+     * dependencies; the ids are sorted in ascending order.
+     */
+    def members(ensemble: Symbol): Array[Int] = membersIds(ensembleIds(ensemble))
+
+    /** Creates the bit set which represents the given ensembles. */
+    def mask(ensembles: Iterable[Symbol]): Array[Long] = {
+        val mask = new Array[Long](words)
+        ensembles foreach { ensemble =>
+            val ensembleId = ensembleIds(ensemble)
+            mask(ensembleId >> 6) |= 1L << ensembleId
+        }
+        mask
+    }
+
+    /** Returns `true` if the element with the given id belongs to one of the ensembles. */
+    def belongsToAny(id: Int, mask: Array[Long]): Boolean = {
+        val offset = id * words
+        var i = 0
+        while (i < words) {
+            if ((memberships(offset + i) & mask(i)) != 0L)
+                return true;
+            i += 1
+        }
+        false
+    }
+
+    /** Returns `true` if the element with the given id belongs to some ensemble. */
+    def isMatched(id: Int): Boolean = {
+        val offset = id * words
+        var i = 0
+        while (i < words) {
+            if (memberships(offset + i) != 0L)
+                return true;
+            i += 1
+        }
+        false
+    }
+}
@@ -142,6 +142,14 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
 
     private[this] var unmatchedSourceElements: ASet[VirtualSourceElement] = mutable.HashSet.empty
 
+    // calculated when analyze is called; used to incrementally analyze a changed project
+    @volatile private var theDependencyStore: ColumnarDependencyStore = null
+
+    @volatile private[this] var ensembleIndex: EnsembleIndex = null
+
+    // the violations found by each architecture checker (identified by its textual description)
+    @volatile private var theViolations: AMap[String, ASet[SpecificationViolation]] = AMap.empty
+
     /**
      * Adds a new ensemble definition to this architecture specification.
      *
@@ -217,6 +225,70 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
 
     var architectureCheckers: List[ArchitectureChecker] = Nil
 
+    private[this] def theEnsembleIndex: EnsembleIndex = {
+        val index = ensembleIndex
+        if (index eq null)
+            throw SpecificationError("the extensions of the ensembles are not yet determined")
+        index
+    }
+
+    private[this] val AllChanged: VirtualSourceElement => Boolean = _ => true
+
+    private[this] def dependencyTypesBitSet(
+        dependencyTypes: Set[DependencyType]
+    ): DependencyTypesBitSet = {
+        dependencyTypes.foldLeft(0L)(_ | DependencyTypes.bitMask(_))
+    }
+
+    private[this] def foreachDependencyType[U](
+        dTypes: DependencyTypesBitSet
+    )(
+        f: DependencyType => U
+    ): Unit = {
+        var remainingDTypes = dTypes
+        while (remainingDTypes != 0L) {
+            f(DependencyTypes(java.lang.Long.numberOfTrailingZeros(remainingDTypes)))
+            remainingDTypes &= remainingDTypes - 1L
+        }
+    }
+
+    /**
+     * Computes the violations related to the source elements with the given ids in parallel.
+     */
+    private[this] def collectViolations(
+        ids: Array[Int]
+    )(
+        f: Int => List[SpecificationViolation]
+    ): ASet[SpecificationViolation] = {
+        immutable.ArraySeq.unsafeWrapArray(ids).par.flatMap(f).seq.toSet
+    }
+
+    /**
+     * Returns those of the given violations that involve no element of a changed class;
+     * the violations are adapted to this specification.
+     */
+    private[this] def unaffectedViolations(
+        previousViolations: ASet[SpecificationViolation],
+        isChanged:          VirtualSourceElement => Boolean,
+        checker:            DependencyChecker
+    ): ASet[SpecificationViolation] = {
+        previousViolations collect {
+            case v: DependencyViolation if !isChanged(v.source) && !isChanged(v.target) =>
+                v.copy(project = project, dependencyChecker = checker)
+        }
+    }
+
+    private[this] def unaffectedViolations(
+        previousViolations: ASet[SpecificationViolation],
+        isChanged:          VirtualSourceElement => Boolean,
+        checker:            PropertyChecker
+    ): ASet[SpecificationViolation] = {
+        previousViolations collect {
+            case v: PropertyViolation if !isChanged(v.source) =>
+                v.copy(project = project, propertyChecker = checker)
+        }
+    }
+
     case class GlobalIncomingConstraint(
             targetEnsemble:  Symbol,
             sourceEnsembles: Seq[Symbol]
@@ -224,27 +296,43 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
 
         override def targetEnsembles: Seq[Symbol] = Seq(targetEnsemble)
 
-        override def violations(): ASet[SpecificationViolation] = {
-            val sourceEnsembleElements =
-                sourceEnsembles.foldLeft(Set[VirtualSourceElement]())(_ ++ ensembles(_)._2)
-            val (_, targetEnsembleElements) = ensembles(targetEnsemble)
-            for {
-                targetEnsembleElement <- targetEnsembleElements
-                if incomingDependencies.contains(targetEnsembleElement)
-                (incomingElement, dependencyType) <- incomingDependencies(targetEnsembleElement)
-                if !(
-                    sourceEnsembleElements.contains(incomingElement) ||
-                    targetEnsembleElements.contains(incomingElement)
-                )
-            } yield {
-                DependencyViolation(
-                    project,
-                    this,
-                    incomingElement,
-                    targetEnsembleElement,
-                    dependencyType,
-                    "not allowed global incoming dependency found"
-                )
+        override def violations(): ASet[SpecificationViolation] = dependencyViolations(AllChanged)
+
+        override def violations(
+            previousViolations: ASet[SpecificationViolation],
+            isChanged:          VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            unaffectedViolations(previousViolations, isChanged, this) ++ dependencyViolations(isChanged)
+        }
+
+        private[this] def dependencyViolations(
+            isChanged: VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            val index = theEnsembleIndex
+            val dependencyStore = index.dependencyStore
+            val allowedSources = index.mask(targetEnsemble +: sourceEnsembles)
+            collectViolations(index.members(targetEnsemble)) { targetId =>
+                val targetEnsembleElement = dependencyStore.sourceElement(targetId)
+                val targetChanged = isChanged(targetEnsembleElement)
+                var violations: List[SpecificationViolation] = Nil
+                dependencyStore.foreachSource(targetId) { (sourceId, dTypes) =>
+                    if (!index.belongsToAny(sourceId, allowedSources)) {
+                        val incomingElement = dependencyStore.sourceElement(sourceId)
+                        if (targetChanged || isChanged(incomingElement)) {
+                            foreachDependencyType(dTypes) { dependencyType =>
+                                violations ::= DependencyViolation(
+                                    project,
+                                    this,
+                                    incomingElement,
+                                    targetEnsembleElement,
+                                    dependencyType,
+                                    "not allowed global incoming dependency found"
+                                )
+                            }
+                        }
+                    }
+                }
+                violations
             }
         }
 
@@ -283,27 +371,46 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
                     unknownEnsembles.mkString("unknown ensemble(s): ", ",", "")
                 )
 
-            val (_ /*ensembleName*/ , sourceEnsembleElements) = ensembles(sourceEnsemble)
-            val notAllowedTargetSourceElements =
-                targetEnsembles.foldLeft(Set.empty[VirtualSourceElement])(_ ++ ensembles(_)._2)
+            dependencyViolations(AllChanged)
+        }
 
-            for {
-                sourceElement <- sourceEnsembleElements
-                targets = outgoingDependencies.get(sourceElement)
-                if targets.isDefined
-                (targetElement, currentDependencyTypes) <- targets.get
-                currentDependencyType <- currentDependencyTypes
-                if ((notAllowedTargetSourceElements contains targetElement) &&
-                    ((dependencyTypes equals USE) || (dependencyTypes contains currentDependencyType)))
-            } yield {
-                DependencyViolation(
-                    project,
-                    this,
-                    sourceElement,
-                    targetElement,
-                    currentDependencyType,
-                    "not allowed local outgoing dependency found"
-                )
+        override def violations(
+            previousViolations: ASet[SpecificationViolation],
+            isChanged:          VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            unaffectedViolations(previousViolations, isChanged, this) ++ dependencyViolations(isChanged)
+        }
+
+        private[this] def dependencyViolations(
+            isChanged: VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            val index = theEnsembleIndex
+            val dependencyStore = index.dependencyStore
+            val notAllowedTargets = index.mask(targetEnsembles)
+            val checkedDependencyTypes = dependencyTypesBitSet(dependencyTypes)
+            collectViolations(index.members(sourceEnsemble)) { sourceId =>
+                val sourceElement = dependencyStore.sourceElement(sourceId)
+                val sourceChanged = isChanged(sourceElement)
+                var violations: List[SpecificationViolation] = Nil
+                dependencyStore.foreachTarget(sourceId) { (targetId, dTypes) =>
+                    val violatingDTypes = dTypes & checkedDependencyTypes
+                    if (violatingDTypes != 0L && index.belongsToAny(targetId, notAllowedTargets)) {
+                        val targetElement = dependencyStore.sourceElement(targetId)
+                        if (sourceChanged || isChanged(targetElement)) {
+                            foreachDependencyType(violatingDTypes) { dependencyType =>
+                                violations ::= DependencyViolation(
+                                    project,
+                                    this,
+                                    sourceElement,
+                                    targetElement,
+                                    dependencyType,
+                                    "not allowed local outgoing dependency found"
+                                )
+                            }
+                        }
+                    }
+                }
+                violations
             }
         }
 
@@ -350,31 +457,51 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
                     unknownEnsembles.mkString("unknown ensemble(s): ", ",", "")
                 )
 
-            val (_ /*ensembleName*/ , sourceEnsembleElements) = ensembles(sourceEnsemble)
-            val allAllowedLocalTargetSourceElements =
-                // self references are allowed as well as references to source elements belonging
-                // to a target ensemble
-                targetEnsembles.foldLeft(sourceEnsembleElements)(_ ++ ensembles(_)._2)
+            dependencyViolations(AllChanged)
+        }
 
-            for {
-                sourceElement <- sourceEnsembleElements
-                targets = outgoingDependencies.get(sourceElement)
-                if targets.isDefined
-                (targetElement, currentDependencyTypes) <- targets.get
-                currentDependencyType <- currentDependencyTypes
-                if (!(allAllowedLocalTargetSourceElements contains targetElement) &&
-                    ((dependencyTypes equals USE) || (dependencyTypes contains currentDependencyType)))
-                // references to unmatched source elements are ignored
-                if !(unmatchedSourceElements contains targetElement)
-            } yield {
-                DependencyViolation(
-                    project,
-                    this,
-                    sourceElement,
-                    targetElement,
-                    currentDependencyType,
-                    "violation of a local outgoing dependency constraint"
-                )
+        override def violations(
+            previousViolations: ASet[SpecificationViolation],
+            isChanged:          VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            unaffectedViolations(previousViolations, isChanged, this) ++ dependencyViolations(isChanged)
+        }
+
+        private[this] def dependencyViolations(
+            isChanged: VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            val index = theEnsembleIndex
+            val dependencyStore = index.dependencyStore
+            // self references are allowed as well as references to source elements belonging
+            // to a target ensemble
+            val allowedTargets = index.mask(sourceEnsemble +: targetEnsembles)
+            val checkedDependencyTypes = dependencyTypesBitSet(dependencyTypes)
+            collectViolations(index.members(sourceEnsemble)) { sourceId =>
+                val sourceElement = dependencyStore.sourceElement(sourceId)
+                val sourceChanged = isChanged(sourceElement)
+                var violations: List[SpecificationViolation] = Nil
+                dependencyStore.foreachTarget(sourceId) { (targetId, dTypes) =>
+                    val violatingDTypes = dTypes & checkedDependencyTypes
+                    if (violatingDTypes != 0L &&
+                        !index.belongsToAny(targetId, allowedTargets) &&
+                        // references to unmatched source elements are ignored
+                        index.isMatched(targetId)) {
+                        val targetElement = dependencyStore.sourceElement(targetId)
+                        if (sourceChanged || isChanged(targetElement)) {
+                            foreachDependencyType(violatingDTypes) { dependencyType =>
+                                violations ::= DependencyViolation(
+                                    project,
+                                    this,
+                                    sourceElement,
+                                    targetElement,
+                                    dependencyType,
+                                    "violation of a local outgoing dependency constraint"
+                                )
+                            }
+                        }
+                    }
+                }
+                violations
             }
         }
 
@@ -428,7 +555,21 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
 
         override def violations(): ASet[SpecificationViolation] = {
             val (_ /*ensembleName*/ , sourceEnsembleElements) = spec.ensembles(sourceEnsemble)
+            propertyViolations(sourceEnsembleElements)
+        }
 
+        override def violations(
+            previousViolations: ASet[SpecificationViolation],
+            isChanged:          VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            val (_ /*ensembleName*/ , sourceEnsembleElements) = spec.ensembles(sourceEnsemble)
+            unaffectedViolations(previousViolations, isChanged, this) ++
+                propertyViolations(sourceEnsembleElements.filter(isChanged))
+        }
+
+        private[this] def propertyViolations(
+            sourceEnsembleElements: ASet[VirtualSourceElement]
+        ): ASet[SpecificationViolation] = {
             for {
                 sourceElement <- sourceEnsembleElements
                 classFile <- project.classFile(sourceElement.classType.asObjectType)
@@ -509,7 +650,21 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
 
         override def violations(): ASet[SpecificationViolation] = {
             val (_ /*ensembleName*/ , sourceEnsembleElements) = spec.ensembles(sourceEnsemble)
+            propertyViolations(sourceEnsembleElements)
+        }
 
+        override def violations(
+            previousViolations: ASet[SpecificationViolation],
+            isChanged:          VirtualSourceElement => Boolean
+        ): ASet[SpecificationViolation] = {
+            val (_ /*ensembleName*/ , sourceEnsembleElements) = spec.ensembles(sourceEnsemble)
+            unaffectedViolations(previousViolations, isChanged, this) ++
+                propertyViolations(sourceEnsembleElements.filter(isChanged))
+        }
+
+        private[this] def propertyViolations(
+            sourceEnsembleElements: ASet[VirtualSourceElement]
+        ): ASet[SpecificationViolation] = {
             for {
                 sourceElement <- sourceEnsembleElements
                 sourceClassFile = sourceElement match {
@@ -724,30 +879,76 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
 
     def analyze(): Set[SpecificationViolation] = {
         val dependencyStore = time {
-            project.get(DependencyStoreWithoutSelfDependenciesKey)
+            project.get(ColumnarDependencyStoreWithoutSelfDependenciesKey)
         } { ns => logProgress("2.1. preprocessing dependencies took "+ns.toSeconds) }
 
-        logInfo("Dependencies between source elements: "+dependencyStore.dependencies.size)
-        logInfo("Dependencies on primitive types: "+dependencyStore.dependenciesOnBaseTypes.size)
-        logInfo("Dependencies on array types: "+dependencyStore.dependenciesOnArrayTypes.size)
+        analyze(dependencyStore, None)
+    }
+
+    /**
+     * Analyzes this specification's project which is the result of changing some classes
+     * of the project of the given (previously analyzed) specification. The previous
+     * specification has to define the same ensembles and rules.
+     *
+     * Only the dependencies of the changed classes are extracted and – if the extensions of
+     * the ensembles only differ w.r.t. the source elements of the changed classes – only
+     * those violations that involve source elements of the changed classes are recomputed.
+     *
+     * @param changedTypes The types of the classes that were changed, added or removed.
+     */
+    @throws(classOf[SpecificationError])
+    def analyze(
+        previous:     Specification,
+        changedTypes: ASet[ObjectType]
+    ): Set[SpecificationViolation] = {
+        val previousDependencyStore = previous.theDependencyStore
+        if (previousDependencyStore eq null)
+            throw SpecificationError("the previous specification was not yet analyzed")
+
+        val dependencyStore = time {
+            previousDependencyStore.updated(
+                changedTypes,
+                changedTypes.flatMap(project.classFile(_)),
+                ColumnarDependencyStoreWithoutSelfDependenciesKey.createDependencyExtractor
+            )
+        } { ns => logProgress("2.1. updating the dependencies took "+ns.toSeconds) }
+
+        analyze(dependencyStore, Some((previous, changedTypes)))
+    }
+
+    private[this] def analyze(
+        dependencyStore: ColumnarDependencyStore,
+        previous:        Option[(Specification, ASet[ObjectType])]
+    ): Set[SpecificationViolation] = {
+        logInfo("Dependencies between source elements: "+dependencyStore.dependenciesCount)
+        logInfo("Dependencies on primitive and array types: "+dependencyStore.dependenciesOnTypesCount)
 
         time {
-            for {
-                (source, targets) <- dependencyStore.dependencies
-                (target, dTypes) <- targets
-            } {
-                allSourceElements += source
-                allSourceElements += target
-
-                theOutgoingDependencies.update(source, targets)
-
-                for { dType <- dTypes } {
-                    theIncomingDependencies.update(
-                        target,
-                        theIncomingDependencies.getOrElse(target, immutable.Set.empty) +
-                            ((source, dType))
-                    )
+            val sourceElementsCount = dependencyStore.sourceElementsCount
+            var id = 0
+            while (id < sourceElementsCount) {
+                val sourceElement = dependencyStore.sourceElement(id)
+
+                if (dependencyStore.targetsCount(id) > 0) {
+                    allSourceElements += sourceElement
+                    val targets = mutable.HashMap.empty[VirtualSourceElement, DependencyTypesSet]
+                    dependencyStore.foreachTarget(id) { (targetId, dTypes) =>
+                        targets(dependencyStore.sourceElement(targetId)) = DependencyTypes.toSet(dTypes)
+                    }
+                    theOutgoingDependencies.update(sourceElement, targets)
                 }
+
+                if (dependencyStore.sourcesCount(id) > 0) {
+                    allSourceElements += sourceElement
+                    val sources = immutable.Set.newBuilder[(VirtualSourceElement, DependencyType)]
+                    dependencyStore.foreachSource(id) { (sourceId, dTypes) =>
+                        val source = dependencyStore.sourceElement(sourceId)
+                        DependencyTypes.toSet(dTypes) foreach { dType => sources += ((source, dType)) }
+                    }
+                    theIncomingDependencies.update(sourceElement, sources.result())
+                }
+
+                id += 1
             }
         } { ns => logProgress("2.2. postprocessing dependencies took "+ns.toSeconds) }
         logInfo("Number of source elements: "+allSourceElements.size)
@@ -782,15 +983,51 @@ class Specification(val project: Project[URL], val useAnsiColors: Boolean) { spe
             logProgress("3. determing the extension of the ensembles took "+ns.toSeconds)
         }
 
+        theDependencyStore = dependencyStore
+        ensembleIndex = new EnsembleIndex(dependencyStore, theEnsembles.view.mapValues(_._2).toMap)
+
+        // Determine the violations of the previous analysis that can be reused
+        //
+        val (previousViolations, isChanged) = previous match {
+            case Some((previousSpec, changedTypes)) =>
+                val isChanged = (e: VirtualSourceElement) => {
+                    val classType = e.classType
+                    classType.isObjectType && changedTypes.contains(classType.asObjectType)
+                }
+                val previousEnsembles = previousSpec.ensembles
+                val unchangedExtensions = theEnsembles forall { e =>
+                    val (ensembleSymbol, (_, extension)) = e
+                    previousEnsembles.get(ensembleSymbol) exists { previousEnsemble =>
+                        val previousExtension = previousEnsemble._2
+                        extension.forall(e => isChanged(e) || previousExtension.contains(e)) &&
+                            previousExtension.forall(e => isChanged(e) || extension.contains(e))
+                    }
+                }
+                if (unchangedExtensions) {
+                    (previousSpec.theViolations, isChanged)
+                } else {
+                    logInfo("the extensions of the ensembles changed; all rules are checked")
+                    (AMap.empty[String, ASet[SpecificationViolation]], isChanged)
+                }
+            case None =>
+                (AMap.empty[String, ASet[SpecificationViolation]], AllChanged)
+        }
+
         // Check all rules
         //
         time {
             val result =
                 for { architectureChecker <- architectureCheckers.par } yield {
                     logProgress("   checking: "+architectureChecker)
-                    for (violation <- architectureChecker.violations()) yield violation
+                    val violations =
+                        previousViolations.get(architectureChecker.toString) match {
+                            case Some(violations) => architectureChecker.violations(violations, isChanged)
+                            case None             => architectureChecker.violations()
+                        }
+                    (architectureChecker.toString, violations)
                 }
-            Set.empty ++ (result.filter(_.nonEmpty).flatten)
+            theViolations = result.seq.toMap
+            Set.empty ++ (result.map(_._2).filter(_.nonEmpty).flatten)
         } { ns =>
             logProgress("4. checking the specified dependency constraints took "+ns.toSeconds)
         }
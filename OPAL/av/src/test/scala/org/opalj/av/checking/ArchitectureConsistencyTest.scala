@@ -9,7 +9,11 @@ import org.scalatest.BeforeAndAfterAll
 import org.scalatestplus.junit.JUnitRunner
 
 import org.opalj.bi.TestResources.locateTestResources
+import java.net.URL
+
 import org.opalj.br.BooleanValue
+import org.opalj.br.ClassFile
+import org.opalj.br.ObjectType
 import org.opalj.br.StringValue
 import org.opalj.br.reader.Java8Framework.ClassFiles
 
@@ -346,4 +350,52 @@ class ArchitectureConsistencyTest extends AnyFlatSpec with Matchers with BeforeA
 
     }
 
+    /*
+     * incremental checking
+     */
+    behavior of "the Architecture Validation Framework when incrementally checking a changed project"
+
+    class MathematicsSpecification(
+            classFiles: Iterable[(ClassFile, URL)]
+    ) extends Specification(classFiles) {
+        ensemble(Symbol("Operations")) { "mathematics.Operations*" }
+        ensemble(Symbol("Number")) { "mathematics.Number*" }
+        ensemble(Symbol("Rational")) { "mathematics.Rational*" }
+        ensemble(Symbol("Mathematics")) { "mathematics.Mathematics*" }
+        ensemble(Symbol("Example")) { "mathematics.Example*" }
+
+        Symbol("Mathematics") is_not_allowed_to (USE, Symbol("Number"))
+        Symbol("Mathematics") is_only_allowed_to (USE, Symbol("Rational"))
+        Symbol("Number") is_only_to_be_used_by (Symbol("Rational"))
+    }
+
+    it should "find the same violations as a complete analysis if some classes changed" in {
+        val specification = new MathematicsSpecification(project)
+        val violations = specification.analyze().map(_.toString)
+        violations should not be (empty)
+
+        val changedTypes = Set(ObjectType("mathematics/Mathematics"), ObjectType("mathematics/Number"))
+        val updatedSpecification = new MathematicsSpecification(project)
+        updatedSpecification.analyze(specification, changedTypes).map(_.toString) should be(violations)
+    }
+
+    it should "find the same violations as a complete analysis if a class was removed" in {
+        val specification = new MathematicsSpecification(project)
+        specification.analyze()
+
+        val removedType = ObjectType("mathematics/Rational")
+        val changedProject = project.filter(_._1.thisType != removedType)
+        val expectedViolations = new MathematicsSpecification(changedProject).analyze().map(_.toString)
+        val updatedSpecification = new MathematicsSpecification(changedProject)
+        updatedSpecification.analyze(specification, Set(removedType)).map(_.toString) should be(
+            expectedViolations
+        )
+    }
+
+    it should "reject an incremental analysis if the previous specification was not analyzed" in {
+        val specification = new MathematicsSpecification(project)
+        a[SpecificationError] should be thrownBy {
+            new MathematicsSpecification(project).analyze(specification, Set.empty[ObjectType])
+        }
+    }
 }
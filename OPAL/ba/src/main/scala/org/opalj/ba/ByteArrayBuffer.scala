@@ -0,0 +1,153 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import java.io.UTFDataFormatException
+import java.util.Arrays
+
+/**
+ * A growable buffer of bytes which offers the (big-endian) write operations that are required
+ * to serialize class files. Unlike a `DataOutputStream` on top of a `ByteArrayOutputStream`,
+ * values that are only known after some other values were written (e.g., the length of an
+ * attribute) can be patched in place.
+ *
+ * @param initialCapacity The initial size of the underlying array.
+ */
+final class ByteArrayBuffer(initialCapacity: Int = 4096) {
+
+    private[this] var data: Array[Byte] = new Array[Byte](Math.max(initialCapacity, 16))
+
+    private[this] var count: Int = 0
+
+    /** The number of bytes written so far; i.e., the position of the next byte. */
+    def size: Int = count
+
+    private[this] def ensureCapacity(additionalBytes: Int): Unit = {
+        val requiredCapacity = count + additionalBytes
+        if (requiredCapacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length << 1, requiredCapacity))
+        }
+    }
+
+    def writeByte(value: Int): Unit = {
+        ensureCapacity(1)
+        data(count) = value.toByte
+        count += 1
+    }
+
+    def writeShort(value: Int): Unit = {
+        ensureCapacity(2)
+        data(count) = (value >>> 8).toByte
+        data(count + 1) = value.toByte
+        count += 2
+    }
+
+    def writeInt(value: Int): Unit = {
+        ensureCapacity(4)
+        data(count) = (value >>> 24).toByte
+        data(count + 1) = (value >>> 16).toByte
+        data(count + 2) = (value >>> 8).toByte
+        data(count + 3) = value.toByte
+        count += 4
+    }
+
+    def writeLong(value: Long): Unit = {
+        writeInt((value >>> 32).toInt)
+        writeInt(value.toInt)
+    }
+
+    def write(bytes: Array[Byte]): Unit = write(bytes, 0, bytes.length)
+
+    def write(bytes: Array[Byte], offset: Int, length: Int): Unit = {
+        ensureCapacity(length)
+        System.arraycopy(bytes, offset, data, count, length)
+        count += length
+    }
+
+    def write(buffer: ByteArrayBuffer): Unit = {
+        val length = buffer.size
+        ensureCapacity(length)
+        buffer.copyTo(data, count)
+        count += length
+    }
+
+    /**
+     * Writes the given string using the ''modified UTF-8'' encoding (prefixed by the length
+     * of the encoded string) as required by `CONSTANT_Utf8_info` entries.
+     */
+    @throws[UTFDataFormatException]("if the encoded string is longer than 65535 bytes")
+    def writeUTF(value: String): Unit = {
+        val length = ByteArrayBuffer.modifiedUTF8Length(value)
+        if (length > UShort.MaxValue)
+            throw new UTFDataFormatException(s"encoded string too long: $length bytes")
+
+        ensureCapacity(2 + length)
+        writeShort(length)
+        val data = this.data
+        var count = this.count
+        var i = 0
+        val charsCount = value.length
+        while (i < charsCount) {
+            val c = value.charAt(i).toInt
+            if (c >= 0x0001 && c <= 0x007F) {
+                data(count) = c.toByte
+                count += 1
+            } else if (c > 0x07FF) {
+                data(count) = (0xE0 | ((c >> 12) & 0x0F)).toByte
+                data(count + 1) = (0x80 | ((c >> 6) & 0x3F)).toByte
+                data(count + 2) = (0x80 | (c & 0x3F)).toByte
+                count += 3
+            } else {
+                data(count) = (0xC0 | ((c >> 6) & 0x1F)).toByte
+                data(count + 1) = (0x80 | (c & 0x3F)).toByte
+                count += 2
+            }
+            i += 1
+        }
+        this.count = count
+    }
+
+    /** Overwrites the two bytes at the given position. */
+    def putShort(position: Int, value: Int): Unit = {
+        data(position) = (value >>> 8).toByte
+        data(position + 1) = value.toByte
+    }
+
+    /** Overwrites the four bytes at the given position. */
+    def putInt(position: Int, value: Int): Unit = {
+        data(position) = (value >>> 24).toByte
+        data(position + 1) = (value >>> 16).toByte
+        data(position + 2) = (value >>> 8).toByte
+        data(position + 3) = value.toByte
+    }
+
+    def copyTo(target: Array[Byte], targetOffset: Int): Unit = {
+        System.arraycopy(data, 0, target, targetOffset, count)
+    }
+
+    /**
+     * Returns the written bytes; if the buffer is completely filled, the underlying array is
+     * returned (and the buffer must no longer be used).
+     */
+    def toByteArray: Array[Byte] = {
+        if (count == data.length) data else Arrays.copyOf(data, count)
+    }
+}
+
+object ByteArrayBuffer {
+
+    /** The length of the ''modified UTF-8'' encoding of the given string. */
+    def modifiedUTF8Length(value: String): Int = {
+        var length = 0
+        var i = 0
+        val charsCount = value.length
+        while (i < charsCount) {
+            val c = value.charAt(i).toInt
+            if (c >= 0x0001 && c <= 0x007F) length += 1
+            else if (c > 0x07FF) length += 3
+            else length += 2
+            i += 1
+        }
+        length
+    }
+}
@@ -0,0 +1,1018 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import scala.annotation.switch
+import scala.collection.immutable.ArraySeq
+
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import org.opalj.bi.ACC_STRICT
+import org.opalj.collection.immutable.IntIntPair
+import org.opalj.concurrent.parForeachArrayElement
+import org.opalj.io.process
+import org.opalj.log.GlobalLogContext
+import org.opalj.log.OPALLogger
+import org.opalj.br.Attribute
+import org.opalj.br.Code
+import org.opalj.br.ObjectType
+import org.opalj.br.cp.ConstantPoolException
+import org.opalj.br.instructions._
+
+/**
+ * Serializes a [[org.opalj.br.ClassFile]] directly to its binary representation.
+ *
+ * In contrast to `bc.Assembler(ba.toDA(classFile))`, no intermediate [[org.opalj.da.ClassFile]]
+ * is created: the fields, methods and attributes are immediately written to a growable byte
+ * buffer while the constant pool is built using a [[ConstantPoolBuilder]]; afterwards the
+ * constant pool and the buffer's content are written to the final byte array.
+ */
+object ClassFileWriter {
+
+    /**
+     * Returns the binary representation of the given class file; the class file is serialized
+     * in the same way as by `bc.Assembler(ba.toDA(classFile))`, but the constant pool's
+     * entries may be ordered differently.
+     */
+    @throws[ConstantPoolException]("if it is impossible to create a valid constant pool")
+    def apply(
+        classFile: br.ClassFile
+    )(
+        implicit
+        config: ToDAConfig = ToDAConfig.RetainAllAttributes
+    ): Array[Byte] = {
+        new ClassFileSerializer(classFile, config).serialize()
+    }
+
+    /**
+     * The number of class files which are serialized in parallel before they are written
+     * to a jar file.
+     */
+    final val JarWriterBatchSize = 1024
+
+    /**
+     * Writes the given class files to the given jar file; the class files are serialized in
+     * parallel (in batches of [[JarWriterBatchSize]] class files) and are written to the jar in
+     * the given order.
+     */
+    def writeJar(
+        classFiles: Iterable[br.ClassFile],
+        jarFile:    File
+    )(
+        implicit
+        config: ToDAConfig = ToDAConfig.RetainAllAttributes
+    ): Unit = {
+        process(new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(jarFile)))) {
+            jarOut =>
+                classFiles.iterator.grouped(JarWriterBatchSize) foreach { batch =>
+                    val batchClassFiles = batch.toArray
+                    val serializedClassFiles = new Array[Array[Byte]](batchClassFiles.length)
+                    parForeachArrayElement(batchClassFiles.indices.toArray) { i =>
+                        serializedClassFiles(i) = apply(batchClassFiles(i))
+                    }
+                    var i = 0
+                    while (i < batchClassFiles.length) {
+                        jarOut.putNextEntry(new ZipEntry(s"${batchClassFiles(i).fqn}.class"))
+                        jarOut.write(serializedClassFiles(i))
+                        jarOut.closeEntry()
+                        i += 1
+                    }
+                }
+        }
+    }
+
+    private final class ClassFileSerializer(classFile: br.ClassFile, config: ToDAConfig) {
+
+        private[this] val cp = ConstantPoolBuilder(classFile)
+
+        // All data that follows the constant pool.
+        private[this] val out = new ByteArrayBuffer(
+            classFile.methods.foldLeft(1024) { (size, m) =>
+                if (m.body.isDefined) size + m.body.get.instructions.length + 64 else size + 32
+            }
+        )
+
+        def serialize(): Array[Byte] = {
+            import out._
+            writeShort(classFile.accessFlags)
+            writeShort(cp.CPEClass(classFile.thisType, false))
+            writeShort(
+                if (classFile.superclassType.isDefined)
+                    cp.CPEClass(classFile.superclassType.get, false)
+                else
+                    0
+            )
+            val interfaceTypes = classFile.interfaceTypes
+            writeShort(interfaceTypes.size)
+            interfaceTypes foreach { i => writeShort(cp.CPEClass(i, false)) }
+
+            val fields = classFile.fields
+            writeShort(fields.size)
+            fields foreach { f =>
+                writeShort(f.accessFlags)
+                writeShort(cp.CPEUtf8(f.name))
+                writeShort(cp.CPEUtf8(f.fieldType.toJVMTypeName))
+                writeAttributes(f.attributes)
+            }
+
+            val methods = classFile.methods
+            writeShort(methods.size)
+            methods foreach { m =>
+                writeShort(m.accessFlags)
+                writeShort(cp.CPEUtf8(m.name))
+                writeShort(cp.CPEUtf8(m.descriptor.toJVMDescriptor))
+                val attributesCountPosition = size
+                writeShort(0)
+                var attributesCount = 0
+                if (m.body.isDefined) {
+                    writeCode(m.body.get)
+                    attributesCount += 1
+                }
+                m.attributes foreach { a => if (writeAttribute(a)) attributesCount += 1 }
+                putShort(attributesCountPosition, attributesCount)
+
+                val majorVersion = classFile.majorVersion
+                if ((ACC_STRICT.mask & m.accessFlags) != 0 && (majorVersion < 46 || majorVersion > 60)) {
+                    OPALLogger.warn(
+                        "class file writer",
+                        s"Writing out ACC_STRICT flag for a method in a classfile of version $majorVersion, "+
+                            "which is not interpreted in class files of version < 46 or > 60"
+                    )(GlobalLogContext)
+                }
+            }
+
+            val attributesCountPosition = size
+            writeShort(0)
+            var attributesCount = 0
+            classFile.attributes foreach { a => if (writeAttribute(a)) attributesCount += 1 }
+            // The bootstrap methods table is complete after all other elements were written.
+            if (cp.bootstrapMethodsTable.nonEmpty) {
+                writeBootstrapMethods()
+                attributesCount += 1
+            }
+            putShort(attributesCountPosition, attributesCount)
+
+            val classFileBytes = new ByteArrayBuffer(8 + cp.size + size)
+            classFileBytes.writeInt(bi.ClassFileMagic)
+            classFileBytes.writeShort(classFile.minorVersion)
+            classFileBytes.writeShort(classFile.majorVersion)
+            cp.write(classFileBytes)
+            classFileBytes.write(out)
+            classFileBytes.toByteArray
+        }
+
+        private[this] def startAttribute(attributeName: String): Int = {
+            out.writeShort(cp.CPEUtf8(attributeName))
+            val attributeLengthPosition = out.size
+            out.writeInt(0)
+            attributeLengthPosition
+        }
+
+        private[this] def endAttribute(attributeLengthPosition: Int): Unit = {
+            out.putInt(attributeLengthPosition, out.size - attributeLengthPosition - 4)
+        }
+
+        private[this] def writeAttributes(attributes: br.Attributes): Unit = {
+            val attributesCountPosition = out.size
+            out.writeShort(0)
+            var attributesCount = 0
+            attributes foreach { a => if (writeAttribute(a)) attributesCount += 1 }
+            out.putShort(attributesCountPosition, attributesCount)
+        }
+
+        private[this] def writeBootstrapMethods(): Unit = {
+            import out._
+            val bootstrapMethods = cp.bootstrapMethodsTable
+            val lengthPosition = startAttribute(bi.BootstrapMethodsAttribute.Name)
+            writeShort(bootstrapMethods.size)
+            bootstrapMethods foreach { bootstrapMethod =>
+                writeShort(cp.CPEMethodHandle(bootstrapMethod.handle, false))
+                val arguments = bootstrapMethod.arguments
+                writeShort(arguments.size)
+                arguments foreach { argument => writeShort(cp.CPEntryForBootstrapArgument(argument)) }
+            }
+            endAttribute(lengthPosition)
+        }
+
+        private[this] def writeCode(code: Code): Unit = {
+            import out._
+            val lengthPosition = startAttribute(bi.CodeAttribute.Name)
+            writeShort(code.maxStack)
+            writeShort(code.maxLocals)
+            val codeLengthPosition = size
+            writeInt(0)
+            val codeStart = size
+
+            def writeMethodRef(i: Instruction): MethodInvocationInstruction = {
+                val mi @ MethodInvocationInstruction(declaringClass, isInterface, name, descriptor) = i
+                val cpeRef =
+                    if (isInterface)
+                        cp.CPEInterfaceMethodRef(declaringClass, name, descriptor)
+                    else
+                        cp.CPEMethodRef(declaringClass, name, descriptor)
+                writeShort(cpeRef)
+                mi
+            }
+
+            var modifiedByWide = false
+            code iterate { (pc, i) =>
+                val opcode = i.opcode
+                writeByte(opcode)
+
+                (opcode: @switch) match {
+
+                    case ALOAD.opcode | ASTORE.opcode |
+                        ILOAD.opcode | ISTORE.opcode |
+                        DLOAD.opcode | DSTORE.opcode |
+                        FLOAD.opcode | FSTORE.opcode |
+                        LLOAD.opcode | LSTORE.opcode =>
+                        val ExplicitLocalVariableIndex(index) = i
+                        if (modifiedByWide) {
+                            modifiedByWide = false
+                            writeShort(index)
+                        } else {
+                            writeByte(index)
+                        }
+
+                    case BIPUSH.opcode =>
+                        val BIPUSH(value) = i
+                        writeByte(value)
+
+                    case SIPUSH.opcode =>
+                        val SIPUSH(value) = i
+                        writeShort(value)
+
+                    case NEW.opcode =>
+                        val NEW(objectType) = i
+                        writeShort(cp.CPEClass(objectType, false))
+
+                    case CHECKCAST.opcode =>
+                        val CHECKCAST(referenceType) = i
+                        writeShort(cp.CPEClass(referenceType, false))
+
+                    case INSTANCEOF.opcode =>
+                        val INSTANCEOF(referenceType) = i
+                        writeShort(cp.CPEClass(referenceType, false))
+
+                    case IINC.opcode =>
+                        val IINC(lvIndex, constValue) = i
+                        if (modifiedByWide) {
+                            modifiedByWide = false
+                            writeShort(lvIndex)
+                            writeShort(constValue)
+                        } else {
+                            writeByte(lvIndex)
+                            writeByte(constValue)
+                        }
+
+                    case JSR.opcode =>
+                        val JSR(branchoffset) = i
+                        writeShort(branchoffset)
+                    case JSR_W.opcode =>
+                        val JSR_W(branchoffset) = i
+                        writeInt(branchoffset)
+                    case RET.opcode =>
+                        val RET(lvIndex) = i
+                        writeByte(lvIndex)
+
+                    case GOTO.opcode =>
+                        val GOTO(branchoffset) = i
+                        writeShort(branchoffset)
+                    case GOTO_W.opcode =>
+                        val GOTO_W(branchoffset) = i
+                        writeInt(branchoffset)
+
+                    case IF_ICMPEQ.opcode | IF_ICMPNE.opcode |
+                        IF_ICMPLT.opcode | IF_ICMPLE.opcode |
+                        IF_ICMPGT.opcode | IF_ICMPGE.opcode |
+                        IFEQ.opcode | IFNE.opcode |
+                        IFLT.opcode | IFLE.opcode |
+                        IFGT.opcode | IFGE.opcode |
+                        IF_ACMPEQ.opcode | IF_ACMPNE.opcode |
+                        IFNONNULL.opcode | IFNULL.opcode =>
+                        val SimpleConditionalBranchInstruction(branchoffset) = i
+                        writeShort(branchoffset)
+
+                    case PUTSTATIC.opcode | PUTFIELD.opcode | GETSTATIC.opcode | GETFIELD.opcode =>
+                        val FieldAccess(declaringClass, fieldName, fieldType) = i
+                        writeShort(cp.CPEFieldRef(declaringClass, fieldName, fieldType.toJVMTypeName))
+
+                    case INVOKESPECIAL.opcode | INVOKEVIRTUAL.opcode | INVOKESTATIC.opcode =>
+                        writeMethodRef(i)
+
+                    case INVOKEINTERFACE.opcode =>
+                        val invokeinterface = writeMethodRef(i)
+                        writeByte(invokeinterface.count)
+                        writeByte(0)
+
+                    case NEWARRAY.opcode =>
+                        writeByte(i.asInstanceOf[NEWARRAY].atype)
+
+                    case ANEWARRAY.opcode =>
+                        val ANEWARRAY(referenceType) = i
+                        writeShort(cp.CPEClass(referenceType, false))
+
+                    case MULTIANEWARRAY.opcode =>
+                        val MULTIANEWARRAY(arrayType, dimensions) = i
+                        writeShort(cp.CPEClass(arrayType, false))
+                        writeByte(dimensions)
+
+                    case LDC.opcode =>
+                        writeByte(
+                            i match {
+                                case LoadInt(value)          => cp.CPEInteger(value, true)
+                                case LoadFloat(value)        => cp.CPEFloat(value, true)
+                                case LoadClass(value)        => cp.CPEClass(value, true)
+                                case LoadString(value)       => cp.CPEString(value, true)
+                                case LoadMethodHandle(value) => cp.CPEMethodHandle(value, true)
+                                case LoadMethodType(value)   => cp.CPEMethodType(value, true)
+                                case LoadDynamic(bootstrapMethod, name, descriptor) =>
+                                    cp.CPEDynamic(bootstrapMethod, name, descriptor, true)
+                                case INCOMPLETE_LDC =>
+                                    throw ConstantPoolException("incomplete LDC")
+                            }
+                        )
+
+                    case LDC_W.opcode =>
+                        writeShort(
+                            i match {
+                                case LoadInt_W(value)          => cp.CPEInteger(value, false)
+                                case LoadFloat_W(value)        => cp.CPEFloat(value, false)
+                                case LoadClass_W(value)        => cp.CPEClass(value, false)
+                                case LoadString_W(value)       => cp.CPEString(value, false)
+                                case LoadMethodHandle_W(value) => cp.CPEMethodHandle(value, false)
+                                case LoadMethodType_W(value)   => cp.CPEMethodType(value, false)
+                                case LoadDynamic_W(bootstrapMethod, name, descriptor) =>
+                                    cp.CPEDynamic(bootstrapMethod, name, descriptor, false)
+                                case INCOMPLETE_LDC_W =>
+                                    throw ConstantPoolException("incomplete LDC_W")
+                            }
+                        )
+
+                    case LDC2_W.opcode =>
+                        writeShort(
+                            i match {
+                                case LoadLong(value)   => cp.CPELong(value)
+                                case LoadDouble(value) => cp.CPEDouble(value)
+                                case LoadDynamic2_W(bootstrapMethod, name, descriptor) =>
+                                    cp.CPEDynamic(bootstrapMethod, name, descriptor, false)
+                                case INCOMPLETE_LDC2_W =>
+                                    throw ConstantPoolException("incomplete LDC2_W")
+                            }
+                        )
+
+                    case INVOKEDYNAMIC.opcode =>
+                        val INVOKEDYNAMIC(bootstrapMethod, name, descriptor) = i
+                        writeShort(cp.CPEInvokeDynamic(bootstrapMethod, name, descriptor))
+                        writeByte(0)
+                        writeByte(0)
+
+                    case TABLESWITCH.opcode =>
+                        val TABLESWITCH(defaultOffset, low, high, jumpOffsets) = i
+                        var padding = 3 - (pc % 4)
+                        while (padding > 0) { writeByte(0); padding -= 1 }
+                        writeInt(defaultOffset)
+                        writeInt(low)
+                        writeInt(high)
+                        jumpOffsets.foreach { writeInt }
+
+                    case LOOKUPSWITCH.opcode =>
+                        val LOOKUPSWITCH(defaultOffset, npairs) = i
+                        var padding = 3 - (pc % 4)
+                        while (padding > 0) { writeByte(0); padding -= 1 }
+                        writeInt(defaultOffset)
+                        writeInt(npairs.size)
+                        npairs.foreach { pair =>
+                            val IntIntPair(matchValue, offset) = pair
+                            writeInt(matchValue)
+                            writeInt(offset)
+                        }
+
+                    case WIDE.opcode =>
+                        if (modifiedByWide) throw new IllegalArgumentException(s"$pc: wide after wide")
+                        // modifiedByWide will be set to false by the subsequent instruction
+                        modifiedByWide = true
+
+                    case _ =>
+                    // All other instructions only consist of their opcode which is
+                    // already written!
+                }
+            }
+            putInt(codeLengthPosition, size - codeStart)
+
+            val exceptionHandlers = code.exceptionHandlers
+            writeShort(exceptionHandlers.size)
+            exceptionHandlers foreach { eh =>
+                writeShort(eh.startPC)
+                writeShort(eh.endPC)
+                writeShort(eh.handlerPC)
+                writeShort(if (eh.catchType.isDefined) cp.CPEClass(eh.catchType.get, false) else 0)
+            }
+            writeAttributes(code.attributes)
+            endAttribute(lengthPosition)
+        }
+
+        private[this] def writeElementValue(elementValue: br.ElementValue): Unit = {
+            import out._
+            (elementValue.kindId: @switch) match {
+                case br.ByteValue.KindId =>
+                    val br.ByteValue(value) = elementValue
+                    writeByte('B')
+                    writeShort(cp.CPEInteger(value.toInt, false))
+
+                case br.CharValue.KindId =>
+                    val br.CharValue(value) = elementValue
+                    writeByte('C')
+                    writeShort(cp.CPEInteger(value.toInt, false))
+
+                case br.DoubleValue.KindId =>
+                    val br.DoubleValue(value) = elementValue
+                    writeByte('D')
+                    writeShort(cp.CPEDouble(value))
+
+                case br.FloatValue.KindId =>
+                    val br.FloatValue(value) = elementValue
+                    writeByte('F')
+                    writeShort(cp.CPEFloat(value, false))
+
+                case br.IntValue.KindId =>
+                    val br.IntValue(value) = elementValue
+                    writeByte('I')
+                    writeShort(cp.CPEInteger(value, false))
+
+                case br.LongValue.KindId =>
+                    val br.LongValue(value) = elementValue
+                    writeByte('J')
+                    writeShort(cp.CPELong(value))
+
+                case br.ShortValue.KindId =>
+                    val br.ShortValue(value) = elementValue
+                    writeByte('S')
+                    writeShort(cp.CPEInteger(value.toInt, false))
+
+                case br.BooleanValue.KindId =>
+                    val br.BooleanValue(value) = elementValue
+                    writeByte('Z')
+                    writeShort(cp.CPEInteger(if (value) 1 else 0, false))
+
+                case br.StringValue.KindId =>
+                    val br.StringValue(value) = elementValue
+                    writeByte('s')
+                    writeShort(cp.CPEUtf8(value))
+
+                case br.ClassValue.KindId =>
+                    val br.ClassValue(value) = elementValue
+                    writeByte('c')
+                    writeShort(cp.CPEUtf8(value.toJVMTypeName))
+
+                case br.EnumValue.KindId =>
+                    val br.EnumValue(enumType, enumName) = elementValue
+                    writeByte('e')
+                    writeShort(cp.CPEUtf8(enumType.toJVMTypeName))
+                    writeShort(cp.CPEUtf8(enumName))
+
+                case br.ArrayValue.KindId =>
+                    val br.ArrayValue(values) = elementValue
+                    writeByte('[')
+                    writeShort(values.size)
+                    values foreach writeElementValue
+
+                case br.AnnotationValue.KindId =>
+                    val br.AnnotationValue(annotation) = elementValue
+                    writeByte('@')
+                    writeAnnotation(annotation)
+            }
+        }
+
+        private[this] def writeElementValuePairs(evps: br.ElementValuePairs): Unit = {
+            out.writeShort(evps.size)
+            evps foreach { evp =>
+                out.writeShort(cp.CPEUtf8(evp.name))
+                writeElementValue(evp.value)
+            }
+        }
+
+        private[this] def writeAnnotation(annotation: br.Annotation): Unit = {
+            out.writeShort(cp.CPEUtf8(annotation.annotationType.toJVMTypeName))
+            writeElementValuePairs(annotation.elementValuePairs)
+        }
+
+        private[this] def writeAnnotations(annotations: br.Annotations): Unit = {
+            out.writeShort(annotations.size)
+            annotations foreach writeAnnotation
+        }
+
+        private[this] def writeParameterAnnotations(
+            parameterAnnotations: br.ParameterAnnotations
+        ): Unit = {
+            out.writeByte(parameterAnnotations.size)
+            parameterAnnotations foreach writeAnnotations
+        }
+
+        private[this] def writeTypeAnnotations(typeAnnotations: br.TypeAnnotations): Unit = {
+            import out._
+            writeShort(typeAnnotations.size)
+            typeAnnotations foreach { typeAnnotation =>
+                val target = typeAnnotation.target
+                writeByte(target.typeId)
+                (target.typeId: @switch) match {
+                    case 0x00 =>
+                        val br.TAOfParameterDeclarationOfClassOrInterface(index) = target
+                        writeByte(index)
+                    case 0x01 =>
+                        val br.TAOfParameterDeclarationOfMethodOrConstructor(index) = target
+                        writeByte(index)
+                    case 0x10 =>
+                        val br.TAOfSupertype(index) = target
+                        writeShort(index)
+                    case 0x11 =>
+                        val br.TAOfTypeBoundOfParameterDeclarationOfClassOrInterface(
+                            typeIndex,
+                            boundIndex
+                            ) = target
+                        writeByte(typeIndex)
+                        writeByte(boundIndex)
+                    case 0x12 =>
+                        val br.TAOfTypeBoundOfParameterDeclarationOfMethodOrConstructor(
+                            typeIndex,
+                            boundIndex
+                            ) = target
+                        writeByte(typeIndex)
+                        writeByte(boundIndex)
+                    case 0x13 | 0x14 | 0x15 =>
+                    // EMPTY_TARGET <=> Nothing to do
+                    case 0x16 =>
+                        val br.TAOfFormalParameter(index) = target
+                        writeByte(index)
+                    case 0x17 =>
+                        val br.TAOfThrows(index) = target
+                        writeShort(index)
+                    case 0x40 | 0x41 =>
+                        val lvtes = target.asInstanceOf[br.TypeAnnotationTargetInVarDecl].localVarTable
+                        writeShort(lvtes.size)
+                        lvtes foreach { lvte =>
+                            writeShort(lvte.startPC)
+                            writeShort(lvte.length)
+                            writeShort(lvte.index)
+                        }
+                    case 0x42 =>
+                        val br.TAOfCatch(index) = target
+                        writeShort(index)
+                    case 0x43 =>
+                        val br.TAOfInstanceOf(offset) = target
+                        writeShort(offset)
+                    case 0x44 =>
+                        val br.TAOfNew(offset) = target
+                        writeShort(offset)
+                    case 0x45 =>
+                        val br.TAOfMethodReferenceExpressionNew(offset) = target
+                        writeShort(offset)
+                    case 0x46 =>
+                        val br.TAOfMethodReferenceExpressionIdentifier(offset) = target
+                        writeShort(offset)
+                    case 0x47 =>
+                        val br.TAOfCastExpression(offset, index) = target
+                        writeShort(offset)
+                        writeByte(index)
+                    case 0x48 =>
+                        val br.TAOfConstructorInvocation(offset, index) = target
+                        writeShort(offset)
+                        writeByte(index)
+                    case 0x49 =>
+                        val br.TAOfMethodInvocation(offset, index) = target
+                        writeShort(offset)
+                        writeByte(index)
+                    case 0x4A =>
+                        val br.TAOfConstructorInMethodReferenceExpression(offset, index) = target
+                        writeShort(offset)
+                        writeByte(index)
+                    case 0x4B =>
+                        val br.TAOfMethodInMethodReferenceExpression(offset, index) = target
+                        writeShort(offset)
+                        writeByte(index)
+                }
+
+                typeAnnotation.path match {
+                    case br.TADirectlyOnType =>
+                        writeByte(0)
+                    case br.TAOnNestedType(path) =>
+                        writeByte(path.size)
+                        path foreach { pathElement =>
+                            writeByte(pathElement.kindId)
+                            pathElement match {
+                                case br.TAOnTypeArgument(index) => writeByte(index)
+                                case _                          => writeByte(0)
+                            }
+                        }
+                }
+
+                writeShort(cp.CPEUtf8(typeAnnotation.annotationType.toJVMTypeName))
+                writeElementValuePairs(typeAnnotation.elementValuePairs)
+            }
+        }
+
+        private[this] def writeVerificationTypeInfo(vti: br.VerificationTypeInfo): Unit = {
+            out.writeByte(vti.tag)
+            (vti.tag: @switch) match {
+                case 7 =>
+                    val br.ObjectVariableInfo(referenceType) = vti
+                    out.writeShort(cp.CPEClass(referenceType, false))
+                case 8 =>
+                    val br.UninitializedVariableInfo(offset) = vti
+                    out.writeShort(offset)
+                case _ =>
+                // the tag is sufficient
+            }
+        }
+
+        private[this] def writeStackMapFrames(frames: br.StackMapFrames): Unit = {
+            import out._
+            writeShort(frames.size)
+            frames foreach { f =>
+                val frameType = f.frameType
+                writeByte(frameType)
+                if (frameType < 64) {
+                    // the frame type is sufficient
+                } else if (frameType < 128) {
+                    val br.SameLocals1StackItemFrame(_, vti) = f
+                    writeVerificationTypeInfo(vti)
+                } else if (frameType < 247) {
+                    throw new Error(s"unexpected/unsupported stack map frame type: $frameType")
+                } else if (frameType == 247) {
+                    val br.SameLocals1StackItemFrameExtended(offsetDelta, vti) = f
+                    writeShort(offsetDelta)
+                    writeVerificationTypeInfo(vti)
+                } else if (frameType < 251) {
+                    val br.ChopFrame(_, offsetDelta) = f
+                    writeShort(offsetDelta)
+                } else if (frameType == 251) {
+                    val br.SameFrameExtended(offsetDelta) = f
+                    writeShort(offsetDelta)
+                } else if (frameType < 255) {
+                    val br.AppendFrame(_, offsetDelta, vtis) = f
+                    writeShort(offsetDelta)
+                    vtis foreach writeVerificationTypeInfo
+                } else if (frameType == 255) {
+                    val br.FullFrame(offsetDelta, vtiLocals, vtiStack) = f
+                    writeShort(offsetDelta)
+                    writeShort(vtiLocals.size)
+                    vtiLocals foreach writeVerificationTypeInfo
+                    writeShort(vtiStack.size)
+                    vtiStack foreach writeVerificationTypeInfo
+                } else {
+                    throw new Error(s"frame type out of range[0..255] $frameType")
+                }
+            }
+        }
+
+        /**
+         * Writes the given attribute.
+         *
+         * @return `false` if the attribute is not retained (as configured by the [[ToDAConfig]]).
+         * @see [[org.opalj.br.Attribute#kindId]] for the list of all supported attributes.
+         */
+        private[this] def writeAttribute(attribute: Attribute): Boolean = {
+            import out._
+
+            def writeConstantValue(cpEntryIndex: Int): Unit = {
+                val lengthPosition = startAttribute(bi.ConstantValueAttribute.Name)
+                writeShort(cpEntryIndex)
+                endAttribute(lengthPosition)
+            }
+
+            def writeClassesAttribute(name: String, classes: ArraySeq[ObjectType]): Unit = {
+                val lengthPosition = startAttribute(name)
+                writeShort(classes.size)
+                classes foreach { c => writeShort(cp.CPEClass(c, false)) }
+                endAttribute(lengthPosition)
+            }
+
+            (attribute.kindId: @switch) match {
+                case br.Code.KindId =>
+                    writeCode(attribute.asInstanceOf[Code])
+
+                case br.SourceFile.KindId =>
+                    val br.SourceFile(s) = attribute
+                    val lengthPosition = startAttribute(bi.SourceFileAttribute.Name)
+                    writeShort(cp.CPEUtf8(s))
+                    endAttribute(lengthPosition)
+
+                case br.Deprecated.KindId =>
+                    endAttribute(startAttribute(bi.DeprecatedAttribute.Name))
+
+                case br.Synthetic.KindId =>
+                    endAttribute(startAttribute(bi.SyntheticAttribute.Name))
+
+                case br.SourceDebugExtension.KindId =>
+                    val br.SourceDebugExtension(data) = attribute
+                    val lengthPosition = startAttribute(bi.SourceDebugExtensionAttribute.Name)
+                    write(data)
+                    endAttribute(lengthPosition)
+
+                case br.EnclosingMethod.KindId =>
+                    val br.EnclosingMethod(classType, nameOption, descriptorOption) = attribute
+                    val lengthPosition = startAttribute(bi.EnclosingMethodAttribute.Name)
+                    writeShort(cp.CPEClass(classType, false))
+                    writeShort(
+                        nameOption match {
+                            case Some(name) =>
+                                cp.CPENameAndType(name, descriptorOption.get.toJVMDescriptor)
+                            case None => 0
+                        }
+                    )
+                    endAttribute(lengthPosition)
+
+                // ALL CONSTANT FIELD VALUES
+                case br.ConstantFloat.KindId =>
+                    val br.ConstantFloat(value) = attribute
+                    writeConstantValue(cp.CPEFloat(value, false))
+                case br.ConstantInteger.KindId =>
+                    val br.ConstantInteger(value) = attribute
+                    writeConstantValue(cp.CPEInteger(value, false))
+                case br.ConstantString.KindId =>
+                    val br.ConstantString(value) = attribute
+                    writeConstantValue(cp.CPEString(value, false))
+                case br.ConstantDouble.KindId =>
+                    val br.ConstantDouble(value) = attribute
+                    writeConstantValue(cp.CPEDouble(value))
+                case br.ConstantLong.KindId =>
+                    val br.ConstantLong(value) = attribute
+                    writeConstantValue(cp.CPELong(value))
+
+                // code attributes
+                case br.LineNumberTable.KindId =>
+                    val lengthPosition = startAttribute(bi.LineNumberTableAttribute.Name)
+                    attribute match {
+                        case br.UnpackedLineNumberTable(lineNumbers) =>
+                            writeShort(lineNumbers.size)
+                            lineNumbers foreach { l =>
+                                writeShort(l.startPC)
+                                writeShort(l.lineNumber)
+                            }
+
+                        case br.CompactLineNumberTable(rawLNs: Array[Byte]) =>
+                            // the raw table already uses the class file format
+                            writeShort(rawLNs.length / 4)
+                            write(rawLNs)
+
+                        case _ =>
+                            val attributeName = attribute.getClass.getName
+                            throw new Error(s"unsupported line number attribute: $attributeName")
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.LocalVariableTable.KindId =>
+                    val br.LocalVariableTable(localVariables) = attribute
+                    val lengthPosition = startAttribute(bi.LocalVariableTableAttribute.Name)
+                    writeShort(localVariables.size)
+                    localVariables foreach { l =>
+                        writeShort(l.startPC)
+                        writeShort(l.length)
+                        writeShort(cp.CPEUtf8(l.name))
+                        writeShort(cp.CPEUtf8(l.fieldType.toJVMTypeName))
+                        writeShort(l.index)
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.LocalVariableTypeTable.KindId =>
+                    val br.LocalVariableTypeTable(localVariableTypes) = attribute
+                    val lengthPosition = startAttribute(bi.LocalVariableTypeTableAttribute.Name)
+                    writeShort(localVariableTypes.size)
+                    localVariableTypes foreach { l =>
+                        writeShort(l.startPC)
+                        writeShort(l.length)
+                        writeShort(cp.CPEUtf8(l.name))
+                        writeShort(cp.CPEUtf8(l.signature.toJVMSignature))
+                        writeShort(l.index)
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.MethodParameterTable.KindId =>
+                    val br.MethodParameterTable(parameters) = attribute
+                    val lengthPosition = startAttribute(bi.MethodParametersAttribute.Name)
+                    writeByte(parameters.size)
+                    parameters foreach { p =>
+                        writeShort(if (p.name.isDefined) cp.CPEUtf8(p.name.get) else 0)
+                        writeShort(p.accessFlags)
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.ExceptionTable.KindId =>
+                    val br.ExceptionTable(exceptions) = attribute
+                    writeClassesAttribute(bi.ExceptionsAttribute.Name, exceptions)
+
+                case br.InnerClassTable.KindId =>
+                    val br.InnerClassTable(innerClasses) = attribute
+                    val lengthPosition = startAttribute(bi.InnerClassesAttribute.Name)
+                    writeShort(innerClasses.size)
+                    innerClasses foreach { ic =>
+                        writeShort(cp.CPEClass(ic.innerClassType, false))
+                        writeShort(
+                            if (ic.outerClassType.isDefined) cp.CPEClass(ic.outerClassType.get, false)
+                            else 0
+                        )
+                        writeShort(if (ic.innerName.isDefined) cp.CPEUtf8(ic.innerName.get) else 0)
+                        writeShort(ic.innerClassAccessFlags)
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.StackMapTable.KindId =>
+                    val br.StackMapTable(frames) = attribute
+                    val lengthPosition = startAttribute(bi.StackMapTableAttribute.Name)
+                    writeStackMapFrames(frames)
+                    endAttribute(lengthPosition)
+
+                /* 12-16 The Signature Attribute */
+                case br.ClassSignature.KindId |
+                    br.MethodTypeSignature.KindId |
+                    br.ClassTypeSignature.KindId |
+                    br.ArrayTypeSignature.KindId |
+                    br.TypeVariableSignature.KindId =>
+                    val br.Signature(jvmSignature) = attribute
+                    val lengthPosition = startAttribute(bi.SignatureAttribute.Name)
+                    writeShort(cp.CPEUtf8(jvmSignature))
+                    endAttribute(lengthPosition)
+
+                /* 29-41 The AnnotationDefault Attribute */
+                case br.ByteValue.KindId |
+                    br.CharValue.KindId |
+                    br.DoubleValue.KindId |
+                    br.FloatValue.KindId |
+                    br.IntValue.KindId |
+                    br.LongValue.KindId |
+                    br.ShortValue.KindId |
+                    br.BooleanValue.KindId |
+                    br.StringValue.KindId |
+                    br.ClassValue.KindId |
+                    br.EnumValue.KindId |
+                    br.ArrayValue.KindId |
+                    br.AnnotationValue.KindId =>
+                    val lengthPosition = startAttribute(bi.AnnotationDefaultAttribute.Name)
+                    writeElementValue(attribute.asInstanceOf[br.ElementValue])
+                    endAttribute(lengthPosition)
+
+                case br.RuntimeVisibleAnnotationTable.KindId =>
+                    val br.RuntimeVisibleAnnotationTable(annotations) = attribute
+                    val lengthPosition = startAttribute(bi.RuntimeVisibleAnnotationsAttribute.Name)
+                    writeAnnotations(annotations)
+                    endAttribute(lengthPosition)
+
+                case br.RuntimeInvisibleAnnotationTable.KindId =>
+                    val br.RuntimeInvisibleAnnotationTable(annotations) = attribute
+                    val lengthPosition = startAttribute(bi.RuntimeInvisibleAnnotationsAttribute.Name)
+                    writeAnnotations(annotations)
+                    endAttribute(lengthPosition)
+
+                case br.RuntimeVisibleParameterAnnotationTable.KindId =>
+                    val br.RuntimeVisibleParameterAnnotationTable(parameterAnnotations) = attribute
+                    val attributeName = bi.RuntimeVisibleParameterAnnotationsAttribute.Name
+                    val lengthPosition = startAttribute(attributeName)
+                    writeParameterAnnotations(parameterAnnotations)
+                    endAttribute(lengthPosition)
+
+                case br.RuntimeInvisibleParameterAnnotationTable.KindId =>
+                    val br.RuntimeInvisibleParameterAnnotationTable(parameterAnnotations) = attribute
+                    val attributeName = bi.RuntimeInvisibleParameterAnnotationsAttribute.Name
+                    val lengthPosition = startAttribute(attributeName)
+                    writeParameterAnnotations(parameterAnnotations)
+                    endAttribute(lengthPosition)
+
+                case br.RuntimeInvisibleTypeAnnotationTable.KindId =>
+                    val br.RuntimeInvisibleTypeAnnotationTable(typeAnnotations) = attribute
+                    val attributeName = bi.RuntimeInvisibleTypeAnnotationsAttribute.Name
+                    val lengthPosition = startAttribute(attributeName)
+                    writeTypeAnnotations(typeAnnotations)
+                    endAttribute(lengthPosition)
+
+                case br.RuntimeVisibleTypeAnnotationTable.KindId =>
+                    val br.RuntimeVisibleTypeAnnotationTable(typeAnnotations) = attribute
+                    val attributeName = bi.RuntimeVisibleTypeAnnotationsAttribute.Name
+                    val lengthPosition = startAttribute(attributeName)
+                    writeTypeAnnotations(typeAnnotations)
+                    endAttribute(lengthPosition)
+
+                case br.ModuleMainClass.KindId =>
+                    val br.ModuleMainClass(mainClassType) = attribute
+                    val lengthPosition = startAttribute(bi.ModuleMainClassAttribute.Name)
+                    writeShort(cp.CPEClass(mainClassType, false))
+                    endAttribute(lengthPosition)
+
+                case br.ModulePackages.KindId =>
+                    val br.ModulePackages(packages) = attribute
+                    val lengthPosition = startAttribute(bi.ModulePackagesAttribute.Name)
+                    writeShort(packages.size)
+                    packages foreach { p => writeShort(cp.CPEPackage(p)) }
+                    endAttribute(lengthPosition)
+
+                case br.Module.KindId =>
+                    val br.Module(name, flags, version, requires, exports, opens, uses, provides) =
+                        attribute
+                    val lengthPosition = startAttribute(bi.ModuleAttribute.Name)
+                    writeShort(cp.CPEModule(name))
+                    writeShort(flags)
+                    writeShort(if (version.isDefined) cp.CPEUtf8(version.get) else 0)
+
+                    writeShort(requires.size)
+                    requires foreach { r =>
+                        writeShort(cp.CPEModule(r.requires))
+                        writeShort(r.flags)
+                        writeShort(if (r.version.isDefined) cp.CPEUtf8(r.version.get) else 0)
+                    }
+
+                    writeShort(exports.size)
+                    exports foreach { e =>
+                        writeShort(cp.CPEPackage(e.exports))
+                        writeShort(e.flags)
+                        writeShort(e.exportsTo.size)
+                        e.exportsTo foreach { m => writeShort(cp.CPEModule(m)) }
+                    }
+
+                    writeShort(opens.size)
+                    opens foreach { o =>
+                        writeShort(cp.CPEPackage(o.opens))
+                        writeShort(o.flags)
+                        writeShort(o.toPackages.size)
+                        o.toPackages foreach { m => writeShort(cp.CPEModule(m)) }
+                    }
+
+                    writeShort(uses.size)
+                    uses foreach { u => writeShort(cp.CPEClass(u, false)) }
+
+                    writeShort(provides.size)
+                    provides foreach { p =>
+                        writeShort(cp.CPEClass(p.provides, false))
+                        writeShort(p.withInterfaces.size)
+                        p.withInterfaces foreach { i => writeShort(cp.CPEClass(i, false)) }
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.NestHost.KindId =>
+                    val br.NestHost(hostClassType) = attribute
+                    val lengthPosition = startAttribute(bi.NestHostAttribute.Name)
+                    writeShort(cp.CPEClass(hostClassType, false))
+                    endAttribute(lengthPosition)
+
+                case br.NestMembers.KindId =>
+                    val br.NestMembers(classes) = attribute
+                    writeClassesAttribute(bi.NestMembersAttribute.Name, classes)
+
+                case br.Record.KindId =>
+                    val br.Record(components) = attribute
+                    val lengthPosition = startAttribute(bi.RecordAttribute.Name)
+                    writeShort(components.size)
+                    components foreach { c =>
+                        writeShort(cp.CPEUtf8(c.name))
+                        writeShort(cp.CPEUtf8(c.componentType.toJVMTypeName))
+                        writeAttributes(c.attributes)
+                    }
+                    endAttribute(lengthPosition)
+
+                case br.PermittedSubclasses.KindId =>
+                    val br.PermittedSubclasses(subclasses) = attribute
+                    writeClassesAttribute(bi.PermittedSubclassesAttribute.Name, subclasses)
+
+                //
+                // OPAL'S OWN ATTRIBUTES
+                //
+
+                case br.VirtualTypeFlag.KindId =>
+                    if (config.retainOPALAttributes) {
+                        // We "hijack" the unknown attribute for our purposes
+                        endAttribute(startAttribute(br.VirtualTypeFlag.Name))
+                    } else {
+                        return false;
+                    }
+
+                case br.SynthesizedClassFiles.KindId =>
+                    // The synthesized class files are independent class files which cannot be
+                    // embedded in the class file's binary representation.
+                    if (config.retainOPALAttributes) {
+                        OPALLogger.warn(
+                            "class file writer",
+                            s"${classFile.thisType.toJava}: skipped the SynthesizedClassFiles attribute; "+
+                                "the synthesized class files have to be written separately"
+                        )(GlobalLogContext)
+                    }
+                    return false;
+
+                case br.UnknownAttribute.KindId =>
+                    if (config.retainUnknownAttributes) {
+                        val br.UnknownAttribute(attributeName, info) = attribute
+                        val lengthPosition = startAttribute(attributeName)
+                        write(info)
+                        endAttribute(lengthPosition)
+                    } else {
+                        return false;
+                    }
+
+                case _ =>
+                    throw new Error(s"unsupported attribute: ${attribute.getClass.getName}")
+            }
+            true
+        }
+    }
+}
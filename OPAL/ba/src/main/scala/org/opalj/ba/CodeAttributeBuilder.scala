@@ -47,10 +47,21 @@ class CodeAttributeBuilder[T] private[ba] (
         private[ba] var maxStack:                       Option[Int],
         private[ba] var maxLocals:                      Option[Int],
         private[ba] var exceptionHandlers:              br.ExceptionHandlers,
-        private[ba] var attributes:                     br.Attributes
+        private[ba] var attributes:                     br.Attributes,
+        private[ba] val originalCode:                   Option[br.Code]         = None
 ) extends br.CodeAttributeBuilder[(Map[br.PC, T], List[String])] {
 
-    def copy(attributes: br.Attributes = this.attributes): CodeAttributeBuilder[T] = {
+    /**
+     * Creates a copy of this builder.
+     *
+     * @param originalCode The code from which this code was derived (using the `pcMapping`);
+     *        if available, the code's stack map table is updated instead of being recomputed
+     *        from scratch (see [[LabeledCode.resultWithUpdatedStackMapTable]]).
+     */
+    def copy(
+        attributes:   br.Attributes   = this.attributes,
+        originalCode: Option[br.Code] = this.originalCode
+    ): CodeAttributeBuilder[T] = {
         new CodeAttributeBuilder[T](
             instructions,
             hasControlTransferInstructions,
@@ -59,7 +70,8 @@ class CodeAttributeBuilder[T] private[ba] (
             maxStack,
             maxLocals,
             exceptionHandlers,
-            attributes
+            attributes,
+            originalCode
         )
     }
 
@@ -131,7 +143,10 @@ class CodeAttributeBuilder[T] private[ba] (
      *
      * The `classHierarchy` is required iff a Java 6 or newer class file is created and
      * the code requires the computation of a new stack map table. If this is not the
-     * case the class hierarchy can be `null`.
+     * case the class hierarchy can be `null`. If the original code is given (see
+     * [[LabeledCode.resultWithUpdatedStackMapTable]]), the original stack map table is updated
+     * using the [[StackMapTableUpdater]]; only if that is not possible, the table is computed
+     * from scratch.
      *
      * @param  accessFlags The declaring method's access flags, required during code validation or
      *         when MAXSTACK/MAXLOCALS needs to be computed.
@@ -195,16 +210,23 @@ class CodeAttributeBuilder[T] private[ba] (
         if (classFileVersion.major >= bi.Java6MajorVersion &&
             attributes.forall(a => a.kindId != StackMapTable.KindId) &&
             (hasControlTransferInstructions || exceptionHandlers.nonEmpty)) {
-            // Let's create fake code and method objects to make it possible
-            // to use the AI framework for computing the stack map table...
-            val cf = ClassFile(
-                majorVersion = classFileVersion.major,
-                thisType = declaringClassType,
-                methods = Methods(Method(accessFlags, name, descriptor, Attributes(code)))
-            )
-            val m = cf.methods.head
-            val newAttributes = this.attributes :+ CodeAttributeBuilder.computeStackMapTable(m)
-            code = code.copy(attributes = newAttributes)
+            val stackMapTable =
+                originalCode.flatMap { originalCode =>
+                    StackMapTableUpdater(
+                        originalCode, pcMapping, code,
+                        ACC_STATIC.isSet(accessFlags), declaringClassType, name, descriptor
+                    )
+                }.getOrElse {
+                    // Let's create fake code and method objects to make it possible
+                    // to use the AI framework for computing the stack map table...
+                    val cf = ClassFile(
+                        majorVersion = classFileVersion.major,
+                        thisType = declaringClassType,
+                        methods = Methods(Method(accessFlags, name, descriptor, Attributes(code)))
+                    )
+                    CodeAttributeBuilder.computeStackMapTable(cf.methods.head)
+                }
+            code = code.copy(attributes = this.attributes :+ stackMapTable)
         }
 
         (code, (annotations, warnings))
@@ -286,16 +308,8 @@ object CodeAttributeBuilder {
             b.result()
         }
 
-        var lastPC = -1 // -1 === initial stack map frame
-        var lastVerificationTypeInfoLocals: VerificationTypeInfos =
-            computeLocalsVerificationTypeInfo(ils)
-        var lastverificationTypeInfoStack: VerificationTypeInfos =
-            ArraySeq.empty // has to be empty...
-
         val framePCs = c.stackMapTablePCs(classHierarchy)
-        val fs = new Array[StackMapFrame](framePCs.size)
-        var frameIndex = 0
-        framePCs.foreach { pc =>
+        val frames = framePCs.iterator.map[(Int, VerificationTypeInfos, VerificationTypeInfos)] { pc =>
             val verificationTypeInfoLocals: VerificationTypeInfos = {
                 val locals = r.localsArray(pc)
                 if (locals == null) {
@@ -333,6 +347,36 @@ object CodeAttributeBuilder {
                 }
             }
 
+            (pc, verificationTypeInfoLocals, verificationTypeInfoStack)
+        }
+        createStackMapTable(computeLocalsVerificationTypeInfo(ils), frames, framePCs.size)
+    }
+
+    /**
+     * Creates the [[org.opalj.br.StackMapTable]] for the given frames; for each frame the most
+     * compact stack map frame is chosen.
+     *
+     * @param initialLocals The locals of the implicit initial frame.
+     * @param frames The frames – ordered by their pcs – given as triples of the frame's pc, locals
+     *               and operand stack (the last value is the top-most value).
+     */
+    private[ba] def createStackMapTable(
+        initialLocals: ArraySeq[VerificationTypeInfo],
+        frames:        Iterator[(Int, ArraySeq[VerificationTypeInfo], ArraySeq[VerificationTypeInfo])],
+        framesCount:   Int
+    ): StackMapTable = {
+        type VerificationTypeInfos = ArraySeq[VerificationTypeInfo]
+
+        var lastPC = -1 // -1 === initial stack map frame
+        var lastVerificationTypeInfoLocals: VerificationTypeInfos = initialLocals
+        var lastverificationTypeInfoStack: VerificationTypeInfos =
+            ArraySeq.empty // has to be empty...
+
+        val fs = new Array[StackMapFrame](framesCount)
+        var frameIndex = 0
+        frames.foreach { frame =>
+            val (pc, verificationTypeInfoLocals, verificationTypeInfoStack) = frame
+
             // let's see how the last stack map frame looked like and if we can compute
             // an "optimal" stack map frame item
             val sameLocals = lastVerificationTypeInfoLocals == verificationTypeInfoLocals
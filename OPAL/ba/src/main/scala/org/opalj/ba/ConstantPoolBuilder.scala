@@ -0,0 +1,443 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import java.lang.Double.doubleToRawLongBits
+import java.lang.Float.floatToRawIntBits
+import java.util.Arrays
+
+import scala.collection.mutable
+
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Class_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Fieldref_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Methodref_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_InterfaceMethodref_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_String_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Integer_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Float_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Long_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Double_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_NameAndType_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Utf8_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_MethodHandle_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_MethodType_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_InvokeDynamic_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Module_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Package_ID
+import org.opalj.bi.ConstantPoolTags.CONSTANT_Dynamic_ID
+import org.opalj.br.BootstrapMethod
+import org.opalj.br.ClassFile
+import org.opalj.br.FieldType
+import org.opalj.br.MethodDescriptor
+import org.opalj.br.MethodHandle
+import org.opalj.br.ObjectType
+import org.opalj.br.ReferenceType
+import org.opalj.br.cp.ConstantPoolException
+import org.opalj.br.cp.ConstantsPoolLike
+import org.opalj.br.instructions.INCOMPLETE_LDC
+import org.opalj.br.instructions.LDC
+import org.opalj.br.instructions.LoadClass
+import org.opalj.br.instructions.LoadDynamic
+import org.opalj.br.instructions.LoadFloat
+import org.opalj.br.instructions.LoadInt
+import org.opalj.br.instructions.LoadMethodHandle
+import org.opalj.br.instructions.LoadMethodType
+import org.opalj.br.instructions.LoadString
+
+/**
+ * Builds the constant pool of a class file that is directly serialized by the
+ * [[ClassFileWriter]].
+ *
+ * In contrast to the [[org.opalj.br.cp.ConstantsBuffer]], no objects are created per constant
+ * pool entry: an entry is described by its tag, a `Long` value (the value of a numeric constant
+ * or the referenced constant pool indexes) and – in case of `CONSTANT_Utf8_info` entries – a
+ * string. The entries are stored in arrays that are indexed by the entries' constant pool
+ * indexes and are looked up using an open-addressing hash table.
+ *
+ * @note    Use [[ConstantPoolBuilder$.apply]] to create a builder that has already reserved
+ *          the (one byte) indexes of the constants that are loaded using `LDC` instructions.
+ */
+final class ConstantPoolBuilder private () extends ConstantsPoolLike {
+
+    // The data of the entries; the first entry (index 0) is not used.
+    private[this] var tags: Array[Byte] = new Array[Byte](256)
+    private[this] var values: Array[Long] = new Array[Long](256)
+    private[this] var utf8Values: Array[String] = new Array[String](256)
+
+    private var nextIndex: Int = 1
+
+    // The hash table which maps an entry to its index; 0 marks an empty slot.
+    private[this] var table: Array[Int] = new Array[Int](512)
+    private[this] var entriesCount: Int = 0
+
+    // The number of bytes that are required to serialize the entries.
+    private[this] var entriesSize: Int = 0
+
+    private val bootstrapMethods = mutable.ArrayBuffer.empty[BootstrapMethod]
+    private[this] val bootstrapMethodIndexes = mutable.HashMap.empty[BootstrapMethod, Int]
+
+    // Set while the entries of the LDC instructions are reserved; the creation of the
+    // entries of the bootstrap arguments of dynamic constants is then deferred.
+    private var deferBootstrapArguments: Boolean = false
+
+    /** The number of the entries of the constant pool (including the unused entry 0). */
+    def constantPoolCount: Int = nextIndex
+
+    /**
+     * The bootstrap methods referenced by the `CONSTANT_InvokeDynamic_info` and
+     * `CONSTANT_Dynamic_info` entries; the position of a bootstrap method is its index.
+     */
+    def bootstrapMethodsTable: scala.collection.IndexedSeq[BootstrapMethod] = bootstrapMethods
+
+    private[this] def hash(tag: Int, value: Long, utf8Value: String): Int = {
+        val h =
+            if (tag == CONSTANT_Utf8_ID) utf8Value.hashCode
+            else (value ^ (value >>> 32)).toInt * 31 + tag
+        val spread = h * 0x9E3779B9
+        spread ^ (spread >>> 16)
+    }
+
+    private[this] def lookup(tag: Int, value: Long, utf8Value: String, h: Int): Int = {
+        val table = this.table
+        val mask = table.length - 1
+        var slot = h & mask
+        var index = table(slot)
+        while (index != 0) {
+            if (tags(index) == tag && values(index) == value &&
+                ((utf8Value eq null) || utf8Value == utf8Values(index)))
+                return index;
+            slot = (slot + 1) & mask
+            index = table(slot)
+        }
+        0
+    }
+
+    private[this] def insertIntoTable(index: Int, h: Int): Unit = {
+        val table = this.table
+        val mask = table.length - 1
+        var slot = h & mask
+        while (table(slot) != 0) slot = (slot + 1) & mask
+        table(slot) = index
+    }
+
+    private[this] def growTable(): Unit = {
+        table = new Array[Int](table.length << 1)
+        var index = 1
+        while (index < nextIndex) {
+            val tag = tags(index)
+            if (tag != 0) insertIntoTable(index, hash(tag.toInt, values(index), utf8Values(index)))
+            index += 1
+        }
+    }
+
+    private[this] def entrySize(tag: Int, utf8Value: String): Int = {
+        (tag: @scala.annotation.switch) match {
+            case CONSTANT_Utf8_ID => 3 + ByteArrayBuffer.modifiedUTF8Length(utf8Value)
+            case CONSTANT_Long_ID | CONSTANT_Double_ID => 9
+            case CONSTANT_MethodHandle_ID => 4
+            case CONSTANT_Class_ID | CONSTANT_String_ID |
+                CONSTANT_MethodType_ID | CONSTANT_Module_ID |
+                CONSTANT_Package_ID => 3
+            case _ => 5
+        }
+    }
+
+    /**
+     * Returns the index of the given entry; if the entry does not exist, it is created using
+     * the given index or – if the given index is `0` – the next free index.
+     */
+    @throws[ConstantPoolException]
+    private[this] def getOrCreate(tag: Int, value: Long, utf8Value: String, index: Int = 0): Int = {
+        val h = hash(tag, value, utf8Value)
+        val existingIndex = lookup(tag, value, utf8Value, h)
+        if (existingIndex != 0)
+            return existingIndex;
+
+        val slots = if (tag == CONSTANT_Long_ID || tag == CONSTANT_Double_ID) 2 else 1
+        val newIndex = if (index == 0) { val i = nextIndex; nextIndex += slots; i } else index
+        if (newIndex + slots - 1 > UShort.MaxValue) {
+            val message = s"the constant pool index $newIndex is larger than ${UShort.MaxValue}"
+            throw new ConstantPoolException(message)
+        }
+        if (nextIndex > tags.length) {
+            val newLength = Math.max(tags.length << 1, nextIndex)
+            tags = Arrays.copyOf(tags, newLength)
+            values = Arrays.copyOf(values, newLength)
+            utf8Values = Arrays.copyOf(utf8Values, newLength)
+        }
+        tags(newIndex) = tag.toByte
+        values(newIndex) = value
+        utf8Values(newIndex) = utf8Value
+        entriesSize += entrySize(tag, utf8Value)
+        entriesCount += 1
+        if (entriesCount * 2 > table.length) growTable() else insertIntoTable(newIndex, h)
+        newIndex
+    }
+
+    private[this] def refs(index1: Int, index2: Int): Long = {
+        (index1.toLong << 32) | (index2.toLong & 0xFFFFFFFFL)
+    }
+
+    @throws[ConstantPoolException]
+    private[this] def validateIndex(index: Int, requiresUByteIndex: Boolean): Int = {
+        if (requiresUByteIndex && index > UByte.MaxValue) {
+            val message = s"the constant pool index $index is larger than ${UByte.MaxValue}"
+            throw new ConstantPoolException(message)
+        }
+        index
+    }
+
+    @throws[ConstantPoolException]
+    def CPEClass(referenceType: ReferenceType, requiresUByteIndex: Boolean): Int = {
+        val cpeUtf8 = CPEUtf8OfCPEClass(referenceType)
+        validateIndex(getOrCreate(CONSTANT_Class_ID, cpeUtf8.toLong, null), requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEFloat(value: Float, requiresUByteIndex: Boolean): Int = {
+        val bits = floatToRawIntBits(value).toLong
+        validateIndex(getOrCreate(CONSTANT_Float_ID, bits, null), requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEInteger(value: Int, requiresUByteIndex: Boolean): Int = {
+        validateIndex(getOrCreate(CONSTANT_Integer_ID, value.toLong, null), requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEString(value: String, requiresUByteIndex: Boolean): Int = {
+        val cpeUtf8 = CPEUtf8(value)
+        validateIndex(getOrCreate(CONSTANT_String_ID, cpeUtf8.toLong, null), requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEMethodHandle(methodHandle: MethodHandle, requiresUByteIndex: Boolean): Int = {
+        val (kind, cpRefIndex) = CPERefOfCPEMethodHandle(methodHandle)
+        val cpEntryIndex = getOrCreate(CONSTANT_MethodHandle_ID, refs(kind, cpRefIndex), null)
+        validateIndex(cpEntryIndex, requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEMethodType(descriptor: MethodDescriptor, requiresUByteIndex: Boolean): Int = {
+        val cpeUtf8 = CPEUtf8(descriptor.toJVMDescriptor)
+        validateIndex(getOrCreate(CONSTANT_MethodType_ID, cpeUtf8.toLong, null), requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEDouble(value: Double): Int = {
+        getOrCreate(CONSTANT_Double_ID, doubleToRawLongBits(value), null)
+    }
+
+    @throws[ConstantPoolException]
+    def CPELong(value: Long): Int = getOrCreate(CONSTANT_Long_ID, value, null)
+
+    @throws[ConstantPoolException]
+    def CPEUtf8(value: String): Int = getOrCreate(CONSTANT_Utf8_ID, 0L, value)
+
+    @throws[ConstantPoolException]
+    def CPENameAndType(name: String, tpe: String): Int = {
+        val nameIndex = CPEUtf8(name)
+        val typeIndex = CPEUtf8(tpe)
+        getOrCreate(CONSTANT_NameAndType_ID, refs(nameIndex, typeIndex), null)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEFieldRef(objectType: ObjectType, fieldName: String, fieldType: String): Int = {
+        val nameAndTypeIndex = CPENameAndType(fieldName, fieldType)
+        val classIndex = CPEClass(objectType, requiresUByteIndex = false)
+        getOrCreate(CONSTANT_Fieldref_ID, refs(classIndex, nameAndTypeIndex), null)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEMethodRef(
+        referenceType: ReferenceType,
+        methodName:    String,
+        descriptor:    MethodDescriptor
+    ): Int = {
+        val classIndex = CPEClass(referenceType, requiresUByteIndex = false)
+        val nameAndTypeIndex = CPENameAndType(methodName, descriptor.toJVMDescriptor)
+        getOrCreate(CONSTANT_Methodref_ID, refs(classIndex, nameAndTypeIndex), null)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEInterfaceMethodRef(
+        objectType: ReferenceType,
+        methodName: String,
+        descriptor: MethodDescriptor
+    ): Int = {
+        val classIndex = CPEClass(objectType, requiresUByteIndex = false)
+        val nameAndTypeIndex = CPENameAndType(methodName, descriptor.toJVMDescriptor)
+        getOrCreate(CONSTANT_InterfaceMethodref_ID, refs(classIndex, nameAndTypeIndex), null)
+    }
+
+    @throws[ConstantPoolException]
+    private[this] def bootstrapMethodIndex(bootstrapMethod: BootstrapMethod): Int = {
+        bootstrapMethodIndexes.get(bootstrapMethod) match {
+            case Some(index) => index
+            case None =>
+                CPEUtf8(bi.BootstrapMethodsAttribute.Name)
+                val index = bootstrapMethods.size
+                bootstrapMethods += bootstrapMethod
+                bootstrapMethodIndexes.put(bootstrapMethod, index)
+                CPEMethodHandle(bootstrapMethod.handle, requiresUByteIndex = false)
+                if (!deferBootstrapArguments)
+                    bootstrapMethod.arguments.foreach(CPEntryForBootstrapArgument)
+                index
+        }
+    }
+
+    @throws[ConstantPoolException]
+    def CPEInvokeDynamic(
+        bootstrapMethod: BootstrapMethod,
+        name:            String,
+        descriptor:      MethodDescriptor
+    ): Int = {
+        val bootstrapMethodIndex = this.bootstrapMethodIndex(bootstrapMethod)
+        val nameAndTypeIndex = CPENameAndType(name, descriptor.toJVMDescriptor)
+        getOrCreate(CONSTANT_InvokeDynamic_ID, refs(bootstrapMethodIndex, nameAndTypeIndex), null)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEDynamic(
+        bootstrapMethod:    BootstrapMethod,
+        name:               String,
+        descriptor:         FieldType,
+        requiresUByteIndex: Boolean
+    ): Int = {
+        val bootstrapMethodIndex = this.bootstrapMethodIndex(bootstrapMethod)
+        val nameAndTypeIndex = CPENameAndType(name, descriptor.toJVMTypeName)
+        val cpEntryIndex =
+            getOrCreate(CONSTANT_Dynamic_ID, refs(bootstrapMethodIndex, nameAndTypeIndex), null)
+        validateIndex(cpEntryIndex, requiresUByteIndex)
+    }
+
+    @throws[ConstantPoolException]
+    def CPEModule(name: String): Int = getOrCreate(CONSTANT_Module_ID, CPEUtf8(name).toLong, null)
+
+    @throws[ConstantPoolException]
+    def CPEPackage(name: String): Int = getOrCreate(CONSTANT_Package_ID, CPEUtf8(name).toLong, null)
+
+    /**
+     * Creates the entry of the constant loaded by the given `LDC` instruction using the given
+     * index; the entries referenced by the constant get the next free indexes.
+     */
+    @throws[ConstantPoolException]
+    private def reserveLDCEntry(ldc: LDC[_], index: Int): Unit = {
+        ldc match {
+            case LoadInt(value) =>
+                getOrCreate(CONSTANT_Integer_ID, value.toLong, null, index)
+            case LoadFloat(value) =>
+                getOrCreate(CONSTANT_Float_ID, floatToRawIntBits(value).toLong, null, index)
+            case LoadString(value) =>
+                getOrCreate(CONSTANT_String_ID, CPEUtf8(value).toLong, null, index)
+            case LoadClass(value) =>
+                getOrCreate(CONSTANT_Class_ID, CPEUtf8OfCPEClass(value).toLong, null, index)
+            case LoadMethodHandle(value) =>
+                val (kind, cpRefIndex) = CPERefOfCPEMethodHandle(value)
+                getOrCreate(CONSTANT_MethodHandle_ID, refs(kind, cpRefIndex), null, index)
+            case LoadMethodType(value) =>
+                getOrCreate(CONSTANT_MethodType_ID, CPEUtf8(value.toJVMDescriptor).toLong, null, index)
+            case LoadDynamic(bootstrapMethod, name, descriptor) =>
+                val bootstrapMethodIndex = this.bootstrapMethodIndex(bootstrapMethod)
+                val nameAndTypeIndex = CPENameAndType(name, descriptor.toJVMTypeName)
+                val value = refs(bootstrapMethodIndex, nameAndTypeIndex)
+                getOrCreate(CONSTANT_Dynamic_ID, value, null, index)
+            case INCOMPLETE_LDC =>
+                throw ConstantPoolException("incomplete LDC")
+        }
+    }
+
+    /**
+     * Writes the `constant_pool_count` and the entries of the constant pool.
+     */
+    def write(out: ByteArrayBuffer): Unit = {
+        out.writeShort(nextIndex)
+        var index = 1
+        while (index < nextIndex) {
+            val tag = tags(index).toInt
+            out.writeByte(tag)
+            val value = values(index)
+            (tag: @scala.annotation.switch) match {
+                case CONSTANT_Utf8_ID =>
+                    out.writeUTF(utf8Values(index))
+                case CONSTANT_Integer_ID | CONSTANT_Float_ID =>
+                    out.writeInt(value.toInt)
+                case CONSTANT_Long_ID | CONSTANT_Double_ID =>
+                    out.writeLong(value)
+                    index += 1
+                case CONSTANT_MethodHandle_ID =>
+                    out.writeByte((value >>> 32).toInt)
+                    out.writeShort(value.toInt)
+                case CONSTANT_Class_ID | CONSTANT_String_ID |
+                    CONSTANT_MethodType_ID | CONSTANT_Module_ID |
+                    CONSTANT_Package_ID =>
+                    out.writeShort(value.toInt)
+                case _ =>
+                    out.writeShort((value >>> 32).toInt)
+                    out.writeShort(value.toInt)
+            }
+            index += 1
+        }
+    }
+
+    /** The number of bytes written by [[write]]. */
+    def size: Int = 2 + entriesSize
+}
+
+/**
+ * Factory to create a [[ConstantPoolBuilder]].
+ */
+object ConstantPoolBuilder {
+
+    /**
+     * Creates a new [[ConstantPoolBuilder]] which has already created the entries of the
+     * constants loaded by the given class file's `LDC` instructions; these entries get the
+     * indexes `1..n` because an `LDC` instruction references the loaded constant using a single
+     * unsigned byte.
+     *
+     * The entries of loaded classes are created first and those of dynamic constants last,
+     * because the entries of method handles may reference classes and the entries of dynamic
+     * constants may reference method handles. The entries of the bootstrap arguments of
+     * dynamic constants – which may reference arbitrary constants – are created after all
+     * entries of the `LDC` instructions.
+     */
+    @throws[ConstantPoolException]("if it is impossible to create a valid constant pool")
+    def apply(classFile: ClassFile): ConstantPoolBuilder = {
+        val constantsPool = new ConstantPoolBuilder()
+
+        // Unlike LoadFloat instructions, the constant pool entries distinguish 0.0f and -0.0f.
+        val ldcs = mutable.LinkedHashMap.empty[Any, LDC[_]]
+        classFile.methods foreach { method =>
+            val body = method.body
+            if (body.isDefined) {
+                val instructions = body.get.instructions
+                var pc = 0
+                while (pc < instructions.length) {
+                    instructions(pc) match {
+                        case ldc @ LoadFloat(value) => ldcs.getOrElseUpdate(floatToRawIntBits(value), ldc)
+                        case ldc: LDC[_]            => ldcs.getOrElseUpdate(ldc, ldc)
+                        case _                      =>
+                    }
+                    pc += 1
+                }
+            }
+        }
+        if (ldcs.nonEmpty) {
+            constantsPool.nextIndex = 1 + ldcs.size
+            constantsPool.deferBootstrapArguments = true
+            var ldcIndex = 1
+            def reserve(ldc: LDC[_]): Unit = {
+                constantsPool.reserveLDCEntry(ldc, ldcIndex)
+                ldcIndex += 1
+            }
+            val (loadClasses, others) = ldcs.valuesIterator.partition(_.isInstanceOf[LoadClass])
+            val (loadDynamics, loadOthers) = others.partition(_.isInstanceOf[LoadDynamic])
+            loadClasses foreach reserve
+            loadOthers foreach reserve
+            loadDynamics foreach reserve
+            constantsPool.deferBootstrapArguments = false
+            constantsPool.bootstrapMethods.foreach(_.arguments.foreach(constantsPool.CPEntryForBootstrapArgument))
+        }
+        constantsPool
+    }
+}
@@ -187,7 +187,8 @@ class LabeledCode(
 
     /**
      * Creates a new [[CodeAttributeBuilder]] based on this `LabeledCode`; that builder can then
-     * be used to construct a valid [[org.opalj.br.Code]] attribute.
+     * be used to construct a valid [[org.opalj.br.Code]] attribute. If required, the stack map
+     * table is computed from scratch.
      */
     def result: CodeAttributeBuilder[AnyRef] = {
         val initialCodeAttributeBuilder = CODE(instructions)
@@ -233,6 +234,17 @@ class LabeledCode(
         )
     }
 
+    /**
+     * Creates a new [[CodeAttributeBuilder]] based on this `LabeledCode` (see [[result]]) which
+     * updates the original code's stack map table using the [[StackMapTableUpdater]] instead of
+     * computing the table from scratch; if the table cannot be updated, it is computed from
+     * scratch. The frames of the updated table may differ from the computed ones; e.g., if the
+     * original table was created by a compiler that records more precise types.
+     */
+    def resultWithUpdatedStackMapTable: CodeAttributeBuilder[AnyRef] = {
+        result.copy(originalCode = Some(originalCode))
+    }
+
     override def toString: String = instructions.mkString("LabeledCode(\n\t", "\n\t", "\n)")
 
 }
@@ -4,7 +4,6 @@ package ba
 
 import org.opalj.br.ClassFileRepository
 import org.opalj.br.ObjectType
-import org.opalj.bc.Assembler
 
 /**
  * A simple `ClassLoader` that looks-up the available classes from the given
@@ -22,7 +21,7 @@ class ProjectBasedInMemoryClassLoader(
         project.classFile(ObjectType(name.replace('.', '/'))) match {
 
             case Some(cf) =>
-                val bytes = Assembler(ba.toDA(cf))
+                val bytes = ClassFileWriter(cf)
                 defineClass(name, bytes, 0, bytes.length)
 
             case None =>
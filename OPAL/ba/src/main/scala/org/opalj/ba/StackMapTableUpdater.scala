@@ -0,0 +1,802 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import java.util.Arrays
+
+import scala.annotation.switch
+import scala.collection.immutable.ArraySeq
+import scala.util.control.NoStackTrace
+
+import org.opalj.collection.immutable.UIDSet
+import org.opalj.collection.mutable.IntArrayStack
+import org.opalj.br.AppendFrame
+import org.opalj.br.ChopFrame
+import org.opalj.br.ClassHierarchy
+import org.opalj.br.Code
+import org.opalj.br.ComputationalTypeDouble
+import org.opalj.br.ComputationalTypeFloat
+import org.opalj.br.ComputationalTypeInt
+import org.opalj.br.ComputationalTypeLong
+import org.opalj.br.DoubleVariableInfo
+import org.opalj.br.ExceptionHandler
+import org.opalj.br.FieldType
+import org.opalj.br.FloatVariableInfo
+import org.opalj.br.FullFrame
+import org.opalj.br.IntegerVariableInfo
+import org.opalj.br.LongVariableInfo
+import org.opalj.br.MethodDescriptor
+import org.opalj.br.NullVariableInfo
+import org.opalj.br.ObjectType
+import org.opalj.br.ObjectVariableInfo
+import org.opalj.br.ReferenceType
+import org.opalj.br.SameFrame
+import org.opalj.br.SameFrameExtended
+import org.opalj.br.SameLocals1StackItemFrame
+import org.opalj.br.SameLocals1StackItemFrameExtended
+import org.opalj.br.StackMapTable
+import org.opalj.br.TopVariableInfo
+import org.opalj.br.UninitializedThisVariableInfo
+import org.opalj.br.UninitializedVariableInfo
+import org.opalj.br.VerificationTypeInfo
+import org.opalj.br.instructions._
+
+/**
+ * Computes the [[org.opalj.br.StackMapTable]] of some code that was derived from some
+ * original code – e.g., using [[LabeledCode]] – by reusing the original stack map table.
+ *
+ * The frames of the original stack map table are mapped to the new code using the
+ * [[PCMapping]] and are kept for all regions of the code that were not affected by the
+ * transformation; i.e., which still consist of the original instructions. For the affected
+ * regions (and new jump targets) the frames are (re)computed using a lightweight type
+ * inference that only tracks verification types and which uses the class hierarchy to join
+ * reference types. The types which flow from the affected regions into kept frames are
+ * checked for assignability; if a kept frame is no longer valid – e.g., because inserted code
+ * stores a value of a different type in a local variable – the original table cannot be
+ * reused and the table has to be computed from scratch.
+ */
+object StackMapTableUpdater {
+
+    /**
+     * Computes the stack map table of `code` by reusing the stack map table of the
+     * `originalCode`.
+     *
+     * @param  pcMapping The mapping of the pcs of the original code to the pcs of the new code.
+     * @return The new stack map table or `None` if the original stack map table cannot be
+     *         reused; in the latter case the stack map table has to be computed using
+     *         [[CodeAttributeBuilder.computeStackMapTable]].
+     */
+    def apply(
+        originalCode:       Code,
+        pcMapping:          PCMapping,
+        code:               Code,
+        isStatic:           Boolean,
+        declaringClassType: ObjectType,
+        name:               String,
+        descriptor:         MethodDescriptor
+    )(
+        implicit
+        classHierarchy: ClassHierarchy
+    ): Option[StackMapTable] = {
+        originalCode.stackMapTable flatMap { originalStackMapTable =>
+            try {
+                val update = new StackMapTableUpdate(
+                    originalCode, originalStackMapTable, pcMapping, code,
+                    isStatic, declaringClassType, name, descriptor
+                )
+                Some(update.result())
+            } catch {
+                case IncompatibleCode => None
+            }
+        }
+    }
+
+    /**
+     * Signals that the original stack map table cannot be reused.
+     */
+    private object IncompatibleCode extends RuntimeException with NoStackTrace
+
+    private def incompatibleCode(): Nothing = throw IncompatibleCode
+
+    /**
+     * A frame using a slot based representation of the locals; i.e., the slot following a
+     * long or double value is always `Top`. The stack is a list where the head is the top
+     * most value; long and double values are represented by a single entry.
+     */
+    private final class Frame(
+            val locals: Array[VerificationTypeInfo],
+            val stack:  List[VerificationTypeInfo]
+    ) {
+        def isSameFrame(other: Frame): Boolean = {
+            Arrays.equals(
+                locals.asInstanceOf[Array[AnyRef]],
+                other.locals.asInstanceOf[Array[AnyRef]]
+            ) && stack == other.stack
+        }
+    }
+
+    @inline private def isCategory2(vti: VerificationTypeInfo): Boolean = {
+        (vti eq LongVariableInfo) || (vti eq DoubleVariableInfo)
+    }
+
+    private def verificationTypeInfo(fieldType: FieldType): VerificationTypeInfo = {
+        if (fieldType.isReferenceType) {
+            ObjectVariableInfo(fieldType.asReferenceType)
+        } else {
+            fieldType.computationalType match {
+                case ComputationalTypeInt    => IntegerVariableInfo
+                case ComputationalTypeFloat  => FloatVariableInfo
+                case ComputationalTypeLong   => LongVariableInfo
+                case ComputationalTypeDouble => DoubleVariableInfo
+                case ct                      => throw new MatchError(ct)
+            }
+        }
+    }
+
+    private def slotsToVerificationTypeInfos(
+        locals: Array[VerificationTypeInfo]
+    ): ArraySeq[VerificationTypeInfo] = {
+        var lastIndex = locals.length - 1
+        while (lastIndex >= 0 && (locals(lastIndex) eq TopVariableInfo)) lastIndex -= 1
+        val b = ArraySeq.newBuilder[VerificationTypeInfo]
+        var index = 0
+        while (index <= lastIndex) {
+            val vti = locals(index)
+            b += vti
+            index += (if (isCategory2(vti)) 2 else 1)
+        }
+        b.result()
+    }
+
+    private final class StackMapTableUpdate(
+            originalCode:          Code,
+            originalStackMapTable: StackMapTable,
+            pcMapping:             PCMapping,
+            code:                  Code,
+            isStatic:              Boolean,
+            declaringClassType:    ObjectType,
+            name:                  String,
+            descriptor:            MethodDescriptor
+    )(
+            implicit
+            classHierarchy: ClassHierarchy
+    ) {
+
+        private[this] val instructions = code.instructions
+        private[this] val codeSize = instructions.length
+        private[this] val maxLocals = Math.max(code.maxLocals, originalCode.maxLocals)
+
+        private[this] val initialFrame: Frame = {
+            val locals = newLocals()
+            var index = 0
+            if (!isStatic) {
+                locals(0) =
+                    if (name == "<init>" && (declaringClassType ne ObjectType.Object))
+                        UninitializedThisVariableInfo
+                    else
+                        ObjectVariableInfo(declaringClassType)
+                index = 1
+            }
+            descriptor.parameterTypes foreach { parameterType =>
+                locals(index) = verificationTypeInfo(parameterType)
+                index += parameterType.computationalType.operandSize
+            }
+            new Frame(locals, Nil)
+        }
+
+        // The pcs of the new code which require a stack map frame.
+        private[this] val framePCs: Array[Int] = code.stackMapTablePCs(classHierarchy).iterator.toArray
+
+        private[this] val frameIndexOfPC: Array[Int] = {
+            val frameIndexOfPC = new Array[Int](codeSize)
+            Arrays.fill(frameIndexOfPC, -1)
+            var frameIndex = 0
+            while (frameIndex < framePCs.length) {
+                frameIndexOfPC(framePCs(frameIndex)) = frameIndex
+                frameIndex += 1
+            }
+            frameIndexOfPC
+        }
+
+        // The frames of the new code; the kept frames are determined upfront, the others are
+        // computed by the type inference.
+        private[this] val frames = new Array[Frame](framePCs.length)
+        private[this] val isKeptFrame = new Array[Boolean](framePCs.length)
+
+        // The pcs of the original code at which a region of the new code starts (-1 if unknown).
+        private[this] val originalFramePCs: Array[Int] = {
+            val originalFramePCs = new Array[Int](framePCs.length)
+            Arrays.fill(originalFramePCs, -1)
+            originalFramePCs
+        }
+
+        // The (sorted) pcs of the original code at which a region of the original code starts.
+        private[this] val originalRegionStartPCs: Array[Int] = {
+            val originalFramePCs = originalStackMapTable.pcs.iterator.toArray
+            if (originalFramePCs.isEmpty || originalFramePCs(0) != 0)
+                0 +: originalFramePCs
+            else
+                originalFramePCs
+        }
+
+        // The regions of the new code; each region starts at pc 0 or at a pc with a frame and
+        // extends to the next pc with a frame.
+        private[this] val regionStartPCs: Array[Int] = {
+            if (framePCs.isEmpty || framePCs(0) != 0) 0 +: framePCs else framePCs
+        }
+        private[this] val regionOffset = regionStartPCs.length - framePCs.length // 0 or 1
+
+        private[this] def regionEndPC(region: Int): Int = {
+            if (region + 1 < regionStartPCs.length) regionStartPCs(region + 1) else codeSize
+        }
+
+        private[this] def regionOfFrame(frameIndex: Int): Int = frameIndex + regionOffset
+
+        private[this] def newLocals(): Array[VerificationTypeInfo] = {
+            val locals = new Array[VerificationTypeInfo](maxLocals)
+            Arrays.fill(locals.asInstanceOf[Array[AnyRef]], TopVariableInfo)
+            locals
+        }
+
+        private[this] def remap(vti: VerificationTypeInfo): VerificationTypeInfo = {
+            vti match {
+                case UninitializedVariableInfo(originalPC) =>
+                    val newPC = pcMapping(originalPC)
+                    if (newPC >= codeSize || instructions(newPC).opcode != NEW.opcode)
+                        incompatibleCode()
+                    UninitializedVariableInfo(newPC)
+                case _ => vti
+            }
+        }
+
+        private[this] def keepOriginalFrames(): Unit = {
+            var originalPC = -1
+            var locals: ArraySeq[VerificationTypeInfo] =
+                slotsToVerificationTypeInfos(initialFrame.locals)
+            var stack: List[VerificationTypeInfo] = Nil
+            originalStackMapTable.stackMapFrames foreach { f =>
+                f match {
+                    case _: SameFrame | _: SameFrameExtended =>
+                        stack = Nil
+                    case SameLocals1StackItemFrame(_, vti) =>
+                        stack = List(vti)
+                    case SameLocals1StackItemFrameExtended(_, vti) =>
+                        stack = List(vti)
+                    case chopFrame: ChopFrame =>
+                        locals = locals.dropRight(251 - chopFrame.frameType)
+                        stack = Nil
+                    case AppendFrame(_, _, additionalLocals) =>
+                        locals = locals ++ additionalLocals
+                        stack = Nil
+                    case FullFrame(_, fullLocals, fullStack) =>
+                        locals = fullLocals
+                        stack = fullStack.reverseIterator.toList
+                }
+                originalPC = f.offset(originalPC)
+
+                val newPC = pcMapping(originalPC)
+                if (newPC < codeSize && frameIndexOfPC(newPC) >= 0) {
+                    val frameLocals = newLocals()
+                    var index = 0
+                    locals foreach { vti =>
+                        if (index >= maxLocals) incompatibleCode()
+                        frameLocals(index) = remap(vti)
+                        index += (if (isCategory2(vti)) 2 else 1)
+                    }
+                    val frame = new Frame(frameLocals, stack.map(remap))
+                    val frameIndex = frameIndexOfPC(newPC)
+                    val existingFrame = frames(frameIndex)
+                    if (existingFrame eq null) {
+                        frames(frameIndex) = frame
+                        isKeptFrame(frameIndex) = true
+                        originalFramePCs(frameIndex) = originalPC
+                    } else if (!existingFrame.isSameFrame(frame)) {
+                        incompatibleCode()
+                    }
+                }
+            }
+        }
+
+        private[this] def remap(eh: ExceptionHandler): ExceptionHandler = {
+            ExceptionHandler(
+                pcMapping(eh.startPC), pcMapping(eh.endPC), pcMapping(eh.handlerPC), eh.catchType
+            )
+        }
+
+        /**
+         * Tests if the instructions of the given region are the original instructions and that
+         * all control-flow successors of the region's instructions have kept frames. In this
+         * case, the kept frames are guaranteed to be valid w.r.t. the region.
+         */
+        private[this] def isUnaffectedRegion(region: Int, newHandlers: Seq[ExceptionHandler]): Boolean = {
+            val startPC = regionStartPCs(region)
+            val endPC = regionEndPC(region)
+            val originalStartPC =
+                if (startPC == 0 && (framePCs.isEmpty || framePCs(0) != 0)) {
+                    if (pcMapping(0) != 0) return false;
+                    0
+                } else {
+                    val frameIndex = frameIndexOfPC(startPC)
+                    if (!isKeptFrame(frameIndex)) return false;
+                    originalFramePCs(frameIndex)
+                }
+            val originalEndPC = {
+                val index = Arrays.binarySearch(originalRegionStartPCs, originalStartPC)
+                if (index + 1 < originalRegionStartPCs.length)
+                    originalRegionStartPCs(index + 1)
+                else
+                    originalCode.codeSize
+            }
+            if (endPC - startPC != originalEndPC - originalStartPC ||
+                pcMapping(originalEndPC) != endPC ||
+                (endPC < codeSize && !isKeptFrame(frameIndexOfPC(endPC))))
+                return false;
+
+            if (newHandlers.exists(eh => eh.startPC < endPC && eh.endPC > startPC))
+                return false;
+            if (code.exceptionHandlers.exists { eh =>
+                eh.startPC < endPC && eh.endPC > startPC && !isKeptFrame(frameIndexOfPC(eh.handlerPC))
+            })
+                return false;
+
+            def isKeptTarget(originalTargetPC: Int, newTargetPC: Int): Boolean = {
+                pcMapping(originalTargetPC) == newTargetPC &&
+                    newTargetPC < codeSize &&
+                    isKeptFrame(frameIndexOfPC(newTargetPC))
+            }
+
+            val originalInstructions = originalCode.instructions
+            var originalPC = originalStartPC
+            while (originalPC < originalEndPC) {
+                val pc = startPC + (originalPC - originalStartPC)
+                if (pcMapping(originalPC) != pc)
+                    return false;
+                val originalInstruction = originalInstructions(originalPC)
+                val instruction = instructions(pc)
+                if (instruction eq null)
+                    return false;
+                val isSameInstruction =
+                    (originalInstruction, instruction) match {
+                        case (oi: SimpleBranchInstruction, i: SimpleBranchInstruction) =>
+                            oi.opcode == i.opcode &&
+                                isKeptTarget(originalPC + oi.branchoffset, pc + i.branchoffset)
+                        case (
+                            oi: CompoundConditionalBranchInstruction,
+                            i: CompoundConditionalBranchInstruction
+                            ) =>
+                            oi.opcode == i.opcode &&
+                                isKeptTarget(originalPC + oi.defaultOffset, pc + i.defaultOffset) &&
+                                oi.jumpOffsets.size == i.jumpOffsets.size &&
+                                oi.jumpOffsets.iterator.zip(i.jumpOffsets.iterator).forall { offsets =>
+                                    isKeptTarget(originalPC + offsets._1, pc + offsets._2)
+                                }
+                        case _ =>
+                            originalInstruction == instruction
+                    }
+                if (!isSameInstruction)
+                    return false;
+                originalPC = originalCode.pcOfNextInstruction(originalPC)
+            }
+            true
+        }
+
+        //
+        // THE TYPE INFERENCE
+        //
+
+        private[this] val worklist = new IntArrayStack(Math.max(regionStartPCs.length, 4))
+        private[this] val isScheduled = new Array[Boolean](regionStartPCs.length)
+        private[this] val isAffectedRegion = new Array[Boolean](regionStartPCs.length)
+
+        private[this] def schedule(region: Int): Unit = {
+            if (isAffectedRegion(region) && !isScheduled(region)) {
+                isScheduled(region) = true
+                worklist.push(region)
+            }
+        }
+
+        private[this] def isAssignable(
+            value:  VerificationTypeInfo,
+            target: VerificationTypeInfo
+        ): Boolean = {
+            (value eq target) || (target eq TopVariableInfo) || value == target || (
+                target match {
+                    case ObjectVariableInfo(targetType) =>
+                        value match {
+                            case NullVariableInfo        => true
+                            case ObjectVariableInfo(tpe) => isAssignable(tpe, targetType)
+                            case _                       => false
+                        }
+                    case _ => false
+                }
+            )
+        }
+
+        private[this] def isAssignable(tpe: ReferenceType, targetType: ReferenceType): Boolean = {
+            (tpe eq targetType) || (targetType eq ObjectType.Object) || {
+                if (targetType.isObjectType) {
+                    val targetObjectType = targetType.asObjectType
+                    if (tpe.isArrayType)
+                        (targetObjectType eq ObjectType.Cloneable) ||
+                            (targetObjectType eq ObjectType.Serializable)
+                    else
+                        classHierarchy.isInterface(targetObjectType).isYes ||
+                            classHierarchy.isSubtypeOf(tpe.asObjectType, targetObjectType)
+                } else if (tpe.isArrayType) {
+                    val componentType = tpe.asArrayType.componentType
+                    val targetComponentType = targetType.asArrayType.componentType
+                    componentType.isReferenceType && targetComponentType.isReferenceType &&
+                        isAssignable(componentType.asReferenceType, targetComponentType.asReferenceType)
+                } else {
+                    false
+                }
+            }
+        }
+
+        private[this] def join(
+            v1: VerificationTypeInfo,
+            v2: VerificationTypeInfo
+        ): VerificationTypeInfo = {
+            if ((v1 eq v2) || v1 == v2) {
+                v1
+            } else {
+                (v1, v2) match {
+                    case (NullVariableInfo, ObjectVariableInfo(_)) => v2
+                    case (ObjectVariableInfo(_), NullVariableInfo) => v1
+                    case (ObjectVariableInfo(t1), ObjectVariableInfo(t2)) =>
+                        val upperTypeBound = classHierarchy.joinUpperTypeBounds(UIDSet(t1), UIDSet(t2))
+                        if (upperTypeBound.isEmpty)
+                            ObjectVariableInfo(ObjectType.Object)
+                        else
+                            ObjectVariableInfo(
+                                classHierarchy.joinReferenceTypesUntilSingleUpperBound(upperTypeBound)
+                            )
+                    case _ => TopVariableInfo
+                }
+            }
+        }
+
+        private[this] def flowTo(
+            targetPC: Int,
+            locals:   Array[VerificationTypeInfo],
+            stack:    List[VerificationTypeInfo]
+        ): Unit = {
+            if (targetPC >= codeSize) incompatibleCode()
+            val frameIndex = frameIndexOfPC(targetPC)
+            if (frameIndex < 0) incompatibleCode()
+
+            val frame = frames(frameIndex)
+            if (isKeptFrame(frameIndex)) {
+                val frameLocals = frame.locals
+                var index = 0
+                while (index < maxLocals) {
+                    if (!isAssignable(locals(index), frameLocals(index))) incompatibleCode()
+                    index += 1
+                }
+                if (stack.size != frame.stack.size ||
+                    !stack.iterator.zip(frame.stack.iterator).forall(vs => isAssignable(vs._1, vs._2)))
+                    incompatibleCode()
+            } else if (frame eq null) {
+                frames(frameIndex) = new Frame(locals.clone(), stack)
+                schedule(regionOfFrame(frameIndex))
+            } else {
+                if (stack.size != frame.stack.size) incompatibleCode()
+                val frameLocals = frame.locals
+                var updated = false
+                var index = 0
+                while (index < maxLocals) {
+                    val oldValue = frameLocals(index)
+                    val newValue = join(oldValue, locals(index))
+                    if (newValue != oldValue) {
+                        frameLocals(index) = newValue
+                        updated = true
+                    }
+                    index += 1
+                }
+                val newStack = stack.zip(frame.stack).map { vs =>
+                    val newValue = join(vs._2, vs._1)
+                    if (newValue eq TopVariableInfo) incompatibleCode()
+                    if (newValue != vs._2) updated = true
+                    newValue
+                }
+                if (updated) {
+                    frames(frameIndex) = new Frame(frameLocals, newStack)
+                    schedule(regionOfFrame(frameIndex))
+                }
+            }
+        }
+
+        private[this] def flowToHandlers(pc: Int, locals: Array[VerificationTypeInfo]): Unit = {
+            code.exceptionHandlers foreach { eh =>
+                if (eh.startPC <= pc && pc < eh.endPC) {
+                    val exceptionType = eh.catchType.getOrElse(ObjectType.Throwable)
+                    flowTo(eh.handlerPC, locals, List(ObjectVariableInfo(exceptionType)))
+                }
+            }
+        }
+
+        private[this] def store(
+            locals: Array[VerificationTypeInfo],
+            index:  Int,
+            value:  VerificationTypeInfo
+        ): Unit = {
+            if (index > 0 && isCategory2(locals(index - 1))) locals(index - 1) = TopVariableInfo
+            locals(index) = value
+            if (isCategory2(value)) locals(index + 1) = TopVariableInfo
+        }
+
+        private[this] def analyze(region: Int): Unit = {
+            val startPC = regionStartPCs(region)
+            val endPC = regionEndPC(region)
+            val entryFrame =
+                if (startPC == 0 && regionOffset == 1) initialFrame else frames(region - regionOffset)
+            val locals = entryFrame.locals.clone()
+            var stack = entryFrame.stack
+
+            def pop(): VerificationTypeInfo = {
+                if (stack.isEmpty) incompatibleCode()
+                val value = stack.head
+                stack = stack.tail
+                value
+            }
+            def popN(n: Int): Unit = { var i = 0; while (i < n) { pop(); i += 1 } }
+            def push(value: VerificationTypeInfo): Unit = stack = value :: stack
+
+            var pc = startPC
+            while (pc < endPC) {
+                val instruction = instructions(pc)
+                val opcode = instruction.opcode
+                if (opcode != 54 /*istore*/ && (opcode < 59 /*istore_0*/ || opcode > 78 /*astore_3*/ ))
+                    flowToHandlers(pc, locals)
+                var fallsThrough = true
+
+                (opcode: @switch) match {
+                    case 0 /*nop*/ | 132 /*iinc*/ | 196 /*wide*/ =>
+                    case 1 /*aconst_null*/                       => push(NullVariableInfo)
+                    case 2 | 3 | 4 | 5 | 6 | 7 | 8 | 16 | 17     => push(IntegerVariableInfo)
+                    case 9 | 10                                  => push(LongVariableInfo)
+                    case 11 | 12 | 13                            => push(FloatVariableInfo)
+                    case 14 | 15                                 => push(DoubleVariableInfo)
+                    case 18 | 19 | 20 /*ldc(_w|2_w)*/ =>
+                        push(instruction match {
+                            case _: LoadInt | _: LoadInt_W              => IntegerVariableInfo
+                            case _: LoadFloat | _: LoadFloat_W          => FloatVariableInfo
+                            case _: LoadLong                            => LongVariableInfo
+                            case _: LoadDouble                          => DoubleVariableInfo
+                            case _: LoadString | _: LoadString_W        => ObjectVariableInfo(ObjectType.String)
+                            case _: LoadClass | _: LoadClass_W          => ObjectVariableInfo(ObjectType.Class)
+                            case _: LoadMethodHandle | _: LoadMethodHandle_W => ObjectVariableInfo(ObjectType.MethodHandle)
+                            case _: LoadMethodType | _: LoadMethodType_W => ObjectVariableInfo(ObjectType.MethodType)
+                            case ld: LoadDynamic                        => verificationTypeInfo(ld.descriptor)
+                            case ld: LoadDynamic_W                      => verificationTypeInfo(ld.descriptor)
+                            case ld: LoadDynamic2_W                     => verificationTypeInfo(ld.descriptor)
+                            case _                                      => incompatibleCode()
+                        })
+
+                    case 21 | 26 | 27 | 28 | 29 => push(IntegerVariableInfo)
+                    case 22 | 30 | 31 | 32 | 33 => push(LongVariableInfo)
+                    case 23 | 34 | 35 | 36 | 37 => push(FloatVariableInfo)
+                    case 24 | 38 | 39 | 40 | 41 => push(DoubleVariableInfo)
+                    case 25 | 42 | 43 | 44 | 45 =>
+                        push(locals(instruction.asLoadLocalVariableInstruction.lvIndex))
+
+                    case 46 | 51 | 52 | 53 /*[i|b|c|s]aload*/ => popN(2); push(IntegerVariableInfo)
+                    case 47 /*laload*/                        => popN(2); push(LongVariableInfo)
+                    case 48 /*faload*/                        => popN(2); push(FloatVariableInfo)
+                    case 49 /*daload*/                        => popN(2); push(DoubleVariableInfo)
+                    case 50 /*aaload*/ =>
+                        pop()
+                        push(pop() match {
+                            case NullVariableInfo => NullVariableInfo
+                            case ObjectVariableInfo(arrayType) if arrayType.isArrayType =>
+                                verificationTypeInfo(arrayType.asArrayType.componentType)
+                            case _ => incompatibleCode()
+                        })
+
+                    case 54 | 55 | 56 | 57 | 58 | 59 | 60 | 61 | 62 | 63 | 64 | 65 | 66 | 67 | 68 |
+                        69 | 70 | 71 | 72 | 73 | 74 | 75 | 76 | 77 | 78 =>
+                        flowToHandlers(pc, locals)
+                        store(locals, instruction.asStoreLocalVariableInstruction.lvIndex, pop())
+
+                    case 79 | 80 | 81 | 82 | 83 | 84 | 85 | 86 /*Xastore*/ => popN(3)
+
+                    case 87 /*pop*/ => pop()
+                    case 88 /*pop2*/ =>
+                        if (!isCategory2(pop())) pop()
+                    case 89 /*dup*/ =>
+                        val v = pop(); push(v); push(v)
+                    case 90 /*dup_x1*/ =>
+                        val v1 = pop(); val v2 = pop(); push(v1); push(v2); push(v1)
+                    case 91 /*dup_x2*/ =>
+                        val v1 = pop(); val v2 = pop()
+                        if (isCategory2(v2)) {
+                            push(v1); push(v2); push(v1)
+                        } else {
+                            val v3 = pop(); push(v1); push(v3); push(v2); push(v1)
+                        }
+                    case 92 /*dup2*/ =>
+                        val v1 = pop()
+                        if (isCategory2(v1)) {
+                            push(v1); push(v1)
+                        } else {
+                            val v2 = pop(); push(v2); push(v1); push(v2); push(v1)
+                        }
+                    case 93 /*dup2_x1*/ =>
+                        val v1 = pop()
+                        if (isCategory2(v1)) {
+                            val v2 = pop(); push(v1); push(v2); push(v1)
+                        } else {
+                            val v2 = pop(); val v3 = pop()
+                            push(v2); push(v1); push(v3); push(v2); push(v1)
+                        }
+                    case 94 /*dup2_x2*/ =>
+                        val v1 = pop()
+                        if (isCategory2(v1)) {
+                            val v2 = pop()
+                            if (isCategory2(v2)) {
+                                push(v1); push(v2); push(v1)
+                            } else {
+                                val v3 = pop(); push(v1); push(v3); push(v2); push(v1)
+                            }
+                        } else {
+                            val v2 = pop(); val v3 = pop()
+                            if (isCategory2(v3)) {
+                                push(v2); push(v1); push(v3); push(v2); push(v1)
+                            } else {
+                                val v4 = pop()
+                                push(v2); push(v1); push(v4); push(v3); push(v2); push(v1)
+                            }
+                        }
+                    case 95 /*swap*/ =>
+                        val v1 = pop(); val v2 = pop(); push(v1); push(v2)
+
+                    case 116 | 117 | 118 | 119 /*Xneg*/ =>
+                    case 96 | 97 | 98 | 99 | 100 | 101 | 102 | 103 | 104 | 105 | 106 | 107 | 108 |
+                        109 | 110 | 111 | 112 | 113 | 114 | 115 | 120 | 121 | 122 | 123 | 124 | 125 |
+                        126 | 127 | 128 | 129 | 130 | 131 =>
+                        popN(2)
+                        push(instruction.asArithmeticInstruction.computationalType match {
+                            case ComputationalTypeInt    => IntegerVariableInfo
+                            case ComputationalTypeLong   => LongVariableInfo
+                            case ComputationalTypeFloat  => FloatVariableInfo
+                            case ComputationalTypeDouble => DoubleVariableInfo
+                            case _                       => incompatibleCode()
+                        })
+
+                    case 133 | 134 | 135 | 136 | 137 | 138 | 139 | 140 | 141 | 142 | 143 | 144 |
+                        145 | 146 | 147 /*conversions*/ =>
+                        pop()
+                        push(verificationTypeInfo(
+                            instruction.asInstanceOf[NumericConversionInstruction].targetType
+                        ))
+
+                    case 148 | 149 | 150 | 151 | 152 /*[l|f|d]cmp*/ => popN(2); push(IntegerVariableInfo)
+
+                    case 153 | 154 | 155 | 156 | 157 | 158 | 198 | 199 /*if<cond>|ifnull|ifnonnull*/ =>
+                        pop()
+                        flowTo(pc + instruction.asInstanceOf[SimpleBranchInstruction].branchoffset, locals, stack)
+                    case 159 | 160 | 161 | 162 | 163 | 164 | 165 | 166 /*if_[i|a]cmp<cond>*/ =>
+                        popN(2)
+                        flowTo(pc + instruction.asInstanceOf[SimpleBranchInstruction].branchoffset, locals, stack)
+                    case 167 | 200 /*goto(_w)*/ =>
+                        flowTo(pc + instruction.asInstanceOf[SimpleBranchInstruction].branchoffset, locals, stack)
+                        fallsThrough = false
+                    case 170 | 171 /*[table|lookup]switch*/ =>
+                        pop()
+                        val switch = instruction.asInstanceOf[CompoundConditionalBranchInstruction]
+                        flowTo(pc + switch.defaultOffset, locals, stack)
+                        switch.jumpOffsets foreach { offset => flowTo(pc + offset, locals, stack) }
+                        fallsThrough = false
+                    case 172 | 173 | 174 | 175 | 176 | 177 | 191 /*Xreturn|athrow*/ =>
+                        fallsThrough = false
+
+                    case 178 /*getstatic*/ =>
+                        push(verificationTypeInfo(instruction.asInstanceOf[FieldReadAccess].fieldType))
+                    case 179 /*putstatic*/ =>
+                        pop()
+                    case 180 /*getfield*/ =>
+                        pop()
+                        push(verificationTypeInfo(instruction.asInstanceOf[FieldReadAccess].fieldType))
+                    case 181 /*putfield*/ =>
+                        popN(2)
+
+                    case 182 | 183 | 184 | 185 | 186 /*invoke...*/ =>
+                        val invocation = instruction.asInvocationInstruction
+                        val methodDescriptor = invocation.methodDescriptor
+                        popN(methodDescriptor.parametersCount)
+                        if (opcode == 183 && invocation.name == "<init>") {
+                            val uninitializedValue = pop()
+                            val initializedValue = uninitializedValue match {
+                                case UninitializedThisVariableInfo =>
+                                    ObjectVariableInfo(declaringClassType)
+                                case UninitializedVariableInfo(newPC) =>
+                                    ObjectVariableInfo(instructions(newPC).asNEW.objectType)
+                                case _ =>
+                                    incompatibleCode()
+                            }
+                            stack = stack.map(v => if (v == uninitializedValue) initializedValue else v)
+                            var index = 0
+                            while (index < maxLocals) {
+                                if (locals(index) == uninitializedValue) locals(index) = initializedValue
+                                index += 1
+                            }
+                            // The handlers have to accept the "initialized" state as well.
+                            flowToHandlers(pc, locals)
+                        } else if (opcode != 184 && opcode != 186) {
+                            pop()
+                        }
+                        if (!methodDescriptor.returnType.isVoidType)
+                            push(verificationTypeInfo(methodDescriptor.returnType.asFieldType))
+
+                    case 187 /*new*/ => push(UninitializedVariableInfo(pc))
+                    case 188 | 189 /*[a]newarray*/ =>
+                        pop()
+                        push(ObjectVariableInfo(instruction.asInstanceOf[CreateNewArrayInstruction].arrayType))
+                    case 190 /*arraylength*/     => pop(); push(IntegerVariableInfo)
+                    case 192 /*checkcast*/       => pop(); push(ObjectVariableInfo(instruction.asInstanceOf[CHECKCAST].referenceType))
+                    case 193 /*instanceof*/      => pop(); push(IntegerVariableInfo)
+                    case 194 | 195 /*monitor...*/ => pop()
+                    case 197 /*multianewarray*/ =>
+                        val multianewarray = instruction.asInstanceOf[MULTIANEWARRAY]
+                        popN(multianewarray.dimensions)
+                        push(ObjectVariableInfo(multianewarray.arrayType))
+
+                    case _ /*jsr, ret, ...*/ => incompatibleCode()
+                }
+
+                val nextPC = code.pcOfNextInstruction(pc)
+                if (!fallsThrough) {
+                    // the next instruction has to start a new region
+                    if (nextPC < endPC) incompatibleCode()
+                    return ;
+                }
+                pc = nextPC
+            }
+            flowTo(endPC, locals, stack)
+        }
+
+        def result(): StackMapTable = {
+            keepOriginalFrames()
+
+            val newHandlers = {
+                val originalHandlers = originalCode.exceptionHandlers.map(remap).toSet
+                code.exceptionHandlers.filterNot(originalHandlers.contains)
+            }
+            var region = 0
+            while (region < regionStartPCs.length) {
+                isAffectedRegion(region) = !isUnaffectedRegion(region, newHandlers)
+                region += 1
+            }
+
+            // the method's entry
+            if (regionOffset == 1) schedule(0) else flowTo(0, initialFrame.locals, Nil)
+            // the affected regions that start with a kept frame
+            var frameIndex = 0
+            while (frameIndex < framePCs.length) {
+                if (isKeptFrame(frameIndex)) schedule(regionOfFrame(frameIndex))
+                frameIndex += 1
+            }
+            while (worklist.nonEmpty) {
+                val region = worklist.pop()
+                isScheduled(region) = false
+                analyze(region)
+            }
+
+            if (frames.exists(_ eq null))
+                incompatibleCode() // some frame was not reached; i.e., there is dead code
+
+            CodeAttributeBuilder.createStackMapTable(
+                slotsToVerificationTypeInfos(initialFrame.locals),
+                framePCs.iterator.zip(frames.iterator).map { pcAndFrame =>
+                    val (pc, frame) = pcAndFrame
+                    (
+                        pc,
+                        slotsToVerificationTypeInfos(frame.locals),
+                        ArraySeq.from(frame.stack.reverseIterator)
+                    )
+                },
+                framePCs.length
+            )
+        }
+    }
+}
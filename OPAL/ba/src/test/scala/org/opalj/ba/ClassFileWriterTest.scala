@@ -0,0 +1,98 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import java.io.ByteArrayInputStream
+import java.io.DataInputStream
+import java.io.File
+import java.lang.Boolean.FALSE
+
+import org.junit.runner.RunWith
+import org.scalatestplus.junit.JUnitRunner
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import com.typesafe.config.ConfigValueFactory.fromAnyRef
+
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.reader.BytecodeInstructionsCache
+import org.opalj.br.reader.BytecodeOptimizer.SimplifyControlFlowKey
+import org.opalj.br.reader.Java17FrameworkWithCaching
+import org.opalj.bc.Assembler
+
+/**
+ * Tests that the [[ClassFileWriter]] serializes class files such that they can be read again
+ * and are equivalent to the class files serialized using `toDA` and the `Assembler`.
+ */
+@RunWith(classOf[JUnitRunner])
+class ClassFileWriterTest extends AnyFlatSpec with Matchers {
+
+    behavior of "the ClassFileWriter"
+
+    val ClassFileReader = {
+        val testConfig = BaseConfig.withValue(SimplifyControlFlowKey, fromAnyRef(FALSE))
+
+        object Framework extends Java17FrameworkWithCaching(new BytecodeInstructionsCache) {
+            override def defaultConfig = testConfig
+        }
+        Framework
+    }
+
+    def read(classFile: Array[Byte]): br.ClassFile = {
+        ClassFileReader.ClassFile(new DataInputStream(new ByteArrayInputStream(classFile))).head
+    }
+
+    val testJars = List(
+        "classfiles/Flashcards 0.4 - target 1.6.jar",
+        "classfiles/groovy-2.1.5-indy.jar",
+        "classfiles/dynamic_constants.jar",
+        "classfiles/string_concat.jar",
+        "classfiles/Java9-selected-jmod-module-info.classes.zip"
+    )
+
+    for { testJar <- testJars } {
+        it should s"serialize every class of $testJar such that it can be read again" in {
+            val classFiles = ClassFileReader.ClassFiles(locateTestResources(testJar, "bi"))
+            classFiles should not be empty
+            classFiles foreach { e =>
+                val (classFile, url) = e
+                val rereadClassFile = read(ClassFileWriter(classFile))
+                withClue(url) {
+                    classFile.findDissimilarity(rereadClassFile) should be(None)
+                    val assembledClassFile = read(Assembler(toDA(classFile)))
+                    assembledClassFile.findDissimilarity(rereadClassFile) should be(None)
+                }
+            }
+        }
+    }
+
+    it should "skip OPAL's SynthesizedClassFiles attribute" in {
+        val classFiles = ClassFileReader.ClassFiles(
+            locateTestResources("classfiles/Flashcards 0.4 - target 1.6.jar", "bi")
+        ).map(_._1)
+        val classFile = classFiles.head
+        val synthesizedClassFile = classFiles.last
+        val classFileWithSynthesizedClassFiles = classFile.copy(
+            attributes = classFile.attributes :+ br.SynthesizedClassFiles(List((synthesizedClassFile, None)))
+        )
+
+        val rereadClassFile = read(ClassFileWriter(classFileWithSynthesizedClassFiles))
+        rereadClassFile.synthesizedClassFiles should be(None)
+        classFile.findDissimilarity(rereadClassFile) should be(None)
+    }
+
+    it should "write jar files" in {
+        val classFiles = ClassFileReader.ClassFiles(
+            locateTestResources("classfiles/Flashcards 0.4 - target 1.6.jar", "bi")
+        ).map(_._1)
+        val jarFile = File.createTempFile("ClassFileWriterTest", ".jar")
+        jarFile.deleteOnExit()
+        ClassFileWriter.writeJar(classFiles, jarFile)
+
+        val writtenClassFiles = ClassFileReader.ClassFiles(jarFile).map(e => (e._1.thisType, e._1)).toMap
+        writtenClassFiles.size should be(classFiles.size)
+        classFiles foreach { classFile =>
+            classFile.findDissimilarity(writtenClassFiles(classFile.thisType)) should be(None)
+        }
+    }
+}
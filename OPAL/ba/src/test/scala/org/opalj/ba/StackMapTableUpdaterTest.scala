@@ -0,0 +1,187 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package ba
+
+import org.junit.runner.RunWith
+import org.scalatestplus.junit.JUnitRunner
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import org.opalj.util.InMemoryClassLoader
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.Attributes
+import org.opalj.br.ClassFile
+import org.opalj.br.ClassHierarchy
+import org.opalj.br.Method
+import org.opalj.br.Methods
+import org.opalj.br.MethodDescriptor.JustTakes
+import org.opalj.br.ObjectType
+import org.opalj.br.analyses.Project
+import org.opalj.br.instructions._
+
+/**
+ * Tests that the [[StackMapTableUpdater]] reuses the original stack map table when code is
+ * instrumented and that the instrumented code passes the JVM's verifier.
+ */
+@RunWith(classOf[JUnitRunner])
+class StackMapTableUpdaterTest extends AnyFlatSpec with Matchers {
+
+    behavior of "the StackMapTableUpdater"
+
+    final val PrintStreamType = ObjectType("java/io/PrintStream")
+
+    /**
+     * Adds a new conditional branch at the beginning of the method and prints the name of the
+     * method before every return instruction.
+     */
+    def instrument(m: Method): LabeledCode = {
+        val code = m.body.get
+        val lCode = LabeledCode(code)
+        lCode.insert(
+            0, InsertionPosition.At,
+            Seq(
+                GETSTATIC("java/lang/System", "out", PrintStreamType.toJVMTypeName),
+                LabeledIFNONNULL(Symbol("instrumentation$entry")),
+                ACONST_NULL,
+                POP,
+                Symbol("instrumentation$entry")
+            )
+        )
+        code.iterate { (pc, instruction) =>
+            if (instruction.isReturnInstruction) {
+                lCode.insert(
+                    pc, InsertionPosition.Before,
+                    Seq(
+                        GETSTATIC("java/lang/System", "out", PrintStreamType.toJVMTypeName),
+                        LoadString(m.name),
+                        INVOKEVIRTUAL(PrintStreamType, "println", JustTakes(ObjectType.String))
+                    )
+                )
+            }
+        }
+        lCode
+    }
+
+    val project = Project(
+        locateTestResources("classfiles/Flashcards 0.4 - target 1.6.jar", "bi"),
+        org.opalj.bytecode.RTJar
+    )
+    implicit val classHierarchy: ClassHierarchy = project.classHierarchy
+
+    it should "reuse the original stack map tables of instrumented methods" in {
+        var instrumentedMethods = 0
+        var updatedStackMapTables = 0
+        for {
+            cf <- project.allProjectClassFiles
+            m <- cf.methodsWithBody
+            if m.body.get.stackMapTable.isDefined
+        } {
+            val codeAttributeBuilder = instrument(m).result
+            // we use Java 5 to get the code without a stack map table
+            val (code, _) = codeAttributeBuilder(bi.Java5Version, m)
+            instrumentedMethods += 1
+            val updatedStackMapTable = StackMapTableUpdater(
+                m.body.get, codeAttributeBuilder.pcMapping, code,
+                m.isStatic, cf.thisType, m.name, m.descriptor
+            )
+            if (updatedStackMapTable.isDefined) updatedStackMapTables += 1
+        }
+        instrumentedMethods should be > 0
+        updatedStackMapTables should be(instrumentedMethods)
+    }
+
+    it should "compute stack map tables that pass the verifier" in {
+        val instrumentedClassFiles = project.allProjectClassFiles.map { cf =>
+            val newMethods = cf.methods.map { m =>
+                if (m.body.isDefined && m.body.get.stackMapTable.isDefined) {
+                    val (newCode, _) =
+                        instrument(m).resultWithUpdatedStackMapTable(bi.Java8Version, m)
+                    m.copy(body = Some(newCode))
+                } else {
+                    m.copy()
+                }
+            }
+            // Java 6 class files would be verified using the old verifier if the new one fails
+            cf.copy(version = bi.Java8Version, methods = newMethods)
+        }
+        val classes = instrumentedClassFiles.map(cf => (cf.thisType.toJava, ClassFileWriter(cf))).toMap
+        val loader = new InMemoryClassLoader(classes, this.getClass.getClassLoader)
+        classes.keys foreach { className =>
+            // getDeclaredMethods forces the linking and, hence, the verification of the class
+            noException should be thrownBy { loader.loadClass(className).getDeclaredMethods }
+        }
+    }
+
+    it should "only be used if the update of the stack map table is requested" in {
+        for {
+            cf <- project.allProjectClassFiles
+            m <- cf.methodsWithBody
+            if m.body.get.stackMapTable.isDefined
+        } {
+            val (computedCode, _) = instrument(m).result(bi.Java8Version, m)
+            val (java5Code, _) = instrument(m).result(bi.Java5Version, m)
+            val fakeClassFile = ClassFile(
+                majorVersion = bi.Java8MajorVersion,
+                thisType = cf.thisType,
+                methods = Methods(Method(m.accessFlags, m.name, m.descriptor, Attributes(java5Code)))
+            )
+            computedCode.stackMapTable should be(
+                Some(CodeAttributeBuilder.computeStackMapTable(fakeClassFile.methods.head))
+            )
+        }
+    }
+
+    it should "not reuse the stack map table if the types of kept frames become invalid" in {
+        val (classFile, _) = CLASS(
+            version = bi.Java8Version,
+            accessModifiers = PUBLIC,
+            thisType = "StackMapTableUpdaterTestClass",
+            methods = METHODS(
+                METHOD(
+                    PUBLIC.STATIC, "count", "(I)I",
+                    CODE[AnyRef](
+                        ICONST_0,
+                        ISTORE_1,
+                        LoadString("count"),
+                        ASTORE_2,
+                        Symbol("loop"),
+                        ILOAD_1,
+                        ILOAD_0,
+                        LabeledIF_ICMPGE(Symbol("end")),
+                        IINC(1, 1),
+                        LabeledGOTO(Symbol("loop")),
+                        Symbol("end"),
+                        ILOAD_1,
+                        IRETURN
+                    )
+                )
+            )
+        ).toBR()
+        val m = classFile.findMethod("count").head
+        val code = m.body.get
+        code.stackMapTable should be(Symbol("defined"))
+
+        // We store a class object in the local variable 2 – which is a string at the beginning
+        // of the loop; hence, the loop's original frame is no longer valid.
+        val lCode = LabeledCode(code)
+        val incrementPC = code.instructions.indexWhere(i => (i ne null) && i.opcode == IINC.opcode)
+        lCode.insert(incrementPC, InsertionPosition.Before, Seq(LoadClass(ObjectType.Object), ASTORE_2))
+        val codeAttributeBuilder = lCode.result
+        val (newCode, _) = codeAttributeBuilder(bi.Java8Version, m)
+        StackMapTableUpdater(
+            code, codeAttributeBuilder.pcMapping, newCode,
+            m.isStatic, classFile.thisType, m.name, m.descriptor
+        ) should be(None)
+
+        // ... nevertheless, a valid stack map table was computed (from scratch)
+        val newClassFile = classFile.copy(methods = classFile.methods.map { m =>
+            if (m.name == "count") m.copy(body = Some(newCode)) else m.copy()
+        })
+        val loader = new InMemoryClassLoader(
+            Map("StackMapTableUpdaterTestClass" -> ClassFileWriter(newClassFile)),
+            this.getClass.getClassLoader
+        )
+        val clazz = loader.loadClass("StackMapTableUpdaterTestClass")
+        clazz.getMethod("count", classOf[Int]).invoke(null, Integer.valueOf(3)) should be(3)
+    }
+}
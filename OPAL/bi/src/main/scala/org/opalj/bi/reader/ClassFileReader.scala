@@ -472,17 +472,39 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
         zipFile:          ZipFile,
         classFileHandler: (ClassFile, URL) => Unit,
         exceptionHandler: ExceptionHandler
+    ): Unit = {
+        processClassFileEntries(
+            zipFile,
+            (jarFile, jarEntry, url) => {
+                val classFiles = ClassFile(jarFile, jarEntry)
+                classFiles foreach (classFile => classFileHandler(classFile, url))
+            },
+            exceptionHandler
+        )
+    }
+
+    /**
+     * Calls '''in parallel''' the given function for each `.class` entry stored in the given
+     * zip file or in one of the jar files nested in it.
+     *
+     * @param classFileEntryHandler A function that is called with the zip file containing the
+     *      entry, the entry and its URL; '''this function has to be thread safe'''.
+     */
+    private[this] def processClassFileEntries(
+        zipFile:               ZipFile,
+        classFileEntryHandler: (ZipFile, ZipEntry, URL) => Unit,
+        exceptionHandler:      ExceptionHandler
     ): Unit = {
         val zipFileURL = new File(zipFile.getName).toURI.toURL.toExternalForm
         val jarFileName = s"jar:$zipFileURL!/"
-        ClassFiles(jarFileName, zipFile, classFileHandler, exceptionHandler)
+        processClassFileEntries(jarFileName, zipFile, classFileEntryHandler, exceptionHandler)
     }
 
-    private def ClassFiles(
-        jarFileURL:       String, // the complete path to the given jar file.
-        jarFile:          ZipFile,
-        classFileHandler: (ClassFile, URL) => Unit,
-        exceptionHandler: ExceptionHandler
+    private def processClassFileEntries(
+        jarFileURL:            String, // the complete path to the given jar file.
+        jarFile:               ZipFile,
+        classFileEntryHandler: (ZipFile, ZipEntry, URL) => Unit,
+        exceptionHandler:      ExceptionHandler
     ): Unit = {
 
         // First let's collect all inner Jar Entries, then do the processing.
@@ -505,8 +527,7 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
                         if (jarEntryName.endsWith(".class")) {
                             try {
                                 val url = new URL(jarFileURL + jarEntry.getName)
-                                val classFiles = ClassFile(jarFile, jarEntry)
-                                classFiles foreach (classFile => classFileHandler(classFile, url))
+                                classFileEntryHandler(jarFile, jarEntry, url)
                             } catch {
                                 case ct: ControlThrowable => throw ct
                                 case t: Throwable         => exceptionHandler(jarEntryName, t)
@@ -534,7 +555,9 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
                 val din = new DataInputStream(jarFile.getInputStream(jarEntry))
                 din.readFully(jarData)
                 din.close()
-                ClassFiles(nextJarFileURL, jarData, classFileHandler, exceptionHandler)
+                processClassFileEntries(
+                    nextJarFileURL, jarData, classFileEntryHandler, exceptionHandler
+                )
             } catch {
                 case ct: ControlThrowable => throw ct
                 case t: Throwable         => exceptionHandler(nextJarFileURL, t)
@@ -548,11 +571,11 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
      * This is done by writing the jar file data to a temporary file and then loading
      * the class files from it as done with any other jar file.
      */
-    private def ClassFiles(
-        jarFileURL:       String,
-        jarData:          Array[Byte],
-        classFileHandler: (ClassFile, URL) => Unit,
-        exceptionHandler: ExceptionHandler
+    private def processClassFileEntries(
+        jarFileURL:            String,
+        jarData:               Array[Byte],
+        classFileEntryHandler: (ZipFile, ZipEntry, URL) => Unit,
+        exceptionHandler:      ExceptionHandler
     ): Unit = {
         val pathToEntry = jarFileURL.substring(0, jarFileURL.length - 2)
         val entry = pathToEntry.substring(pathToEntry.lastIndexOf('/') + 1 /* the '/' */ + 4 /* "jar:" */ )
@@ -560,7 +583,9 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
             val jarFile = File.createTempFile(entry, ".zip")
 
             process { new java.io.FileOutputStream(jarFile) } { fout => fout.write(jarData) }
-            ClassFiles(jarFileURL, new ZipFile(jarFile), classFileHandler, exceptionHandler)
+            processClassFileEntries(
+                jarFileURL, new ZipFile(jarFile), classFileEntryHandler, exceptionHandler
+            )
 
             jarFile.delete()
         } catch {
@@ -593,6 +618,37 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
         }
     }
 
+    /**
+     * Returns the (non-empty) jar files and the class files stored in the given directory
+     * or in one of its subdirectories.
+     */
+    private[this] def collectFiles(directory: File): (ArrayBuffer[File], ArrayBuffer[File]) = {
+        val jarFiles = ArrayBuffer.empty[File]
+        val classFiles = ArrayBuffer.empty[File]
+        def collectFiles(files: Array[File]): Unit = {
+            if (files eq null)
+                return ;
+
+            files foreach { file =>
+                val filename = file.getName
+                if (file.isFile) {
+                    if (file.length() == 0) Nil
+                    else if (isClassFileRepository(filename, None)) jarFiles += file
+                    else if (filename.endsWith(".class")) classFiles += file
+                } else if (file.isDirectory) {
+                    collectFiles(file.listFiles())
+                } else {
+                    info(
+                        "class file reader",
+                        s"ignored: $file it is neither a file nor a directory"
+                    )
+                }
+            }
+        }
+        collectFiles(directory.listFiles())
+        (jarFiles, classFiles)
+    }
+
     /**
      * Loads class files from the given file location.
      *  - If the file denotes a single ".class" file this class file is loaded.
@@ -618,30 +674,8 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
             else if (filename.endsWith(".class")) processClassFile(file)
             else Nil
         } else if (file.isDirectory) {
-            val jarFiles = ArrayBuffer.empty[File]
-            val classFiles = ArrayBuffer.empty[File]
-            def collectFiles(files: Array[File]): Unit = {
-                if (files eq null)
-                    return ;
-
-                files foreach { file =>
-                    val filename = file.getName
-                    if (file.isFile) {
-                        if (file.length() == 0) Nil
-                        else if (isClassFileRepository(filename, None)) jarFiles += file
-                        else if (filename.endsWith(".class")) classFiles += file
-                    } else if (file.isDirectory) {
-                        collectFiles(file.listFiles())
-                    } else {
-                        info(
-                            "class file reader",
-                            s"ignored: $file it is neither a file nor a directory"
-                        )
-                    }
-                }
-            }
             // 1. get the list of all files in the directory as well as all subdirectories
-            collectFiles(file.listFiles())
+            val (jarFiles, classFiles) = collectFiles(file)
 
             // 2. get all class files
             var allClassFiles = List.empty[(ClassFile, URL)]
@@ -666,6 +700,77 @@ trait ClassFileReader extends ClassFileReaderConfiguration with Constant_PoolAbs
         }
     }
 
+    /**
+     * Reads the bytes of each class file found at the given file location – the supported
+     * locations are the same as those of `ClassFiles(File, ExceptionHandler)` – and calls the
+     * given function with them. The class files are read '''in parallel''', each class file
+     * is read exactly once and its bytes are not retained. Hence, clients can create multiple
+     * representations of a class file without reading it more than once and without keeping
+     * the bytes of all class files in memory.
+     *
+     * @param classFileBytesHandler A function that is called with the bytes and the URL of
+     *      each class file; '''this function has to be thread safe'''. The exceptions
+     *      thrown by this function are passed to the exception handler.
+     */
+    def processClassFileBytes(
+        file:                  File,
+        classFileBytesHandler: (Array[Byte], URL) => Unit,
+        exceptionHandler:      ExceptionHandler           = defaultExceptionHandler
+    ): Unit = {
+
+        def readFully(in: InputStream, size: Long): Array[Byte] = {
+            val bytes = new Array[Byte](size.toInt)
+            process(new DataInputStream(in)) { din => din.readFully(bytes) }
+            bytes
+        }
+
+        def readJar(jarFile: File): Unit = {
+            try {
+                process(new ZipFile(jarFile)) { zipFile =>
+                    processClassFileEntries(
+                        zipFile,
+                        (zf, jarEntry, url) => {
+                            val bytes = readFully(zf.getInputStream(jarEntry), jarEntry.getSize)
+                            classFileBytesHandler(bytes, url)
+                        },
+                        exceptionHandler
+                    )
+                }
+            } catch {
+                case e: Exception => exceptionHandler(jarFile, e)
+            }
+        }
+
+        def readClassFile(classFile: File): Unit = {
+            try {
+                val bytes = readFully(new FileInputStream(classFile), classFile.length())
+                classFileBytesHandler(bytes, classFile.toURI.toURL)
+            } catch {
+                case e: Exception => exceptionHandler(classFile, e)
+            }
+        }
+
+        if (file.exists()) {
+            if (file.isFile) {
+                val filename = file.getName
+                if (file.length() > 0) {
+                    if (isClassFileRepository(filename, None)) readJar(file)
+                    else if (filename.endsWith(".class")) readClassFile(file)
+                }
+            } else if (file.isDirectory) {
+                val (jarFiles, classFiles) = collectFiles(file)
+                parForeachSeqElement(classFiles.toIndexedSeq, NumberOfThreadsForIOBoundTasks) { classFile =>
+                    readClassFile(classFile)
+                }
+                // processing jar files is already parallelized
+                jarFiles foreach readJar
+            } else {
+                throw new UnknownError(s"$file is neither a file nor a directory")
+            }
+        }
+    }
+
+
     def AllClassFiles(
         files:            Iterable[File],
         exceptionHandler: ExceptionHandler = defaultExceptionHandler
@@ -4,7 +4,11 @@ package br
 package analyses
 
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.ReentrantLock
+
+import scala.collection.immutable.ArraySeq
 
 import org.opalj.log.LogContext
 import org.opalj.log.OPALLogger.info
@@ -19,6 +23,11 @@ import org.opalj.br.analyses.DeclaredMethodsKey.MethodContextQuery
 /**
  * The set of all [[org.opalj.br.DeclaredMethod]]s (potentially used by the property store).
  *
+ * All lookups which do not create a new [[VirtualDeclaredMethod]] are lock-free and do not
+ * allocate: the [[DefinedMethod]]s of the methods of all class files are stored in arrays which
+ * are indexed by the id of the class file's type and the index of the method in the class file.
+ * The results of the lookups of virtual call targets are cached in an open-addressing hash table.
+ *
  * @author Dominik Helm
  */
 class DeclaredMethods(
@@ -26,12 +35,35 @@ class DeclaredMethods(
         // We need concurrent, mutable maps here, as VirtualDeclaredMethods may be added when they
         // are queried. This can result in DeclaredMethods added for a type not yet seen, too (e.g.
         // methods on type Object when not analyzing the JDK.
-        private[this] val data:      ConcurrentHashMap[ReferenceType, ConcurrentHashMap[MethodContext, DeclaredMethod]],
-        private[this] var id2method: Array[DeclaredMethod],
-        private[this] var idCounter: Int
+        private[this] val data:                ConcurrentHashMap[ReferenceType, ConcurrentHashMap[MethodContext, DeclaredMethod]],
+        @volatile private[this] var id2method: Array[DeclaredMethod],
+        private[this] var idCounter:           Int
 ) {
 
-    private[this] final val lock = new ReentrantReadWriteLock()
+    // Guards the creation of VirtualDeclaredMethods; id2method is only replaced while holding
+    // the lock and is written before a new method is published using `data`.
+    private[this] final val lock = new ReentrantLock()
+
+    // The DefinedMethods of the methods of the class files; the outer array is indexed by the
+    // id of the class file's type and the inner arrays are aligned with `ClassFile.methods`.
+    private[this] val definedMethods: Array[Array[DefinedMethod]] = {
+        val definedMethods = new Array[Array[DefinedMethod]](ObjectType.objectTypesCount)
+        p.parForeachClassFile() { cf =>
+            val classType = cf.thisType
+            val dms = data.get(classType)
+            if (dms ne null) {
+                definedMethods(classType.id) = cf.methods.iterator.map[DefinedMethod] { m =>
+                    dms.get(MethodContext(p, classType, m)) match {
+                        case dm: DefinedMethod if dm.definedMethod eq m => dm
+                        case _                                          => null
+                    }
+                }.toArray
+            }
+        }
+        definedMethods
+    }
+
+    private[this] val virtualCallTargets = new DeclaredMethods.VirtualCallTargetsCache
 
     private var extensionSize = 1000
 
@@ -46,6 +78,24 @@ class DeclaredMethods(
         runtimeType:  ObjectType,
         name:         String,
         descriptor:   MethodDescriptor
+    ): DeclaredMethod = {
+        val hash = virtualCallTargets.hash(declaredType, packageName, runtimeType, name, descriptor)
+        val cachedMethod =
+            virtualCallTargets.get(hash, declaredType, packageName, runtimeType, name, descriptor)
+        if (cachedMethod ne null)
+            return cachedMethod;
+
+        val method = lookup(declaredType, packageName, runtimeType, name, descriptor)
+        virtualCallTargets.put(hash, declaredType, packageName, runtimeType, name, descriptor, method)
+        method
+    }
+
+    private[this] def lookup(
+        declaredType: ObjectType,
+        packageName:  String,
+        runtimeType:  ObjectType,
+        name:         String,
+        descriptor:   MethodDescriptor
     ): DeclaredMethod = {
         val dmSet = data.computeIfAbsent(runtimeType, _ => new ConcurrentHashMap)
 
@@ -94,13 +144,13 @@ class DeclaredMethods(
         if (method != null) return method;
 
         // In case of an unseen method, compute id
-        lock.writeLock().lock()
+        lock.lock()
         try {
-            if (!dmSet.contains(context)) {
+            if (!dmSet.containsKey(context)) {
                 val vm = new VirtualDeclaredMethod(runtimeType, name, descriptor, idCounter)
                 idCounter += 1
-                dmSet.put(MethodContext(p, runtimeType, "", name, descriptor, false), vm)
-                if (id2method.size <= vm.id) {
+                var id2method = this.id2method
+                if (id2method.length <= vm.id) {
                     implicit val logContext: LogContext = p.logContext
                     info(
                         "project",
@@ -112,9 +162,12 @@ class DeclaredMethods(
                     id2method = id2methodExt
                 }
                 id2method(vm.id) = vm
+                // (re)publish the array before the method becomes visible to other threads
+                this.id2method = id2method
+                dmSet.put(MethodContext(p, runtimeType, "", name, descriptor, false), vm)
             }
         } finally {
-            lock.writeLock().unlock()
+            lock.unlock()
         }
 
         method = dmSet.get(context)
@@ -123,27 +176,63 @@ class DeclaredMethods(
     }
 
     def apply(method: Method): DefinedMethod = {
-        val classType = method.classFile.thisType
+        val classFile = method.classFile
+        val classType = classFile.thisType
+        if (classType.id < definedMethods.length) {
+            val dms = definedMethods(classType.id)
+            if (dms ne null) {
+                val index = indexOf(classFile.methods, method)
+                if (index >= 0 && index < dms.length) {
+                    val dm = dms(index)
+                    if ((dm ne null) && (dm.definedMethod eq method))
+                        return dm;
+                }
+            }
+        }
         data.get(classType).get(MethodContext(p, classType, method)).asInstanceOf[DefinedMethod]
     }
 
-    def apply(methodId: Int): DeclaredMethod = {
-        lock.readLock().lock()
-        try {
-            id2method(methodId)
-        } finally {
-            lock.readLock().unlock()
+    /** The index of the given method in the (sorted) methods of its class file or -1. */
+    private[this] def indexOf(methods: ArraySeq[Method], method: Method): Int = {
+        val name = method.name
+        val descriptor = method.descriptor
+        var low = 0
+        var high = methods.length - 1
+        while (low <= high) {
+            val mid = (low + high) >>> 1
+            val m = methods(mid)
+            if (m eq method)
+                return mid;
+
+            val nameComparison = m.name.compareTo(name)
+            val comparison =
+                if (nameComparison != 0) nameComparison else m.descriptor.compare(descriptor)
+            if (comparison == 0)
+                return -1;
+            if (comparison < 0) low = mid + 1 else high = mid - 1
         }
+        -1
+    }
+
+    def apply(methodId: Int): DeclaredMethod = id2method(methodId)
+
+    /**
+     * The id of the declared method of the given type which matches the given context or `-1`;
+     * used to preserve the ids of declared methods in a later version of the project.
+     */
+    private[analyses] def id(declaringType: ReferenceType, context: MethodContext): Int = {
+        val dms = data.get(declaringType)
+        if (dms eq null)
+            return -1;
+
+        val dm = dms.get(context)
+        if (dm eq null) -1 else dm.id
     }
 
     def get(methodId: Int): Option[DeclaredMethod] = {
-        lock.readLock().lock()
-        try {
-            if (methodId < id2method.length) Some(id2method(methodId))
-            else None
-        } finally {
-            lock.readLock().unlock()
-        }
+        val id2method = this.id2method
+        if (methodId < id2method.length) Some(id2method(methodId))
+        else None
     }
 
     def declaredMethods: Iterator[DeclaredMethod] = {
@@ -153,3 +242,154 @@ class DeclaredMethods(
     }
 }
 
+object DeclaredMethods {
+
+    /**
+     * A lock-free cache of the results of the lookups of virtual call targets. The cache uses
+     * open addressing with linear probing; entries are never removed or updated. When the table
+     * is resized, entries which are concurrently added to the old table may get lost, which only
+     * results in a later cache miss.
+     *
+     * Lookups and insertions probe at most `MaxProbeLength` slots; if no matching entry or free
+     * slot is found, the lookup is a miss or the entry is not added. Hence, neither a full table
+     * nor a table that is (concurrently) replaced by a resize can cause a thread to spin. The
+     * table is not grown beyond `maxCapacity` slots; afterwards, new results are only added
+     * as long as there are free slots.
+     *
+     * @param initialCapacity The initial number of slots; has to be a power of two.
+     * @param maxCapacity The maximum number of slots; has to be a power of two.
+     */
+    private[analyses] final class VirtualCallTargetsCache(
+            initialCapacity: Int = 1024,
+            maxCapacity:     Int = 1 << 18
+    ) {
+
+        private[this] final class Entry(
+                val hash:         Int,
+                val declaredType: ObjectType,
+                val packageName:  String,
+                val runtimeType:  ObjectType,
+                val name:         String,
+                val descriptor:   MethodDescriptor,
+                val method:       DeclaredMethod
+        ) {
+
+            def matches(
+                hash:         Int,
+                declaredType: ObjectType,
+                packageName:  String,
+                runtimeType:  ObjectType,
+                name:         String,
+                descriptor:   MethodDescriptor
+            ): Boolean = {
+                this.hash == hash &&
+                    (this.runtimeType eq runtimeType) &&
+                    (this.declaredType eq declaredType) &&
+                    this.name == name &&
+                    this.descriptor == descriptor &&
+                    this.packageName == packageName
+            }
+        }
+
+        @volatile private[this] var table = new AtomicReferenceArray[Entry](initialCapacity)
+        private[this] val entriesCount = new AtomicInteger(0)
+
+        def hash(
+            declaredType: ObjectType,
+            packageName:  String,
+            runtimeType:  ObjectType,
+            name:         String,
+            descriptor:   MethodDescriptor
+        ): Int = {
+            var h = runtimeType.id * 31 + declaredType.id
+            h = h * 31 + name.hashCode
+            h = h * 31 + descriptor.hashCode
+            h = (h * 31 + packageName.hashCode) * 0x9E3779B9
+            h ^ (h >>> 16)
+        }
+
+        /** Returns the cached method or `null`. */
+        def get(
+            hash:         Int,
+            declaredType: ObjectType,
+            packageName:  String,
+            runtimeType:  ObjectType,
+            name:         String,
+            descriptor:   MethodDescriptor
+        ): DeclaredMethod = {
+            val table = this.table
+            val mask = table.length - 1
+            var i = hash & mask
+            var probes = 0
+            while (probes < MaxProbeLength) {
+                val e = table.get(i)
+                if (e eq null)
+                    return null;
+                if (e.matches(hash, declaredType, packageName, runtimeType, name, descriptor))
+                    return e.method;
+                i = (i + 1) & mask
+                probes += 1
+            }
+            null
+        }
+
+        def put(
+            hash:         Int,
+            declaredType: ObjectType,
+            packageName:  String,
+            runtimeType:  ObjectType,
+            name:         String,
+            descriptor:   MethodDescriptor,
+            method:       DeclaredMethod
+        ): Unit = {
+            val table = this.table
+            val mask = table.length - 1
+            val entry =
+                new Entry(hash, declaredType, packageName, runtimeType, name, descriptor, method)
+            var i = hash & mask
+            var probes = 0
+            while (!table.compareAndSet(i, null, entry)) {
+                if (table.get(i).matches(hash, declaredType, packageName, runtimeType, name, descriptor))
+                    return ;
+                probes += 1
+                if (probes == MaxProbeLength)
+                    return ; // the entry is not cached
+                i = (i + 1) & mask
+            }
+            // keep the load factor below 0.5
+            if (entriesCount.incrementAndGet() * 2 > table.length && table.length < maxCapacity)
+                resize(table)
+        }
+
+        private[this] def resize(oldTable: AtomicReferenceArray[Entry]): Unit = synchronized {
+            if (table ne oldTable)
+                return ;
+
+            val newTable = new AtomicReferenceArray[Entry](oldTable.length * 2)
+            val mask = newTable.length - 1
+            var entriesCount = 0
+            var j = 0
+            while (j < oldTable.length) {
+                val e = oldTable.get(j)
+                if (e ne null) {
+                    var i = e.hash & mask
+                    var probes = 0
+                    while ((newTable.get(i) ne null) && probes < MaxProbeLength) {
+                        i = (i + 1) & mask
+                        probes += 1
+                    }
+                    // entries which could not be found by `get` are dropped
+                    if (probes < MaxProbeLength) {
+                        newTable.set(i, e)
+                        entriesCount += 1
+                    }
+                }
+                j += 1
+            }
+            this.entriesCount.set(entriesCount)
+            table = newTable
+        }
+    }
+
+    private[analyses] final val MaxProbeLength = 16
+}
@@ -5,6 +5,7 @@ package analyses
 
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicIntegerArray
 import java.util.function.{Function => JFunction}
 import org.opalj.br.ObjectType.MethodHandle
 import org.opalj.br.ObjectType.VarHandle
@@ -18,6 +19,9 @@ import scala.jdk.CollectionConverters._
 /**
  * The ''key'' object to get information about all declared methods.
  *
+ * The [[DeclaredMethods]] of a previous version of the project can be set as the initialization
+ * data to preserve the ids of the declared methods; see `compute` for details.
+ *
  * @note See [[org.opalj.br.DeclaredMethod]] for further details.
  * @example To get the index use the [[org.opalj.br.analyses.Project]]'s `get` method and pass in
  *          `this` object.
@@ -25,7 +29,7 @@ import scala.jdk.CollectionConverters._
  * @author Dominik Helm
  * @author Florian Kuebler
  */
-object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing] {
+object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, DeclaredMethods] {
 
     // The following lists were created using the Java 10 specification
     private val methodHandleSignaturePolymorphicMethods = List(
@@ -77,8 +81,16 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
     // TODO [Java9+] Needs to be updated for Java9+ projects which use Modules.
     /**
      * Collects all declared methods.
+     *
+     * If the declared methods of a previous version of the project are given, each declared
+     * method that also exists in the previous version gets the id of its previous counterpart
+     * and the [[VirtualDeclaredMethod]]s that were created for the previous version are
+     * recreated using their ids; all other declared methods get ids that were not used before.
+     * Hence, results of the previous version that refer to declared methods by their ids (e.g.,
+     * [[org.opalj.br.fpcf.properties.SimpleContext]]s) remain valid.
      */
     override def compute(p: SomeProject): DeclaredMethods = {
+        val previousDeclaredMethods = p.getProjectInformationKeyInitializationData(this)
 
         val result: ConcurrentHashMap[ReferenceType, ConcurrentHashMap[MethodContext, DeclaredMethod]] =
             new ConcurrentHashMap
@@ -86,16 +98,33 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
         val mapFactory: JFunction[ReferenceType, ConcurrentHashMap[MethodContext, DeclaredMethod]] =
             (_: ReferenceType) => { new ConcurrentHashMap() }
 
-        val idCounter = new AtomicInteger()
+        val idCounter = new AtomicInteger(previousDeclaredMethods.map(_._UNSAFE_size).getOrElse(0))
+
+        // The ids of the previous version which are already used; a previous id is used at
+        // most once, even if the contexts of the previous methods match several new methods.
+        val usedPreviousIds = new AtomicIntegerArray(idCounter.get)
+
+        def nextId(declaringType: ReferenceType, context: MethodContext): Int = {
+            val previousId = previousDeclaredMethods match {
+                case Some(previous) => previous.id(declaringType, context)
+                case None           => -1
+            }
+            if (previousId >= 0 && previousId < usedPreviousIds.length() &&
+                usedPreviousIds.compareAndSet(previousId, 0, 1))
+                previousId
+            else
+                idCounter.getAndIncrement()
+        }
 
         def insertDeclaredMethod(
+            declaringType:         ReferenceType,
             dms:                   ConcurrentHashMap[MethodContext, DeclaredMethod],
             context:               MethodContext,
             computeDeclaredMethod: Int => DeclaredMethod
         ): Unit = {
             var computedDM: DeclaredMethod = null
             val oldDm = dms.computeIfAbsent(context, _ => {
-                computedDM = computeDeclaredMethod(idCounter.getAndIncrement())
+                computedDM = computeDeclaredMethod(nextId(declaringType, context))
                 computedDM
             })
 
@@ -146,6 +175,7 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
                                     case 1 =>
                                         val interfaceMethod = interfaceMethods.head
                                         insertDeclaredMethod(
+                                            subtype,
                                             subtypeDms,
                                             MethodContext(p, subtype, interfaceMethod),
                                             id => new DefinedMethod(subtype, interfaceMethod, id)
@@ -153,6 +183,7 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
                                     case _ =>
                                         val methods = ArraySeq.from(interfaceMethods)
                                         insertDeclaredMethod(
+                                            subtype,
                                             subtypeDms,
                                             new MethodContext(m.name, m.descriptor),
                                             id => new MultipleDefinedMethods(
@@ -187,6 +218,7 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
                                 if (staticMethodResult.hasValue) {
                                     val staticMethod = staticMethodResult.value
                                     insertDeclaredMethod(
+                                        subtype,
                                         subtypeDms,
                                         MethodContext(p, subtype, staticMethod),
                                         id => new DefinedMethod(subtype, staticMethod, id)
@@ -207,7 +239,9 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
                     }
                 }
                 val context = MethodContext(p, classType, m)
-                insertDeclaredMethod(dms, context, id => new DefinedMethod(classType, m, id))
+                insertDeclaredMethod(
+                    classType, dms, context, id => new DefinedMethod(classType, m, id)
+                )
             }
 
             for {
@@ -216,7 +250,9 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
                 mc <- p.instanceMethods(classType)
             } {
                 val context = MethodContext(p, classType, mc.method)
-                insertDeclaredMethod(dms, context, id => new DefinedMethod(classType, mc.method, id))
+                insertDeclaredMethod(
+                    classType, dms, context, id => new DefinedMethod(classType, mc.method, id)
+                )
             }
         }
 
@@ -225,7 +261,7 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
             val dms = result.computeIfAbsent(MethodHandle, _ => new ConcurrentHashMap)
             for (name <- methodHandleSignaturePolymorphicMethods) {
                 val context = new MethodContext(name, SignaturePolymorphicMethodObject)
-                insertDeclaredMethod(dms, context, id => new VirtualDeclaredMethod(
+                insertDeclaredMethod(MethodHandle, dms, context, id => new VirtualDeclaredMethod(
                     MethodHandle, name, SignaturePolymorphicMethodObject, id
                 ))
             }
@@ -244,12 +280,26 @@ object DeclaredMethodsKey extends ProjectInformationKey[DeclaredMethods, Nothing
                         s"Unexpected signature polymorphic method $name"
                     )
                 val context = new MethodContext(name, descriptor)
-                insertDeclaredMethod(dms, context, id => new VirtualDeclaredMethod(
+                insertDeclaredMethod(VarHandle, dms, context, id => new VirtualDeclaredMethod(
                     VarHandle, name, descriptor, id
                 ))
             }
         }
 
+        // The virtual declared methods of the previous version were created on demand; they are
+        // recreated unless the respective declared method exists already
+        for {
+            previous <- previousDeclaredMethods
+            vm <- previous.declaredMethods.collect { case vm: VirtualDeclaredMethod => vm }
+        } {
+            val declaringType = vm.declaringClassType
+            val dms = result.computeIfAbsent(declaringType, mapFactory)
+            val context = MethodContext(p, declaringType, "", vm.name, vm.descriptor, false)
+            dms.computeIfAbsent(context, _ => new VirtualDeclaredMethod(
+                declaringType, vm.name, vm.descriptor, nextId(declaringType, context)
+            ))
+        }
+
         val id2method = new Array[DeclaredMethod](idCounter.get() + 1000)
 
         for {
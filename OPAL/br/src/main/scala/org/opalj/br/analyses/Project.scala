@@ -41,6 +41,7 @@ import org.opalj.br.instructions.INVOKESTATIC
 import org.opalj.br.instructions.NEW
 import org.opalj.br.instructions.NonVirtualMethodInvocationInstruction
 import org.opalj.br.reader.BytecodeInstructionsCache
+import org.opalj.br.reader.InvokedynamicRewriting
 import org.opalj.br.reader.Java17FrameworkWithDynamicRewritingAndCaching
 import org.opalj.br.reader.Java17LibraryFramework
 
@@ -2004,6 +2005,11 @@ object Project {
                 if (classFile.isModuleDeclaration) {
                     processModule(classFile, source, projectModules)
                 } else if (projectTypes.contains(projectType)) {
+                    // A shared lambda proxy is stored along with every class file that uses
+                    // it; all copies are identical.
+                    if (projectType.fqn.matches(InvokedynamicRewriting.SharedLambdaNameRegEx))
+                        return ;
+
                     handleInconsistentProject(
                         logContext,
                         InconsistentProjectException(
@@ -18,8 +18,10 @@ import org.opalj.collection.immutable.IntTrieSet1
 import org.opalj.collection.mutable.FixedSizedHashIDMap
 import org.opalj.collection.mutable.IntArrayStack
 import org.opalj.graphs.DefaultMutableNode
+import org.opalj.graphs.DominanceFrontiers
 import org.opalj.graphs.DominatorTree
 import org.opalj.graphs.Node
+import org.opalj.graphs.PostDominatorTree
 
 /**
  * Represents the control flow graph of a method.
@@ -547,21 +549,130 @@ case class CFG[I <: AnyRef, C <: CodeSequence[I]](
         }
     }
 
+    /** The largest pc (index) of an instruction that belongs to a basic block. */
+    private[this] lazy val maxPC: Int = {
+        // the basic blocks array may be sparse (w.r.t. the pcs of the underlying bytecode)
+        var pc = basicBlocks.length - 1
+        while (basicBlocks(pc) eq null) pc -= 1
+        basicBlocks(pc).endPC
+    }
+
+    private[this] def isValidPC(pc: Int): Boolean = pc <= maxPC && (basicBlocks(pc) ne null)
+
+    // The successor and predecessor relations are computed once and stored in plain int arrays;
+    // the dominator trees traverse them multiple times.
+    private[this] lazy val successorsRelation: CFG.PCsRelation = {
+        CFG.PCsRelation(maxPC, isValidPC, foreachSuccessor)
+    }
+
+    // The predecessors are derived from the successors, because `foreachPredecessor` does not
+    // report the predecessors of the first instruction; however, the post-dominator tree
+    // has to take the jumps back to the first instruction into account if it is a loop header.
+    private[this] lazy val predecessorsRelation: CFG.PCsRelation = successorsRelation.inverse
+
     /**
-     * @return Returns the dominator tree of this CFG.
+     * The pcs of all instructions whose evaluation may lead to a normal or abnormal return.
+     */
+    def exitPCs: IntTrieSet = {
+        var exitPCs = IntTrieSet.empty
+        normalReturnNode.predecessors foreach { bb => exitPCs += bb.asBasicBlock.endPC }
+        abnormalReturnNode.predecessors foreach { bb => exitPCs += bb.asBasicBlock.endPC }
+        exitPCs
+    }
+
+    /**
+     * The dominator tree of this CFG; it is computed on demand and then cached.
      *
      * @see [[DominatorTree.apply]]
      */
-    def dominatorTree: DominatorTree = {
+    lazy val dominatorTree: DominatorTree = {
         DominatorTree(
             0,
             basicBlocks.head.predecessors.nonEmpty,
-            foreachSuccessor,
-            foreachPredecessor,
-            basicBlocks.last.endPC
+            successorsRelation.foreach,
+            predecessorsRelation.foreach,
+            maxPC
+        )
+    }
+
+    /**
+     * The post-dominator tree of this CFG; it is computed on demand and then cached.
+     *
+     * @note If the CFG contains infinite loops, the instructions which jump back to the headers
+     *       of the infinite loops (from within the loop) are used as additional exit nodes.
+     *
+     * @see [[PostDominatorTree.apply]]
+     */
+    lazy val postDominatorTree: PostDominatorTree = {
+        val exitPCs = this.exitPCs
+        val uniqueExitNode =
+            if (exitPCs.isSingletonSet && successorsRelation.isEmpty(exitPCs.head))
+                Some(exitPCs.head)
+            else
+                None
+        PostDominatorTree(
+            uniqueExitNode,
+            exitPCs.contains,
+            infiniteLoopsExitPCs(exitPCs),
+            exitPCs.foreach,
+            successorsRelation.foreach,
+            predecessorsRelation.foreach,
+            maxPC
         )
     }
 
+    /**
+     * Computes the instructions which jump back to the header of a loop that - once entered -
+     * can never be left.
+     */
+    private[this] def infiniteLoopsExitPCs(exitPCs: IntTrieSet): IntTrieSet = {
+        // 1. determine all instructions from which an exit instruction can be reached
+        val canExit = new Array[Boolean](maxPC + 1)
+        val worklist = new IntArrayStack(Math.max(2, exitPCs.size))
+        exitPCs foreach { pc => canExit(pc) = true; worklist.push(pc) }
+        while (worklist.nonEmpty) {
+            predecessorsRelation.foreach(worklist.pop()) { predPC =>
+                if (!canExit(predPC)) {
+                    canExit(predPC) = true
+                    worklist.push(predPC)
+                }
+            }
+        }
+
+        // 2. the sources of the back edges in the remaining part of the CFG
+        var additionalExitPCs = IntTrieSet.empty
+        var pc = 0
+        while (pc <= maxPC) {
+            if (!canExit(pc) && isValidPC(pc)) {
+                successorsRelation.foreach(pc) { succPC =>
+                    if (succPC == pc || dominatorTree.strictlyDominates(succPC, pc))
+                        additionalExitPCs += pc
+                }
+            }
+            pc += 1
+        }
+
+        // 3. only keep the outer most exit pcs
+        additionalExitPCs foreachPair { (exitPC1, exitPC2) =>
+            if (dominatorTree.strictlyDominates(exitPC1, exitPC2))
+                additionalExitPCs -= exitPC1
+            else if (dominatorTree.strictlyDominates(exitPC2, exitPC1))
+                additionalExitPCs -= exitPC2
+        }
+        additionalExitPCs
+    }
+
+    /**
+     * The (non-termination insensitive) control dependencies of the instructions of this CFG
+     * which are computed using the post-dominator tree; they are computed on demand and then
+     * cached.
+     *
+     * @see [[postDominatorTree]]
+     */
+    lazy val controlDependencies: DominanceFrontiers = {
+        DominanceFrontiers(postDominatorTree, isValidPC)
+    }
+
     /**
      * Creates a new CFG where the boundaries of the basic blocks are updated given the `pcToIndex`
      * mapping. The assumption is made that the indexes are continuous.
@@ -875,4 +986,70 @@ object CFG {
         info("OPAL", s"$TraceDFSolverKey: $traceDFSolver")(GlobalLogContext)
         traceDFSolver
     }
+
+    /**
+     * A relation between the pcs of the instructions of a CFG stored in the "compressed sparse
+     * row" format; the pcs related to the pc `pc` are stored in `pcs` at the indexes
+     * `offsets(pc)` (inclusive) to `offsets(pc+1)` (exclusive).
+     */
+    private[cfg] final class PCsRelation private (offsets: Array[Int], pcs: Array[Int]) {
+
+        def isEmpty(pc: Int): Boolean = offsets(pc) == offsets(pc + 1)
+
+        def foreach(pc: Int)(f: Int => Unit): Unit = {
+            var i = offsets(pc)
+            val end = offsets(pc + 1)
+            while (i < end) {
+                f(pcs(i))
+                i += 1
+            }
+        }
+
+        /**
+         * The inverse relation; i.e., `pc` is related to `relatedPC` in the inverse relation
+         * iff `relatedPC` is related to `pc` in this relation.
+         */
+        def inverse: PCsRelation = {
+            val maxPC = offsets.length - 2
+            val inverseOffsets = new Array[Int](maxPC + 2)
+            pcs foreach { relatedPC => inverseOffsets(relatedPC + 1) += 1 }
+            var pc = 1
+            while (pc <= maxPC + 1) {
+                inverseOffsets(pc) += inverseOffsets(pc - 1)
+                pc += 1
+            }
+            val inversePCs = new Array[Int](pcs.length)
+            val nextIndex = inverseOffsets.clone()
+            pc = 0
+            while (pc <= maxPC) {
+                val sourcePC = pc
+                foreach(sourcePC) { relatedPC =>
+                    inversePCs(nextIndex(relatedPC)) = sourcePC
+                    nextIndex(relatedPC) += 1
+                }
+                pc += 1
+            }
+            new PCsRelation(inverseOffsets, inversePCs)
+        }
+    }
+
+    private[cfg] object PCsRelation {
+
+        def apply(
+            maxPC:            Int,
+            isValidPC:        Int => Boolean,
+            foreachRelatedPC: Int => (Int => Unit) => Unit
+        ): PCsRelation = {
+            val offsets = new Array[Int](maxPC + 2)
+            val pcs = new IntArrayStack(maxPC + 1)
+            var pc = 0
+            while (pc <= maxPC) {
+                offsets(pc) = pcs.size
+                if (isValidPC(pc)) foreachRelatedPC(pc) { relatedPC => pcs.push(relatedPC) }
+                pc += 1
+            }
+            offsets(maxPC + 1) = pcs.size
+            new PCsRelation(offsets, pcs.toArray)
+        }
+    }
 }
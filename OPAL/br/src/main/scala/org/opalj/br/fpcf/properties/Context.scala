@@ -5,15 +5,15 @@ package fpcf
 package properties
 
 import java.util.concurrent.atomic.AtomicInteger
-import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.concurrent.atomic.AtomicIntegerArray
+import java.util.concurrent.atomic.AtomicReferenceArray
+
 import org.opalj.br.analyses.DeclaredMethods
 import org.opalj.br.analyses.DeclaredMethodsKey
 import org.opalj.br.analyses.ProjectInformationKey
 import org.opalj.br.analyses.ProjectInformationKeys
 import org.opalj.br.analyses.SomeProject
 
-import scala.collection.mutable
-
 /**
  * Provides the context in which a method was invoked or an object was allocated.
  *
@@ -110,12 +110,19 @@ class SimpleContexts private[properties] (declaredMethods: DeclaredMethods) {
 }
 
 /**
- * A context that includes a call string
+ * A context that includes a call string.
+ *
+ * A context with a non-empty call string `(caller, pc) :: rest` is represented by its parent
+ * context, i.e., the context of `caller` with the call string `rest`, and the `pc`; hence, the
+ * call strings of all contexts are shared.
  */
 class CallStringContext private[properties] (
-        val id:         Int,
-        val method:     DeclaredMethod,
-        val callString: List[(DeclaredMethod, Int)]
+        val id:                           Int,
+        val method:                       DeclaredMethod,
+        val callString:                   List[(DeclaredMethod, Int)],
+        private[properties] val parentId: Int,
+        private[properties] val pc:       Int,
+        private[properties] val depth:    Int
 ) extends Context {
     override def toString: String = {
         s"CallStringContext($method, $callString)"
@@ -133,56 +140,203 @@ object CallStringContextsKey extends ProjectInformationKey[CallStringContexts, N
 
 }
 
+/**
+ * Interns [[CallStringContext]]s such that each pair of method and call string is represented
+ * by exactly one context with a unique id.
+ *
+ * A context is identified by the id of its parent context, the pc of the call site and the id
+ * of the method; these are hashed without creating a key object. The contexts are stored in
+ * the open-addressing tables of a fixed number of segments. Lookups never lock; only the
+ * creation of a new context locks the segment that is responsible for it. The reverse mapping
+ * from ids to contexts is stored in an array of fixed-size chunks that are allocated on demand
+ * and are never copied.
+ */
 class CallStringContexts {
 
-    @volatile private var id2Context = new Array[CallStringContext](32768)
-    private val context2id = new mutable.HashMap[(DeclaredMethod, List[(DeclaredMethod, Int)]), CallStringContext]()
+    import CallStringContexts._
 
-    private val nextId = new AtomicInteger(1)
-    private val rwLock = new ReentrantReadWriteLock()
+    private[this] val segments = Array.fill(SegmentsCount)(new Segment)
+
+    private[this] val id2Context =
+        new AtomicReferenceArray[Array[CallStringContext]](MaxChunks)
+
+    private[this] val nextId = new AtomicInteger(1)
 
     def apply(id: Int): CallStringContext = {
-        id2Context(id)
+        id2Context.get(id >>> ChunkBits)(id & ChunkMask)
     }
 
     def apply(
         method:     DeclaredMethod,
         callString: List[(DeclaredMethod, Int)]
     ): CallStringContext = {
-        val key = (method, callString)
-
-        val readLock = rwLock.readLock()
-        readLock.lock()
-        try {
-            val contextO = context2id.get(key)
-            if (contextO.isDefined) {
-                return contextO.get;
+        if (callString.isEmpty) {
+            intern(null, 0, method)
+        } else {
+            val (caller, pc) = callString.head
+            intern(apply(caller, callString.tail), pc, method)
+        }
+    }
+
+    /**
+     * Returns the context of the given method when called at the given pc from the given
+     * caller context, where the call string is limited to (at most) `k` call sites.
+     */
+    def apply(
+        method:        DeclaredMethod,
+        callerContext: CallStringContext,
+        pc:            Int,
+        k:             Int
+    ): CallStringContext = {
+        intern(truncate(callerContext, k - 1), pc, method)
+    }
+
+    /**
+     * Returns the context of the given context's method whose call string consists of (at most)
+     * the first `length` call sites of the given context's call string.
+     */
+    private[this] def truncate(context: CallStringContext, length: Int): CallStringContext = {
+        if (context.depth <= length)
+            context
+        else if (length <= 0)
+            intern(null, 0, context.method)
+        else
+            intern(truncate(apply(context.parentId), length - 1), context.pc, context.method)
+    }
+
+    private[this] def intern(
+        parent: CallStringContext,
+        pc:     Int,
+        method: DeclaredMethod
+    ): CallStringContext = {
+        val parentId = if (parent eq null) 0 else parent.id
+        val methodId = method.id
+        val hash = hashOf(parentId, pc, methodId)
+        val segment = segments(hash >>> (32 - SegmentBits))
+
+        val context = segment.get(hash, parentId, pc, methodId)
+        if (context ne null) {
+            context
+        } else segment.synchronized {
+            val existingContext = segment.get(hash, parentId, pc, methodId)
+            if (existingContext ne null) {
+                existingContext
+            } else {
+                val newContext =
+                    if (parent eq null)
+                        new CallStringContext(nextId.getAndIncrement(), method, Nil, 0, 0, 0)
+                    else
+                        new CallStringContext(
+                            nextId.getAndIncrement(),
+                            method,
+                            (parent.method, pc) :: parent.callString,
+                            parentId,
+                            pc,
+                            parent.depth + 1
+                        )
+                // The context has to be registered for its id before it gets published.
+                store(newContext)
+                segment.add(hash, newContext)
+                newContext
             }
-        } finally {
-            readLock.unlock()
         }
+    }
+
+    private[this] def store(context: CallStringContext): Unit = {
+        val chunkIndex = context.id >>> ChunkBits
+        if (chunkIndex >= MaxChunks)
+            throw new IllegalStateException("too many call string contexts")
+
+        var chunk = id2Context.get(chunkIndex)
+        if (chunk eq null) {
+            val newChunk = new Array[CallStringContext](ChunkSize)
+            if (id2Context.compareAndSet(chunkIndex, null, newChunk))
+                chunk = newChunk
+            else
+                chunk = id2Context.get(chunkIndex)
+        }
+        chunk(context.id & ChunkMask) = context
+    }
+
+    /**
+     * An open-addressing table (linear probing) that stores the ids of the contexts; `0` marks
+     * an empty slot. Slots are written using volatile semantics after the context was stored,
+     * hence, a reader that finds an id also sees the context. Adding contexts and growing the
+     * table requires the segment's lock; a reader that (still) sees an outdated table may
+     * miss a context and will then retry while holding the lock.
+     */
+    private[this] final class Segment {
 
-        val writeLock = rwLock.writeLock()
-        writeLock.lock()
-        try {
-            val contextO = context2id.get(key)
-            if (contextO.isDefined) {
-                return contextO.get;
+        @volatile private[this] var slots = new AtomicIntegerArray(InitialSegmentCapacity)
+
+        private[this] var size = 0
+
+        def get(hash: Int, parentId: Int, pc: Int, methodId: Int): CallStringContext = {
+            val slots = this.slots
+            val mask = slots.length - 1
+            var index = hash & mask
+            var id = slots.get(index)
+            while (id != 0) {
+                val context = apply(id)
+                if (context.parentId == parentId && context.pc == pc &&
+                    context.method.id == methodId)
+                    return context;
+                index = (index + 1) & mask
+                id = slots.get(index)
             }
+            null
+        }
 
-            val context = new CallStringContext(nextId.getAndIncrement(), method, callString)
-            context2id.put(key, context)
-            val curMap = id2Context
-            if (context.id < curMap.length) {
-                curMap(context.id) = context
-            } else {
-                val newMap = java.util.Arrays.copyOf(curMap, curMap.length * 2)
-                newMap(context.id) = context
-                id2Context = newMap
+        /** Must only be called while holding the segment's lock. */
+        def add(hash: Int, context: CallStringContext): Unit = {
+            if ((size + 1) * 2 > slots.length) {
+                val newSlots = new AtomicIntegerArray(slots.length * 2)
+                var i = 0
+                while (i < slots.length) {
+                    val id = slots.get(i)
+                    if (id != 0) {
+                        val c = apply(id)
+                        insert(newSlots, hashOf(c.parentId, c.pc, c.method.id), id)
+                    }
+                    i += 1
+                }
+                slots = newSlots
             }
-            context
-        } finally {
-            writeLock.unlock()
+            insert(slots, hash, context.id)
+            size += 1
+        }
+
+        private[this] def insert(slots: AtomicIntegerArray, hash: Int, id: Int): Unit = {
+            val mask = slots.length - 1
+            var index = hash & mask
+            while (slots.get(index) != 0) {
+                index = (index + 1) & mask
+            }
+            slots.set(index, id)
         }
     }
-}
\ No newline at end of file
+}
+
+object CallStringContexts {
+
+    private final val ChunkBits = 16
+    private final val ChunkSize = 1 << ChunkBits
+    private final val ChunkMask = ChunkSize - 1
+    private final val MaxChunks = 1 << (31 - ChunkBits)
+
+    private final val SegmentBits = 6
+    private final val SegmentsCount = 1 << SegmentBits
+    private final val InitialSegmentCapacity = 64
+
+    private def hashOf(parentId: Int, pc: Int, methodId: Int): Int = {
+        // the finalization step of MurmurHash3 ensures that the upper bits (which select
+        // the segment) and the lower bits (which select the slot) are well distributed
+        var h = parentId * 0x9E3779B9 + pc * 0x85EBCA6B + methodId
+        h ^= h >>> 16
+        h *= 0x85EBCA6B
+        h ^= h >>> 13
+        h *= 0xC2B2AE35
+        h ^= h >>> 16
+        h
+    }
+}
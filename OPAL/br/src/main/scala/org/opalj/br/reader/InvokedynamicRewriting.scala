@@ -4,6 +4,11 @@ package br
 package reader
 
 import java.lang.invoke.LambdaMetafactory
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+
 import com.typesafe.config.Config
 import com.typesafe.config.ConfigValueFactory
 import org.opalj.log.Info
@@ -170,6 +175,30 @@ trait InvokedynamicRewriting
         logUnknownInvokeDynamics
     }
 
+    val shareLambdaProxies: Boolean = {
+        import InvokedynamicRewriting.{LambdaProxiesSharingConfigKey => Key}
+        val shareProxies: Boolean =
+            try {
+                config.getBoolean(Key)
+            } catch {
+                case t: Throwable =>
+                    error("class file reader", s"couldn't read: $Key", t)
+                    false
+            }
+        if (shareProxies) {
+            info("class file reader", "proxies of lambda expressions are shared")
+        } else {
+            info("class file reader", "proxies of lambda expressions are not shared")
+        }
+        shareProxies
+    }
+
+    /**
+     * The proxies which can be shared by multiple call sites and their factory method calls.
+     * (Only used if [[shareLambdaProxies]] is `true`.)
+     */
+    private[this] val lambdaProxies = new ConcurrentHashMap[LambdaProxyKey, (ClassFile, INVOKESTATIC)]()
+
     val ScalaRuntimeObject: ObjectType = ObjectType("scala/runtime/ScalaRunTime$")
 
     /**
@@ -858,6 +887,14 @@ trait InvokedynamicRewriting
     /**
      * Resolution of java 8 lambda and method reference expressions.
      *
+     * If [[shareLambdaProxies]] is `true`, a proxy class is only created once for all call
+     * sites in the same package which have the same bootstrap arguments and the same factory
+     * descriptor (i.e., the same captured arguments). The name of a shared proxy only depends
+     * on its [[InvokedynamicRewriting.LambdaProxyKey]]. The proxy is stored along with every
+     * class file which uses it; the project keeps one of these identical copies. Proxies of
+     * serializable lambda expressions are never shared, because they refer back to their call
+     * site's class.
+     *
      * @see More information about lambda deserialization and lambda meta factory:
      *      [https://docs.oracle.com/javase/8/docs/api/java/lang/invoke/LambdaMetafactory.html]
      *
@@ -947,11 +984,13 @@ trait InvokedynamicRewriting
         val methodName = cp(methodNameIndex).asString
         val methodDescriptor = cp(methodDescriptorIndex).asMethodDescriptor
 
-        val typeDeclaration = TypeDeclaration(
-            ObjectType(newLambdaTypeName(thisType, methodName, methodDescriptor, pc)),
+        val superInterfaceTypes = superInterfaceTypesBuilder.result()
+
+        def typeDeclaration(proxyTypeName: String) = TypeDeclaration(
+            ObjectType(proxyTypeName),
             isInterfaceType = false,
             Some(ObjectType.Object), // we basically create a "CallSiteObject"
-            superInterfaceTypesBuilder.result()
+            superInterfaceTypes
         )
 
         var invocationInstruction = implMethod.opcodeOfUnderlyingInstruction
@@ -1195,42 +1234,85 @@ trait InvokedynamicRewriting
             .filterNot(_ == instantiatedMethodType)
         val bridgeMethodDescriptors = bridgeMethodDescriptorBuilder.result()
 
-        val proxy: ClassFile = ClassFileFactory.Proxy(
-            thisType,
-            updatedClassFile.isInterfaceDeclaration,
-            typeDeclaration,
-            functionalInterfaceMethodName,
-            instantiatedMethodType,
-            receiverType,
-            receiverIsInterface = receiverIsInterface,
-            implMethod,
-            invocationInstruction,
-            samMethodType,
-            bridgeMethodDescriptors
-        )
-        val factoryMethod = {
-            if (functionalInterfaceMethodName == DefaultFactoryMethodName)
-                proxy.findMethod(AlternativeFactoryMethodName).head
-            else
-                proxy.findMethod(DefaultFactoryMethodName).head
+        def replaceInvokedynamic(newInvokestatic: INVOKESTATIC): Unit = {
+            if (logLambdaExpressionsRewrites) {
+                info("rewriting invokedynamic", s"Java: $invokedynamic => $newInvokestatic")
+            }
+
+            instructions(pc) = newInvokestatic
+            // since invokestatic is two bytes shorter than invokedynamic, we need to fill
+            // the two-byte gap following the invokestatic with NOPs
+            instructions(pc + 3) = NOP
+            instructions(pc + 4) = NOP
         }
 
-        val newInvokestatic = INVOKESTATIC(
-            proxy.thisType,
-            isInterface = false, // the created proxy class is always a concrete class
-            factoryMethod.name,
-            factoryMethod.descriptor
-        )
+        def createProxy(proxyTypeDeclaration: TypeDeclaration): (ClassFile, INVOKESTATIC) = {
+            val proxy: ClassFile = ClassFileFactory.Proxy(
+                thisType,
+                updatedClassFile.isInterfaceDeclaration,
+                proxyTypeDeclaration,
+                functionalInterfaceMethodName,
+                instantiatedMethodType,
+                receiverType,
+                receiverIsInterface = receiverIsInterface,
+                implMethod,
+                invocationInstruction,
+                samMethodType,
+                bridgeMethodDescriptors
+            )
+            val factoryMethod = {
+                if (functionalInterfaceMethodName == DefaultFactoryMethodName)
+                    proxy.findMethod(AlternativeFactoryMethodName).head
+                else
+                    proxy.findMethod(DefaultFactoryMethodName).head
+            }
 
-        if (logLambdaExpressionsRewrites) {
-            info("rewriting invokedynamic", s"Java: $invokedynamic => $newInvokestatic")
+            val newInvokestatic = INVOKESTATIC(
+                proxy.thisType,
+                isInterface = false, // the created proxy class is always a concrete class
+                factoryMethod.name,
+                factoryMethod.descriptor
+            )
+            (proxy, newInvokestatic)
         }
 
-        instructions(pc) = newInvokestatic
-        // since invokestatic is two bytes shorter than invokedynamic, we need to fill
-        // the two-byte gap following the invokestatic with NOPs
-        instructions(pc + 3) = NOP
-        instructions(pc + 4) = NOP
+        val (proxy, newInvokestatic) =
+            if (shareLambdaProxies && !serializable) {
+                val proxyKey = LambdaProxyKey(
+                    thisType.packageName,
+                    factoryDescriptor,
+                    superInterfaceTypes,
+                    functionalInterfaceMethodName,
+                    samMethodType,
+                    instantiatedMethodType,
+                    implMethod,
+                    receiverType,
+                    receiverIsInterface,
+                    bridgeMethodDescriptors
+                )
+                val sharedProxy = lambdaProxies.get(proxyKey)
+                if (sharedProxy ne null) {
+                    sharedProxy
+                } else {
+                    val newProxy = createProxy(typeDeclaration(proxyKey.proxyTypeName))
+                    // Another call site may have created the proxy concurrently; given that
+                    // the proxy only depends on the key, it does not matter which one we use.
+                    val concurrentProxy = lambdaProxies.putIfAbsent(proxyKey, newProxy)
+                    if (concurrentProxy ne null) concurrentProxy else newProxy
+                }
+            } else {
+                createProxy(
+                    typeDeclaration(newLambdaTypeName(thisType, methodName, methodDescriptor, pc))
+                )
+            }
+
+        replaceInvokedynamic(newInvokestatic)
+
+        val isStored = updatedClassFile.synthesizedClassFiles.exists { scf =>
+            scf.classFiles.exists(_._1 eq proxy)
+        }
+        if (isStored) // another call site of this class file uses the same shared proxy
+            return updatedClassFile;
 
         val reason = Some((updatedClassFile, instructions, pc, invokedynamic, newInvokestatic))
         storeProxy(updatedClassFile, proxy, reason)
@@ -1327,6 +1409,12 @@ object InvokedynamicRewriting {
 
     final val LambdaNameRegEx = "[^.;\\[]*:[0-9]+\\$Lambda$"
 
+    /**
+     * Matches the names of the proxies which are shared by multiple call sites; a subset of
+     * the names matched by [[LambdaNameRegEx]].
+     */
+    final val SharedLambdaNameRegEx = "[^.;\\[]*\\$SharedLambda:[0-9]+\\$Lambda$"
+
     final val TargetMethodNameRegEx = "\\$[A-Za-z_]+\\$[^.;\\[/<>]*:[0-9]+$"
 
     final val InvokedynamicKeyPrefix = {
@@ -1353,6 +1441,60 @@ object InvokedynamicRewriting {
         InvokedynamicKeyPrefix+"logUnknownInvokeDynamics"
     }
 
+    final val LambdaProxiesSharingConfigKey = {
+        InvokedynamicKeyPrefix+"shareLambdaProxies"
+    }
+
+    /**
+     * Identifies the proxy class created for a lambda expression/method reference; all call
+     * sites with the same key can use the same proxy class.
+     *
+     * The package of the call site is part of the key to ensure that a shared proxy can always
+     * access the implementation method. The factory descriptor – which describes the captured
+     * arguments – is part of the key, because the receiver type and the fields of the proxy
+     * are derived from it.
+     */
+    private[reader] case class LambdaProxyKey(
+            packageName:                   String,
+            factoryDescriptor:             MethodDescriptor,
+            superInterfaceTypes:           UIDSet[ObjectType],
+            functionalInterfaceMethodName: String,
+            samMethodType:                 MethodDescriptor,
+            instantiatedMethodType:        MethodDescriptor,
+            implMethod:                    MethodCallMethodHandle,
+            receiverType:                  ObjectType,
+            receiverIsInterface:           Boolean,
+            bridgeMethodDescriptors:       MethodDescriptors
+    ) {
+
+        /**
+         * The name of the proxy class. It is derived from a hash of the key's textual
+         * representation only and is therefore the same whenever the same code is read.
+         *
+         * It follows the pattern `{packageName}/\$SharedLambda:{hash}\$Lambda`.
+         */
+        def proxyTypeName: String = {
+            val id = Seq(
+                packageName,
+                factoryDescriptor.toJVMDescriptor,
+                superInterfaceTypes.iterator.map(_.fqn).toList.sorted.mkString(","),
+                functionalInterfaceMethodName,
+                samMethodType.toJVMDescriptor,
+                instantiatedMethodType.toJVMDescriptor,
+                implMethod.toString,
+                receiverType.fqn,
+                receiverIsInterface.toString,
+                bridgeMethodDescriptors.iterator.map(_.toJVMDescriptor).mkString(",")
+            ).mkString(";")
+            val digest = MessageDigest.getInstance("SHA-1").digest(id.getBytes(StandardCharsets.UTF_8))
+            val hash = java.lang.Long.toUnsignedString(ByteBuffer.wrap(digest).getLong)
+            if (packageName.isEmpty)
+                s"$$SharedLambda:$hash$$Lambda"
+            else
+                s"$packageName/$$SharedLambda:$hash$$Lambda"
+        }
+    }
+
     def isJava8LikeLambdaExpression(invokedynamic: INVOKEDYNAMIC): Boolean = {
         import ObjectType.LambdaMetafactory
         invokedynamic.bootstrapMethod.handle match {
@@ -0,0 +1,125 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package br
+package analyses
+
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import scala.jdk.CollectionConverters._
+
+import org.junit.runner.RunWith
+import org.scalatestplus.junit.JUnitRunner
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import org.opalj.br.TestSupport.biProject
+
+/**
+ * Tests that the lookups of `DeclaredMethods` always return the same (canonical) objects.
+ */
+@RunWith(classOf[JUnitRunner])
+class DeclaredMethodsTest extends AnyFlatSpec with Matchers {
+
+    behavior of "the DeclaredMethods"
+
+    it should "return the DefinedMethod of each method of a class file" in {
+        val project = biProject("ai.jar")
+        val declaredMethods = project.get(DeclaredMethodsKey)
+        project.allMethods foreach { m =>
+            val dm = declaredMethods(m)
+            dm.definedMethod should be theSameInstanceAs m
+            dm.declaringClassType should be(m.classFile.thisType)
+            declaredMethods(dm.id) should be theSameInstanceAs dm
+            declaredMethods(m) should be theSameInstanceAs dm
+        }
+        declaredMethods.declaredMethods.size should be >= project.allMethods.size
+    }
+
+    it should "return the same declared method for repeated queries of virtual call targets" in {
+        val project = biProject("ai.jar")
+        val declaredMethods = project.get(DeclaredMethodsKey)
+        for {
+            cf <- project.allClassFiles
+            m <- cf.methods
+            if !m.isStatic && !m.isInitializer
+        } {
+            val classType = cf.thisType
+            val dm = declaredMethods(
+                classType, classType.packageName, classType, m.name, m.descriptor
+            )
+            dm.name should be(m.name)
+            dm.descriptor should be(m.descriptor)
+            declaredMethods(
+                classType, classType.packageName, classType, m.name, m.descriptor
+            ) should be theSameInstanceAs dm
+            declaredMethods(dm.id) should be theSameInstanceAs dm
+        }
+    }
+
+    it should "create exactly one VirtualDeclaredMethod for an unknown method" in {
+        val project = biProject("ai.jar")
+        val declaredMethods = project.get(DeclaredMethodsKey)
+        val results = new ConcurrentLinkedQueue[DeclaredMethod]()
+        val threads = Array.fill(4) {
+            new Thread() {
+                override def run(): Unit = {
+                    for { i <- 0 until 1000 } {
+                        results.add(declaredMethods(
+                            ObjectType.Object,
+                            "",
+                            ObjectType.Object,
+                            "unknownMethod"+(i % 100),
+                            MethodDescriptor.NoArgsAndReturnVoid
+                        ))
+                    }
+                }
+            }
+        }
+        threads.foreach(_.start())
+        threads.foreach(_.join())
+
+        val methods = results.asScala.groupBy(_.name)
+        methods.size should be(100)
+        methods.values foreach { dms =>
+            val dm = dms.head
+            dm should be(a[VirtualDeclaredMethod])
+            dms foreach { _ should be theSameInstanceAs dm }
+            declaredMethods(dm.id) should be theSameInstanceAs dm
+        }
+    }
+
+    it should "neither spin nor grow beyond its capacity if the call targets cache is full" in {
+        val cache = new DeclaredMethods.VirtualCallTargetsCache(initialCapacity = 16, maxCapacity = 64)
+        val descriptor = MethodDescriptor.NoArgsAndReturnVoid
+        val methods = Array.tabulate[DeclaredMethod](1000) { i =>
+            new VirtualDeclaredMethod(ObjectType.Object, "m"+i, descriptor, i)
+        }
+        def hash(m: DeclaredMethod): Int = {
+            cache.hash(ObjectType.Object, "", ObjectType.Object, m.name, descriptor)
+        }
+
+        val threads = Array.fill(4) {
+            new Thread() {
+                override def run(): Unit = {
+                    methods foreach { m =>
+                        cache.put(hash(m), ObjectType.Object, "", ObjectType.Object, m.name, descriptor, m)
+                        cache.get(hash(m), ObjectType.Object, "", ObjectType.Object, m.name, descriptor)
+                    }
+                }
+            }
+        }
+        threads.foreach(_.start())
+        threads.foreach(_.join())
+
+        var cachedMethodsCount = 0
+        methods foreach { m =>
+            val dm = cache.get(hash(m), ObjectType.Object, "", ObjectType.Object, m.name, descriptor)
+            if (dm ne null) {
+                dm should be theSameInstanceAs m
+                cachedMethodsCount += 1
+            }
+        }
+        cachedMethodsCount should be > 0
+        cachedMethodsCount should be <= 64
+    }
+}
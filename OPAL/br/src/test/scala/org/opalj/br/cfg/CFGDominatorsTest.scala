@@ -0,0 +1,169 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj.br
+package cfg
+
+import org.junit.runner.RunWith
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.graphs.DominanceFrontiers
+import org.opalj.graphs.DominatorTree
+import org.opalj.graphs.PostDominatorTree
+import org.opalj.br.TestSupport.biProject
+import org.opalj.br.instructions.GOTO
+import org.opalj.br.instructions.IFEQ
+import org.opalj.br.instructions.ILOAD_0
+import org.opalj.br.instructions.RETURN
+
+/**
+ * Tests that the (cached) dominator trees and control dependencies of CFGs are identical to the
+ * ones computed using the CFG's successor and predecessor functions.
+ */
+@RunWith(classOf[JUnitRunner])
+class CFGDominatorsTest extends AnyFunSpec with Matchers {
+
+    def validPCs(cfg: CFG[_, _], code: Code): Iterator[Int] = {
+        code.programCounters.filter(pc => cfg.bb(pc) ne null)
+    }
+
+    // `foreachPredecessor` does not report the predecessors of the first instruction; hence,
+    // we derive the predecessors from the successors
+    def predecessorsOf(cfg: CFG[_, _], code: Code, maxPC: Int): Int => (Int => Unit) => Unit = {
+        val predecessors = Array.fill(maxPC + 1)(IntTrieSet.empty)
+        validPCs(cfg, code) foreach { pc =>
+            cfg.foreachSuccessor(pc) { succPC => predecessors(succPC) += pc }
+        }
+        (pc: Int) => (f: Int => Unit) => predecessors(pc).foreach(f)
+    }
+
+    describe("the dominator trees of a method where the first instruction is a loop header") {
+        val code = Code(
+            1, 1,
+            Array(
+                /* 0 */ ILOAD_0,
+                /* 1 */ IFEQ(6),
+                null,
+                null,
+                /* 4 */ GOTO(-4),
+                null,
+                null,
+                /* 7 */ RETURN
+            )
+        )
+        val cfg = CFGFactory(code)
+
+        it("should not report the predecessors of the first instruction") {
+            cfg.predecessors(0) should be(IntTrieSet.empty)
+            cfg.foreachPredecessor(0) { predPC => fail(s"unexpected predecessor: $predPC") }
+        }
+
+        it("should take the jump back to the first instruction into account") {
+            cfg.dominatorTree.dom(1) should be(0)
+            cfg.dominatorTree.dom(4) should be(1)
+            cfg.dominatorTree.dom(7) should be(1)
+
+            cfg.postDominatorTree.dom(4) should be(0)
+            cfg.postDominatorTree.dom(0) should be(1)
+            cfg.postDominatorTree.dom(1) should be(7)
+
+            cfg.controlDependencies.df(0).iterator.toList should be(List(1))
+            cfg.controlDependencies.df(4).iterator.toList should be(List(1))
+            cfg.controlDependencies.df(7).iterator.toList should be(Nil)
+        }
+    }
+
+    describe("the dominator trees of a method which ends with a multi-byte instruction") {
+        // the basic blocks array has an entry for each index of the code array; hence, it
+        // ends with null values
+        val code = Code(
+            1, 1,
+            Array(
+                /* 0 */ ILOAD_0,
+                /* 1 */ IFEQ(4),
+                null,
+                null,
+                /* 4 */ RETURN,
+                /* 5 */ GOTO(-5),
+                null,
+                null
+            )
+        )
+        val cfg = CFGFactory(code)
+
+        it("should only encompass the instructions up to the last one") {
+            cfg.bb(7) should be(null)
+
+            cfg.dominatorTree.dom(4) should be(1)
+            cfg.dominatorTree.dom(5) should be(1)
+
+            cfg.postDominatorTree.dom(5) should be(0)
+            cfg.postDominatorTree.dom(1) should be(4)
+            cfg.controlDependencies.df(5).iterator.toList should be(List(1))
+        }
+    }
+
+    for { projectName <- List("controlflow.jar", "ai.jar") } {
+        describe(s"the dominator trees of the methods of $projectName") {
+            val project = biProject(projectName)
+            implicit val classHierarchy: ClassHierarchy = project.classHierarchy
+
+            it("should be computed only once") {
+                project.allMethodsWithBody foreach { m =>
+                    val cfg = CFGFactory(m.body.get)
+                    assert(cfg.dominatorTree eq cfg.dominatorTree)
+                    assert(cfg.postDominatorTree eq cfg.postDominatorTree)
+                    assert(cfg.controlDependencies eq cfg.controlDependencies)
+                }
+            }
+
+            it("should be identical to the trees computed using the successor functions") {
+                var methodsWithInfiniteLoopsCount = 0
+                project.allMethodsWithBody foreach { m =>
+                    val code = m.body.get
+                    val cfg = CFGFactory(code)
+                    val maxPC = cfg.allBBs.map(_.endPC).max
+                    val isValidPC = (pc: Int) => pc <= maxPC && (cfg.bb(pc) ne null)
+                    val foreachPredecessor = predecessorsOf(cfg, code, maxPC)
+
+                    val dt = DominatorTree(
+                        0,
+                        cfg.startBlock.predecessors.nonEmpty,
+                        cfg.foreachSuccessor,
+                        foreachPredecessor,
+                        maxPC
+                    )
+                    dt.immediateDominators should be(cfg.dominatorTree.immediateDominators)
+
+                    val exitPCs = cfg.exitPCs
+                    if (cfg.postDominatorTree.additionalExitNodes.nonEmpty) {
+                        methodsWithInfiniteLoopsCount += 1
+                    } else {
+                        val uniqueExitNode =
+                            if (exitPCs.isSingletonSet && cfg.successors(exitPCs.head).isEmpty)
+                                Some(exitPCs.head)
+                            else
+                                None
+                        val pdt = PostDominatorTree(
+                            uniqueExitNode,
+                            exitPCs.contains,
+                            IntTrieSet.empty,
+                            exitPCs.foreach,
+                            cfg.foreachSuccessor,
+                            foreachPredecessor,
+                            maxPC
+                        )
+                        pdt.immediateDominators should be(cfg.postDominatorTree.immediateDominators)
+
+                        val cdg = DominanceFrontiers(pdt, isValidPC)
+                        validPCs(cfg, code) foreach { pc =>
+                            cfg.controlDependencies.df(pc) should be(cdg.df(pc))
+                        }
+                    }
+                }
+                info(s"$methodsWithInfiniteLoopsCount methods have infinite loops")
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package br
+package fpcf
+package properties
+
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import scala.jdk.CollectionConverters._
+
+import org.junit.runner.RunWith
+import org.scalatestplus.junit.JUnitRunner
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import org.opalj.br.TestSupport.biProject
+import org.opalj.br.analyses.DeclaredMethodsKey
+
+/**
+ * Tests that `CallStringContexts` interns each pair of method and call string exactly once.
+ */
+@RunWith(classOf[JUnitRunner])
+class CallStringContextsTest extends AnyFlatSpec with Matchers {
+
+    private[this] val project = biProject("ai.jar")
+    private[this] val declaredMethods = project.get(DeclaredMethodsKey)
+    private[this] val methods = project.allMethods.iterator.take(200).map(declaredMethods(_)).toArray
+
+    behavior of "the CallStringContexts"
+
+    it should "return the same context for the same method and call string" in {
+        val contexts = new CallStringContexts()
+        val m0 = methods(0)
+        val m1 = methods(1)
+        val m2 = methods(2)
+
+        val root = contexts(m0, Nil)
+        root.callString should be(Nil)
+        contexts(m0, Nil) should be theSameInstanceAs root
+        contexts(root.id) should be theSameInstanceAs root
+
+        val callString = List((m1, 5), (m2, 7))
+        val context = contexts(m0, callString)
+        context.method should be theSameInstanceAs m0
+        context.callString should be(callString)
+        contexts(m0, List((m1, 5), (m2, 7))) should be theSameInstanceAs context
+        contexts(context.id) should be theSameInstanceAs context
+
+        contexts(m0, List((m1, 6), (m2, 7))) should not be theSameInstanceAs(context)
+        contexts(m0, List((m1, 5))) should not be theSameInstanceAs(context)
+    }
+
+    it should "expand contexts by call sites and limit the call strings to k call sites" in {
+        val contexts = new CallStringContexts()
+        val m0 = methods(0)
+        val m1 = methods(1)
+        val m2 = methods(2)
+        val m3 = methods(3)
+
+        val c0 = contexts(m0, Nil)
+        val c1 = contexts(m1, c0, 3, 2)
+        c1.callString should be(List((m0, 3)))
+        c1 should be theSameInstanceAs contexts(m1, List((m0, 3)))
+
+        val c2 = contexts(m2, c1, 4, 2)
+        c2.callString should be(List((m1, 4), (m0, 3)))
+        c2 should be theSameInstanceAs contexts(m2, List((m1, 4), (m0, 3)))
+
+        val c3 = contexts(m3, c2, 5, 2)
+        c3.callString should be(List((m2, 5), (m1, 4)))
+        c3 should be theSameInstanceAs contexts(m3, List((m2, 5), (m1, 4)))
+        contexts(m3, c2, 5, 2) should be theSameInstanceAs c3
+
+        contexts(m3, c2, 5, 1).callString should be(List((m2, 5)))
+        contexts(m3, c2, 5, 0).callString should be(Nil)
+    }
+
+    it should "create exactly one context per method and call string if used concurrently" in {
+        val contexts = new CallStringContexts()
+        val createdContexts = new ConcurrentLinkedQueue[CallStringContext]()
+        val threads = Array.fill(8) {
+            new Thread(() => {
+                val root = contexts(methods(0), Nil)
+                for {
+                    caller <- methods
+                    callee <- methods.iterator.take(20)
+                    pc <- 0 until 3
+                } {
+                    val callerContext = contexts(caller, root, 1, 2)
+                    createdContexts.add(contexts(callee, callerContext, pc, 2))
+                }
+            })
+        }
+        threads.foreach(_.start())
+        threads.foreach(_.join())
+
+        val byCallString = createdContexts.asScala.groupBy(c => (c.method, c.callString))
+        byCallString.size should be(methods.length * 20 * 3)
+        byCallString.values foreach { cs =>
+            val context = cs.head
+            cs.foreach(_ should be theSameInstanceAs context)
+            contexts(context.id) should be theSameInstanceAs context
+            contexts(context.method, context.callString) should be theSameInstanceAs context
+        }
+    }
+}
@@ -304,25 +304,24 @@ class BasicLambdaExpressionsRewritingTest extends AnyFunSpec with Matchers {
         }
     }
 
-    describe("rewriting of lambda expressions") {
-        implicit val logContext: LogContext = new StandardLogContext()
-        OPALLogger.register(logContext, new ConsoleOPALLogger(ansiColored = true))
-
+    def createProject(shareLambdaProxies: Boolean)(implicit logContext: LogContext): SomeProject = {
         val baseConfig: Config = ConfigFactory.load()
         val rewritingConfigKey = InvokedynamicRewriting.InvokedynamicRewritingConfigKey
         val logLambdaConfigKey = InvokedynamicRewriting.LambdaExpressionsLogRewritingsConfigKey
         val logConcatConfigKey = InvokedynamicRewriting.StringConcatLogRewritingsConfigKey
+        val sharingConfigKey = InvokedynamicRewriting.LambdaProxiesSharingConfigKey
         val testConfig = baseConfig.
             withValue(rewritingConfigKey, ConfigValueFactory.fromAnyRef(java.lang.Boolean.TRUE)).
             withValue(logLambdaConfigKey, ConfigValueFactory.fromAnyRef(java.lang.Boolean.FALSE)).
-            withValue(logConcatConfigKey, ConfigValueFactory.fromAnyRef(java.lang.Boolean.FALSE))
+            withValue(logConcatConfigKey, ConfigValueFactory.fromAnyRef(java.lang.Boolean.FALSE)).
+            withValue(sharingConfigKey, ConfigValueFactory.fromAnyRef(shareLambdaProxies))
         object Framework extends Java8FrameworkWithInvokedynamicSupportAndCaching(
             new BytecodeInstructionsCache
         ) {
             override def defaultConfig = testConfig
         }
 
-        val project = Project(
+        Project(
             Framework.ClassFiles(lambda18TestResources),
             Java8LibraryFramework.ClassFiles(org.opalj.bytecode.JRELibraryFolder),
             libraryClassFilesAreInterfacesOnly = true,
@@ -331,8 +330,79 @@ class BasicLambdaExpressionsRewritingTest extends AnyFunSpec with Matchers {
             testConfig,
             logContext
         )
+    }
+
+    /**
+     * Returns the number of rewritten call sites and the (distinct) proxy classes.
+     */
+    def callSitesAndProxies(project: SomeProject): (Int, Set[ObjectType]) = {
+        val factoryCalls = for {
+            classFile <- project.allProjectClassFiles
+            method <- classFile.methods
+            body <- method.body.iterator
+            factoryCall <- body.instructionIterator.collect { case i: INVOKESTATIC => i }
+            if factoryCall.declaringClass.fqn.matches(InvokedynamicRewriting.LambdaNameRegEx)
+        } yield {
+            factoryCall.declaringClass
+        }
+        (factoryCalls.size, factoryCalls.toSet)
+    }
+
+    describe("rewriting of lambda expressions") {
+        implicit val logContext: LogContext = new StandardLogContext()
+        OPALLogger.register(logContext, new ConsoleOPALLogger(ansiColored = true))
+
+        val project = createProject(shareLambdaProxies = false)
         testProject(project)
 
+        it("should create one proxy per call site") {
+            val (callSites, proxies) = callSitesAndProxies(project)
+            proxies.size should be(callSites)
+        }
+
+        OPALLogger.unregister(logContext)
+    }
+
+    describe("rewriting of lambda expressions using shared proxies") {
+        implicit val logContext: LogContext = new StandardLogContext()
+        OPALLogger.register(logContext, new ConsoleOPALLogger(ansiColored = true))
+
+        val project = createProject(shareLambdaProxies = true)
+        testProject(project)
+
+        it("should share proxies between call sites with the same bootstrap arguments") {
+            val (callSites, proxies) = callSitesAndProxies(project)
+            proxies.size should be < callSites
+            // every shared proxy is created and added to the project exactly once
+            val proxyClassFiles = project.allProjectClassFiles.filter { cf =>
+                cf.fqn.matches(InvokedynamicRewriting.LambdaNameRegEx)
+            }
+            proxyClassFiles.map(_.thisType).toSet should be(proxies)
+            proxyClassFiles.size should be(proxies.size)
+        }
+
+        it("should name shared proxies independently of the order in which classes are read") {
+            def proxiesPerCallSite(project: SomeProject): Map[(String, String, Int), String] = {
+                (for {
+                    classFile <- project.allProjectClassFiles
+                    method <- classFile.methods
+                    body <- method.body.iterator
+                    factoryCall <- body.collect { case i: INVOKESTATIC => i }
+                    factoryClass = factoryCall.value.declaringClass.fqn
+                    if factoryClass.matches(InvokedynamicRewriting.LambdaNameRegEx)
+                } yield {
+                    ((classFile.fqn, method.signature.toJava, factoryCall.pc), factoryClass)
+                }).toMap
+            }
+
+            val rereadProject = createProject(shareLambdaProxies = true)
+            val sharedProxies = proxiesPerCallSite(project).values.filter { fqn =>
+                fqn.matches(InvokedynamicRewriting.SharedLambdaNameRegEx)
+            }
+            sharedProxies should not be empty
+            proxiesPerCallSite(rereadProject) should be(proxiesPerCallSite(project))
+        }
+
         OPALLogger.unregister(logContext)
     }
 }
@@ -0,0 +1,323 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+
+import java.io.DataInput
+import java.io.DataOutput
+import java.util.Arrays
+
+/**
+ * The storage of the roaring-style compressed int sets
+ * ([[org.opalj.collection.immutable.RoaringIntSet]] and
+ * [[org.opalj.collection.mutable.RoaringIntSet]]).
+ *
+ * A value is split into its upper 16 bits (the key) and its lower 16 bits; the lower bits of all
+ * values with the same key are stored in one [[RoaringContainer]]. The keys are sorted (signed);
+ * hence, the values are always iterated in ascending order.
+ *
+ * @see "Better bitmap performance with Roaring bitmaps", Samy Chambi et al.,
+ *      Software: Practice and Experience, 2016.
+ */
+private[collection] final class RoaringArray(
+        private var keys:            Array[Int],
+        private var containers:      Array[RoaringContainer],
+        private var containersCount: Int,
+        private var size0:           Int
+) {
+
+    def size: Int = size0
+
+    private[this] def indexOf(key: Int): Int = Arrays.binarySearch(keys, 0, containersCount, key)
+
+    private def insert(index: Int, key: Int, c: RoaringContainer): Unit = {
+        if (containersCount == keys.length) {
+            val newLength = Math.max(4, containersCount * 2)
+            keys = Arrays.copyOf(keys, newLength)
+            containers = Arrays.copyOf(containers, newLength)
+        }
+        System.arraycopy(keys, index, keys, index + 1, containersCount - index)
+        System.arraycopy(containers, index, containers, index + 1, containersCount - index)
+        keys(index) = key
+        containers(index) = c
+        containersCount += 1
+    }
+
+    private def delete(index: Int): Unit = {
+        System.arraycopy(keys, index + 1, keys, index, containersCount - index - 1)
+        System.arraycopy(containers, index + 1, containers, index, containersCount - index - 1)
+        containersCount -= 1
+        containers(containersCount) = null
+    }
+
+    def contains(i: Int): Boolean = {
+        val index = indexOf(i >> 16)
+        index >= 0 && containers(index).contains(i & 0xFFFF)
+    }
+
+    /** Adds the given value; returns `true` if the value was not yet contained in the set. */
+    def add(i: Int): Boolean = {
+        val low = i & 0xFFFF
+        val index = indexOf(i >> 16)
+        if (index >= 0) {
+            val c = containers(index)
+            if (c.contains(low))
+                return false;
+
+            containers(index) = c.add(low)
+        } else {
+            insert(-index - 1, i >> 16, RoaringContainer(low))
+        }
+        size0 += 1
+        true
+    }
+
+    /** Removes the given value; returns `true` if the value was contained in the set. */
+    def remove(i: Int): Boolean = {
+        val low = i & 0xFFFF
+        val index = indexOf(i >> 16)
+        if (index < 0 || !containers(index).contains(low))
+            return false;
+
+        val c = containers(index).remove(low)
+        if (c eq null) delete(index) else containers(index) = c
+        size0 -= 1
+        true
+    }
+
+    /**
+     * Returns a new array which contains the given value; the containers which are not affected
+     * are shared. If the value is already contained in this set, this set is returned.
+     */
+    def added(i: Int): RoaringArray = {
+        val low = i & 0xFFFF
+        val index = indexOf(i >> 16)
+        if (index >= 0) {
+            val c = containers(index)
+            if (c.contains(low))
+                return this;
+
+            val r = shallowCopy(containersCount)
+            r.containers(index) = c.copy().add(low)
+            r.size0 += 1
+            r
+        } else {
+            val r = shallowCopy(containersCount + 1)
+            r.insert(-index - 1, i >> 16, RoaringContainer(low))
+            r.size0 += 1
+            r
+        }
+    }
+
+    /**
+     * Returns a new array which does not contain the given value; the containers which are not
+     * affected are shared. If the value is not contained in this set, this set is returned.
+     */
+    def removed(i: Int): RoaringArray = {
+        val low = i & 0xFFFF
+        val index = indexOf(i >> 16)
+        if (index < 0 || !containers(index).contains(low))
+            return this;
+
+        val r = shallowCopy(containersCount)
+        val c = containers(index).copy().remove(low)
+        if (c eq null) r.delete(index) else r.containers(index) = c
+        r.size0 -= 1
+        r
+    }
+
+    private[this] def shallowCopy(capacity: Int): RoaringArray = {
+        new RoaringArray(
+            Arrays.copyOf(keys, Math.max(4, capacity)),
+            Arrays.copyOf(containers, Math.max(4, capacity)),
+            containersCount,
+            size0
+        )
+    }
+
+    /** A copy of this array which does not share mutable containers with this array. */
+    def copy(): RoaringArray = {
+        val r = shallowCopy(containersCount)
+        var i = 0
+        while (i < containersCount) {
+            r.containers(i) = containers(i).copy()
+            i += 1
+        }
+        r
+    }
+
+    def min: Int = (keys(0) << 16) | containers(0).minLow
+
+    def foreach[U](f: Int => U): Unit = {
+        var i = 0
+        while (i < containersCount) {
+            val high = keys(i) << 16
+            containers(i).foreachLow(low => f(high | low))
+            i += 1
+        }
+    }
+
+    def iterator: IntIterator = new IntIterator {
+        private[this] var i = 0
+        private[this] var high = 0
+        private[this] var lows: IntIterator = IntIterator.empty
+        private[this] def advance(): Unit = {
+            while (!lows.hasNext && i < containersCount) {
+                high = keys(i) << 16
+                lows = containers(i).lowsIterator
+                i += 1
+            }
+        }
+        advance()
+        override def hasNext: Boolean = lows.hasNext
+        override def next(): Int = {
+            val v = high | lows.next()
+            if (!lows.hasNext) advance()
+            v
+        }
+    }
+
+    /**
+     * Computes the union of both arrays.
+     *
+     * @param shareContainers If `false`, the result does not share mutable containers with
+     *        `that`; the containers of `this` are always reused.
+     */
+    def or(that: RoaringArray, shareContainers: Boolean): RoaringArray = {
+        val thisCount = this.containersCount
+        val thatCount = that.containersCount
+        val keys = new Array[Int](Math.max(4, thisCount + thatCount))
+        val containers = new Array[RoaringContainer](keys.length)
+        var size = 0
+        var i = 0
+        var j = 0
+        var k = 0
+        while (i < thisCount || j < thatCount) {
+            val thisKey = if (i < thisCount) this.keys(i) else Int.MaxValue
+            val thatKey = if (j < thatCount) that.keys(j) else Int.MaxValue
+            val c =
+                if (j == thatCount || (i < thisCount && thisKey < thatKey)) {
+                    keys(k) = thisKey
+                    i += 1
+                    this.containers(i - 1)
+                } else if (i == thisCount || thatKey < thisKey) {
+                    keys(k) = thatKey
+                    j += 1
+                    val c = that.containers(j - 1)
+                    if (shareContainers) c else c.copy()
+                } else {
+                    keys(k) = thisKey
+                    i += 1
+                    j += 1
+                    RoaringContainer.or(this.containers(i - 1), that.containers(j - 1))
+                }
+            containers(k) = c
+            size += c.cardinality
+            k += 1
+        }
+        new RoaringArray(keys, containers, k, size)
+    }
+
+    /** Computes the intersection of both arrays; the result does not share any containers. */
+    def and(that: RoaringArray): RoaringArray = {
+        val thisCount = this.containersCount
+        val thatCount = that.containersCount
+        val keys = new Array[Int](Math.max(4, Math.min(thisCount, thatCount)))
+        val containers = new Array[RoaringContainer](keys.length)
+        var size = 0
+        var i = 0
+        var j = 0
+        var k = 0
+        while (i < thisCount && j < thatCount) {
+            val thisKey = this.keys(i)
+            val thatKey = that.keys(j)
+            if (thisKey < thatKey) {
+                i += 1
+            } else if (thatKey < thisKey) {
+                j += 1
+            } else {
+                val c = RoaringContainer.and(this.containers(i), that.containers(j))
+                if (c ne null) {
+                    // the result of and is never one of the given containers
+                    keys(k) = thisKey
+                    containers(k) = c
+                    size += c.cardinality
+                    k += 1
+                }
+                i += 1
+                j += 1
+            }
+        }
+        new RoaringArray(keys, containers, k, size)
+    }
+
+    /**
+     * Replaces each container by the representation requiring the least amount of memory;
+     * i.e., ranges of consecutive values are stored as runs.
+     */
+    def runOptimize(): Unit = {
+        var i = 0
+        while (i < containersCount) {
+            containers(i) = containers(i).runOptimized()
+            i += 1
+        }
+    }
+
+    def sameValues(that: RoaringArray): Boolean = {
+        if (this.size0 != that.size0 || this.containersCount != that.containersCount)
+            return false;
+
+        var i = 0
+        while (i < containersCount) {
+            if (this.keys(i) != that.keys(i) ||
+                this.containers(i).cardinality != that.containers(i).cardinality ||
+                !this.containers(i).lowsIterator.sameValues(that.containers(i).lowsIterator))
+                return false;
+            i += 1
+        }
+        true
+    }
+
+    /** The hash code of the sorted values; compatible with `java.util.Arrays.hashCode`. */
+    def valuesHashCode: Int = {
+        var hashCode = 1
+        foreach { v => hashCode = 31 * hashCode + v }
+        hashCode
+    }
+
+    /**
+     * Writes the values using a compact binary representation which can be read using
+     * [[RoaringArray.read]].
+     */
+    def write(out: DataOutput): Unit = {
+        out.writeInt(containersCount)
+        var i = 0
+        while (i < containersCount) {
+            out.writeShort(keys(i))
+            containers(i).write(out)
+            i += 1
+        }
+    }
+}
+
+private[collection] object RoaringArray {
+
+    def empty: RoaringArray = {
+        new RoaringArray(new Array[Int](4), new Array[RoaringContainer](4), 0, 0)
+    }
+
+    def read(in: DataInput): RoaringArray = {
+        val containersCount = in.readInt()
+        val keys = new Array[Int](Math.max(4, containersCount))
+        val containers = new Array[RoaringContainer](keys.length)
+        var size = 0
+        var i = 0
+        while (i < containersCount) {
+            keys(i) = in.readShort().toInt // the keys are signed
+            val c = RoaringContainer.read(in)
+            containers(i) = c
+            size += c.cardinality
+            i += 1
+        }
+        new RoaringArray(keys, containers, containersCount, size)
+    }
+}
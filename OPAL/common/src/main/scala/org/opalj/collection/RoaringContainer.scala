@@ -0,0 +1,530 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+
+import java.io.DataInput
+import java.io.DataOutput
+import java.util.Arrays
+import java.lang.Long.bitCount
+import java.lang.Long.numberOfTrailingZeros
+
+/**
+ * Stores the lower 16 bits of the values of a [[RoaringArray]] which share the same upper 16 bits.
+ *
+ * The representation depends on the number of values and how they are clustered:
+ *  - an [[ArrayContainer]] stores at most 4096 values in a sorted array,
+ *  - a [[BitmapContainer]] stores more than 4096 values using 1024 longs and
+ *  - a [[RunContainer]] stores the values as ranges; run containers are only created when
+ *    explicitly requested (see `runOptimized`) and are never mutated.
+ *
+ * Array and bitmap containers are mutated in place; hence, containers which are shared must be
+ * copied before they are updated.
+ */
+private[collection] sealed abstract class RoaringContainer {
+
+    def cardinality: Int
+
+    def contains(low: Int): Boolean
+
+    /**
+     * Adds the given value which must not be in this container.
+     *
+     * @return The container which contains the value; may be this container.
+     */
+    def add(low: Int): RoaringContainer
+
+    /**
+     * Removes the given value which must be in this container.
+     *
+     * @return The container which does not contain the value or `null` if it would be empty.
+     */
+    def remove(low: Int): RoaringContainer
+
+    /** A copy of this container which can be mutated without affecting this container. */
+    def copy(): RoaringContainer
+
+    def minLow: Int
+
+    def foreachLow[U](f: Int => U): Unit
+
+    def lowsIterator: IntIterator
+
+    /** The number of ranges of consecutive values. */
+    def runsCount: Int
+
+    def toBitmapContainer: BitmapContainer
+
+    def write(out: DataOutput): Unit
+
+    /** The container which requires the least amount of memory; may be this container. */
+    final def runOptimized(): RoaringContainer = {
+        val runBytes = 2 + 4 * runsCount
+        val cardinality = this.cardinality
+        val bestNonRunBytes =
+            if (cardinality <= RoaringContainer.MaxArrayContainerSize) 2 * cardinality
+            else RoaringContainer.BitmapContainerBytes
+        this match {
+            case _: RunContainer =>
+                if (runBytes <= bestNonRunBytes) this else RoaringContainer.arrayOrBitmap(this)
+            case _ =>
+                if (runBytes < bestNonRunBytes) RunContainer(this) else this
+        }
+    }
+}
+
+private[collection] object RoaringContainer {
+
+    final val MaxArrayContainerSize = 4096
+    final val BitmapContainerBytes = 8192
+
+    final val ArrayContainerKind = 0
+    final val BitmapContainerKind = 1
+    final val RunContainerKind = 2
+
+    def apply(low: Int): ArrayContainer = {
+        val values = new Array[Char](4)
+        values(0) = low.toChar
+        new ArrayContainer(values, 1)
+    }
+
+    /** A (new) array or bitmap container with the values of the given container. */
+    def arrayOrBitmap(c: RoaringContainer): RoaringContainer = {
+        if (c.cardinality <= MaxArrayContainerSize) {
+            val values = new Array[Char](c.cardinality)
+            var i = 0
+            c.foreachLow { low => values(i) = low.toChar; i += 1 }
+            new ArrayContainer(values, values.length)
+        } else {
+            c.toBitmapContainer
+        }
+    }
+
+    /** Computes the union of both containers; the result is never one of the given containers. */
+    def or(c1: RoaringContainer, c2: RoaringContainer): RoaringContainer = {
+        (c1, c2) match {
+            case (c1: ArrayContainer, c2: ArrayContainer) =>
+                c1.or(c2)
+
+            case (c1: BitmapContainer, c2: BitmapContainer) =>
+                c1.or(c2)
+
+            case (c1: BitmapContainer, _) =>
+                val r = c1.copy()
+                c2.foreachLow { low => if (!r.contains(low)) r.add(low) }
+                r
+
+            case (_, _: BitmapContainer) =>
+                or(c2, c1)
+
+            case _ =>
+                // at least one container is a run container
+                val r = c1.toBitmapContainer
+                c2.foreachLow { low => if (!r.contains(low)) r.add(low) }
+                r.shrunk.runOptimized()
+        }
+    }
+
+    /** Computes the intersection of both containers; `null` if the intersection is empty. */
+    def and(c1: RoaringContainer, c2: RoaringContainer): RoaringContainer = {
+        (c1, c2) match {
+            case (c1: ArrayContainer, _) => c1.filter(c2.contains)
+            case (_, c2: ArrayContainer) => c2.filter(c1.contains)
+            case _                       => c1.toBitmapContainer.and(c2.toBitmapContainer)
+        }
+    }
+
+    def read(in: DataInput): RoaringContainer = {
+        in.readByte() match {
+            case ArrayContainerKind =>
+                val cardinality = in.readUnsignedShort()
+                val values = new Array[Char](cardinality)
+                var i = 0
+                while (i < cardinality) {
+                    values(i) = in.readChar()
+                    i += 1
+                }
+                new ArrayContainer(values, cardinality)
+
+            case BitmapContainerKind =>
+                val words = new Array[Long](1024)
+                var cardinality = 0
+                var i = 0
+                while (i < 1024) {
+                    val word = in.readLong()
+                    words(i) = word
+                    cardinality += bitCount(word)
+                    i += 1
+                }
+                new BitmapContainer(words, cardinality)
+
+            case RunContainerKind =>
+                val runsCount = in.readUnsignedShort() + 1
+                val runs = new Array[Char](runsCount * 2)
+                var cardinality = 0
+                var i = 0
+                while (i < runs.length) {
+                    runs(i) = in.readChar()
+                    if ((i & 1) == 1) cardinality += runs(i) + 1
+                    i += 1
+                }
+                new RunContainer(runs, cardinality)
+
+            case kind =>
+                throw new IllegalArgumentException(s"unknown container kind: $kind")
+        }
+    }
+}
+
+/** Stores the values in a sorted array; `values` may have unused entries at its end. */
+private[collection] final class ArrayContainer(
+        private[collection] var values: Array[Char],
+        var cardinality:                Int
+) extends RoaringContainer {
+
+    private[this] def indexOf(low: Int): Int = Arrays.binarySearch(values, 0, cardinality, low.toChar)
+
+    override def contains(low: Int): Boolean = indexOf(low) >= 0
+
+    override def add(low: Int): RoaringContainer = {
+        val cardinality = this.cardinality
+        if (cardinality == RoaringContainer.MaxArrayContainerSize)
+            return toBitmapContainer.add(low);
+
+        val index = -indexOf(low) - 1
+        if (cardinality == this.values.length) {
+            val newLength = Math.min(RoaringContainer.MaxArrayContainerSize, cardinality * 2)
+            this.values = Arrays.copyOf(this.values, Math.max(4, newLength))
+        }
+        val values = this.values
+        System.arraycopy(values, index, values, index + 1, cardinality - index)
+        values(index) = low.toChar
+        this.cardinality = cardinality + 1
+        this
+    }
+
+    override def remove(low: Int): RoaringContainer = {
+        if (cardinality == 1)
+            return null;
+
+        val index = indexOf(low)
+        System.arraycopy(values, index + 1, values, index, cardinality - index - 1)
+        cardinality -= 1
+        this
+    }
+
+    override def copy(): ArrayContainer = new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality)
+
+    override def minLow: Int = values(0).toInt
+
+    override def foreachLow[U](f: Int => U): Unit = {
+        val values = this.values
+        val cardinality = this.cardinality
+        var i = 0
+        while (i < cardinality) {
+            f(values(i).toInt)
+            i += 1
+        }
+    }
+
+    override def lowsIterator: IntIterator = new IntIterator {
+        private[this] var i = 0
+        override def hasNext: Boolean = i < cardinality
+        override def next(): Int = { val low = values(i).toInt; i += 1; low }
+    }
+
+    override def runsCount: Int = {
+        val values = this.values
+        val cardinality = this.cardinality
+        var runsCount = 1
+        var i = 1
+        while (i < cardinality) {
+            if (values(i) != values(i - 1) + 1) runsCount += 1
+            i += 1
+        }
+        runsCount
+    }
+
+    override def toBitmapContainer: BitmapContainer = {
+        val words = new Array[Long](1024)
+        foreachLow { low => words(low >>> 6) |= 1L << low }
+        new BitmapContainer(words, cardinality)
+    }
+
+    def or(that: ArrayContainer): RoaringContainer = {
+        val thisValues = this.values
+        val thisCardinality = this.cardinality
+        val thatValues = that.values
+        val thatCardinality = that.cardinality
+        val values = new Array[Char](thisCardinality + thatCardinality)
+        var i = 0
+        var j = 0
+        var k = 0
+        while (i < thisCardinality && j < thatCardinality) {
+            val thisValue = thisValues(i)
+            val thatValue = thatValues(j)
+            if (thisValue < thatValue) {
+                values(k) = thisValue
+                i += 1
+            } else if (thisValue > thatValue) {
+                values(k) = thatValue
+                j += 1
+            } else {
+                values(k) = thisValue
+                i += 1
+                j += 1
+            }
+            k += 1
+        }
+        while (i < thisCardinality) { values(k) = thisValues(i); i += 1; k += 1 }
+        while (j < thatCardinality) { values(k) = thatValues(j); j += 1; k += 1 }
+        val r = new ArrayContainer(values, k)
+        if (k > RoaringContainer.MaxArrayContainerSize) r.toBitmapContainer else r
+    }
+
+    def filter(p: Int => Boolean): ArrayContainer = {
+        val values = new Array[Char](cardinality)
+        var newCardinality = 0
+        foreachLow { low =>
+            if (p(low)) {
+                values(newCardinality) = low.toChar
+                newCardinality += 1
+            }
+        }
+        if (newCardinality == 0) null else new ArrayContainer(values, newCardinality)
+    }
+
+    override def write(out: DataOutput): Unit = {
+        out.writeByte(RoaringContainer.ArrayContainerKind)
+        // the cardinality is at most 4096 and therefore fits into an unsigned short
+        out.writeShort(cardinality)
+        foreachLow(out.writeChar)
+    }
+}
+
+/** Stores the values using a bitmap of 2^16 bits. */
+private[collection] final class BitmapContainer(
+        private[collection] val words: Array[Long],
+        var cardinality:               Int
+) extends RoaringContainer {
+
+    override def contains(low: Int): Boolean = (words(low >>> 6) & (1L << low)) != 0L
+
+    override def add(low: Int): RoaringContainer = {
+        words(low >>> 6) |= 1L << low
+        cardinality += 1
+        this
+    }
+
+    override def remove(low: Int): RoaringContainer = {
+        words(low >>> 6) &= ~(1L << low)
+        cardinality -= 1
+        shrunk
+    }
+
+    /** This container or – if it is sufficiently sparse – an equivalent array container. */
+    def shrunk: RoaringContainer = {
+        if (cardinality <= RoaringContainer.MaxArrayContainerSize)
+            RoaringContainer.arrayOrBitmap(this)
+        else
+            this
+    }
+
+    override def copy(): BitmapContainer = new BitmapContainer(words.clone(), cardinality)
+
+    override def minLow: Int = {
+        var i = 0
+        while (words(i) == 0L) i += 1
+        i * 64 + numberOfTrailingZeros(words(i))
+    }
+
+    override def foreachLow[U](f: Int => U): Unit = {
+        val words = this.words
+        var i = 0
+        while (i < 1024) {
+            var word = words(i)
+            while (word != 0L) {
+                f(i * 64 + numberOfTrailingZeros(word))
+                word &= word - 1L
+            }
+            i += 1
+        }
+    }
+
+    override def lowsIterator: IntIterator = new IntIterator {
+        private[this] var i = -1
+        private[this] var word = 0L
+        private[this] def advance(): Unit = {
+            while (word == 0L && i < 1023) {
+                i += 1
+                word = words(i)
+            }
+        }
+        advance()
+        override def hasNext: Boolean = word != 0L
+        override def next(): Int = {
+            val low = i * 64 + numberOfTrailingZeros(word)
+            word &= word - 1L
+            advance()
+            low
+        }
+    }
+
+    override def runsCount: Int = {
+        val words = this.words
+        var runsCount = 0
+        var previousWord = 0L
+        var i = 0
+        while (i < 1024) {
+            val word = words(i)
+            // a run starts at each set bit whose preceding bit is not set
+            runsCount += bitCount(word & ~((word << 1) | (previousWord >>> 63)))
+            previousWord = word
+            i += 1
+        }
+        runsCount
+    }
+
+    override def toBitmapContainer: BitmapContainer = copy()
+
+    def or(that: BitmapContainer): BitmapContainer = {
+        val words = new Array[Long](1024)
+        var cardinality = 0
+        var i = 0
+        while (i < 1024) {
+            val word = this.words(i) | that.words(i)
+            words(i) = word
+            cardinality += bitCount(word)
+            i += 1
+        }
+        new BitmapContainer(words, cardinality)
+    }
+
+    def and(that: BitmapContainer): RoaringContainer = {
+        val words = new Array[Long](1024)
+        var cardinality = 0
+        var i = 0
+        while (i < 1024) {
+            val word = this.words(i) & that.words(i)
+            words(i) = word
+            cardinality += bitCount(word)
+            i += 1
+        }
+        if (cardinality == 0) null else new BitmapContainer(words, cardinality).shrunk
+    }
+
+    override def write(out: DataOutput): Unit = {
+        out.writeByte(RoaringContainer.BitmapContainerKind)
+        var i = 0
+        while (i < 1024) {
+            out.writeLong(words(i))
+            i += 1
+        }
+    }
+}
+
+/**
+ * Stores the values as sorted, non-adjacent ranges; `runs(2*i)` is the first value of the i-th
+ * range and `runs(2*i+1)` is the length of the range minus one.
+ */
+private[collection] final class RunContainer(
+        private[this] val runs:   Array[Char],
+        override val cardinality: Int
+) extends RoaringContainer {
+
+    override def runsCount: Int = runs.length / 2
+
+    override def contains(low: Int): Boolean = {
+        // binary search for the last range which starts at or before low
+        var min = 0
+        var max = runsCount - 1
+        while (min <= max) {
+            val mid = (min + max) >>> 1
+            val start = runs(2 * mid)
+            if (start <= low) {
+                if (low <= start + runs(2 * mid + 1))
+                    return true;
+                min = mid + 1
+            } else {
+                max = mid - 1
+            }
+        }
+        false
+    }
+
+    // run containers are never mutated
+    override def add(low: Int): RoaringContainer = RoaringContainer.arrayOrBitmap(this).add(low)
+
+    override def remove(low: Int): RoaringContainer = {
+        if (cardinality == 1) null else RoaringContainer.arrayOrBitmap(this).remove(low)
+    }
+
+    override def copy(): RoaringContainer = this
+
+    override def minLow: Int = runs(0).toInt
+
+    override def foreachLow[U](f: Int => U): Unit = {
+        val runs = this.runs
+        var i = 0
+        while (i < runs.length) {
+            var low = runs(i).toInt
+            val end = low + runs(i + 1)
+            while (low <= end) {
+                f(low)
+                low += 1
+            }
+            i += 2
+        }
+    }
+
+    override def lowsIterator: IntIterator = new IntIterator {
+        private[this] var i = 0
+        private[this] var low = runs(0).toInt
+        override def hasNext: Boolean = i < runs.length
+        override def next(): Int = {
+            val low = this.low
+            if (low == runs(i) + runs(i + 1)) {
+                i += 2
+                if (i < runs.length) this.low = runs(i).toInt
+            } else {
+                this.low = low + 1
+            }
+            low
+        }
+    }
+
+    override def toBitmapContainer: BitmapContainer = {
+        val words = new Array[Long](1024)
+        foreachLow { low => words(low >>> 6) |= 1L << low }
+        new BitmapContainer(words, cardinality)
+    }
+
+    override def write(out: DataOutput): Unit = {
+        out.writeByte(RoaringContainer.RunContainerKind)
+        // there are at most 2^15 runs
+        out.writeShort(runsCount - 1)
+        var i = 0
+        while (i < runs.length) {
+            out.writeChar(runs(i).toInt)
+            i += 1
+        }
+    }
+}
+
+private[collection] object RunContainer {
+
+    def apply(c: RoaringContainer): RunContainer = {
+        val runs = new Array[Char](c.runsCount * 2)
+        var i = -2
+        var previousLow = -2
+        c.foreachLow { low =>
+            if (low == previousLow + 1) {
+                runs(i + 1) = (runs(i + 1) + 1).toChar
+            } else {
+                i += 2
+                runs(i) = low.toChar
+            }
+            previousLow = low
+        }
+        new RunContainer(runs, c.cardinality)
+    }
+}
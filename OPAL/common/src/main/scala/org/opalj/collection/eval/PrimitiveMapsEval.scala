@@ -0,0 +1,100 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package eval
+
+import org.opalj.util.PerformanceEvaluation.time
+import org.opalj.collection.mutable.IntRefMap
+import org.opalj.collection.mutable.RefIntMap
+
+/**
+ * A small evaluation of the performance of OPAL's primitive-specialized hash maps compared to
+ * the maps typically used by OPAL for int keys/values. Half of the keys are consecutive ids and
+ * the other half are arbitrary int values.
+ *
+ * <pre>
+ * Int -> Ref: query maps...
+ * IntRefMap.apply: 0.5828 s
+ * immutable IntMap.apply: 3.5786 s
+ * mutable HashMap.apply: 0.8041 s
+ * fastutil Int2ObjectOpenHashMap.get: 0.3226 s
+ * </pre>
+ */
+object PrimitiveMapsEval extends App {
+
+    util.gc();
+
+    val Repetitions = 20
+    val KeysCount = 500000
+
+    val random = new java.util.Random(42)
+    val keys: Array[Int] = Array.tabulate(KeysCount) { i => if (i % 2 == 0) i else random.nextInt() }
+    val refKeys: Array[String] = keys.map(_.toString)
+    refKeys.foreach(_.hashCode) // <- they are lazily initialized!
+    val theObject = new Object()
+    var t = 0
+
+    println("Int -> Ref: fill maps...")
+
+    val intRefMap = IntRefMap.empty[Object]
+    time {
+        keys.foreach { k => intRefMap(k) = theObject }
+    } { t => println("IntRefMap.put: "+t.toSeconds) }
+
+    var intMap = scala.collection.immutable.IntMap.empty[Object]
+    time {
+        keys.foreach { k => intMap = intMap.updated(k, theObject) }
+    } { t => println("immutable IntMap.updated: "+t.toSeconds) }
+
+    val hashMap = scala.collection.mutable.HashMap.empty[Int, Object]
+    time {
+        keys.foreach { k => hashMap(k) = theObject }
+    } { t => println("mutable HashMap.update: "+t.toSeconds) }
+
+    val int2ObjectMap = new it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap[Object]()
+    time {
+        keys.foreach { k => int2ObjectMap.put(k, theObject) }
+    } { t => println("fastutil Int2ObjectOpenHashMap.put: "+t.toSeconds) }
+
+    println("\nInt -> Ref: query maps...")
+
+    time {
+        (1 to Repetitions).foreach { _ => keys.foreach { k => t += intRefMap(k).hashCode } }
+    } { t => println("IntRefMap.apply: "+t.toSeconds) }
+
+    time {
+        (1 to Repetitions).foreach { _ => keys.foreach { k => t += intMap(k).hashCode } }
+    } { t => println("immutable IntMap.apply: "+t.toSeconds) }
+
+    time {
+        (1 to Repetitions).foreach { _ => keys.foreach { k => t += hashMap(k).hashCode } }
+    } { t => println("mutable HashMap.apply: "+t.toSeconds) }
+
+    time {
+        (1 to Repetitions).foreach { _ => keys.foreach { k => t += int2ObjectMap.get(k).hashCode } }
+    } { t => println("fastutil Int2ObjectOpenHashMap.get: "+t.toSeconds) }
+
+    println("\nRef -> Int: fill maps...")
+
+    val refIntMap = RefIntMap.empty[String]
+    time {
+        refKeys.foreach { k => refIntMap(k) = k.length }
+    } { t => println("RefIntMap.update: "+t.toSeconds) }
+
+    val anyRefMap = scala.collection.mutable.AnyRefMap.empty[String, Int]
+    time {
+        refKeys.foreach { k => anyRefMap(k) = k.length }
+    } { t => println("mutable AnyRefMap.update: "+t.toSeconds) }
+
+    println("\nRef -> Int: query maps...")
+
+    time {
+        (1 to Repetitions).foreach { _ => refKeys.foreach { k => t += refIntMap(k) } }
+    } { t => println("RefIntMap.apply: "+t.toSeconds) }
+
+    time {
+        (1 to Repetitions).foreach { _ => refKeys.foreach { k => t += anyRefMap(k) } }
+    } { t => println("mutable AnyRefMap.apply: "+t.toSeconds) }
+
+    println(t)
+}
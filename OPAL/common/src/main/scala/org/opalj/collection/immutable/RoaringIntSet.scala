@@ -0,0 +1,137 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package immutable
+
+import java.io.DataInput
+import java.io.DataOutput
+
+/**
+ * An immutable compressed set of int values which is well suited for large sets of clustered
+ * values, e.g., the ids of the reachable methods or of the allocation sites.
+ *
+ * The values are partitioned w.r.t. their upper 16 bits and the lower 16 bits of each partition
+ * are stored using a sorted array (sparse partitions), a bitmap (dense partitions) or a list of
+ * ranges (see [[runOptimized]]). Hence, neither dense ranges of values nor sparse sets of large
+ * values require significantly more memory than necessary. The values are always iterated in
+ * ascending order.
+ *
+ * Adding or removing a single value copies the affected partition; to create large sets use
+ * [[org.opalj.collection.mutable.RoaringIntSet]] and the bulk operations `|` and `&`.
+ */
+final class RoaringIntSet private[collection] (
+        private[collection] val values: RoaringArray
+) extends IntSet[RoaringIntSet] with IntCollectionWithStableOrdering[RoaringIntSet] {
+
+    override def isEmpty: Boolean = values.size == 0
+    override def isSingletonSet: Boolean = values.size == 1
+    override def hasMultipleElements: Boolean = values.size > 1
+    override def size: Int = values.size
+
+    override def foreach[U](f: Int => U): Unit = values.foreach(f)
+
+    override def withFilter(p: Int => Boolean): RoaringIntSet = {
+        val newValues = RoaringArray.empty
+        values.foreach { v => if (p(v)) newValues.add(v) }
+        if (newValues.size == size) this else new RoaringIntSet(newValues)
+    }
+
+    override def map(f: Int => Int): RoaringIntSet = {
+        val newValues = RoaringArray.empty
+        values.foreach { v => newValues.add(f(v)) }
+        new RoaringIntSet(newValues)
+    }
+
+    override def map(map: Array[Int]): RoaringIntSet = this.map(v => map(v))
+
+    override def flatMap(f: Int => RoaringIntSet): RoaringIntSet = {
+        foldLeft(RoaringIntSet.empty)(_ | f(_))
+    }
+
+    override def foldLeft[B](z: B)(f: (B, Int) => B): B = {
+        var r = z
+        values.foreach { v => r = f(r, v) }
+        r
+    }
+
+    /** The smallest value. */
+    override def head: Int = {
+        if (isEmpty) throw new NoSuchElementException("head of empty set")
+        values.min
+    }
+
+    override def contains(value: Int): Boolean = values.contains(value)
+
+    override def exists(p: Int => Boolean): Boolean = iterator.exists(p)
+
+    override def forall(p: Int => Boolean): Boolean = iterator.forall(p)
+
+    override def -(i: Int): RoaringIntSet = {
+        val newValues = values.removed(i)
+        if (newValues eq values) this else new RoaringIntSet(newValues)
+    }
+
+    override def +(i: Int): RoaringIntSet = {
+        val newValues = values.added(i)
+        if (newValues eq values) this else new RoaringIntSet(newValues)
+    }
+
+    /** The union of both sets; the partitions which are only contained in one set are shared. */
+    def |(that: RoaringIntSet): RoaringIntSet = {
+        if (that.isEmpty) this
+        else if (this.isEmpty) that
+        else new RoaringIntSet(this.values.or(that.values, shareContainers = true))
+    }
+
+    /** The intersection of both sets. */
+    def &(that: RoaringIntSet): RoaringIntSet = {
+        if (this.isEmpty) this
+        else if (that.isEmpty) that
+        else new RoaringIntSet(this.values.and(that.values))
+    }
+
+    /** An equal set where ranges of consecutive values are stored compactly. */
+    def runOptimized: RoaringIntSet = {
+        val newValues = values.copy()
+        newValues.runOptimize()
+        new RoaringIntSet(newValues)
+    }
+
+    override def iterator: IntIterator = values.iterator
+
+    override def toList: List[Int] = {
+        val b = List.newBuilder[Int]
+        values.foreach(b += _)
+        b.result()
+    }
+
+    /** Writes this set using a compact binary format (see [[RoaringIntSet.read]]). */
+    def write(out: DataOutput): Unit = values.write(out)
+
+    override def equals(other: Any): Boolean = {
+        other match {
+            case that: RoaringIntSet => (this eq that) || this.values.sameValues(that.values)
+            case _                   => false
+        }
+    }
+
+    override def hashCode: Int = values.valuesHashCode // compatible to Arrays.hashCode
+
+    override def toString: String = mkString("RoaringIntSet(", ",", ")")
+}
+
+object RoaringIntSet {
+
+    final val empty: RoaringIntSet = new RoaringIntSet(RoaringArray.empty)
+
+    def apply(is: Int*): RoaringIntSet = apply(is.iterator)
+
+    def apply(is: IterableOnce[Int]): RoaringIntSet = {
+        val values = RoaringArray.empty
+        is.iterator.foreach(values.add)
+        new RoaringIntSet(values)
+    }
+
+    /** Reads a set written using [[RoaringIntSet.write]]. */
+    def read(in: DataInput): RoaringIntSet = new RoaringIntSet(RoaringArray.read(in))
+}
@@ -0,0 +1,108 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package mutable
+
+/**
+ * A thread-safe hash map with `Int` keys and non-`null` values; the keys are not boxed.
+ *
+ * The map is split into a fixed number of segments; each segment is an [[IntRefMap]] which is
+ * guarded by its own lock. The segment of a key is determined using the upper bits of the key's
+ * hash value while the segment itself uses the lower bits; hence, threads which access different
+ * keys rarely contend.
+ *
+ * @note `null` values are not permitted; `apply` returns `null` if no value is associated with
+ *       a key.
+ */
+final class ConcurrentIntRefMap[V >: Null <: AnyRef] private (
+        private[this] val segments: Array[IntRefMap[V]]
+) {
+
+    private[this] val segmentShift = 32 - Integer.numberOfTrailingZeros(segments.length)
+
+    @inline private[this] def segment(key: Int): IntRefMap[V] = {
+        if (segments.length == 1) segments(0)
+        else segments(IntRefMap.hash(key) >>> segmentShift)
+    }
+
+    /** Returns the value associated with the given key or `null`. */
+    def apply(key: Int): V = {
+        val s = segment(key)
+        s.synchronized { s(key) }
+    }
+
+    def get(key: Int): Option[V] = Option(apply(key))
+
+    def contains(key: Int): Boolean = apply(key) ne null
+
+    /** @return The value that was previously associated with the key or `null`. */
+    def put(key: Int, value: V): V = {
+        val s = segment(key)
+        s.synchronized { s.put(key, value) }
+    }
+
+    def update(key: Int, value: V): Unit = put(key, value)
+
+    /**
+     * Associates the given value with the given key if no value is associated with the key yet.
+     *
+     * @return The value that was previously associated with the key or `null`.
+     */
+    def putIfAbsent(key: Int, value: V): V = {
+        val s = segment(key)
+        s.synchronized {
+            val oldValue = s(key)
+            if (oldValue eq null) s.put(key, value)
+            oldValue
+        }
+    }
+
+    /**
+     * Returns the value associated with the given key; if there is none, the value is computed
+     * and stored atomically. Hence, `f` must not access this map.
+     */
+    def getOrElseUpdate(key: Int, f: => V): V = {
+        val s = segment(key)
+        s.synchronized { s.getOrElseUpdate(key, f) }
+    }
+
+    /** @return The removed value or `null` if no value was associated with the key. */
+    def remove(key: Int): V = {
+        val s = segment(key)
+        s.synchronized { s.remove(key) }
+    }
+
+    /** The number of entries; concurrent updates may or may not be reflected. */
+    def size: Int = segments.foldLeft(0) { (size, s) => size + s.synchronized { s.size } }
+
+    def isEmpty: Boolean = size == 0
+
+    /**
+     * Iterates over all entries; each segment is locked while its entries are processed. Hence,
+     * `f` must not access this map.
+     */
+    def foreach[U](f: (Int, V) => U): Unit = segments foreach { s => s.synchronized { s.foreach(f) } }
+
+    override def toString: String = {
+        val s = new StringBuilder("ConcurrentIntRefMap(")
+        var first = true
+        foreach { (k, v) =>
+            if (first) first = false else s.append(", ")
+            s.append(k).append(" -> ").append(v)
+        }
+        s.append(")").toString
+    }
+}
+
+object ConcurrentIntRefMap {
+
+    def apply[V >: Null <: AnyRef](
+        expectedSize:     Int = 16,
+        concurrencyLevel: Int = org.opalj.concurrent.NumberOfThreadsForCPUBoundTasks
+    ): ConcurrentIntRefMap[V] = {
+        var segmentsCount = 1
+        while (segmentsCount < concurrencyLevel * 4 && segmentsCount < (1 << 16)) segmentsCount *= 2
+        val segmentSize = Math.max(8, expectedSize / segmentsCount)
+        new ConcurrentIntRefMap(Array.fill(segmentsCount)(IntRefMap[V](segmentSize)))
+    }
+}
@@ -0,0 +1,171 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package mutable
+
+import java.util.Arrays
+
+/**
+ * A hash set of `Int` values; the values are not boxed.
+ *
+ * The set uses open addressing with linear probing (see [[IntRefMap]] for further details);
+ * empty slots are marked using the value `0`, which – if it is in the set – is tracked
+ * separately.
+ *
+ * @note This data structure is not thread safe.
+ */
+final class IntHashSet private (private[this] var values: Array[Int]) {
+
+    private[this] var size0 = 0
+    private[this] var mask = values.length - 1
+    private[this] var containsZero = false
+
+    def size: Int = if (containsZero) size0 + 1 else size0
+    def isEmpty: Boolean = size == 0
+    def nonEmpty: Boolean = size > 0
+
+    private[this] def indexOf(value: Int): Int = {
+        val values = this.values
+        val mask = this.mask
+        var i = IntRefMap.hash(value) & mask
+        var v = values(i)
+        while (v != 0) {
+            if (v == value)
+                return i;
+            i = (i + 1) & mask
+            v = values(i)
+        }
+        -i - 1
+    }
+
+    def contains(value: Int): Boolean = {
+        if (value == 0) containsZero else indexOf(value) >= 0
+    }
+
+    /** Adds the given value; returns `true` if the value was not yet in the set. */
+    def add(value: Int): Boolean = {
+        if (value == 0) {
+            if (containsZero)
+                return false;
+            containsZero = true
+            return true;
+        }
+
+        val index = indexOf(value)
+        if (index >= 0)
+            return false;
+
+        values(-index - 1) = value
+        size0 += 1
+        if (size0 > IntRefMap.maxSize(values.length)) rehash(values.length * 2)
+        true
+    }
+
+    def +=(value: Int): this.type = { add(value); this }
+
+    private[this] def rehash(newCapacity: Int): Unit = {
+        val oldValues = this.values
+        val values = new Array[Int](newCapacity)
+        val mask = newCapacity - 1
+        var j = 0
+        while (j < oldValues.length) {
+            val value = oldValues(j)
+            if (value != 0) {
+                var i = IntRefMap.hash(value) & mask
+                while (values(i) != 0) i = (i + 1) & mask
+                values(i) = value
+            }
+            j += 1
+        }
+        this.values = values
+        this.mask = mask
+    }
+
+    /** Removes the given value; returns `true` if the value was in the set. */
+    def remove(value: Int): Boolean = {
+        if (value == 0) {
+            val containedZero = containsZero
+            containsZero = false
+            return containedZero;
+        }
+
+        val index = indexOf(value)
+        if (index < 0)
+            return false;
+
+        val values = this.values
+        val mask = this.mask
+        // move the subsequent values of the probing sequence backwards, if necessary
+        var free = index
+        var i = (index + 1) & mask
+        var v = values(i)
+        while (v != 0) {
+            val home = IntRefMap.hash(v) & mask
+            // the value can be moved if its home slot is not cyclically in (free, i]
+            val canBeMoved = if (free <= i) free >= home || home > i else free >= home && home > i
+            if (canBeMoved) {
+                values(free) = v
+                free = i
+            }
+            i = (i + 1) & mask
+            v = values(i)
+        }
+        values(free) = 0
+        size0 -= 1
+        true
+    }
+
+    def -=(value: Int): this.type = { remove(value); this }
+
+    def clear(): Unit = {
+        Arrays.fill(values, 0)
+        size0 = 0
+        containsZero = false
+    }
+
+    def foreach[U](f: Int => U): Unit = {
+        if (containsZero) f(0)
+        val values = this.values
+        var i = 0
+        while (i < values.length) {
+            val value = values(i)
+            if (value != 0) f(value)
+            i += 1
+        }
+    }
+
+    /** Iterates over the values; the set must not be changed while iterating. */
+    def iterator: IntIterator = new IntIterator {
+        private[this] var returnZero = containsZero
+        private[this] var i = nextIndex(0)
+        override def hasNext: Boolean = returnZero || i < values.length
+        override def next(): Int = {
+            if (returnZero) {
+                returnZero = false
+                0
+            } else {
+                val value = values(i)
+                i = nextIndex(i + 1)
+                value
+            }
+        }
+    }
+
+    private[this] def nextIndex(from: Int): Int = {
+        val values = this.values
+        var i = from
+        while (i < values.length && values(i) == 0) i += 1
+        i
+    }
+
+    override def toString: String = iterator.mkString("IntHashSet(", ", ", ")")
+}
+
+object IntHashSet {
+
+    def empty: IntHashSet = apply(8)
+
+    def apply(expectedSize: Int): IntHashSet = {
+        new IntHashSet(new Array[Int](IntRefMap.capacity(expectedSize)))
+    }
+}
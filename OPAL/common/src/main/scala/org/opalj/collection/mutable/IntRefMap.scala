@@ -0,0 +1,245 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package mutable
+
+import java.util.Arrays
+
+import scala.collection.AbstractIterator
+
+/**
+ * A hash map with `Int` keys and non-`null` values; the keys are not boxed.
+ *
+ * The map uses open addressing with linear probing; removed entries are eliminated by moving
+ * the subsequent entries of the probing sequence backwards. Hence, the map never contains
+ * "tombstones" and the performance does not degrade when many entries are removed.
+ *
+ * @note `null` values are not permitted; `apply` returns `null` if no value is associated with
+ *       a key.
+ * @note This data structure is not thread safe; see [[ConcurrentIntRefMap]].
+ */
+final class IntRefMap[V >: Null <: AnyRef] private (
+        private[this] var keys:   Array[Int],
+        private[this] var values: Array[AnyRef]
+) { self =>
+
+    private[this] var size0 = 0
+    private[this] var mask = keys.length - 1
+
+    def size: Int = size0
+    def isEmpty: Boolean = size0 == 0
+    def nonEmpty: Boolean = size0 > 0
+
+    private[this] def indexOf(key: Int): Int = {
+        val keys = this.keys
+        val values = this.values
+        val mask = this.mask
+        var i = IntRefMap.hash(key) & mask
+        while (values(i) ne null) {
+            if (keys(i) == key)
+                return i;
+            i = (i + 1) & mask
+        }
+        -i - 1
+    }
+
+    /** Returns the value associated with the given key or `null`. */
+    def apply(key: Int): V = {
+        val index = indexOf(key)
+        if (index >= 0) values(index).asInstanceOf[V] else null
+    }
+
+    def get(key: Int): Option[V] = Option(apply(key))
+
+    def getOrElse(key: Int, f: => V): V = {
+        val v = apply(key)
+        if (v ne null) v else f
+    }
+
+    def contains(key: Int): Boolean = indexOf(key) >= 0
+
+    /**
+     * Associates the given value with the given key.
+     *
+     * @return The value that was previously associated with the key or `null`.
+     */
+    def put(key: Int, value: V): V = {
+        if (value eq null) throw new IllegalArgumentException("null values are not permitted")
+
+        val index = indexOf(key)
+        if (index >= 0) {
+            val oldValue = values(index).asInstanceOf[V]
+            values(index) = value
+            oldValue
+        } else {
+            insert(-index - 1, key, value)
+            null
+        }
+    }
+
+    def update(key: Int, value: V): Unit = put(key, value)
+
+    def getOrElseUpdate(key: Int, f: => V): V = {
+        val index = indexOf(key)
+        if (index >= 0) {
+            values(index).asInstanceOf[V]
+        } else {
+            val value = f
+            if (value eq null) throw new IllegalArgumentException("null values are not permitted")
+            // f may have changed this map
+            val newIndex = indexOf(key)
+            if (newIndex >= 0) values(newIndex) = value else insert(-newIndex - 1, key, value)
+            value
+        }
+    }
+
+    private[this] def insert(index: Int, key: Int, value: V): Unit = {
+        keys(index) = key
+        values(index) = value
+        size0 += 1
+        if (size0 > IntRefMap.maxSize(keys.length)) rehash(keys.length * 2)
+    }
+
+    private[this] def rehash(newCapacity: Int): Unit = {
+        val oldKeys = this.keys
+        val oldValues = this.values
+        val keys = new Array[Int](newCapacity)
+        val values = new Array[AnyRef](newCapacity)
+        val mask = newCapacity - 1
+        var j = 0
+        while (j < oldKeys.length) {
+            val value = oldValues(j)
+            if (value ne null) {
+                val key = oldKeys(j)
+                var i = IntRefMap.hash(key) & mask
+                while (values(i) ne null) i = (i + 1) & mask
+                keys(i) = key
+                values(i) = value
+            }
+            j += 1
+        }
+        this.keys = keys
+        this.values = values
+        this.mask = mask
+    }
+
+    /**
+     * Removes the value associated with the given key.
+     *
+     * @return The removed value or `null` if no value was associated with the key.
+     */
+    def remove(key: Int): V = {
+        val index = indexOf(key)
+        if (index < 0)
+            return null;
+
+        val keys = this.keys
+        val values = this.values
+        val mask = this.mask
+        val oldValue = values(index).asInstanceOf[V]
+        // move the subsequent entries of the probing sequence backwards, if necessary
+        var free = index
+        var i = (index + 1) & mask
+        while (values(i) ne null) {
+            val home = IntRefMap.hash(keys(i)) & mask
+            // the entry can be moved if its home slot is not cyclically in (free, i]
+            val canBeMoved = if (free <= i) free >= home || home > i else free >= home && home > i
+            if (canBeMoved) {
+                keys(free) = keys(i)
+                values(free) = values(i)
+                free = i
+            }
+            i = (i + 1) & mask
+        }
+        values(free) = null
+        size0 -= 1
+        oldValue
+    }
+
+    def -=(key: Int): this.type = { remove(key); this }
+
+    def clear(): Unit = {
+        Arrays.fill(values, null)
+        size0 = 0
+    }
+
+    def foreach[U](f: (Int, V) => U): Unit = {
+        val keys = this.keys
+        val values = this.values
+        var i = 0
+        while (i < keys.length) {
+            val value = values(i)
+            if (value ne null) f(keys(i), value.asInstanceOf[V])
+            i += 1
+        }
+    }
+
+    def foreachValue[U](f: V => U): Unit = {
+        val values = this.values
+        var i = 0
+        while (i < values.length) {
+            val value = values(i)
+            if (value ne null) f(value.asInstanceOf[V])
+            i += 1
+        }
+    }
+
+    /** Iterates over the keys; the map must not be changed while iterating. */
+    def keysIterator: IntIterator = new IntIterator {
+        private[this] var i = nextIndex(0)
+        override def hasNext: Boolean = i < values.length
+        override def next(): Int = { val key = keys(i); i = nextIndex(i + 1); key }
+    }
+
+    /** Iterates over the values; the map must not be changed while iterating. */
+    def valuesIterator: Iterator[V] = new AbstractIterator[V] {
+        private[this] var i = nextIndex(0)
+        override def hasNext: Boolean = i < values.length
+        override def next(): V = { val value = values(i); i = nextIndex(i + 1); value.asInstanceOf[V] }
+    }
+
+    private[this] def nextIndex(from: Int): Int = {
+        val values = this.values
+        var i = from
+        while (i < values.length && (values(i) eq null)) i += 1
+        i
+    }
+
+    def mkString(start: String, sep: String, end: String): String = {
+        val s = new StringBuilder(start)
+        var first = true
+        foreach { (k, v) =>
+            if (first) first = false else s.append(sep)
+            s.append(k).append(" -> ").append(v)
+        }
+        s.append(end).toString
+    }
+
+    override def toString: String = mkString("IntRefMap(", ", ", ")")
+}
+
+object IntRefMap {
+
+    /** Spreads the bits of the key to counter clustering when keys are (nearly) consecutive. */
+    @inline private[mutable] final def hash(key: Int): Int = {
+        val h = key * 0x9E3779B9
+        h ^ (h >>> 16)
+    }
+
+    /** The maximum number of entries of a table with the given capacity (load factor 0.75). */
+    @inline private[mutable] final def maxSize(capacity: Int): Int = capacity - (capacity >>> 2)
+
+    /** The power of two capacity of a table which can store the given number of entries. */
+    private[mutable] def capacity(expectedSize: Int): Int = {
+        var capacity = 8
+        while (maxSize(capacity) < expectedSize) capacity *= 2
+        capacity
+    }
+
+    def empty[V >: Null <: AnyRef]: IntRefMap[V] = apply(8)
+
+    def apply[V >: Null <: AnyRef](expectedSize: Int): IntRefMap[V] = {
+        val capacity = this.capacity(expectedSize)
+        new IntRefMap[V](new Array[Int](capacity), new Array[AnyRef](capacity))
+    }
+}
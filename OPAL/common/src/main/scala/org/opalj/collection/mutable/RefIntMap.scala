@@ -0,0 +1,210 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package mutable
+
+import java.util.Arrays
+
+import scala.collection.AbstractIterator
+
+/**
+ * A hash map with non-`null` keys and `Int` values; the values are not boxed. The keys are
+ * compared using `equals`.
+ *
+ * The map uses open addressing with linear probing (see [[IntRefMap]] for further details).
+ *
+ * @note This data structure is not thread safe.
+ */
+final class RefIntMap[K <: AnyRef] private (
+        private[this] var keys:   Array[AnyRef],
+        private[this] var values: Array[Int]
+) {
+
+    private[this] var size0 = 0
+    private[this] var mask = keys.length - 1
+
+    def size: Int = size0
+    def isEmpty: Boolean = size0 == 0
+    def nonEmpty: Boolean = size0 > 0
+
+    private[this] def indexOf(key: K): Int = {
+        val keys = this.keys
+        val mask = this.mask
+        var i = IntRefMap.hash(key.hashCode) & mask
+        var k = keys(i)
+        while (k ne null) {
+            if ((k eq key) || k == key)
+                return i;
+            i = (i + 1) & mask
+            k = keys(i)
+        }
+        -i - 1
+    }
+
+    /** Returns the value associated with the given key; throws an exception if there is none. */
+    @throws[NoSuchElementException]("if no value is associated with the key")
+    def apply(key: K): Int = {
+        val index = indexOf(key)
+        if (index < 0) throw new NoSuchElementException(s"no value for: $key")
+        values(index)
+    }
+
+    /** Returns the value associated with the given key or `default`. */
+    def getOrElse(key: K, default: Int): Int = {
+        val index = indexOf(key)
+        if (index >= 0) values(index) else default
+    }
+
+    def contains(key: K): Boolean = indexOf(key) >= 0
+
+    def update(key: K, value: Int): Unit = {
+        if (key eq null) throw new IllegalArgumentException("null keys are not permitted")
+
+        val index = indexOf(key)
+        if (index >= 0) values(index) = value else insert(-index - 1, key, value)
+    }
+
+    /**
+     * Adds the given delta to the value associated with the given key; if there is no value,
+     * the delta is associated with the key.
+     *
+     * @return The new value.
+     */
+    def addTo(key: K, delta: Int): Int = {
+        if (key eq null) throw new IllegalArgumentException("null keys are not permitted")
+
+        val index = indexOf(key)
+        if (index >= 0) {
+            val newValue = values(index) + delta
+            values(index) = newValue
+            newValue
+        } else {
+            insert(-index - 1, key, delta)
+            delta
+        }
+    }
+
+    private[this] def insert(index: Int, key: K, value: Int): Unit = {
+        keys(index) = key
+        values(index) = value
+        size0 += 1
+        if (size0 > IntRefMap.maxSize(keys.length)) rehash(keys.length * 2)
+    }
+
+    private[this] def rehash(newCapacity: Int): Unit = {
+        val oldKeys = this.keys
+        val oldValues = this.values
+        val keys = new Array[AnyRef](newCapacity)
+        val values = new Array[Int](newCapacity)
+        val mask = newCapacity - 1
+        var j = 0
+        while (j < oldKeys.length) {
+            val key = oldKeys(j)
+            if (key ne null) {
+                var i = IntRefMap.hash(key.hashCode) & mask
+                while (keys(i) ne null) i = (i + 1) & mask
+                keys(i) = key
+                values(i) = oldValues(j)
+            }
+            j += 1
+        }
+        this.keys = keys
+        this.values = values
+        this.mask = mask
+    }
+
+    /**
+     * Removes the value associated with the given key.
+     *
+     * @return `true` if a value was associated with the key.
+     */
+    def remove(key: K): Boolean = {
+        val index = indexOf(key)
+        if (index < 0)
+            return false;
+
+        val keys = this.keys
+        val values = this.values
+        val mask = this.mask
+        // move the subsequent entries of the probing sequence backwards, if necessary
+        var free = index
+        var i = (index + 1) & mask
+        var k = keys(i)
+        while (k ne null) {
+            val home = IntRefMap.hash(k.hashCode) & mask
+            // the entry can be moved if its home slot is not cyclically in (free, i]
+            val canBeMoved = if (free <= i) free >= home || home > i else free >= home && home > i
+            if (canBeMoved) {
+                keys(free) = k
+                values(free) = values(i)
+                free = i
+            }
+            i = (i + 1) & mask
+            k = keys(i)
+        }
+        keys(free) = null
+        size0 -= 1
+        true
+    }
+
+    def -=(key: K): this.type = { remove(key); this }
+
+    def clear(): Unit = {
+        Arrays.fill(keys, null)
+        size0 = 0
+    }
+
+    def foreach[U](f: (K, Int) => U): Unit = {
+        val keys = this.keys
+        val values = this.values
+        var i = 0
+        while (i < keys.length) {
+            val key = keys(i)
+            if (key ne null) f(key.asInstanceOf[K], values(i))
+            i += 1
+        }
+    }
+
+    /** Iterates over the keys; the map must not be changed while iterating. */
+    def keysIterator: Iterator[K] = new AbstractIterator[K] {
+        private[this] var i = nextIndex(0)
+        override def hasNext: Boolean = i < keys.length
+        override def next(): K = { val key = keys(i); i = nextIndex(i + 1); key.asInstanceOf[K] }
+    }
+
+    /** Iterates over the values; the map must not be changed while iterating. */
+    def valuesIterator: IntIterator = new IntIterator {
+        private[this] var i = nextIndex(0)
+        override def hasNext: Boolean = i < keys.length
+        override def next(): Int = { val value = values(i); i = nextIndex(i + 1); value }
+    }
+
+    private[this] def nextIndex(from: Int): Int = {
+        val keys = this.keys
+        var i = from
+        while (i < keys.length && (keys(i) eq null)) i += 1
+        i
+    }
+
+    def mkString(start: String, sep: String, end: String): String = {
+        val s = new StringBuilder(start)
+        var first = true
+        foreach { (k, v) =>
+            if (first) first = false else s.append(sep)
+            s.append(k).append(" -> ").append(v)
+        }
+        s.append(end).toString
+    }
+
+    override def toString: String = mkString("RefIntMap(", ", ", ")")
+}
+
+object RefIntMap {
+
+    def empty[K <: AnyRef]: RefIntMap[K] = apply(8)
+
+    def apply[K <: AnyRef](expectedSize: Int): RefIntMap[K] = {
+        val capacity = IntRefMap.capacity(expectedSize)
+        new RefIntMap[K](new Array[AnyRef](capacity), new Array[Int](capacity))
+    }
+}
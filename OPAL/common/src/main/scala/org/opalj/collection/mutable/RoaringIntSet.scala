@@ -0,0 +1,105 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package mutable
+
+import java.io.DataInput
+import java.io.DataOutput
+
+/**
+ * A mutable compressed set of int values; see [[org.opalj.collection.immutable.RoaringIntSet]]
+ * for the details of the representation.
+ *
+ * The mutable set is the preferred way to create large sets; the (immutable) result can then be
+ * created using [[toImmutable]].
+ */
+final class RoaringIntSet private (private var values: RoaringArray) extends BitSet {
+
+    def this() = this(RoaringArray.empty)
+
+    override def isEmpty: Boolean = values.size == 0
+
+    def size: Int = values.size
+
+    override def contains(i: Int): Boolean = values.contains(i)
+
+    def +=(i: Int): this.type = { values.add(i); this }
+
+    /**
+     * Adds the given value to the set if the value is not in the set and returns true;
+     * otherwise returns false.
+     */
+    def add(i: Int): Boolean = values.add(i)
+
+    def -=(i: Int): this.type = { values.remove(i); this }
+
+    /**
+     * Removes the given value from the set if the value is in the set and returns true;
+     * otherwise returns false.
+     */
+    def remove(i: Int): Boolean = values.remove(i)
+
+    /** Adds all values of the given set. */
+    def |=(that: RoaringIntSet): this.type = {
+        values = values.or(that.values, shareContainers = false)
+        this
+    }
+
+    /** Adds all values of the given set. */
+    def |=(that: immutable.RoaringIntSet): this.type = {
+        // the containers of immutable sets are never mutated
+        values = values.or(that.values.copy(), shareContainers = true)
+        this
+    }
+
+    /** Removes all values which are not contained in the given set. */
+    def &=(that: RoaringIntSet): this.type = {
+        values = values.and(that.values)
+        this
+    }
+
+    /** Removes all values which are not contained in the given set. */
+    def &=(that: immutable.RoaringIntSet): this.type = {
+        values = values.and(that.values)
+        this
+    }
+
+    /** Stores ranges of consecutive values compactly. */
+    def runOptimize(): this.type = {
+        values.runOptimize()
+        this
+    }
+
+    def foreach[U](f: Int => U): Unit = values.foreach(f)
+
+    override def iterator: IntIterator = values.iterator
+
+    /** An immutable set with the current values; later changes of this set are not reflected. */
+    def toImmutable: immutable.RoaringIntSet = new immutable.RoaringIntSet(values.copy())
+
+    /** Writes this set using a compact binary format (see [[RoaringIntSet.read]]). */
+    def write(out: DataOutput): Unit = values.write(out)
+
+    override def equals(other: Any): Boolean = {
+        other match {
+            case that: RoaringIntSet => (this eq that) || this.values.sameValues(that.values)
+            case _                   => false
+        }
+    }
+
+    override def hashCode: Int = values.valuesHashCode // compatible to Arrays.hashCode
+
+    override def toString: String = mkString("RoaringIntSet(", ",", ")")
+}
+
+object RoaringIntSet {
+
+    def apply(is: Int*): RoaringIntSet = {
+        val s = new RoaringIntSet()
+        is.foreach(s.add)
+        s
+    }
+
+    /** Reads a set written using [[RoaringIntSet.write]]. */
+    def read(in: DataInput): RoaringIntSet = new RoaringIntSet(RoaringArray.read(in))
+}
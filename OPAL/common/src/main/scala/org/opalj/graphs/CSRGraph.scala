@@ -0,0 +1,577 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package graphs
+
+import java.util.Arrays
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinTask
+import java.util.concurrent.RecursiveAction
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.reflect.ClassTag
+import scala.collection.mutable.ArrayBuffer
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
+
+import org.opalj.collection.IntIterator
+import org.opalj.collection.mutable.IntArrayStack
+import org.opalj.concurrent.NumberOfThreadsForCPUBoundTasks
+
+/**
+ * An immutable directed graph where the nodes are consecutively numbered `[0..nodesCount-1]` and
+ * where the edges are stored using the "compressed sparse row" format: the successors of the node
+ * `n` are stored in `successors` at the indexes `offsets(n)` (inclusive) to `offsets(n+1)`
+ * (exclusive).
+ *
+ * The algorithms for computing the strongly connected components only use `int` arrays and
+ * explicit stacks; i.e., they neither allocate objects per node or edge nor use recursion and
+ * can therefore handle arbitrarily degenerated graphs with millions of nodes.
+ */
+final class CSRGraph private (
+        private[graphs] val offsets:    Array[Int],
+        private[graphs] val successors: Array[Int]
+) {
+
+    def nodesCount: Int = offsets.length - 1
+
+    def edgesCount: Int = successors.length
+
+    def successorsCount(n: Int): Int = offsets(n + 1) - offsets(n)
+
+    def foreachSuccessor(n: Int)(f: Int => Unit): Unit = {
+        var i = offsets(n)
+        val end = offsets(n + 1)
+        while (i < end) {
+            f(successors(i))
+            i += 1
+        }
+    }
+
+    def successorsIterator(n: Int): IntIterator = new IntIterator {
+        private[this] var i = offsets(n)
+        private[this] val end = offsets(n + 1)
+        override def hasNext: Boolean = i < end
+        override def next(): Int = { val s = successors(i); i += 1; s }
+    }
+
+    /** The graph with all edges reversed. */
+    lazy val transposed: CSRGraph = {
+        val nodesCount = this.nodesCount
+        val tOffsets = new Array[Int](nodesCount + 1)
+        var i = 0
+        while (i < successors.length) {
+            tOffsets(successors(i) + 1) += 1
+            i += 1
+        }
+        var n = 0
+        while (n < nodesCount) {
+            tOffsets(n + 1) += tOffsets(n)
+            n += 1
+        }
+        val tSuccessors = new Array[Int](successors.length)
+        val nextIndex = Arrays.copyOf(tOffsets, nodesCount)
+        n = 0
+        while (n < nodesCount) {
+            var i = offsets(n)
+            val end = offsets(n + 1)
+            while (i < end) {
+                val s = successors(i)
+                tSuccessors(nextIndex(s)) = n
+                nextIndex(s) += 1
+                i += 1
+            }
+            n += 1
+        }
+        new CSRGraph(tOffsets, tSuccessors)
+    }
+
+    /**
+     * Computes the strongly connected components using Pearce's (space efficient) variant of
+     * Tarjan's algorithm.
+     *
+     * The components are numbered in reverse topological order; i.e., if the component `c1`
+     * has an edge to the component `c2` then `c1 > c2`.
+     *
+     * @see "A space-efficient algorithm for finding strongly connected components",
+     *      David J. Pearce, Information Processing Letters, 2016.
+     */
+    def sccs(): StronglyConnectedComponents = {
+        val nodesCount = this.nodesCount
+        val componentOf = new Array[Int](nodesCount)
+        val allNodes = new Array[Int](nodesCount)
+        var n = 0
+        while (n < nodesCount) {
+            allNodes(n) = n
+            n += 1
+        }
+        val componentsCount = new CSRGraph.SequentialSCCs(this, null).compute(allNodes, -1, componentOf, 0)
+        new StronglyConnectedComponents(this, componentsCount, componentOf)
+    }
+
+    /**
+     * Computes the strongly connected components using the forward-backward (FW-BW) algorithm;
+     * the partitions of the graph are processed in parallel.
+     *
+     * First, all nodes that (transitively) have no predecessors or no successors are removed;
+     * each such node is a component on its own. Then, a pivot node is chosen and the nodes which
+     * are reachable from the pivot (FW) and from which the pivot is reachable (BW) are
+     * determined. The intersection of both sets is the pivot's component; the remaining three
+     * partitions (FW \ BW, BW \ FW and the nodes in neither set) cannot share components and are
+     * then processed in parallel. Partitions with less than `sequentialThreshold` nodes are
+     * processed using [[sccs]]' algorithm.
+     *
+     * Compared to [[sccs]], the numbering of the components is arbitrary.
+     */
+    def parSCCs(
+        parallelizationLevel: Int = NumberOfThreadsForCPUBoundTasks,
+        sequentialThreshold:  Int = 10000
+    ): StronglyConnectedComponents = {
+        val nodesCount = this.nodesCount
+        val componentOf = new Array[Int](nodesCount)
+        val nextComponent = new AtomicInteger(0)
+        // the id of the partition to which a node currently belongs; processed nodes are
+        // assigned to the pseudo partition -1
+        val partitionOf = new Array[Int](nodesCount)
+        val remainingNodes = trim(componentOf, nextComponent, partitionOf)
+
+        val pool = new ForkJoinPool(parallelizationLevel)
+        try {
+            val task = new CSRGraph.FWBWTask(
+                this,
+                new CSRGraph.SequentialSCCs(this, partitionOf),
+                remainingNodes,
+                0,
+                partitionOf,
+                componentOf,
+                new AtomicInteger(1),
+                nextComponent,
+                sequentialThreshold
+            )
+            pool.invoke(task)
+        } finally {
+            pool.shutdown()
+        }
+        new StronglyConnectedComponents(this, nextComponent.get, componentOf)
+    }
+
+    /**
+     * Iteratively removes the nodes which have no predecessors or no successors (w.r.t. the
+     * remaining nodes) and assigns each such node its own component.
+     *
+     * @return The remaining nodes.
+     */
+    private[this] def trim(
+        componentOf:   Array[Int],
+        nextComponent: AtomicInteger,
+        partitionOf:   Array[Int]
+    ): Array[Int] = {
+        val nodesCount = this.nodesCount
+        val predecessors = transposed
+        val inDegree = new Array[Int](nodesCount)
+        val outDegree = new Array[Int](nodesCount)
+        val trimmed = new IntArrayStack(Math.max(8, nodesCount / 8))
+        var n = 0
+        while (n < nodesCount) {
+            inDegree(n) = predecessors.successorsCount(n)
+            outDegree(n) = successorsCount(n)
+            if (inDegree(n) == 0 || outDegree(n) == 0) {
+                partitionOf(n) = -1
+                trimmed.push(n)
+            }
+            n += 1
+        }
+        while (trimmed.nonEmpty) {
+            val n = trimmed.pop()
+            componentOf(n) = nextComponent.getAndIncrement()
+            foreachSuccessor(n) { s =>
+                inDegree(s) -= 1
+                if (inDegree(s) == 0 && partitionOf(s) != -1) {
+                    partitionOf(s) = -1
+                    trimmed.push(s)
+                }
+            }
+            predecessors.foreachSuccessor(n) { p =>
+                outDegree(p) -= 1
+                if (outDegree(p) == 0 && partitionOf(p) != -1) {
+                    partitionOf(p) = -1
+                    trimmed.push(p)
+                }
+            }
+        }
+        val remainingNodes = new IntArrayStack(Math.max(8, nodesCount / 2))
+        n = 0
+        while (n < nodesCount) {
+            if (partitionOf(n) == 0) remainingNodes.push(n)
+            n += 1
+        }
+        remainingNodes.toArray
+    }
+}
+
+object CSRGraph {
+
+    /**
+     * Creates a new graph with the given number of nodes where the successors of each node are
+     * determined using the given function.
+     */
+    def apply(nodesCount: Int, es: Int => IntIterator): CSRGraph = {
+        val offsets = new Array[Int](nodesCount + 1)
+        val successors = new IntArrayStack(Math.max(8, nodesCount))
+        var n = 0
+        while (n < nodesCount) {
+            offsets(n) = successors.size
+            es(n).foreach(successors.push)
+            n += 1
+        }
+        offsets(nodesCount) = successors.size
+        new CSRGraph(offsets, successors.toArray)
+    }
+
+    /**
+     * Creates a new graph from the given arrays; the arrays are not copied and must not be
+     * mutated afterwards.
+     */
+    def apply(offsets: Array[Int], successors: Array[Int]): CSRGraph = {
+        new CSRGraph(offsets, successors)
+    }
+
+    /**
+     * Creates the int-indexed graph of a graph of objects; the successors of all nodes which are
+     * (transitively) reachable from `ns` are part of the created graph.
+     *
+     * @return The graph and the nodes; the id of a node is its index in the returned array.
+     */
+    def apply[N <: AnyRef: ClassTag](ns: Iterable[N], es: N => Iterable[N]): (CSRGraph, Array[N]) = {
+        val nodes = new ArrayBuffer[N](ns.size)
+        val ids = new Object2IntOpenHashMap[N](ns.size)
+        ids.defaultReturnValue(-1)
+        def id(n: N): Int = {
+            val id = ids.getInt(n)
+            if (id != -1)
+                return id;
+
+            val newId = nodes.size
+            ids.put(n, newId)
+            nodes += n
+            newId
+        }
+        ns foreach id
+
+        val offsets = new IntArrayStack(Math.max(8, nodes.size + 1))
+        val successors = new IntArrayStack(Math.max(8, nodes.size))
+        var n = 0
+        while (n < nodes.size) { // the number of nodes grows while we add the edges
+            offsets.push(successors.size)
+            es(nodes(n)) foreach { s => successors.push(id(s)) }
+            n += 1
+        }
+        offsets.push(successors.size)
+        (new CSRGraph(offsets.toArray, successors.toArray), nodes.toArray)
+    }
+
+    /**
+     * Identifies the closed strongly connected components (see [[closedSCCs]]) using the
+     * int-indexed representation of the graph; the nodes have to implement equals and hashCode.
+     */
+    def closedSCCs[N <: AnyRef: ClassTag](ns: Iterable[N], es: N => Iterable[N]): List[Iterable[N]] = {
+        val (graph, nodes) = CSRGraph(ns, es)
+        val sccs = graph.sccs()
+        sccs.closedComponents().map(c => sccs.members(c).map(nodes))
+    }
+
+    /**
+     * Pearce's algorithm restricted to the nodes of a partition; i.e., edges to nodes of other
+     * partitions are ignored. All arrays are indexed by the node ids and are shared by the
+     * computations of the different (disjoint) partitions.
+     */
+    private[graphs] final class SequentialSCCs(graph: CSRGraph, partitionOf: Array[Int]) {
+
+        private[this] val nodesCount = graph.nodesCount
+        // 0 = not yet visited
+        private[this] val rindex = new Array[Int](nodesCount)
+        private[this] val isRoot = new Array[Boolean](nodesCount)
+        private[this] val successorsIterators = new Array[Int](nodesCount)
+
+        /**
+         * Computes the components of the given nodes which all belong to the given partition.
+         *
+         * @param  firstComponent The id of the first component.
+         * @return The number of components.
+         */
+        def compute(
+            nodes:          Array[Int],
+            partition:      Int,
+            componentOf:    Array[Int],
+            firstComponent: Int
+        ): Int = {
+            val partitionOf = this.partitionOf
+            val rindex = this.rindex
+            val isRoot = this.isRoot
+            val nextSuccessor = this.successorsIterators
+            val nodesCount = nodes.length
+            val dfsStack = new IntArrayStack(Math.max(8, nodesCount / 4))
+            val stack = new IntArrayStack(Math.max(8, nodesCount / 4))
+            var index = 1
+            // the component ids are assigned in descending order starting with nodesCount
+            var c = nodesCount
+
+            def beginVisiting(v: Int): Unit = {
+                dfsStack.push(v)
+                isRoot(v) = true
+                rindex(v) = index
+                index += 1
+                nextSuccessor(v) = graph.offsets(v)
+            }
+
+            var i = 0
+            while (i < nodesCount) {
+                val node = nodes(i)
+                if (rindex(node) == 0) {
+                    beginVisiting(node)
+                    while (dfsStack.nonEmpty) {
+                        val v = dfsStack.top()
+                        val end = graph.offsets(v + 1)
+                        var next = nextSuccessor(v)
+                        var descended = false
+                        while (!descended && next < end) {
+                            val w = graph.successors(next)
+                            if ((partitionOf eq null) || partitionOf(w) == partition) {
+                                if (rindex(w) == 0) {
+                                    // the edge v->w is processed again when w is finished
+                                    nextSuccessor(v) = next
+                                    beginVisiting(w)
+                                    descended = true
+                                } else {
+                                    if (rindex(w) < rindex(v)) {
+                                        rindex(v) = rindex(w)
+                                        isRoot(v) = false
+                                    }
+                                    next += 1
+                                }
+                            } else {
+                                next += 1
+                            }
+                        }
+                        if (!descended) {
+                            // finish visiting v
+                            dfsStack.pop()
+                            if (isRoot(v)) {
+                                index -= 1
+                                while (stack.nonEmpty && rindex(v) <= rindex(stack.top())) {
+                                    val w = stack.pop()
+                                    rindex(w) = c
+                                    index -= 1
+                                }
+                                rindex(v) = c
+                                c -= 1
+                            } else {
+                                stack.push(v)
+                            }
+                        }
+                    }
+                }
+                i += 1
+            }
+
+            i = 0
+            while (i < nodesCount) {
+                val node = nodes(i)
+                componentOf(node) = firstComponent + nodesCount - rindex(node)
+                i += 1
+            }
+            nodesCount - c
+        }
+    }
+
+    private[graphs] final class FWBWTask(
+            graph:               CSRGraph,
+            sequentialSCCs:      SequentialSCCs,
+            nodes:               Array[Int],
+            partition:           Int,
+            partitionOf:         Array[Int],
+            componentOf:         Array[Int],
+            nextPartition:       AtomicInteger,
+            nextComponent:       AtomicInteger,
+            sequentialThreshold: Int
+    ) extends RecursiveAction {
+
+        private[this] def task(nodes: Array[Int], partition: Int): FWBWTask = {
+            new FWBWTask(
+                graph, sequentialSCCs, nodes, partition, partitionOf, componentOf,
+                nextPartition, nextComponent, sequentialThreshold
+            )
+        }
+
+        override def compute(): Unit = {
+            if (nodes.length == 0)
+                return ;
+
+            if (nodes.length < sequentialThreshold) {
+                // we first have to determine the number of components to reserve their ids
+                val localComponentOf = componentOf
+                val componentsCount = sequentialSCCs.compute(nodes, partition, localComponentOf, 0)
+                val firstComponent = nextComponent.getAndAdd(componentsCount)
+                var i = 0
+                while (i < nodes.length) {
+                    localComponentOf(nodes(i)) += firstComponent
+                    i += 1
+                }
+                return ;
+            }
+
+            val pivot = nodes(0)
+            val fwPartition = nextPartition.getAndIncrement()
+            val bwPartition = nextPartition.getAndIncrement()
+
+            // 1. forward reachability
+            val worklist = new IntArrayStack(Math.max(8, nodes.length / 4))
+            partitionOf(pivot) = fwPartition
+            worklist.push(pivot)
+            while (worklist.nonEmpty) {
+                graph.foreachSuccessor(worklist.pop()) { s =>
+                    if (partitionOf(s) == partition) {
+                        partitionOf(s) = fwPartition
+                        worklist.push(s)
+                    }
+                }
+            }
+
+            // 2. backward reachability; the nodes reached in both directions form the component
+            val component = nextComponent.getAndIncrement()
+            val predecessors = graph.transposed
+            partitionOf(pivot) = -1
+            componentOf(pivot) = component
+            worklist.push(pivot)
+            while (worklist.nonEmpty) {
+                predecessors.foreachSuccessor(worklist.pop()) { p =>
+                    val pPartition = partitionOf(p)
+                    if (pPartition == fwPartition) {
+                        partitionOf(p) = -1
+                        componentOf(p) = component
+                        worklist.push(p)
+                    } else if (pPartition == partition) {
+                        partitionOf(p) = bwPartition
+                        worklist.push(p)
+                    }
+                }
+            }
+
+            // 3. split the remaining nodes
+            val fwNodes = new IntArrayStack(Math.max(8, nodes.length / 4))
+            val bwNodes = new IntArrayStack(Math.max(8, nodes.length / 4))
+            val otherNodes = new IntArrayStack(Math.max(8, nodes.length / 4))
+            var i = 0
+            while (i < nodes.length) {
+                val n = nodes(i)
+                val nPartition = partitionOf(n)
+                if (nPartition == fwPartition) fwNodes.push(n)
+                else if (nPartition == bwPartition) bwNodes.push(n)
+                else if (nPartition == partition) otherNodes.push(n)
+                i += 1
+            }
+            ForkJoinTask.invokeAll(
+                task(fwNodes.toArray, fwPartition),
+                task(bwNodes.toArray, bwPartition),
+                task(otherNodes.toArray, partition)
+            )
+        }
+    }
+}
+
+/**
+ * The strongly connected components of a [[CSRGraph]].
+ *
+ * @param componentsCount The number of components; the components are numbered
+ *        `[0..componentsCount-1]`.
+ * @param componentOf The component of each node.
+ */
+final class StronglyConnectedComponents private[graphs] (
+        graph:               CSRGraph,
+        val componentsCount: Int,
+        componentOf:         Array[Int]
+) {
+
+    def component(n: Int): Int = componentOf(n)
+
+    // the members of the components in the "compressed sparse row" format
+    private[this] lazy val (memberOffsets, memberNodes) = {
+        val memberOffsets = new Array[Int](componentsCount + 1)
+        val nodesCount = componentOf.length
+        var n = 0
+        while (n < nodesCount) {
+            memberOffsets(componentOf(n) + 1) += 1
+            n += 1
+        }
+        var c = 0
+        while (c < componentsCount) {
+            memberOffsets(c + 1) += memberOffsets(c)
+            c += 1
+        }
+        val members = new Array[Int](nodesCount)
+        val nextIndex = Arrays.copyOf(memberOffsets, componentsCount)
+        n = 0
+        while (n < nodesCount) {
+            val c = componentOf(n)
+            members(nextIndex(c)) = n
+            nextIndex(c) += 1
+            n += 1
+        }
+        (memberOffsets, members)
+    }
+
+    def size(component: Int): Int = memberOffsets(component + 1) - memberOffsets(component)
+
+    /** The nodes of the given component in ascending order. */
+    def members(component: Int): IndexedSeq[Int] = {
+        Arrays.copyOfRange(memberNodes, memberOffsets(component), memberOffsets(component + 1)).toIndexedSeq
+    }
+
+    /**
+     * `true` if the component contains a cycle; i.e., it has more than one node or its single
+     * node has a self-edge.
+     */
+    def isCyclic(component: Int): Boolean = {
+        size(component) > 1 || {
+            val n = memberNodes(memberOffsets(component))
+            var hasSelfEdge = false
+            graph.foreachSuccessor(n) { s => if (s == n) hasSelfEdge = true }
+            hasSelfEdge
+        }
+    }
+
+    /**
+     * The ids of the closed strongly connected components; i.e., the cyclic components without
+     * edges to other components (see [[org.opalj.graphs.closedSCCs]]).
+     */
+    def closedComponents(): List[Int] = {
+        val isClosed = new Array[Boolean](componentsCount)
+        Arrays.fill(isClosed, true)
+        val nodesCount = componentOf.length
+        var n = 0
+        while (n < nodesCount) {
+            val c = componentOf(n)
+            if (isClosed(c)) {
+                graph.foreachSuccessor(n) { s => if (componentOf(s) != c) isClosed(c) = false }
+            }
+            n += 1
+        }
+        var closedComponents = List.empty[Int]
+        var c = 0
+        while (c < componentsCount) {
+            if (isClosed(c) && isCyclic(c)) closedComponents ::= c
+            c += 1
+        }
+        closedComponents
+    }
+
+    /** The components as lists of nodes (see [[org.opalj.graphs.sccs]]). */
+    def toLists(filterSingletons: Boolean = false): List[List[Int]] = {
+        var sccs = List.empty[List[Int]]
+        var c = 0
+        while (c < componentsCount) {
+            if (!filterSingletons || isCyclic(c)) sccs ::= members(c).toList
+            c += 1
+        }
+        sccs
+    }
+}
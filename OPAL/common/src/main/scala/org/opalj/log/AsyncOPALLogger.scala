@@ -0,0 +1,344 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package log
+
+import java.io.PrintStream
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * A logger which – unlike the [[ConsoleOPALLogger]] – does not write the messages on the
+ * logging thread. The messages are put into a bounded, lock-free ring buffer and are then
+ * formatted and written by a background thread. Hence, analyses which log many messages
+ * (e.g., a warning for each unresolvable method) do not serialize on the console stream.
+ *
+ * Additionally, the number of messages per category is limited to
+ * `maxMessagesPerCategoryPerSecond` messages per second; the number of suppressed
+ * messages is reported instead. If the ring buffer is full, messages are dropped and the
+ * number of dropped messages is reported later on. Error messages are neither rate limited
+ * nor dropped.
+ *
+ * If `jsonOutput` is `true`, each message is written as a JSON object on a single line:
+ * {{{
+ * {"time":1672531200000,"level":"warn","category":"project configuration","message":"..."}
+ * }}}
+ * Otherwise, the messages are written the same way as the [[ConsoleOPALLogger]] does.
+ *
+ * ==Usage==
+ * {{{
+ * OPALLogger.updateLogger(GlobalLogContext, new AsyncOPALLogger(minLogLevel = Warn))
+ * }}}
+ *
+ * ==Thread Safety==
+ * Thread safe.
+ *
+ * @note Messages which are still in the buffer when the JVM shuts down are written by a
+ *       shutdown hook; use [[flush]] to wait until all messages are written.
+ */
+class AsyncOPALLogger(
+        val minLogLevel:                     Int,
+        val ansiColored:                     Boolean,
+        val jsonOutput:                      Boolean,
+        val maxMessagesPerCategoryPerSecond: Int,
+        capacity:                            Int,
+        out:                                 PrintStream,
+        err:                                 PrintStream
+) extends OPALLogger {
+
+    def this(
+        minLogLevel:                     Level   = Info,
+        ansiColored:                     Boolean = true,
+        jsonOutput:                      Boolean = false,
+        maxMessagesPerCategoryPerSecond: Int     = AsyncOPALLogger.DefaultMaxMessagesPerCategoryPerSecond,
+        capacity:                        Int     = AsyncOPALLogger.DefaultCapacity
+    ) = {
+        this(
+            minLogLevel.value, ansiColored, jsonOutput, maxMessagesPerCategoryPerSecond,
+            capacity, Console.out, Console.err
+        )
+    }
+
+    require(capacity > 0 && Integer.bitCount(capacity) == 1, "the capacity has to be a power of 2")
+
+    // THE RING BUFFER
+    //
+    // Producers claim a slot by incrementing the tail and then publish the message by
+    // setting the slot; the writer thread (the only consumer) clears the slot before it
+    // increments the head. Hence, a claimed slot is always empty.
+
+    private[this] final val mask = capacity - 1
+    private[this] final val messages = new AtomicReferenceArray[LogMessage](capacity)
+    private[this] final val timestamps = new Array[Long](capacity) // published by the message
+    private[this] final val tail = new AtomicLong(0L)
+    @volatile private[this] var head: Long = 0L
+
+    private[this] final val droppedMessages = new AtomicLong(0L)
+
+    private[this] final val rateLimiters = new ConcurrentHashMap[String, AsyncOPALLogger.RateLimiter]()
+
+    @volatile private[this] var isRunning = true
+
+    // the state of the writer thread (initialized before the thread is started)
+    private[this] final val jsonBuilder = new java.lang.StringBuilder(256)
+    private[this] var lastReport: Long = System.nanoTime()
+
+    private[this] final val writer = new Thread("OPAL - Asynchronous Logger") {
+        override def run(): Unit = writeMessages()
+    }
+    writer.setDaemon(true)
+    writer.start()
+
+    private[this] final val shutdownHook = new Thread(() => stopWriter())
+    Runtime.getRuntime.addShutdownHook(shutdownHook)
+
+    def log(message: LogMessage)(implicit ctx: LogContext): Unit = {
+        val messageLevel = message.level
+        if (messageLevel.value < minLogLevel)
+            return ;
+
+        if (messageLevel.value >= Error.value) {
+            // errors are never dropped
+            var isOffered = false
+            while (isRunning && !isOffered) {
+                isOffered = offer(message)
+                if (!isOffered) Thread.`yield`()
+            }
+            if (!isOffered) {
+                // the logger was closed
+                writeAfterClose(message)
+            } else if (!isRunning) {
+                // the writer may have stopped before it has seen the message
+                writeAfterClose(null)
+            }
+        } else if (isRunning && isPermitted(message) && !offer(message)) {
+            droppedMessages.incrementAndGet()
+        }
+    }
+
+    /**
+     * Writes - after the writer thread has terminated - the messages which are still in the
+     * buffer and then the given message (if not `null`).
+     */
+    private[this] def writeAfterClose(message: LogMessage): Unit = this.synchronized {
+        writer.join()
+        var h = head
+        var index = (h & mask).toInt
+        var bufferedMessage = messages.get(index)
+        // messages which are not yet published are only written by their producers (if they
+        // are errors)
+        while (bufferedMessage ne null) {
+            messages.set(index, null)
+            writeMessage(bufferedMessage, timestamps(index))
+            h += 1
+            head = h
+            index = (h & mask).toInt
+            bufferedMessage = messages.get(index)
+        }
+        if (message ne null) writeMessage(message, System.currentTimeMillis())
+        out.flush()
+        err.flush()
+    }
+
+    private[this] def isPermitted(message: LogMessage): Boolean = {
+        val category = message.category match { case Some(c) => c; case _ => "" }
+        var rateLimiter = rateLimiters.get(category)
+        if (rateLimiter eq null) {
+            val newRateLimiter = new AsyncOPALLogger.RateLimiter
+            rateLimiter = rateLimiters.putIfAbsent(category, newRateLimiter)
+            if (rateLimiter eq null) rateLimiter = newRateLimiter
+        }
+        rateLimiter.tryAcquire(System.nanoTime(), maxMessagesPerCategoryPerSecond)
+    }
+
+    private[this] def offer(message: LogMessage): Boolean = {
+        while (true) {
+            val t = tail.get
+            if (t - head >= capacity)
+                return false;
+            if (tail.compareAndSet(t, t + 1)) {
+                val index = (t & mask).toInt
+                timestamps(index) = System.currentTimeMillis()
+                messages.set(index, message)
+                return true;
+            }
+        }
+        false // unreachable
+    }
+
+    /**
+     * Waits until all messages that were logged before are written.
+     */
+    def flush(): Unit = {
+        val t = tail.get
+        while (head < t && writer.isAlive) {
+            LockSupport.parkNanos(this, AsyncOPALLogger.WriterSleepNanos)
+        }
+        out.flush()
+        err.flush()
+    }
+
+    /**
+     * Writes all pending messages and stops the background writer thread; messages which are
+     * logged afterwards are dropped except of error messages, which are written immediately
+     * (on the logging thread).
+     */
+    def close(): Unit = {
+        stopWriter()
+        try {
+            Runtime.getRuntime.removeShutdownHook(shutdownHook)
+        } catch {
+            case _: IllegalStateException => // the JVM is already shutting down
+        }
+    }
+
+    private[this] def stopWriter(): Unit = {
+        isRunning = false
+        LockSupport.unpark(writer)
+        writer.join()
+        out.flush()
+        err.flush()
+    }
+
+    // THE BACKGROUND WRITER
+    //
+    // Only the writer thread calls the following methods (after the writer thread has
+    // terminated, error messages are written while holding the logger's lock).
+
+    private[this] def writeMessages(): Unit = {
+        var isWriting = true
+        while (isWriting) {
+            val h = head
+            val index = (h & mask).toInt
+            val message = messages.get(index)
+            if (message ne null) {
+                val timestamp = timestamps(index)
+                messages.set(index, null)
+                head = h + 1
+                writeMessage(message, timestamp)
+            } else if (h == tail.get) {
+                // the buffer is empty (otherwise, a message is just being published)
+                reportSuppressedMessages()
+                if (isRunning)
+                    LockSupport.parkNanos(this, AsyncOPALLogger.WriterSleepNanos)
+                else
+                    isWriting = false
+            } else {
+                Thread.onSpinWait()
+            }
+        }
+        reportSuppressedMessages()
+    }
+
+    private[this] def reportSuppressedMessages(): Unit = {
+        val now = System.nanoTime()
+        if (now - lastReport >= TimeUnit.SECONDS.toNanos(1L) || !isRunning) {
+            lastReport = now
+            val timestamp = System.currentTimeMillis()
+            rateLimiters forEach { (category, rateLimiter) =>
+                val suppressed = rateLimiter.suppressedMessages.getAndSet(0)
+                if (suppressed > 0) {
+                    val message = s"suppressed $suppressed messages of this category"
+                    writeMessage(StandardLogMessage(Warn, Some(category).filter(_.nonEmpty), message), timestamp)
+                }
+            }
+            val dropped = droppedMessages.getAndSet(0L)
+            if (dropped > 0L) {
+                val message = s"dropped $dropped messages (the log buffer was full)"
+                writeMessage(StandardLogMessage(Warn, Some("logging"), message), timestamp)
+            }
+        }
+    }
+
+    private[this] def writeMessage(message: LogMessage, timestamp: Long): Unit = {
+        if (jsonOutput) {
+            out.println(toJSON(message, timestamp))
+        } else {
+            val stream = if (message.level.value >= Error.value) err else out
+            val theMessage = message.toConsoleOutput(ansiColored)
+            if (theMessage.length > 0 && theMessage.charAt(0) == '\r')
+                stream.print(theMessage)
+            else
+                stream.println(theMessage)
+        }
+    }
+
+    private[this] def toJSON(message: LogMessage, timestamp: Long): String = {
+        val sb = jsonBuilder
+        sb.setLength(0)
+        sb.append("{\"time\":").append(timestamp)
+        sb.append(",\"level\":\"").append(message.level.id).append('"')
+        message.category foreach { category =>
+            sb.append(",\"category\":")
+            appendJSONString(sb, category)
+        }
+        sb.append(",\"message\":")
+        appendJSONString(sb, message.message)
+        sb.append('}')
+        sb.toString
+    }
+
+    private[this] def appendJSONString(sb: java.lang.StringBuilder, s: String): Unit = {
+        sb.append('"')
+        var i = 0
+        val length = s.length
+        while (i < length) {
+            val c = s.charAt(i)
+            c match {
+                case '"'  => sb.append("\\\"")
+                case '\\' => sb.append("\\\\")
+                case '\n' => sb.append("\\n")
+                case '\r' => sb.append("\\r")
+                case '\t' => sb.append("\\t")
+                case _ =>
+                    if (c < ' ') {
+                        sb.append("\\u00")
+                        sb.append(Character.forDigit(c >> 4, 16))
+                        sb.append(Character.forDigit(c & 0xF, 16))
+                    } else {
+                        sb.append(c)
+                    }
+            }
+            i += 1
+        }
+        sb.append('"')
+    }
+}
+
+object AsyncOPALLogger {
+
+    final val DefaultCapacity = 1 << 14
+
+    final val DefaultMaxMessagesPerCategoryPerSecond = 1000
+
+    private final val WriterSleepNanos = TimeUnit.MILLISECONDS.toNanos(1L)
+
+    /**
+     * Counts the messages of a category which were logged in the current one second window.
+     */
+    private final class RateLimiter {
+
+        @volatile private[this] var window: Long = -1L
+        private[this] val messagesInWindow = new AtomicInteger(0)
+        val suppressedMessages = new AtomicInteger(0)
+
+        def tryAcquire(nanoTime: Long, maxMessagesPerSecond: Int): Boolean = {
+            val currentWindow = nanoTime / TimeUnit.SECONDS.toNanos(1L)
+            if (currentWindow != window) this.synchronized {
+                if (currentWindow != window) {
+                    messagesInWindow.set(0)
+                    window = currentWindow
+                }
+            }
+            if (messagesInWindow.incrementAndGet() <= maxMessagesPerSecond) {
+                true
+            } else {
+                suppressedMessages.incrementAndGet()
+                false
+            }
+        }
+    }
+}
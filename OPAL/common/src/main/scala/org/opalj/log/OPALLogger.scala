@@ -61,7 +61,8 @@ trait OPALLogger {
  *
  * ==Initialization==
  * If the [[GlobalLogContext]] should not use the default [[ConsoleOPALLogger]] then the
- * logger can be changed using `updateLogger`.
+ * logger can be changed using `updateLogger`. E.g., if many messages are logged concurrently,
+ * the [[AsyncOPALLogger]] can be used to write the messages using a background thread.
  *
  * ==Thread Safety==
  * Thread safe.
@@ -0,0 +1,165 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package immutable
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+
+import org.junit.runner.RunWith
+
+import scala.collection.immutable.SortedSet
+
+import org.scalatestplus.junit.JUnitRunner
+import org.scalacheck.Properties
+import org.scalacheck.Prop.forAll
+import org.scalacheck.Prop.propBoolean
+import org.scalacheck.Gen
+import org.scalacheck.Arbitrary
+
+/**
+ * Tests `RoaringIntSet` by creating standard Scala sets and comparing the results of the
+ * respective functions. The generated sets contain sparse values as well as dense ranges to
+ * test all kinds of containers.
+ */
+@RunWith(classOf[JUnitRunner])
+object RoaringIntSetProperties extends Properties("RoaringIntSet") {
+
+    /** Sets which contain some arbitrary values and (up to three) dense ranges of values. */
+    val clusteredSetGen: Gen[Set[Int]] = {
+        val rangeGen = for {
+            start <- Gen.oneOf(Gen.choose(-200000, 200000), Arbitrary.arbitrary[Int])
+            length <- Gen.oneOf(Gen.choose(1, 100), Gen.choose(4000, 12000))
+            step <- Gen.oneOf(1, 1, 2, 7)
+        } yield {
+            val end = Math.min(Int.MaxValue.toLong, start.toLong + length * step).toInt
+            start until end by step
+        }
+        for {
+            values <- Gen.listOf(Arbitrary.arbitrary[Int])
+            ranges <- Gen.choose(0, 3).flatMap(Gen.listOfN(_, rangeGen))
+        } yield values.toSet ++ ranges.flatten
+    }
+
+    implicit val arbClusteredSet: Arbitrary[Set[Int]] = Arbitrary(clusteredSetGen)
+
+    def serialized(s: RoaringIntSet): RoaringIntSet = {
+        val bytes = new ByteArrayOutputStream()
+        val out = new DataOutputStream(bytes)
+        s.write(out)
+        out.flush()
+        RoaringIntSet.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray)))
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    //                             P R O P E R T I E S
+
+    property("create RoaringIntSet") = forAll { s: Set[Int] =>
+        val rs = RoaringIntSet(s)
+        (rs.size == s.size) :| "size" &&
+            (rs.isEmpty == s.isEmpty) :| "isEmpty" &&
+            (rs.isSingletonSet == (s.size == 1)) :| "isSingletonSet" &&
+            (rs.hasMultipleElements == (s.size > 1)) :| "hasMultipleElements" &&
+            s.forall(rs.contains) :| "contains"
+    }
+
+    property("iterator|foreach|toList|head (sorted)") = forAll { s: Set[Int] =>
+        val rs = RoaringIntSet(s)
+        val sorted = SortedSet.empty[Int] ++ s
+        var foreachValues = List.empty[Int]
+        rs.foreach(foreachValues ::= _)
+        rs.iterator.toList == sorted.toList &&
+            foreachValues.reverse == sorted.toList &&
+            rs.toList == sorted.toList &&
+            (s.isEmpty || rs.head == sorted.head)
+    }
+
+    property("+") = forAll { (s: Set[Int], is: List[Int]) =>
+        val rs = is.foldLeft(RoaringIntSet(s))(_ + _)
+        val expected = s ++ is
+        rs.size == expected.size && rs.iterator.toList.toSet == expected
+    }
+
+    property("+ does not affect the original set") = forAll { (s: Set[Int], i: Int) =>
+        val rs = RoaringIntSet(s)
+        val rs2 = rs + i
+        rs.iterator.toList.toSet == s && rs2.iterator.toList.toSet == s + i
+    }
+
+    property("-") = forAll { (s: Set[Int], is: List[Int]) =>
+        val toBeRemoved = is ++ s.take(s.size / 2)
+        val rs = RoaringIntSet(s)
+        val rs2 = toBeRemoved.foldLeft(rs)(_ - _)
+        val expected = s -- toBeRemoved
+        rs2.size == expected.size &&
+            rs2.iterator.toList.toSet == expected &&
+            rs.iterator.toList.toSet == s
+    }
+
+    property("|") = forAll { (s1: Set[Int], s2: Set[Int]) =>
+        val rs1 = RoaringIntSet(s1)
+        val rs2 = RoaringIntSet(s2)
+        val expected = s1 ++ s2
+        val rs = rs1 | rs2
+        (rs.size == expected.size) :| "size" &&
+            (rs.iterator.toList.toSet == expected) :| "values" &&
+            (rs1.iterator.toList.toSet == s1) :| "operands unchanged" &&
+            (rs2.iterator.toList.toSet == s2) :| "operands unchanged"
+    }
+
+    property("&") = forAll { (s1: Set[Int], s2: Set[Int]) =>
+        val sharedValues = s2.take(s2.size / 2)
+        val rs1 = RoaringIntSet(s1 ++ sharedValues)
+        val rs2 = RoaringIntSet(s2)
+        val expected = (s1 ++ sharedValues) intersect s2
+        val rs = rs1 & rs2
+        rs.size == expected.size && rs.iterator.toList.toSet == expected
+    }
+
+    property("withFilter|map|exists|forall") = forAll { s: Set[Int] =>
+        val rs = RoaringIntSet(s)
+        rs.withFilter(_ % 3 == 0).iterator.toList.toSet == s.filter(_ % 3 == 0) &&
+            rs.map(_ / 5).iterator.toList.toSet == s.map(_ / 5) &&
+            rs.exists(_ % 3 == 0) == s.exists(_ % 3 == 0) &&
+            rs.forall(_ % 3 == 0) == s.forall(_ % 3 == 0)
+    }
+
+    property("runOptimized") = forAll { s: Set[Int] =>
+        val rs = RoaringIntSet(s)
+        val optimized = rs.runOptimized
+        optimized == rs && optimized.hashCode == rs.hashCode &&
+            s.forall(optimized.contains) && (optimized + 1).iterator.toList.toSet == s + 1 &&
+            (optimized -- s.take(10)).iterator.toList.toSet == s -- s.take(10)
+    }
+
+    property("equals|hashCode") = forAll { s: Set[Int] =>
+        val rs1 = RoaringIntSet(s)
+        val rs2 = RoaringIntSet(s.toList.reverse)
+        rs1 == rs2 && rs1.hashCode == rs2.hashCode &&
+            rs1.hashCode == java.util.Arrays.hashCode(s.toArray.sorted) &&
+            (s.isEmpty || rs1 != rs1 - s.head)
+    }
+
+    property("write|read") = forAll { s: Set[Int] =>
+        val rs = RoaringIntSet(s)
+        serialized(rs) == rs && serialized(rs.runOptimized) == rs
+    }
+
+    property("mutable RoaringIntSet") = forAll { (s1: Set[Int], s2: Set[Int]) =>
+        val ms1 = mutable.RoaringIntSet()
+        s1.foreach(ms1 += _)
+        val ms2 = mutable.RoaringIntSet()
+        s2.foreach(ms2 += _)
+        val immutableS1 = ms1.toImmutable
+        val toBeRemoved = s1.take(s1.size / 3)
+        toBeRemoved.foreach(ms1 -= _)
+        ms1.runOptimize()
+        (immutableS1.iterator.toList.toSet == s1) :| "toImmutable" &&
+            (ms1.iterator.toList.toSet == s1 -- toBeRemoved) :| "+=|-=" &&
+            ((ms1 |= ms2).iterator.toList.toSet == (s1 -- toBeRemoved) ++ s2) :| "|=" &&
+            (ms2.iterator.toList.toSet == s2) :| "|= does not affect the operand" &&
+            ((ms1 &= immutableS1).iterator.toList.toSet == ((s1 -- toBeRemoved) ++ (s2 intersect s1))) :| "&="
+    }
+}
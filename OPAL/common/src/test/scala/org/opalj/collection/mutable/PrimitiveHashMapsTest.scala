@@ -0,0 +1,160 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package collection
+package mutable
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatestplus.junit.JUnitRunner
+import org.junit.runner.RunWith
+
+/**
+ * Tests the open-addressing hash maps and sets by performing random updates and comparing the
+ * results with the results of Scala's maps and sets.
+ */
+@RunWith(classOf[JUnitRunner])
+class PrimitiveHashMapsTest extends AnyFlatSpec with Matchers {
+
+    /** Keys which are (partially) consecutive, negative, zero or arbitrary. */
+    def randomKey(random: java.util.Random): Int = {
+        random.nextInt(4) match {
+            case 0 => random.nextInt(100)
+            case 1 => -random.nextInt(100)
+            case 2 => random.nextInt(10000)
+            case _ => random.nextInt()
+        }
+    }
+
+    behavior of "an IntRefMap"
+
+    it should "contain the same entries as a Scala map after random updates" in {
+        val random = new java.util.Random(42)
+        for { run <- 1 to 20 } {
+            val map = IntRefMap.empty[String]
+            var expected = Map.empty[Int, String]
+            for { _ <- 1 to 5000 } {
+                val key = randomKey(random)
+                if (random.nextInt(3) == 0) {
+                    map.remove(key) should be(expected.getOrElse(key, null))
+                    expected -= key
+                } else {
+                    map.put(key, key.toString + run) should be(expected.getOrElse(key, null))
+                    expected += ((key, key.toString + run))
+                }
+            }
+            map.size should be(expected.size)
+            expected foreach { e => map(e._1) should be(e._2) }
+            var entries = Map.empty[Int, String]
+            map.foreach { (k, v) => entries += ((k, v)) }
+            entries should be(expected)
+            map.keysIterator.toList.sorted should be(expected.keys.toList.sorted)
+            map.valuesIterator.toList.sorted should be(expected.values.toList.sorted)
+        }
+    }
+
+    it should "only evaluate the function passed to getOrElseUpdate if the key is not in the map" in {
+        val map = IntRefMap.empty[String]
+        map.getOrElseUpdate(1, "a") should be("a")
+        map.getOrElseUpdate(1, fail()) should be("a")
+        map(2) should be(null)
+        map.get(1) should be(Some("a"))
+    }
+
+    it should "reject null values" in {
+        an[IllegalArgumentException] should be thrownBy { IntRefMap.empty[String].put(1, null) }
+    }
+
+    behavior of "a LongRefMap"
+
+    it should "contain the same entries as a Scala map after random updates" in {
+        val random = new java.util.Random(42)
+        val map = LongRefMap[String](16)
+        var expected = Map.empty[Long, String]
+        for { _ <- 1 to 20000 } {
+            val key = randomKey(random).toLong << random.nextInt(40)
+            if (random.nextInt(3) == 0) {
+                map.remove(key) should be(expected.getOrElse(key, null))
+                expected -= key
+            } else {
+                map(key) = key.toString
+                expected += ((key, key.toString))
+            }
+        }
+        map.size should be(expected.size)
+        expected foreach { e => map(e._1) should be(e._2) }
+        map.keysIterator.toList.sorted should be(expected.keys.toList.sorted)
+    }
+
+    behavior of "a RefIntMap"
+
+    it should "contain the same entries as a Scala map after random updates" in {
+        val random = new java.util.Random(42)
+        val map = RefIntMap.empty[String]
+        var expected = Map.empty[String, Int]
+        for { _ <- 1 to 20000 } {
+            val key = randomKey(random).toString
+            random.nextInt(3) match {
+                case 0 =>
+                    map.remove(key) should be(expected.contains(key))
+                    expected -= key
+                case 1 =>
+                    map.addTo(key, 2) should be(expected.getOrElse(key, 0) + 2)
+                    expected += ((key, expected.getOrElse(key, 0) + 2))
+                case _ =>
+                    map(key) = key.length
+                    expected += ((key, key.length))
+            }
+        }
+        map.size should be(expected.size)
+        expected foreach { e => map(e._1) should be(e._2) }
+        map.getOrElse("not a number", -1) should be(-1)
+        an[NoSuchElementException] should be thrownBy { map("not a number") }
+        var entries = Map.empty[String, Int]
+        map.foreach { (k, v) => entries += ((k, v)) }
+        entries should be(expected)
+    }
+
+    behavior of "an IntHashSet"
+
+    it should "contain the same values as a Scala set after random updates" in {
+        val random = new java.util.Random(42)
+        val set = IntHashSet.empty
+        var expected = Set.empty[Int]
+        for { _ <- 1 to 20000 } {
+            val value = randomKey(random)
+            if (random.nextInt(3) == 0) {
+                set.remove(value) should be(expected.contains(value))
+                expected -= value
+            } else {
+                set.add(value) should be(!expected.contains(value))
+                expected += value
+            }
+        }
+        set.size should be(expected.size)
+        expected foreach { v => set.contains(v) should be(true) }
+        set.iterator.toList.sorted should be(expected.toList.sorted)
+    }
+
+    behavior of "a ConcurrentIntRefMap"
+
+    it should "contain all entries which are added concurrently" in {
+        val map = ConcurrentIntRefMap[String](concurrencyLevel = 4)
+        val threads = Array.tabulate(4) { t =>
+            new Thread() {
+                override def run(): Unit = {
+                    for { i <- 0 until 50000 } {
+                        map.getOrElseUpdate(i, i.toString)
+                        if (i % 4 == t) map.put(-i - 1, t.toString)
+                    }
+                }
+            }
+        }
+        threads.foreach(_.start())
+        threads.foreach(_.join())
+        map.size should be(100000)
+        for { i <- 0 until 50000 } {
+            map(i) should be(i.toString)
+            map(-i - 1) should be((i % 4).toString)
+        }
+    }
+}
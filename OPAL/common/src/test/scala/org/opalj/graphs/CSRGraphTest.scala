@@ -0,0 +1,99 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package graphs
+
+import org.junit.runner.RunWith
+import org.scalatestplus.junit.JUnitRunner
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import org.opalj.collection.IntIterator
+
+/**
+ * Tests the SCC algorithms of [[CSRGraph]] by comparing the results with the results of
+ * [[org.opalj.graphs.sccs]] and [[org.opalj.graphs.closedSCCs]].
+ *
+ * @see `CSRGraphBenchmark` (demos) for a comparison w.r.t. the performance.
+ */
+@RunWith(classOf[JUnitRunner])
+class CSRGraphTest extends AnyFlatSpec with Matchers {
+
+    /** A random graph where the nodes have between 0 and `maxSuccessors` successors. */
+    def randomGraph(seed: Long, nodesCount: Int, maxSuccessors: Int): Array[Array[Int]] = {
+        val random = new java.util.Random(seed)
+        Array.fill(nodesCount) {
+            Array.fill(random.nextInt(maxSuccessors + 1))(random.nextInt(nodesCount))
+        }
+    }
+
+    def intIterator(is: Array[Int]): IntIterator = new IntIterator {
+        private[this] var i = 0
+        override def hasNext: Boolean = i < is.length
+        override def next(): Int = { val v = is(i); i += 1; v }
+    }
+
+    def csrGraph(successors: Array[Array[Int]]): CSRGraph = {
+        CSRGraph(successors.length, (n: Int) => intIterator(successors(n)))
+    }
+
+    def normalized(sccs: List[List[Int]]): Set[Set[Int]] = sccs.map(_.toSet).toSet
+
+    def normalized(sccs: StronglyConnectedComponents, filterSingletons: Boolean): Set[Set[Int]] = {
+        normalized(sccs.toLists(filterSingletons))
+    }
+
+    behavior of "the SCC algorithms of CSRGraph"
+
+    it should "compute the same SCCs as graphs.sccs" in {
+        for { seed <- 0L until 200L } {
+            val successors = randomGraph(seed, 1 + (seed % 50).toInt, 1 + (seed % 4).toInt)
+            val graph = csrGraph(successors)
+            val expected = normalized(graphs.sccs(
+                successors.length, n => intIterator(successors(n)), true
+            ))
+            withClue(s"seed: $seed") {
+                normalized(graph.sccs(), true) should be(expected)
+                normalized(graph.parSCCs(4, 2), true) should be(expected)
+            }
+        }
+    }
+
+    it should "number the components in reverse topological order" in {
+        for { seed <- 0L until 50L } {
+            val successors = randomGraph(seed, 100, 3)
+            val sccs = csrGraph(successors).sccs()
+            successors.indices foreach { n =>
+                successors(n) foreach { s => sccs.component(n) should be >= sccs.component(s) }
+            }
+        }
+    }
+
+    it should "assign each node to exactly one component" in {
+        val successors = randomGraph(42L, 1000, 3)
+        val sccs = csrGraph(successors).parSCCs(4, 10)
+        val members = (0 until sccs.componentsCount).flatMap(sccs.members)
+        members.sorted should be(successors.indices)
+    }
+
+    it should "handle long chains without running out of stack space" in {
+        val nodesCount = 1000000
+        // a single cycle through all nodes
+        val graph = CSRGraph(nodesCount, (n: Int) => IntIterator((n + 1) % nodesCount))
+        graph.sccs().componentsCount should be(1)
+        graph.parSCCs(4, 1000).componentsCount should be(1)
+        graph.sccs().closedComponents() should be(List(0))
+    }
+
+    it should "compute the same closed SCCs as graphs.closedSCCs" in {
+        for { seed <- 0L until 200L } {
+            val successors = randomGraph(seed, 1 + (seed % 50).toInt, 1 + (seed % 3).toInt)
+            val nodes = successors.indices.map(n => s"n$n")
+            val es = (n: String) => successors(n.substring(1).toInt).toSeq.map(s => s"n$s")
+            withClue(s"seed: $seed") {
+                CSRGraph.closedSCCs(nodes, es).map(_.toSet).toSet should be(
+                    graphs.closedSCCs(nodes, es).map(_.toSet).toSet
+                )
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package log
+
+import java.io.ByteArrayOutputStream
+import java.io.PrintStream
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatestplus.junit.JUnitRunner
+import org.junit.runner.RunWith
+
+/**
+ * Tests the AsyncOPALLogger.
+ */
+@RunWith(classOf[JUnitRunner])
+class AsyncOPALLoggerTest extends AnyFlatSpec with Matchers {
+
+    behavior of "the AsyncOPALLogger"
+
+    implicit val logContext: LogContext = GlobalLogContext
+
+    def withLogger(
+        jsonOutput:                      Boolean,
+        maxMessagesPerCategoryPerSecond: Int     = Int.MaxValue,
+        capacity:                        Int     = AsyncOPALLogger.DefaultCapacity
+    )(
+        f: AsyncOPALLogger => Unit
+    ): (Seq[String], Seq[String]) = {
+        val out = new ByteArrayOutputStream()
+        val err = new ByteArrayOutputStream()
+        val logger = new AsyncOPALLogger(
+            Info.value, ansiColored = false, jsonOutput, maxMessagesPerCategoryPerSecond,
+            capacity, new PrintStream(out, true, "UTF-8"), new PrintStream(err, true, "UTF-8")
+        )
+        try {
+            f(logger)
+        } finally {
+            logger.close()
+        }
+        def lines(stream: ByteArrayOutputStream): Seq[String] = {
+            stream.toString("UTF-8").split('\n').toSeq.filter(_.nonEmpty)
+        }
+        (lines(out), lines(err))
+    }
+
+    it should "write all messages of all threads in the order of each thread" in {
+        val threads = 8
+        val messagesPerThread = 1000
+        val (out, err) = withLogger(jsonOutput = false) { logger =>
+            val workers = (0 until threads) map { t =>
+                new Thread(() => {
+                    for { i <- 0 until messagesPerThread } {
+                        logger.log(Info(s"thread $t", s"message $i"))
+                    }
+                })
+            }
+            workers foreach { _.start() }
+            workers foreach { _.join() }
+            logger.flush()
+        }
+        err should be(empty)
+        out.size should be(threads * messagesPerThread)
+        for { t <- 0 until threads } {
+            out.filter(_.startsWith(s"[info][thread $t] ")) should be(
+                (0 until messagesPerThread).map(i => s"[info][thread $t] message $i")
+            )
+        }
+    }
+
+    it should "write errors to the error stream" in {
+        val (out, err) = withLogger(jsonOutput = false) { logger =>
+            logger.log(Warn("test", "a warning"))
+            logger.log(Error("test", "an error"))
+        }
+        out should be(Seq("[warn][test] a warning"))
+        err should be(Seq("[error][test] an error"))
+    }
+
+    it should "write messages as JSON objects" in {
+        val (out, _) = withLogger(jsonOutput = true) { logger =>
+            logger.log(Warn("test", "a \"quoted\"\nmessage"))
+            logger.log(Info("no category"))
+        }
+        out.size should be(2)
+        out.head should fullyMatch regex (
+            """\{"time":\d+,"level":"warn","category":"test","message":"a \\"quoted\\"\\nmessage"\}"""
+        )
+        out(1) should fullyMatch regex ("""\{"time":\d+,"level":"info","message":"no category"\}""")
+    }
+
+    it should "limit the number of messages per category" in {
+        val (out, _) = withLogger(jsonOutput = false, maxMessagesPerCategoryPerSecond = 10) { logger =>
+            for { i <- 0 until 100 } {
+                logger.log(Warn("limited", s"message $i"))
+                logger.log(Info("other", s"message $i"))
+            }
+        }
+        val limitedMessages = out.filter(_.startsWith("[warn][limited] message"))
+        limitedMessages.size should be >= 10
+        limitedMessages.size should be < 100
+        out.filter(_.startsWith("[info][other] message")).size should be >= 10
+        val suppressed = out.collect {
+            case m if m.startsWith("[warn][limited] suppressed ") =>
+                m.substring("[warn][limited] suppressed ".length).takeWhile(_.isDigit).toInt
+        }.sum
+        limitedMessages.size + suppressed should be(100)
+    }
+
+    it should "drop messages, but not errors, if the buffer is full" in {
+        val (out, err) = withLogger(jsonOutput = false, capacity = 2) { logger =>
+            for { i <- 0 until 1000 } {
+                logger.log(Info("test", s"message $i"))
+            }
+            for { i <- 0 until 100 } {
+                logger.log(Error("test", s"error $i"))
+            }
+        }
+        err should be((0 until 100).map(i => s"[error][test] error $i"))
+        val dropped = out.collect {
+            case m if m.startsWith("[warn][logging] dropped ") =>
+                m.substring("[warn][logging] dropped ".length).takeWhile(_.isDigit).toInt
+        }.sum
+        out.count(_.startsWith("[info][test] message")) + dropped should be(1000)
+    }
+
+    it should "write errors, but drop all other messages, which are logged after it was closed" in {
+        val (out, err) = withLogger(jsonOutput = false) { logger =>
+            logger.log(Warn("test", "before close"))
+            logger.close()
+            logger.log(Warn("test", "a warning"))
+            logger.log(Info("test", "an info"))
+            logger.log(Error("test", "an error"))
+        }
+        out should be(Seq("[warn][test] before close"))
+        err should be(Seq("[error][test] an error"))
+    }
+}
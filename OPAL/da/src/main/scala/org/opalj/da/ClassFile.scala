@@ -2,6 +2,8 @@
 package org.opalj
 package da
 
+import java.io.Writer
+
 import scala.io.Source
 import scala.xml.Node
 import scala.xml.NodeSeq
@@ -104,17 +106,16 @@ case class ClassFile(
     /**
      * Converts the constant pool to (x)HTML5.
      */
-    def cpToXHTML: Node = {
-        val cpEntries =
-            for {
-                cpIndex <- 1 until constant_pool.length
-                cpNode = cp(cpIndex)
-                if cpNode != null /* <= need for constant_double/_long entries */
-            } yield {
-                <li value={ cpIndex.toString }>{ cpNode.asCPNode }</li>
-            }
+    def cpToXHTML: Node = <ol class="cp_entries">{ cpEntriesToXHTML.toSeq }</ol>
 
-        <ol class="cp_entries">{ cpEntries }</ol>
+    def cpEntriesToXHTML: Iterator[Node] = {
+        for {
+            cpIndex <- (1 until constant_pool.length).iterator
+            cpNode = cp(cpIndex)
+            if cpNode != null /* <= need for constant_double/_long entries */
+        } yield {
+            <li value={ cpIndex.toString }>{ cpNode.asCPNode }</li>
+        }
     }
 
     def attributeToXHTML(attribute: Attribute): Node = {
@@ -181,63 +182,114 @@ case class ClassFile(
     ): Node =
         <html>
             <head>
-                <title>Java Bytecode of { thisType.asJava }</title>
-                <style type="text/css">{ scala.xml.Unparsed(ClassFile.ResetCSS) }</style>
-                {
-                    if (embeddedCSS.isDefined)
-                        <style type="text/css">{ scala.xml.Unparsed(embeddedCSS.get) }</style>
-                }
-                {
-                    if (cssFile.isDefined)
-                        <link rel="stylesheet" href={ cssFile.get }></link>
-                }{
-                    if (withMethodsFilter)
-                        <script>{ scala.xml.Unparsed(ClassFile.FilterJS) }</script>
-                }
-                {
-                    if (jsFile.isDefined)
-                        <script type="text/javascript" src={ jsFile.get }></script>
-                }
+                { headToXHTML(embeddedCSS, cssFile, jsFile, withMethodsFilter) }
             </head>
             <body>
                 { classFileToXHTML(source, withMethodsFilter) }
             </body>
         </html>
 
+    /**
+     * Writes the XHTML representation of the ClassFile to the given writer.
+     *
+     * In contrast to [[toXHTML]], the node tree of the entire class file is never created.
+     * Only the nodes of the individual constant pool entries, attributes, fields and methods
+     * are created and they are directly written to the given writer. Hence, the required
+     * memory is independent of the size of the class file.
+     *
+     * @param out The writer to which the generated HTML is written; the writer is neither
+     *            flushed nor closed.
+     */
+    def writeXHTML(
+        out:               Writer,
+        source:            Option[AnyRef],
+        embeddedCSS:       Option[String] = Some(ClassFile.TheCSS),
+        cssFile:           Option[String] = None,
+        jsFile:            Option[String] = None,
+        withMethodsFilter: Boolean        = true
+    ): Unit = {
+        out.write("<html><head>")
+        headToXHTML(embeddedCSS, cssFile, jsFile, withMethodsFilter) foreach { write(out, _) }
+        out.write("</head><body>")
+        writeClassFileXHTML(out, source, withMethodsFilter)
+        out.write("</body></html>")
+    }
+
+    protected def headToXHTML(
+        embeddedCSS:       Option[String],
+        cssFile:           Option[String],
+        jsFile:            Option[String],
+        withMethodsFilter: Boolean
+    ): Seq[Node] = {
+        List(
+            Some(<title>Java Bytecode of { thisType.asJava }</title>),
+            Some(<style type="text/css">{ Unparsed(ClassFile.ResetCSS) }</style>),
+            embeddedCSS.map(css => <style type="text/css">{ Unparsed(css) }</style>),
+            cssFile.map(file => <link rel="stylesheet" href={ file }></link>),
+            if (withMethodsFilter) Some(<script>{ Unparsed(ClassFile.FilterJS) }</script>) else None,
+            jsFile.map(file => <script type="text/javascript" src={ file }></script>)
+        ).flatten
+    }
+
     def classFileToXHTML(source: Option[AnyRef]): Node = classFileToXHTML(source, false)
 
+    /**
+     * Writes the XHTML representation of the ClassFile – without a header – to the given
+     * writer; the top level element is `<div class="class_file">`.
+     *
+     * @see [[writeXHTML]]
+     */
+    def writeClassFileXHTML(out: Writer, source: Option[AnyRef]): Unit = {
+        writeClassFileXHTML(out, source, false)
+    }
+
+    protected def classFileHeaderToXHTML: Node = {
+        val (sourceFileAttributes, attributes0) = partitionByType(attributes, classOf[SourceFile_attribute])
+        val (signatureAttributes, _) = partitionByType(attributes0, classOf[Signature_attribute])
+
+        <div id="class_file_header">
+            { accessFlags }
+            <span id="defined_class">{ thisType.asJava }</span>
+            { superTypes }
+            {
+                if (signatureAttributes.nonEmpty) {
+                    Seq(<br/>, signatureAttributes.head.signatureSpan)
+                }
+            }
+            <br/>
+            {
+                sourceFileAttributes.headOption.map { a =>
+                    Seq(
+                        Text("Source file: "),
+                        <span class="source_file">{ a.sourceFile } </span>,
+                        Unparsed("&nbsp; &mdash; &nbsp;")
+                    )
+                }.getOrElse(NodeSeq.Empty)
+            }
+            <span id="class_file_version">Version:&nbsp;{ s"$major_version.$minor_version ($jdkVersion)" }</span>
+            &nbsp; &mdash; &nbsp;
+            <span>Size:&nbsp;{ size }bytes</span>
+        </div>
+    }
+
+    /**
+     * The attributes which are shown in the members section; i.e., all attributes except of
+     * the SourceFile and Signature attributes which are shown in the header.
+     */
+    protected def memberAttributes: Attributes = {
+        attributes.filter { a =>
+            !a.isInstanceOf[SourceFile_attribute] && !a.isInstanceOf[Signature_attribute]
+        }
+    }
+
     // this file is private to ensure that no meaningless html files are generated
     // (i.e. with the fields for the filter, but without the necessary logic)
     private[this] def classFileToXHTML(source: Option[AnyRef], withMethodsFilter: Boolean): Node = {
-
-        val (sourceFileAttributes, attributes0) = partitionByType(attributes, classOf[SourceFile_attribute])
-        val (signatureAttributes, attributes1) = partitionByType(attributes0, classOf[Signature_attribute])
+        val attributes1 = memberAttributes
 
         <div class="class_file">
             { if (source.isDefined) <div id="source">{ source.get }</div> }
-            <div id="class_file_header">
-                { accessFlags }
-                <span id="defined_class">{ thisType.asJava }</span>
-                { superTypes }
-                {
-                    if (signatureAttributes.nonEmpty) {
-                        Seq(<br/>, signatureAttributes.head.signatureSpan)
-                    }
-                }
-                <br/>
-                {
-                    sourceFileAttributes.headOption.map { a =>
-                        Seq(
-                            Text("Source file: "),
-                            <span class="source_file">{ a.sourceFile } </span>,
-                            Unparsed("&nbsp; &mdash; &nbsp;")
-                        )
-                    }.getOrElse(NodeSeq.Empty)
-                }
-                <span id="class_file_version">Version:&nbsp;{ s"$major_version.$minor_version ($jdkVersion)" }</span>
-                &nbsp; &mdash; &nbsp;
-                <span>Size:&nbsp;{ size }bytes</span>
-            </div>
+            { classFileHeaderToXHTML }
             <div class="constant_pool">
                 <details>
                     <summary>Constant Pool</summary>
@@ -277,6 +329,43 @@ case class ClassFile(
         </div>
     }
 
+    // the structure has to be kept in sync with classFileToXHTML
+    private[this] def writeClassFileXHTML(
+        out:               Writer,
+        source:            Option[AnyRef],
+        withMethodsFilter: Boolean
+    ): Unit = {
+        val attributes1 = memberAttributes
+
+        out.write("<div class=\"class_file\">")
+        if (source.isDefined) write(out, <div id="source">{ source.get }</div>)
+        write(out, classFileHeaderToXHTML)
+        out.write("<div class=\"constant_pool\"><details><summary>Constant Pool</summary>")
+        out.write("<ol class=\"cp_entries\">")
+        cpEntriesToXHTML foreach { write(out, _) }
+        out.write("</ol></details></div>")
+        out.write("<div class=\"members\">")
+        if (attributes1.nonEmpty) {
+            out.write("<div class=\"attributes\"><details><summary>Attributes</summary>")
+            attributes1 foreach { a => write(out, attributeToXHTML(a)) }
+            out.write("</details></div>")
+        }
+        if (fields.nonEmpty) {
+            out.write("<div class=\"fields\"><details open=\"\"><summary>Fields</summary>")
+            fieldsToXHTML foreach { write(out, _) }
+            out.write("</details></div>")
+        }
+        if (methods.nonEmpty) {
+            out.write("<div class=\"methods\"><details open=\"\"><summary>Methods</summary>")
+            if (withMethodsFilter) write(out, filter)
+            methodsToXHTML foreach { write(out, _) }
+            out.write("</details></div>")
+        }
+        out.write("</div></div>")
+    }
+
+    private[this] def write(out: Writer, node: Node): Unit = out.write(node.toString)
+
 }
 
 object ClassFile {
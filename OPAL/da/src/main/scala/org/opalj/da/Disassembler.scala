@@ -3,7 +3,17 @@ package org.opalj
 package da
 
 import java.io.File
+import java.io.FileInputStream
+import java.io.PrintWriter
+import java.io.Writer
+import java.net.URL
+import java.nio.charset.StandardCharsets.UTF_8
 import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.ZipFile
+
+import scala.collection.mutable.ArrayBuffer
+import scala.util.control.NonFatal
 
 import org.apache.commons.text.similarity.LevenshteinDistance.{getDefaultInstance => getLevenshteinDistance}
 
@@ -11,7 +21,9 @@ import org.opalj.log.OPALLogger
 import org.opalj.log.GlobalLogContext
 import org.opalj.log.ConsoleOPALLogger
 import org.opalj.log.{Error => ErrorLogLevel}
+import org.opalj.io.process
 import org.opalj.bytecode.JRELibraryFolder
+import org.opalj.concurrent.parForeachArrayElement
 
 /**
  * Disassembles the specified class file(s).
@@ -26,6 +38,8 @@ object Disassembler {
         "Usage: java …Disassembler \n"+
             "       [-help will print this help and terminate.]\n"+
             "       [-o <File> the name of the file to which the generated html page should be written]\n"+
+            "       [-outputDir <Directory> all class files found in the sources are disassembled in parallel;\n"+
+            "                               the html page of each class is written to the given directory]\n"+
             "       [-open the generated html page will be opened in a browser]\n"+
             "       [-source <File> a class or jar file or a directory containing jar or class files;\n"+
             "                       if no source files/folders are specified the current folder will be\n"+
@@ -61,6 +75,7 @@ object Disassembler {
         // OPTIONS
         var toStdOut = true
         var toFile: Option[String] = None
+        var outputDir: Option[String] = None
         var openHTMLFile: Boolean = false
         var sources: List[String] = List.empty
         var noDefaultCSS: Boolean = false
@@ -85,6 +100,7 @@ object Disassembler {
             args(i) match {
                 case "-help" | "--help" => { Console.out.println(Usage); return }
                 case "-o"               => { toFile = Some(readNextArg()); toStdOut = false }
+                case "-outputDir"       => { outputDir = Some(readNextArg()); toStdOut = false }
                 case "-open"            => { openHTMLFile = true; toStdOut = false }
                 case "-noDefaultCSS"    => noDefaultCSS = true
                 case "-noMethodsFilter" => noMethodsFilter = true
@@ -104,6 +120,11 @@ object Disassembler {
             if (css.nonEmpty) handleError("specifying -noHeader and a css file is not supported")
             if (js.nonEmpty) handleError("specifying -noHeader and a js file is not supported")
         }
+        if (outputDir.nonEmpty) {
+            if (toFile.nonEmpty) handleError("specifying -outputDir and -o is not supported")
+            if (openHTMLFile) handleError("specifying -outputDir and -open is not supported")
+            if (className != null) handleError("specifying -outputDir and a class name is not supported")
+        }
 
         if (sources.isEmpty) sources = List(System.getProperty("user.dir"))
         val sourceFiles = sources map { src =>
@@ -113,6 +134,25 @@ object Disassembler {
             f
         }
 
+        val htmlCSS = if (noDefaultCSS) None else Some(ClassFile.TheCSS)
+        def writeXHTML(classFile: ClassFile, source: AnyRef, out: Writer): Unit = {
+            if (noHeader)
+                classFile.writeClassFileXHTML(out, Some(source))
+            else
+                classFile.writeXHTML(out, Some(source), htmlCSS, css, js, !noMethodsFilter)
+        }
+
+        if (outputDir.isDefined) {
+            val targetDir = new File(outputDir.get)
+            if (!targetDir.exists() && !targetDir.mkdirs()) handleError("cannot create: "+targetDir, false)
+            if (!targetDir.isDirectory || !targetDir.canWrite) handleError("cannot write to: "+targetDir, false)
+            val writtenFiles = disassembleAll(
+                sourceFiles, targetDir, (if (showProgress) println else (f) => {})
+            )(writeXHTML)
+            println(s"wrote $writtenFiles file(s) to: $targetDir")
+            return ;
+        }
+
         val classFileFilter =
             if (className == null)
                 (cf: ClassFile) => true // just take the first one...
@@ -161,21 +201,87 @@ object Disassembler {
             }
 
         // FINAL PROCESSING
-        val htmlCSS = if (noDefaultCSS) None else Some(ClassFile.TheCSS)
-        val xHTML =
-            if (noHeader)
-                classFile.classFileToXHTML(Some(source)).toString
-            else
-                classFile.toXHTML(Some(source), htmlCSS, css, js, !noMethodsFilter).toString
-
         targetFile match {
             case Some(f) =>
-                Files.write(f.toPath, xHTML.toString.getBytes("UTF-8"))
+                process(Files.newBufferedWriter(f.toPath, UTF_8)) { out =>
+                    writeXHTML(classFile, source, out)
+                }
                 println("wrote: "+f)
                 if (openHTMLFile) org.opalj.io.open(f)
             case None =>
-                Console.out.println(xHTML)
+                val out = new PrintWriter(Console.out)
+                writeXHTML(classFile, source, out)
+                out.println()
+                out.flush()
+        }
+
+    }
+
+    /**
+     * Disassembles all class files found in the given sources (class files, jar files or
+     * directories) in parallel. The html page of each class is written to a file in the given
+     * directory; the name of the file is derived from the name of the class.
+     *
+     * Each class file is disassembled as soon as it is read and – in particular the class
+     * files found in jar files – are not kept in memory afterwards.
+     *
+     * @param  writeXHTML Writes the html page of the given class file to the given writer.
+     *         '''This function has to be thread safe.'''
+     * @return The number of written files.
+     */
+    def disassembleAll(
+        sources:   Iterable[File],
+        targetDir: File,
+        progress:  String => Unit = _ => ()
+    )(
+        writeXHTML: (ClassFile, URL, Writer) => Unit
+    ): Int = {
+        val writtenFiles = new AtomicInteger(0)
+        val exceptionHandler = ClassFileReader.defaultExceptionHandler
+
+        def disassemble(classFile: ClassFile, url: URL): Unit = {
+            val fileName = org.opalj.io.sanitizeFileName(classFile.thisType.asJava)+".html"
+            val targetFile = new File(targetDir, fileName)
+            process(Files.newBufferedWriter(targetFile.toPath, UTF_8)) { out =>
+                writeXHTML(classFile, url, out)
+            }
+            writtenFiles.incrementAndGet()
+            progress("wrote: "+targetFile)
+        }
+
+        // The class files of a jar file are read (and disassembled) in parallel by the
+        // ClassFileReader; all other class files are first collected.
+        val classFiles = ArrayBuffer.empty[File]
+        def processFile(file: File): Unit = {
+            val fileName = file.getName
+            if (file.isDirectory) {
+                val files = file.listFiles()
+                if (files ne null) files foreach processFile
+            } else if (ClassFileReader.isClassFileRepository(fileName, None)) {
+                try {
+                    process(new ZipFile(file)) { zipFile =>
+                        ClassFileReader.ClassFiles(zipFile, disassemble, exceptionHandler)
+                    }
+                } catch {
+                    case NonFatal(t) => exceptionHandler(file, t)
+                }
+            } else if (fileName.endsWith(".class")) {
+                classFiles += file
+            }
+        }
+        sources foreach processFile
+
+        parForeachArrayElement(classFiles.toArray) { file =>
+            try {
+                val url = file.toURI.toURL
+                ClassFileReader.ClassFile(() => new FileInputStream(file)) foreach { classFile =>
+                    disassemble(classFile, url)
+                }
+            } catch {
+                case NonFatal(t) => exceptionHandler(file, t)
+            }
         }
 
+        writtenFiles.get
     }
 }
@@ -0,0 +1,174 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package de
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.{Function => JFunction}
+
+import scala.jdk.CollectionConverters._
+
+import org.opalj.br._
+
+/**
+ * Collects all dependencies extracted by a [[DependencyExtractor]] in a memory efficient
+ * manner. Each source element (and each array/base type) is interned and mapped to an
+ * int id; the dependencies are then recorded as `(source id, target id, dependency type)`
+ * triples in primitive columns. Each thread uses its own columns; hence, the collection
+ * of the dependencies requires no synchronization beyond the interning.
+ *
+ * ==Thread Safety==
+ * This class is thread-safe. However, it does not make sense to call the method
+ * [[toStore]] unless the dependency extractor that uses this processor has completed.
+ *
+ * @param virtualSourceElementsCountHint An estimation of the number of
+ *      "VirtualSourceElements" that will be analyzed.
+ *
+ * @see [[DependencyCollectingDependencyProcessor]]
+ */
+class ColumnarDependencyCollectingDependencyProcessor(
+        val virtualSourceElementsCountHint: Option[Int]
+) extends DependencyProcessor {
+
+    private[this] val sourceElementIds =
+        new ConcurrentHashMap[VirtualSourceElement, Integer](
+            virtualSourceElementsCountHint.getOrElse(16000)
+        )
+    private[this] val nextSourceElementId = new AtomicInteger(0)
+    private[this] val newSourceElementId: JFunction[VirtualSourceElement, Integer] =
+        (_: VirtualSourceElement) => Integer.valueOf(nextSourceElementId.getAndIncrement())
+
+    private[this] val typeIds = new ConcurrentHashMap[Type, Integer](1024)
+    private[this] val nextTypeId = new AtomicInteger(0)
+    private[this] val newTypeId: JFunction[Type, Integer] =
+        (_: Type) => Integer.valueOf(nextTypeId.getAndIncrement())
+
+    private[this] class ThreadState {
+        final val dependencies = new DependencyColumns
+        final val dependenciesOnTypes = new DependencyColumns
+        // most dependencies of a source element are reported consecutively
+        var lastSource: VirtualSourceElement = null
+        var lastSourceId: Int = -1
+    }
+
+    private[this] val allThreadStates = new ConcurrentLinkedQueue[ThreadState]()
+
+    private[this] val threadState: ThreadLocal[ThreadState] = ThreadLocal.withInitial { () =>
+        val state = new ThreadState
+        allThreadStates.add(state)
+        state
+    }
+
+    private[this] def sourceElementId(sourceElement: VirtualSourceElement): Int = {
+        val id = sourceElementIds.get(sourceElement)
+        if (id ne null)
+            id.intValue
+        else
+            sourceElementIds.computeIfAbsent(sourceElement, newSourceElementId).intValue
+    }
+
+    private[this] def sourceId(state: ThreadState, source: VirtualSourceElement): Int = {
+        if (state.lastSource eq source)
+            state.lastSourceId
+        else {
+            val id = sourceElementId(source)
+            state.lastSource = source
+            state.lastSourceId = id
+            id
+        }
+    }
+
+    private[this] def typeId(t: Type): Int = {
+        val id = typeIds.get(t)
+        if (id ne null) id.intValue else typeIds.computeIfAbsent(t, newTypeId).intValue
+    }
+
+    def processDependency(
+        source: VirtualSourceElement,
+        target: VirtualSourceElement,
+        dType:  DependencyType
+    ): Unit = {
+        val state = threadState.get
+        state.dependencies.add(sourceId(state, source), sourceElementId(target), dType)
+    }
+
+    def processDependency(
+        source:    VirtualSourceElement,
+        arrayType: ArrayType,
+        dType:     DependencyType
+    ): Unit = {
+        val state = threadState.get
+        state.dependenciesOnTypes.add(sourceId(state, source), typeId(arrayType), dType)
+    }
+
+    def processDependency(
+        source:   VirtualSourceElement,
+        baseType: BaseType,
+        dType:    DependencyType
+    ): Unit = {
+        val state = threadState.get
+        state.dependenciesOnTypes.add(sourceId(state, source), typeId(baseType), dType)
+    }
+
+    /**
+     * Records the dependencies of all given types between the source elements; used to
+     * transfer dependencies from an existing store.
+     */
+    private[de] def processDependencies(
+        source: VirtualSourceElement,
+        target: VirtualSourceElement,
+        dTypes: DependencyTypesBitSet
+    ): Unit = {
+        val state = threadState.get
+        val sourceId = this.sourceId(state, source)
+        val targetId = sourceElementId(target)
+        var remainingDTypes = dTypes
+        while (remainingDTypes != 0L) {
+            val dTypeId = java.lang.Long.numberOfTrailingZeros(remainingDTypes)
+            state.dependencies.add(sourceId, targetId, DependencyTypes(dTypeId))
+            remainingDTypes &= remainingDTypes - 1L
+        }
+    }
+
+    /**
+     * Records the dependencies of all given types of the source element on the
+     * (array or base) type.
+     */
+    private[de] def processDependencies(
+        source: VirtualSourceElement,
+        t:      Type,
+        dTypes: DependencyTypesBitSet
+    ): Unit = {
+        val state = threadState.get
+        val sourceId = this.sourceId(state, source)
+        val targetId = typeId(t)
+        var remainingDTypes = dTypes
+        while (remainingDTypes != 0L) {
+            val dTypeId = java.lang.Long.numberOfTrailingZeros(remainingDTypes)
+            state.dependenciesOnTypes.add(sourceId, targetId, DependencyTypes(dTypeId))
+            remainingDTypes &= remainingDTypes - 1L
+        }
+    }
+
+    /**
+     * Creates a [[ColumnarDependencyStore]] by merging the columns of all threads.
+     */
+    def toStore: ColumnarDependencyStore = {
+        val sourceElements = new Array[VirtualSourceElement](nextSourceElementId.get)
+        sourceElementIds.forEach((e, id) => sourceElements(id.intValue) = e)
+        val types = new Array[Type](nextTypeId.get)
+        typeIds.forEach((t, id) => types(id.intValue) = t)
+
+        val threadStates = allThreadStates.asScala.toList
+        val dependencies = threadStates.map(_.dependencies)
+        val elementsCount = sourceElements.length
+        new ColumnarDependencyStore(
+            sourceElements,
+            types,
+            DependencyIndex(elementsCount, dependencies, byTarget = false),
+            DependencyIndex(elementsCount, dependencies, byTarget = true),
+            DependencyIndex(elementsCount, threadStates.map(_.dependenciesOnTypes), byTarget = false)
+        )
+    }
+}
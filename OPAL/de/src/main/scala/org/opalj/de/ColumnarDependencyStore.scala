@@ -0,0 +1,234 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package de
+
+import scala.collection.mutable
+
+import org.opalj.util.PerformanceEvaluation.time
+import org.opalj.log.LogContext
+import org.opalj.log.OPALLogger
+import org.opalj.collection.mutable.RefIntMap
+import org.opalj.br._
+
+import scala.collection.parallel.CollectionConverters.IterableIsParallelizable
+
+/**
+ * Stores extracted dependencies in a compact, column-oriented representation.
+ *
+ * Each source element is identified by an int id (`[0, sourceElementsCount)`) and the
+ * dependencies are stored in sorted arrays which are indexed by the source as well as by
+ * the target of the dependencies. The types of all dependencies between two source
+ * elements are stored using a single [[DependencyTypesBitSet]].
+ *
+ * ==Thread Safety==
+ * This class is thread safe.
+ *
+ * @see [[DependencyStore]] for a map-based representation.
+ */
+final class ColumnarDependencyStore private[de] (
+        private[this] val sourceElements:  Array[VirtualSourceElement],
+        private[this] val types:           Array[Type],
+        private[this] val outgoing:        DependencyIndex,
+        private[this] val incoming:        DependencyIndex,
+        private[this] val outgoingOnTypes: DependencyIndex
+) {
+
+    private[this] lazy val sourceElementIds: RefIntMap[VirtualSourceElement] = {
+        val ids = RefIntMap[VirtualSourceElement](sourceElements.length)
+        var id = 0
+        while (id < sourceElements.length) {
+            ids(sourceElements(id)) = id
+            id += 1
+        }
+        ids
+    }
+
+    /** The number of source elements that are the source or target of some dependency. */
+    def sourceElementsCount: Int = sourceElements.length
+
+    def sourceElement(id: Int): VirtualSourceElement = sourceElements(id)
+
+    /** Returns the id of the given source element or `-1` if it is unknown. */
+    def sourceElementId(sourceElement: VirtualSourceElement): Int = {
+        sourceElementIds.getOrElse(sourceElement, -1)
+    }
+
+    /** The number of pairs of source elements that have a dependency. */
+    def dependenciesCount: Int = outgoing.entriesCount
+
+    /** The number of pairs of source elements and array/base types that have a dependency. */
+    def dependenciesOnTypesCount: Int = outgoingOnTypes.entriesCount
+
+    /** The number of source elements the given source element depends on. */
+    def targetsCount(sourceId: Int): Int = outgoing.count(sourceId)
+
+    /** The number of source elements that depend on the given source element. */
+    def sourcesCount(targetId: Int): Int = incoming.count(targetId)
+
+    /**
+     * Calls `f` for each source element the given source element depends on; the targets are
+     * passed to `f` in ascending order of their ids.
+     */
+    def foreachTarget[U](sourceId: Int)(f: (Int, DependencyTypesBitSet) => U): Unit = {
+        outgoing.foreach(sourceId)(f)
+    }
+
+    /**
+     * Calls `f` for each source element which depends on the given source element; the
+     * sources are passed to `f` in ascending order of their ids.
+     */
+    def foreachSource[U](targetId: Int)(f: (Int, DependencyTypesBitSet) => U): Unit = {
+        incoming.foreach(targetId)(f)
+    }
+
+    /** Calls `f` for each array or base type the given source element depends on. */
+    def foreachTypeTarget[U](sourceId: Int)(f: (Type, DependencyTypesBitSet) => U): Unit = {
+        outgoingOnTypes.foreach(sourceId) { (typeId, dTypes) => f(types(typeId), dTypes) }
+    }
+
+    /** Calls `f` for each pair of source elements that have a dependency. */
+    def foreachDependency[U](f: (Int, Int, DependencyTypesBitSet) => U): Unit = {
+        var sourceId = 0
+        while (sourceId < sourceElements.length) {
+            val s = sourceId
+            outgoing.foreach(s) { (targetId, dTypes) => f(s, targetId, dTypes) }
+            sourceId += 1
+        }
+    }
+
+    /**
+     * Returns the types of the dependencies between the given source elements; `0L` if the
+     * source does not depend on the target.
+     */
+    def dependencyTypes(sourceId: Int, targetId: Int): DependencyTypesBitSet = {
+        outgoing.dependencyTypes(sourceId, targetId)
+    }
+
+    /**
+     * Creates a new store that reflects the changes of the given types. The dependencies
+     * that were extracted from the class files of the changed types are removed and the
+     * dependencies of the given (new) class files are extracted; all other dependencies are
+     * taken over from this store.
+     *
+     * @param changedTypes The types which were changed, added or removed.
+     * @param classFiles The current class files of the changed types; removed types have none.
+     */
+    def updated(
+        changedTypes:              scala.collection.Set[ObjectType],
+        classFiles:                Iterable[ClassFile],
+        createDependencyExtractor: (DependencyProcessor) => DependencyExtractor
+    )(
+        implicit
+        logContext: LogContext
+    ): ColumnarDependencyStore = {
+        val isChanged = new Array[Boolean](sourceElements.length)
+        var id = 0
+        while (id < sourceElements.length) {
+            val classType = sourceElements(id).classType
+            isChanged(id) = classType.isObjectType && changedTypes.contains(classType.asObjectType)
+            id += 1
+        }
+
+        val dc = time {
+            val dc = new ColumnarDependencyCollectingDependencyProcessor(Some(sourceElements.length))
+            // An INNER_CLASS dependency is extracted from the class file of the outer class
+            // (the target); all other dependencies are extracted from the class file of the
+            // source element.
+            val innerClass = DependencyTypes.bitMask(DependencyTypes.INNER_CLASS)
+            foreachDependency { (sourceId, targetId, dTypes) =>
+                var retainedDTypes = 0L
+                if (!isChanged(sourceId)) retainedDTypes |= dTypes & ~innerClass
+                if (!isChanged(targetId)) retainedDTypes |= dTypes & innerClass
+                if (retainedDTypes != 0L) {
+                    dc.processDependencies(
+                        sourceElements(sourceId), sourceElements(targetId), retainedDTypes
+                    )
+                }
+            }
+            id = 0
+            while (id < sourceElements.length) {
+                if (!isChanged(id)) {
+                    val sourceElement = sourceElements(id)
+                    foreachTypeTarget(id) { (t, dTypes) => dc.processDependencies(sourceElement, t, dTypes) }
+                }
+                id += 1
+            }
+
+            val de = createDependencyExtractor(dc)
+            classFiles.par.foreach { de.process(_) }
+            dc
+        } { ns =>
+            OPALLogger.info("progress", "updating the dependencies took "+ns.toSeconds)
+        }
+
+        dc.toStore
+    }
+
+    /**
+     * Converts this store into a (map-based) [[DependencyStore]].
+     */
+    def toDependencyStore: DependencyStore = {
+        type DTypes = scala.collection.Set[DependencyType]
+        val dependencies = mutable.HashMap.empty[VirtualSourceElement, mutable.HashMap[VirtualSourceElement, DTypes]]
+        val dependenciesOnArrayTypes = mutable.HashMap.empty[VirtualSourceElement, mutable.HashMap[ArrayType, DTypes]]
+        val dependenciesOnBaseTypes = mutable.HashMap.empty[VirtualSourceElement, mutable.HashMap[BaseType, DTypes]]
+        var sourceId = 0
+        while (sourceId < sourceElements.length) {
+            val source = sourceElements(sourceId)
+            if (outgoing.count(sourceId) > 0) {
+                val targets = dependencies.getOrElseUpdate(source, mutable.HashMap.empty)
+                outgoing.foreach(sourceId) { (targetId, dTypes) =>
+                    targets(sourceElements(targetId)) = DependencyTypes.toSet(dTypes)
+                }
+            }
+            foreachTypeTarget(sourceId) { (t, dTypes) =>
+                if (t.isArrayType) {
+                    dependenciesOnArrayTypes.getOrElseUpdate(source, mutable.HashMap.empty)(t.asArrayType) =
+                        DependencyTypes.toSet(dTypes)
+                } else {
+                    dependenciesOnBaseTypes.getOrElseUpdate(source, mutable.HashMap.empty)(t.asBaseType) =
+                        DependencyTypes.toSet(dTypes)
+                }
+            }
+            sourceId += 1
+        }
+        new DependencyStore(dependencies, dependenciesOnArrayTypes, dependenciesOnBaseTypes)
+    }
+}
+
+object ColumnarDependencyStore {
+
+    def apply(
+        classFiles:                Iterable[ClassFile],
+        createDependencyExtractor: (DependencyProcessor) => DependencyExtractor
+    )(
+        implicit
+        logContext: LogContext
+    ): ColumnarDependencyStore = {
+
+        val dc = time {
+            val dc = new ColumnarDependencyCollectingDependencyProcessor(Some(classFiles.size * 10))
+            val de = createDependencyExtractor(dc)
+            classFiles.par.foreach { de.process(_) }
+            dc
+        } { ns =>
+            OPALLogger.info("progress", "collecting dependencies took "+ns.toSeconds)
+        }
+
+        time {
+            dc.toStore
+        } { ns =>
+            OPALLogger.info("progress", "creating the dependencies store took "+ns.toSeconds)
+        }
+    }
+
+    def apply(
+        classFiles: Iterable[ClassFile]
+    )(
+        implicit
+        logContext: LogContext
+    ): ColumnarDependencyStore = {
+        val createDependencyExtractor = (dp: DependencyProcessor) => new DependencyExtractor(dp)
+        apply(classFiles, createDependencyExtractor)
+    }
+}
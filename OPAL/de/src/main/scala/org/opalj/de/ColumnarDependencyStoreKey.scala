@@ -0,0 +1,20 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package de
+
+import org.opalj.br.analyses.SomeProject
+import org.opalj.br.analyses.ProjectInformationKey
+
+/**
+ * Key that can be used to get a [[ColumnarDependencyStore]] that contains all dependencies.
+ *
+ * @see [[DependencyStoreKey]]
+ */
+object ColumnarDependencyStoreKey extends ProjectInformationKey[ColumnarDependencyStore, Nothing] {
+
+    override def requirements(project: SomeProject): Seq[ProjectInformationKey[_ <: AnyRef, Nothing]] = Nil
+
+    override def compute(project: SomeProject): ColumnarDependencyStore = {
+        ColumnarDependencyStore(project.allClassFiles)(project.logContext)
+    }
+}
@@ -0,0 +1,31 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package de
+
+import org.opalj.br.analyses.SomeProject
+import org.opalj.br.analyses.ProjectInformationKey
+
+/**
+ * Key that can be used to get a [[ColumnarDependencyStore]] that contains all dependencies
+ * except self dependencies.
+ *
+ * @see [[DependencyStoreWithoutSelfDependenciesKey]]
+ */
+object ColumnarDependencyStoreWithoutSelfDependenciesKey
+    extends ProjectInformationKey[ColumnarDependencyStore, Nothing] {
+
+    override def requirements(project: SomeProject): Seq[ProjectInformationKey[_ <: AnyRef, Nothing]] = Nil
+
+    /**
+     * Creates a dependency extractor which does not report self dependencies to the given
+     * processor; can also be used to update a store using [[ColumnarDependencyStore.updated]].
+     */
+    def createDependencyExtractor(dp: DependencyProcessor): DependencyExtractor = {
+        val baseProcessor = new DependencyProcessorDecorator(dp) with FilterSelfDependencies
+        new DependencyExtractor(baseProcessor)
+    }
+
+    override def compute(project: SomeProject): ColumnarDependencyStore = {
+        ColumnarDependencyStore(project.allClassFiles, createDependencyExtractor)(project.logContext)
+    }
+}
@@ -0,0 +1,158 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package de
+
+import java.util.Arrays
+
+/**
+ * A growable, column-oriented list of `(source, target, dependency type)` triples where
+ * the source and target are ids (e.g., of interned source elements).
+ *
+ * ==Thread Safety==
+ * This class is not thread-safe; it is intended to be used by a single thread.
+ */
+private[de] final class DependencyColumns {
+
+    private[this] var sources: Array[Int] = new Array[Int](256)
+    private[this] var targets: Array[Int] = new Array[Int](256)
+    private[this] var dTypes: Array[Byte] = new Array[Byte](256)
+    private[this] var size0: Int = 0
+
+    def size: Int = size0
+
+    def add(source: Int, target: Int, dType: DependencyType): Unit = {
+        val size = this.size0
+        if (size == sources.length) {
+            val newLength = size * 2
+            sources = Arrays.copyOf(sources, newLength)
+            targets = Arrays.copyOf(targets, newLength)
+            dTypes = Arrays.copyOf(dTypes, newLength)
+        }
+        sources(size) = source
+        targets(size) = target
+        dTypes(size) = dType.id.toByte
+        size0 = size + 1
+    }
+
+    def source(index: Int): Int = sources(index)
+
+    def target(index: Int): Int = targets(index)
+
+    def dTypeId(index: Int): Int = dTypes(index).toInt
+}
+
+/**
+ * A compressed sparse row (CSR) index of dependencies. For each key (the id of a source
+ * or a target) the index stores the ids of the related elements in ascending order
+ * along with the set of the types of the dependencies.
+ *
+ * @param offsets The entries related to the key `k` are stored in the range
+ *        `[offsets(k), offsets(k+1))` of `others` and `dTypes`.
+ */
+private[de] final class DependencyIndex(
+        private[this] val offsets: Array[Int],
+        private[this] val others:  Array[Int],
+        private[this] val dTypes:  Array[DependencyTypesBitSet]
+) {
+
+    def keysCount: Int = offsets.length - 1
+
+    def entriesCount: Int = others.length
+
+    def count(key: Int): Int = offsets(key + 1) - offsets(key)
+
+    def foreach[U](key: Int)(f: (Int, DependencyTypesBitSet) => U): Unit = {
+        var i = offsets(key)
+        val end = offsets(key + 1)
+        while (i < end) {
+            f(others(i), dTypes(i))
+            i += 1
+        }
+    }
+
+    /** Returns the types of the dependencies between `key` and `other` (`0L` if none). */
+    def dependencyTypes(key: Int, other: Int): DependencyTypesBitSet = {
+        val index = Arrays.binarySearch(others, offsets(key), offsets(key + 1), other)
+        if (index >= 0) dTypes(index) else 0L
+    }
+}
+
+private[de] object DependencyIndex {
+
+    /**
+     * Creates the index by (conceptually) sorting all triples by the key and then the
+     * related element; duplicate entries are merged.
+     *
+     * @param byTarget If `true`, the key of a triple is its target; otherwise, its source.
+     */
+    def apply(
+        keysCount: Int,
+        columns:   Iterable[DependencyColumns],
+        byTarget:  Boolean
+    ): DependencyIndex = {
+        // 1. count the entries per key
+        val offsets = new Array[Int](keysCount + 1)
+        columns foreach { c =>
+            var i = 0
+            val size = c.size
+            while (i < size) {
+                val key = if (byTarget) c.target(i) else c.source(i)
+                offsets(key + 1) += 1
+                i += 1
+            }
+        }
+        var k = 1
+        while (k <= keysCount) {
+            offsets(k) += offsets(k - 1)
+            k += 1
+        }
+
+        // 2. scatter the entries; the related element is stored in the upper 32 bits and
+        //    the id of the dependency type in the lower bits
+        val entries = new Array[Long](offsets(keysCount))
+        val nextEntry = Arrays.copyOf(offsets, keysCount)
+        columns foreach { c =>
+            var i = 0
+            val size = c.size
+            while (i < size) {
+                val key = if (byTarget) c.target(i) else c.source(i)
+                val other = if (byTarget) c.source(i) else c.target(i)
+                val index = nextEntry(key)
+                entries(index) = (other.toLong << 32) | c.dTypeId(i).toLong
+                nextEntry(key) = index + 1
+                i += 1
+            }
+        }
+
+        // 3. sort the entries per key and merge the entries related to the same element
+        val newOffsets = new Array[Int](keysCount + 1)
+        val others = new Array[Int](entries.length)
+        val dTypes = new Array[DependencyTypesBitSet](entries.length)
+        var count = 0
+        k = 0
+        while (k < keysCount) {
+            val start = offsets(k)
+            val end = offsets(k + 1)
+            Arrays.sort(entries, start, end)
+            val firstOfKey = count
+            var i = start
+            while (i < end) {
+                val entry = entries(i)
+                val other = (entry >>> 32).toInt
+                val dType = 1L << (entry & 0xFF)
+                if (count > firstOfKey && others(count - 1) == other) {
+                    dTypes(count - 1) |= dType
+                } else {
+                    others(count) = other
+                    dTypes(count) = dType
+                    count += 1
+                }
+                i += 1
+            }
+            newOffsets(k + 1) = count
+            k += 1
+        }
+
+        new DependencyIndex(newOffsets, Arrays.copyOf(others, count), Arrays.copyOf(dTypes, count))
+    }
+}
@@ -0,0 +1,77 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package de
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.flatspec.AnyFlatSpec
+
+import org.opalj.log.GlobalLogContext
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.reader.Java8Framework.ClassFiles
+
+/**
+ * Tests that the [[ColumnarDependencyStore]] contains the same dependencies as the
+ * (map-based) [[DependencyStore]].
+ */
+@org.junit.runner.RunWith(classOf[org.scalatestplus.junit.JUnitRunner])
+class ColumnarDependencyStoreTest extends AnyFlatSpec with Matchers {
+
+    implicit val logContext: GlobalLogContext.type = GlobalLogContext
+
+    val classFiles = ClassFiles(locateTestResources("classfiles/Flashcards 0.4 - target 1.6.jar", "bi")).map(_._1)
+
+    val store = DependencyStore(classFiles)
+    val columnarStore = ColumnarDependencyStore(classFiles)
+
+    behavior of "the ColumnarDependencyStore"
+
+    it should "contain the same dependencies as the DependencyStore" in {
+        columnarStore.dependenciesCount should be(store.dependencies.valuesIterator.map(_.size).sum)
+        store.dependencies foreach { e =>
+            val (source, targets) = e
+            val sourceId = columnarStore.sourceElementId(source)
+            sourceId should be >= 0
+            columnarStore.targetsCount(sourceId) should be(targets.size)
+            targets foreach { t =>
+                val (target, dTypes) = t
+                val targetId = columnarStore.sourceElementId(target)
+                DependencyTypes.toSet(columnarStore.dependencyTypes(sourceId, targetId)) should be(dTypes)
+            }
+        }
+
+        val convertedStore = columnarStore.toDependencyStore
+        convertedStore.dependencies should be(store.dependencies)
+        convertedStore.dependenciesOnArrayTypes should be(store.dependenciesOnArrayTypes)
+        convertedStore.dependenciesOnBaseTypes should be(store.dependenciesOnBaseTypes)
+    }
+
+    it should "index the dependencies by their target" in {
+        var incomingCount = 0
+        for { targetId <- 0 until columnarStore.sourceElementsCount } {
+            var lastSourceId = -1
+            columnarStore.foreachSource(targetId) { (sourceId, dTypes) =>
+                sourceId should be > lastSourceId
+                lastSourceId = sourceId
+                columnarStore.dependencyTypes(sourceId, targetId) should be(dTypes)
+                incomingCount += 1
+            }
+        }
+        incomingCount should be(columnarStore.dependenciesCount)
+    }
+
+    it should "contain the same dependencies as a new store after an update" in {
+        val changedClassFiles = classFiles.take(classFiles.size / 2)
+        val changedTypes = changedClassFiles.map(_.thisType).toSet
+        val createDependencyExtractor = (dp: DependencyProcessor) => new DependencyExtractor(dp)
+
+        val updatedStore = columnarStore.updated(changedTypes, changedClassFiles, createDependencyExtractor)
+        updatedStore.dependenciesCount should be(columnarStore.dependenciesCount)
+        updatedStore.toDependencyStore.dependencies should be(store.dependencies)
+
+        val remainingClassFiles = classFiles.drop(classFiles.size / 2)
+        val reducedStore = columnarStore.updated(changedTypes, Nil, createDependencyExtractor)
+        reducedStore.toDependencyStore.dependencies should be(
+            DependencyStore(remainingClassFiles).dependencies
+        )
+    }
+}
@@ -0,0 +1,40 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+
+import java.util.concurrent.ConcurrentHashMap
+
+import scala.jdk.CollectionConverters._
+
+import org.opalj.graphs.DominanceFrontiers
+import org.opalj.br.Method
+import org.opalj.br.analyses.ProjectInformationKey
+import org.opalj.br.analyses.ProjectInformationKeys
+import org.opalj.br.analyses.SomeProject
+
+/**
+ * ''Key'' to get the control dependencies of the statements of the 3-address code of all
+ * methods with a body (see [[EagerDetachedTACAIKey]]). The control dependencies of the methods
+ * are computed in parallel.
+ *
+ * The control dependencies of a method are those of the CFG of its 3-address code (see
+ * [[org.opalj.br.cfg.CFG.controlDependencies]]); i.e., the nodes are the indexes of the
+ * statements. Given that the control dependencies are cached by the CFG, analyses which require
+ * the control dependencies of only a few methods should directly use the CFG.
+ */
+object ControlDependenciesKey extends ProjectInformationKey[Method => DominanceFrontiers, Nothing] {
+
+    override def requirements(project: SomeProject): ProjectInformationKeys = {
+        Seq(EagerDetachedTACAIKey)
+    }
+
+    override def compute(project: SomeProject): Method => DominanceFrontiers = {
+        val taCodes = project.get(EagerDetachedTACAIKey)
+        val controlDependencies = new ConcurrentHashMap[Method, DominanceFrontiers]()
+        project.parForeachMethodWithBody() { mi =>
+            val m = mi.method
+            controlDependencies.put(m, taCodes(m).cfg.controlDependencies)
+        }
+        controlDependencies.asScala
+    }
+}
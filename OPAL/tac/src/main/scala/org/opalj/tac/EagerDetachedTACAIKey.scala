@@ -1,11 +1,12 @@
 /* BSD 2-Clause License - see OPAL/LICENSE for details. */
 package org.opalj.tac
 
-import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ConcurrentHashMap
 
 import scala.jdk.CollectionConverters._
-import scala.collection.mutable
 
+import org.opalj.concurrent.NumberOfThreadsForCPUBoundTasks
+import org.opalj.concurrent.defaultIsInterrupted
 import org.opalj.value.ValueInformation
 import org.opalj.br.Method
 import org.opalj.br.analyses.ProjectInformationKey
@@ -42,26 +43,49 @@ object EagerDetachedTACAIKey extends TACAIKey[Method => Domain with RecordDefUse
     override def compute(
         project: SomeProject
     ): Method => AITACode[TACMethodParameter, ValueInformation] = {
+        val taCodes = new ConcurrentHashMap[Method, AITACode[TACMethodParameter, ValueInformation]]()
+        foreachTACode(project) { (m, taCode) => taCodes.put(m, taCode) }
+        taCodes.asScala
+    }
+
+    /**
+     * Computes the 3-address code of all methods with a body using the configured domain and
+     * passes each code to the given consumer as soon as it is computed. Neither the code nor
+     * the results of the underlying abstract interpretations are retained; hence, whole-program
+     * analyses which only need to look at one method at a time (e.g., checkers or serializers)
+     * can process all methods of a project using only as much memory as is required by the
+     * 3-address code of at most `parallelizationLevel` methods.
+     *
+     * The consumer is called concurrently by up to `parallelizationLevel` threads and has to be
+     * thread-safe; to get a sequential stream of the 3-address code, use a parallelization level
+     * of `1`. The consumer's thread computes the next 3-address code only after the consumer has
+     * returned; i.e., slow consumers slow down the computation instead of causing the computed
+     * code to pile up.
+     *
+     * @note The domain factory is configured as described for `compute`. However, the computed
+     *       code is not stored as the project information associated with this key.
+     */
+    def foreachTACode(
+        project:              SomeProject,
+        parallelizationLevel: Int           = NumberOfThreadsForCPUBoundTasks,
+        isInterrupted:        () => Boolean = defaultIsInterrupted
+    )(
+        consumer: (Method, AITACode[TACMethodParameter, ValueInformation]) => Unit
+    ): Unit = {
         val domainFactory = project.
             getProjectInformationKeyInitializationData(this).
             getOrElse((m: Method) => new DefaultDomainWithCFGAndDefUse(project, m))
 
-        val taCodes =
-            new ConcurrentLinkedQueue[(Method, AITACode[TACMethodParameter, ValueInformation])]()
-
-        project.parForeachMethodWithBody() { mi =>
+        project.parForeachMethodWithBody(isInterrupted, parallelizationLevel) { mi =>
             val m = mi.method
             val domain = domainFactory(m)
             val aiResult = BaseAI(m, domain)
             val code = TACAI(project, m, aiResult)
             // well... the following cast safe is safe, because the underlying
-            // data-structure is actually, conceptually immutable
-            val taCode = code.asInstanceOf[AITACode[TACMethodParameter, ValueInformation]]
-            taCode.detach()
-            taCodes.add((m, taCode))
+            // data-structure is actually, conceptually immutable;
+            // detaching the code from the domain enables the garbage collection of the ai result
+            val taCode = code.asInstanceOf[AITACode[TACMethodParameter, ValueInformation]].detach()
+            consumer(m, taCode)
         }
-
-        mutable.Map.empty[Method, AITACode[TACMethodParameter, ValueInformation]] ++
-            taCodes.asScala
     }
 }
@@ -0,0 +1,189 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.value.ValueInformation
+
+/**
+ * A [[SparseDataFlowAnalysis]] where the facts of each definition site are a subset of a finite
+ * and fixed set of (numbered) facts - e.g., the parameters from which a value may originate - and
+ * where facts are joined using set union; i.e., a classic ''may'' analysis.
+ *
+ * The facts of all definition sites are stored in a single `long` array; each definition site
+ * uses `ceil(factsCount / 64)` consecutive words. Therefore, the facts of a definition site are
+ * updated in place and no intermediate sets are created.
+ *
+ * @example Computing the parameters on which each value (transitively) depends:
+ * {{{
+ * val analysis = new SparseBitVectorAnalysis(code, factsCount = method.descriptor.parametersCount + 1) {
+ *     override def originFacts(origin: Int, facts: BitVector): Unit = {
+ *         if (origin < 0 && !ai.isImplicitOrExternalException(origin)) facts += -origin - 1
+ *     }
+ *     override def transfer(index: Int, expr: Expr[V], facts: BitVector): Unit = {
+ *         facts.addFactsOfOperands(expr)
+ *     }
+ * }.solve()
+ * }}}
+ *
+ * @param factsCount The number of distinct facts; the facts are identified by the ints
+ *        `[0, factsCount)`.
+ */
+abstract class SparseBitVectorAnalysis(
+        code:           TACode[TACMethodParameter, DUVar[ValueInformation]],
+        val factsCount: Int
+) extends SparseDataFlowAnalysis(code) {
+
+    private[this] val wordsCount = (factsCount + 63) >>> 6
+
+    private[this] val defSitesWords = new Array[Long](code.stmts.length * wordsCount)
+
+    private[this] val newFacts = new BitVector(new Array[Long](wordsCount))
+
+    /**
+     * Adds the facts of the value with the given (negative) origin; i.e., of a parameter or an
+     * exception that is raised by the JVM or by a called method.
+     */
+    protected def originFacts(origin: Int, facts: BitVector): Unit
+
+    /**
+     * Adds the facts of the variable defined by the assignment with the given index to `facts`.
+     * The facts of the operands are added using [[BitVector.addFactsOf]] or
+     * [[BitVector.addFactsOfOperands]].
+     */
+    protected def transfer(index: Int, expr: Expr[V], facts: BitVector): Unit
+
+    /**
+     * Adds the facts of the exception caught by the [[CaughtException]] statement with the
+     * given index to `facts`. By default, the facts of all origins of the caught exception
+     * (see [[CaughtException.origins]]) are added.
+     */
+    protected def transferCaughtException(
+        index:           Int,
+        caughtException: CaughtException[V],
+        facts:           BitVector
+    ): Unit = {
+        caughtException.origins foreach facts.addFactsOf
+    }
+
+    final override protected def evaluate(index: Int, expr: Expr[V]): Boolean = {
+        java.util.Arrays.fill(newFacts.words, 0L)
+        transfer(index, expr, newFacts)
+        joinNewFacts(index)
+    }
+
+    final override protected def evaluate(
+        index:           Int,
+        caughtException: CaughtException[V]
+    ): Boolean = {
+        java.util.Arrays.fill(newFacts.words, 0L)
+        transferCaughtException(index, caughtException, newFacts)
+        joinNewFacts(index)
+    }
+
+    private[this] def joinNewFacts(index: Int): Boolean = {
+        val newWords = newFacts.words
+        var changed = false
+        var i = 0
+        val offset = index * wordsCount
+        while (i < wordsCount) {
+            val oldWord = defSitesWords(offset + i)
+            val newWord = oldWord | newWords(i)
+            if (newWord != oldWord) {
+                defSitesWords(offset + i) = newWord
+                changed = true
+            }
+            i += 1
+        }
+        changed
+    }
+
+    /**
+     * Returns `true` if the given fact holds for the variable defined by the assignment - or
+     * for the exception caught by the CaughtException statement - with the given index. Requires that the analysis was [[solve]]d.
+     */
+    final def contains(defSite: Int, fact: Int): Boolean = {
+        (defSitesWords(defSite * wordsCount + (fact >>> 6)) & (1L << fact)) != 0L
+    }
+
+    /**
+     * The facts of the variable defined by the assignment - or of the exception caught by the
+     * CaughtException statement - with the given index. Requires that the analysis was [[solve]]d.
+     */
+    final def facts(defSite: Int): IntTrieSet = {
+        var facts = IntTrieSet.empty
+        var fact = 0
+        while (fact < factsCount) {
+            if (contains(defSite, fact)) facts += fact
+            fact += 1
+        }
+        facts
+    }
+
+    /**
+     * The facts of the given variable; i.e., the union of the facts of its definition sites.
+     * Requires that the analysis was [[solve]]d.
+     */
+    final def facts(uVar: V): IntTrieSet = {
+        val facts = new BitVector(new Array[Long](wordsCount))
+        facts.addFactsOf(uVar)
+        var result = IntTrieSet.empty
+        var fact = 0
+        while (fact < factsCount) {
+            if (facts.contains(fact)) result += fact
+            fact += 1
+        }
+        result
+    }
+
+    /**
+     * A mutable set of facts.
+     */
+    final class BitVector private[SparseBitVectorAnalysis] (
+            private[SparseBitVectorAnalysis] val words: Array[Long]
+    ) {
+
+        def +=(fact: Int): Unit = words(fact >>> 6) |= (1L << fact)
+
+        def contains(fact: Int): Boolean = (words(fact >>> 6) & (1L << fact)) != 0L
+
+        /**
+         * Adds the facts of the value with the given origin; i.e., the current facts of the
+         * respective assignment or the facts of the parameter or exception.
+         */
+        def addFactsOf(origin: Int): Unit = {
+            if (origin < 0) {
+                originFacts(origin, this)
+            } else {
+                val offset = origin * wordsCount
+                var i = 0
+                while (i < wordsCount) {
+                    words(i) |= defSitesWords(offset + i)
+                    i += 1
+                }
+            }
+        }
+
+        /** Adds the facts of all definition sites of the given variable. */
+        def addFactsOf(uVar: V): Unit = uVar.definedBy foreach addFactsOf
+
+        /**
+         * Adds the facts of all variables that are (direct) operands of the given expression or
+         * of the expression itself if it is a variable.
+         */
+        def addFactsOfOperands(expr: Expr[V]): Unit = {
+            if (expr.isVar) {
+                addFactsOf(expr.asVar)
+                return ;
+            }
+
+            var i = 0
+            val subExprCount = expr.subExprCount
+            while (i < subExprCount) {
+                val subExpr = expr.subExpr(i)
+                if (subExpr.isVar) addFactsOf(subExpr.asVar)
+                i += 1
+            }
+        }
+    }
+}
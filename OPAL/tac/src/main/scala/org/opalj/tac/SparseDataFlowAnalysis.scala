@@ -0,0 +1,229 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+
+import java.util.{BitSet => JBitSet}
+
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.collection.mutable.IntArrayStack
+import org.opalj.value.ValueInformation
+
+/**
+ * Template for sparse, intra-procedural data-flow analyses of the SSA-like three-address code
+ * (TACAI).
+ *
+ * Instead of propagating the facts along the edges of the control-flow graph - which requires
+ * storing the facts of ''all'' variables for ''each'' statement (see
+ * [[org.opalj.br.cfg.CFG.performForwardDataFlowAnalysis]]) - the facts are only associated with
+ * the definition sites of the variables and are directly propagated along the def-use chains
+ * (`DUVar.usedBy`/`DUVar.definedBy`). Hence, a statement is only (re-)evaluated if the facts of
+ * (at least) one of its operands have changed.
+ *
+ * The work list is ordered by the preorder of the dominator tree of the control-flow graph.
+ * Given that in SSA form every definition dominates its uses, all (acyclic) definitions of the
+ * operands of a statement are evaluated before the statement itself and the number of
+ * re-evaluations is minimized.
+ *
+ * The definition sites are the assignments and the [[CaughtException]] statements; the latter
+ * define the caught exceptions.
+ *
+ * Subclasses store the facts of the definition sites and define how a definition site's facts
+ * are computed; the facts have to form a lattice of finite height and `evaluate` has to be
+ * monotone.
+ *
+ * @see [[SparseBitVectorAnalysis]]
+ */
+abstract class SparseDataFlowAnalysis(
+        val code: TACode[TACMethodParameter, DUVar[ValueInformation]]
+) {
+
+    final type V = DUVar[ValueInformation]
+
+    /**
+     * (Re-)Computes the facts of the variable defined by the assignment with the given index.
+     *
+     * @return `true` if the facts of the variable have changed.
+     */
+    protected def evaluate(index: Int, expr: Expr[V]): Boolean
+
+    /**
+     * (Re-)Computes the facts of the exception that is caught by the [[CaughtException]]
+     * statement with the given index. The facts (typically) depend on the facts of the
+     * exception's origins (see [[CaughtException.origins]]).
+     *
+     * @return `true` if the facts of the caught exception have changed.
+     */
+    protected def evaluate(index: Int, caughtException: CaughtException[V]): Boolean
+
+    private[this] var solved: Boolean = false
+
+    /**
+     * Computes the facts of all definition sites - i.e., of all assignments and caught
+     * exceptions; subsequent calls have no effect.
+     *
+     * @return this analysis.
+     */
+    final def solve(): this.type = {
+        if (solved)
+            return this;
+
+        solved = true
+        val stmts = code.stmts
+        val (rankOf, indexOf) = dominatorTreePreorder()
+
+        val workList = new JBitSet(stmts.length)
+        var hasCaughtExceptions = false
+        var index = 0
+        while (index < stmts.length) {
+            val astID = stmts(index).astID
+            if (astID == Assignment.ASTID) {
+                workList.set(rankOf(index))
+            } else if (astID == CaughtException.ASTID) {
+                workList.set(rankOf(index))
+                hasCaughtExceptions = true
+            }
+            index += 1
+        }
+        // CaughtException statements do not have explicit def-use chains; hence, we have to
+        // compute their dependents on our own
+        val caughtExceptionDependents =
+            if (hasCaughtExceptions) computeCaughtExceptionDependents() else null
+
+        def scheduleUseSite(useSite: Int): Unit = {
+            if (stmts(useSite).astID == Assignment.ASTID) workList.set(rankOf(useSite))
+        }
+
+        var rank = workList.nextSetBit(0)
+        while (rank >= 0) {
+            workList.clear(rank)
+            val index = indexOf(rank)
+            val stmt = stmts(index)
+            if (stmt.astID == Assignment.ASTID) {
+                val assignment = stmt.asAssignment
+                if (evaluate(index, assignment.expr)) {
+                    assignment.targetVar.usedBy foreach scheduleUseSite
+                    if (caughtExceptionDependents != null) {
+                        val dependents = caughtExceptionDependents(index)
+                        if (dependents ne null) dependents foreach { d => workList.set(rankOf(d)) }
+                    }
+                }
+            } else if (evaluate(index, stmt.asCaughtException)) {
+                val dependents = caughtExceptionDependents(index)
+                if (dependents ne null) dependents foreach scheduleUseSite
+            }
+            // Continue with the first statement that is - w.r.t. the dominator tree - not before
+            // the current one; if the statement was part of a loop, the work list contains
+            // statements that need to be reevaluated before it.
+            rank = workList.nextSetBit(0)
+        }
+        this
+    }
+
+    /**
+     * For each CaughtException statement, the statements which use the caught exception and,
+     * for each assignment, the CaughtException statements which catch the exception that is
+     * stored in the assigned variable.
+     */
+    private[this] def computeCaughtExceptionDependents(): Array[IntTrieSet] = {
+        val stmts = code.stmts
+        val dependents = new Array[IntTrieSet](stmts.length)
+        def addDependent(index: Int, dependent: Int): Unit = {
+            val current = dependents(index)
+            dependents(index) = if (current eq null) IntTrieSet(dependent) else current + dependent
+        }
+        def addUses(useSite: Int, expr: Expr[V]): Boolean = {
+            if (expr.isVar) {
+                expr.asVar.definedBy foreach { defSite =>
+                    if (defSite >= 0 && stmts(defSite).astID == CaughtException.ASTID)
+                        addDependent(defSite, useSite)
+                }
+            } else {
+                expr.forallSubExpressions[V](addUses(useSite, _))
+            }
+            true
+        }
+        var index = 0
+        while (index < stmts.length) {
+            val stmt = stmts(index)
+            if (stmt.astID == CaughtException.ASTID) {
+                stmt.asCaughtException.origins foreach { origin =>
+                    if (origin >= 0) addDependent(origin, index)
+                }
+            } else {
+                stmt.forallSubExpressions[V](addUses(index, _))
+            }
+            index += 1
+        }
+        dependents
+    }
+
+    /**
+     * Computes the preorder of the statements w.r.t. the dominator tree.
+     *
+     * @return The rank of each statement and the index of the statement with the respective rank.
+     */
+    private[this] def dominatorTreePreorder(): (Array[Int], Array[Int]) = {
+        val stmtsCount = code.stmts.length
+        val dt = code.cfg.dominatorTree
+        val idom = dt.immediateDominators
+        val startNode = dt.startNode
+        // if the dominator tree is augmented, the last node is the virtual start node
+        val nodesCount = idom.length
+
+        // store the children of each node using the "compressed sparse row" format
+        val childrenOffsets = new Array[Int](nodesCount + 1)
+        var n = 0
+        while (n < nodesCount) {
+            if (n != startNode) childrenOffsets(idom(n) + 1) += 1
+            n += 1
+        }
+        n = 0
+        while (n < nodesCount) {
+            childrenOffsets(n + 1) += childrenOffsets(n)
+            n += 1
+        }
+        val children = new Array[Int](childrenOffsets(nodesCount))
+        val nextChild = java.util.Arrays.copyOf(childrenOffsets, nodesCount)
+        n = 0
+        while (n < nodesCount) {
+            if (n != startNode) {
+                val parent = idom(n)
+                children(nextChild(parent)) = n
+                nextChild(parent) += 1
+            }
+            n += 1
+        }
+
+        val rankOf = new Array[Int](stmtsCount)
+        java.util.Arrays.fill(rankOf, -1)
+        val indexOf = new Array[Int](stmtsCount)
+        var nextRank = 0
+        val stack = new IntArrayStack(Math.max(2, stmtsCount / 4))
+        stack.push(startNode)
+        while (stack.nonEmpty) {
+            val node = stack.pop()
+            if (node < stmtsCount) {
+                rankOf(node) = nextRank
+                indexOf(nextRank) = node
+                nextRank += 1
+            }
+            // push the children in reverse order to visit them in ascending order
+            var i = childrenOffsets(node + 1) - 1
+            while (i >= childrenOffsets(node)) {
+                stack.push(children(i))
+                i -= 1
+            }
+        }
+        // the ranks of (dead) statements that are not reachable - if any - are not relevant
+        n = 0
+        while (n < stmtsCount) {
+            if (rankOf(n) == -1) {
+                rankOf(n) = nextRank
+                indexOf(nextRank) = n
+                nextRank += 1
+            }
+            n += 1
+        }
+        (rankOf, indexOf)
+    }
+}
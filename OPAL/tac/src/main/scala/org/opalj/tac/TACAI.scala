@@ -220,6 +220,22 @@ object TACAI {
             }
         }
 
+        // The same mapping for a single value origin; used when the value origins are iterated
+        // without creating a set.
+        val normalizeParameterOrigin: Int => Int = {
+            if (!isStatic && simpleRemapping) {
+                (aiVO: Int) => aiVO
+            } else if (isStatic && simpleRemapping) {
+                (aiVO: Int) =>
+                    if (aiVO >= 0 || aiVO <= ImmediateVMExceptionsOriginOffset) aiVO else aiVO - 1
+            } else {
+                val aiVOToTACVo: Array[Int] = normalizeParameterOriginsMap(descriptor, isStatic)
+                (aiVO: Int) =>
+                    if (aiVO >= 0 || aiVO <= ImmediateVMExceptionsOriginOffset) aiVO
+                    else aiVOToTACVo(-aiVO - 1)
+            }
+        }
+
         // The list of bytecode instructions which were killed (=>NOP), and for which we now
         // have to clear the usages.
         // Basically a mapping from a UseSite(PC) to a DefSite.
@@ -237,18 +253,22 @@ object TACAI {
             // now the def-site x would point to the use-site x+1, but this
             // site is removed and - therefore - this link from x to x+1 has to
             // be removed.
-            import domain.operandOrigin
-            var origins = normalizeParameterOrigins(operandOrigin(useSitePC, 0))
-            var i = 1
+            var origins = IntTrieSet.empty
+            var i = 0
             while (i < valuesCount) {
-                origins ++= normalizeParameterOrigins(operandOrigin(useSitePC, i))
+                domain.foreachOperandOrigin(useSitePC, i) { aiVO =>
+                    origins += normalizeParameterOrigin(aiVO)
+                }
                 i += 1
             }
             obsoleteUseSites.append(new PCAndAnyRef(useSitePC, origins))
         }
 
         def killRegisterBasedUsages(useSitePC: Int, index: Int): Unit = {
-            val origins = normalizeParameterOrigins(domain.localOrigin(useSitePC, index))
+            var origins = IntTrieSet.empty
+            domain.foreachLocalOrigin(useSitePC, index) { aiVO =>
+                origins += normalizeParameterOrigin(aiVO)
+            }
             obsoleteUseSites.append(new PCAndAnyRef(useSitePC, origins))
         }
 
@@ -351,8 +371,8 @@ object TACAI {
                 v:    aiResult.domain.DomainValue,
                 expr: Expr[DUVar[aiResult.domain.DomainValue]]
             ): Unit = {
-                val usedBy = domain.usedBy(pc)
-                if (usedBy ne null) {
+                if (domain.isUsed(pc)) {
+                    val usedBy = domain.usedBy(pc)
                     // assert(usedBy.forall(_ >= 0)) // internal consistency only
                     val localVal = DVar(aiResult.domain)(pc, v, usedBy)
                     addStmt(Assignment(pc, localVal, expr))
@@ -943,24 +963,16 @@ object TACAI {
 
                 var defOrigin = -1
                 if (!method.isStatic) {
-                    var usedBy = domain.usedBy(-1)
-                    if (usedBy eq null) {
-                        usedBy = IntTrieSet.empty
-                    } else {
-                        usedBy = usedBy.map(pcToIndex)
-                    }
+                    var usedBy = IntTrieSet.empty
+                    domain.foreachUsedBy(-1) { useSite => usedBy += pcToIndex(useSite) }
                     paramDVars(0) = new TACMethodParameter(-1, usedBy)
                     defOrigin = -2
                 }
                 var pIndex = 1
                 while (pIndex < paramCount) {
-                    var usedBy = domain.usedBy(defOrigin)
                     // the usedBy for parameters never refer to parameters => have negative values!
-                    if (usedBy eq null) {
-                        usedBy = IntTrieSet.empty
-                    } else {
-                        usedBy = usedBy.map(pcToIndex)
-                    }
+                    var usedBy = IntTrieSet.empty
+                    domain.foreachUsedBy(defOrigin) { useSite => usedBy += pcToIndex(useSite) }
                     paramDVars(pIndex) = new TACMethodParameter(-pIndex - 1, usedBy)
                     defOrigin -= parameterTypes(pIndex - 1).operandSize
                     pIndex += 1
@@ -177,13 +177,18 @@ final class AITACode[P <: AnyRef, VI <: ValueInformation](
 
     import AITACode.AITACodeCFG
 
-    /** Detaches the 3-address code from the underlying abstract interpreation result. */
+    /**
+     * Detaches the 3-address code from the underlying abstract interpreation result. The CFG
+     * of the detached code refers to the detached statements; hence, the detached code does not
+     * keep the abstract interpretation result alive.
+     */
     def detach(): AITACode[P, ValueInformation] = {
+        val detachedStmts: Array[Stmt[DUVar[ValueInformation]]] = this.stmts.map(_.toCanonicalForm)
         new AITACode[P, ValueInformation](
             params,
-            this.stmts.map(_.toCanonicalForm),
+            detachedStmts,
             pcToIndex,
-            cfg.asInstanceOf[AITACodeCFG[ValueInformation]],
+            cfg.asInstanceOf[AITACodeCFG[ValueInformation]].copy(code = TACStmts(detachedStmts)),
             exceptionHandlers
         )
     }
@@ -0,0 +1,465 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package cg
+
+import scala.collection.immutable.IntMap
+
+import org.opalj.log.LogContext
+import org.opalj.log.OPALLogger
+import org.opalj.fpcf.FinalEP
+import org.opalj.fpcf.PropertyStore
+import org.opalj.br.Code
+import org.opalj.br.CompareAllConfiguration
+import org.opalj.br.DeclaredMethod
+import org.opalj.br.JVMMethod
+import org.opalj.br.Method
+import org.opalj.br.MethodDescriptor
+import org.opalj.br.ObjectType
+import org.opalj.br.Type
+import org.opalj.br.analyses.DeclaredMethodsKey
+import org.opalj.br.analyses.SomeProject
+import org.opalj.br.fpcf.PropertyStoreKey
+import org.opalj.br.instructions.ANEWARRAY
+import org.opalj.br.instructions.CHECKCAST
+import org.opalj.br.instructions.FieldAccess
+import org.opalj.br.instructions.INSTANCEOF
+import org.opalj.br.instructions.INVOKEDYNAMIC
+import org.opalj.br.instructions.LoadClass
+import org.opalj.br.instructions.LoadClass_W
+import org.opalj.br.instructions.LoadDynamic
+import org.opalj.br.instructions.LoadDynamic2_W
+import org.opalj.br.instructions.LoadDynamic_W
+import org.opalj.br.instructions.LoadMethodHandle
+import org.opalj.br.instructions.LoadMethodHandle_W
+import org.opalj.br.instructions.LoadMethodType
+import org.opalj.br.instructions.LoadMethodType_W
+import org.opalj.br.instructions.MULTIANEWARRAY
+import org.opalj.br.instructions.MethodInvocationInstruction
+import org.opalj.br.instructions.NEW
+import org.opalj.ai.domain
+import org.opalj.ai.fpcf.analyses.L0BaseAIResultAnalysis
+import org.opalj.ai.fpcf.properties.AIDomainFactoryKey
+import org.opalj.ai.fpcf.properties.ProjectSpecificAIExecutor
+import org.opalj.tac.fpcf.analyses.TACAIAnalysis.computeTheTACAI
+import org.opalj.tac.fpcf.properties.TACAI
+import org.opalj.tac.fpcf.properties.cg.Callees
+import org.opalj.tac.fpcf.properties.cg.NoCalleesDueToNotReachableMethod
+
+/**
+ * The differences between the class files of two versions of a project.
+ *
+ * @param addedTypes   The types of the class files that only exist in the new version.
+ * @param removedTypes The types of the class files that only exist in the previous version.
+ * @param changedTypes The types of the class files that exist in both versions but differ.
+ * @param onlyMethodBodiesChanged `true` if all changed class files only differ w.r.t. the bodies of
+ *        their methods; i.e., the class hierarchy and all members' signatures are unchanged.
+ */
+case class ClassFileChanges(
+        addedTypes:              Set[ObjectType],
+        removedTypes:            Set[ObjectType],
+        changedTypes:            Set[ObjectType],
+        onlyMethodBodiesChanged: Boolean
+) {
+
+    def isEmpty: Boolean = addedTypes.isEmpty && removedTypes.isEmpty && changedTypes.isEmpty
+
+    /**
+     * `true` if the types and signatures of both versions are identical; i.e., classes were
+     * neither added nor removed and only the bodies of (some) methods changed.
+     */
+    def preservesSignatures: Boolean = {
+        addedTypes.isEmpty && removedTypes.isEmpty && onlyMethodBodiesChanged
+    }
+
+    /**
+     * `true` if the types and signatures of all classes of the previous version are unchanged;
+     * i.e., classes were not removed and only the bodies of (some) methods changed. Classes may
+     * have been added.
+     */
+    def preservesPreviousSignatures: Boolean = removedTypes.isEmpty && onlyMethodBodiesChanged
+}
+
+/**
+ * Computes the call graph of a project that was derived from a previous project for which a call
+ * graph was already computed (e.g., using [[org.opalj.br.analyses.Project.recreate]] or by
+ * loading the changed class files again).
+ *
+ * The most expensive part of computing a call graph is the computation of the three-address code
+ * of all reachable methods. Given that the types and the signatures of all members of the previous
+ * version are unchanged - i.e., the class files only differ w.r.t. the bodies of some methods and
+ * new classes may have been added - the three-address code of all methods whose bodies are
+ * unchanged and which do not refer to an added class is also unchanged, if it is computed using a
+ * domain that only uses information about the analyzed method and the class hierarchy. Hence, the
+ * [[TACAI]] properties of these methods are taken from the previous property store and only
+ * the other methods are analyzed again. A class may only be added if it was unknown to the
+ * previous class hierarchy; otherwise, the supertypes of a previous class may have changed.
+ *
+ * Additionally, the [[Callees]] of all methods except of the changed ones are reused for
+ * rapid type analysis and class hierarchy analysis based call graphs, if
+ *  - no classes were added or removed,
+ *  - the allocation sites (`NEW` instructions) of all changed methods are unchanged, and
+ *  - the three-address code of each changed method that was analyzed before is unchanged (e.g.,
+ *    if only the line numbers or the maximum stack size changed).
+ * In this case, the call graph analyses derive the same results for the same set of reachable
+ * methods. Hence, the previous (final) callees of the unchanged methods are set in the new
+ * property store and these methods are not analyzed again; their callers are derived from
+ * the reused callees. The ids of the declared methods are preserved (see
+ * [[org.opalj.br.analyses.DeclaredMethodsKey]]), because the callees refer to them.
+ * If a changed method makes other methods reachable or instantiates other types, the
+ * previous callees are not reused: the property store cannot retract results; hence,
+ * previous call edges which no longer exist could not be removed.
+ *
+ * Otherwise, the call graph specific properties (`Callees`, `Callers` and the instantiated types)
+ * are derived from scratch based on the (mostly) reused three-address code. In both cases, the
+ * resulting call graph is identical to the one computed from scratch.
+ *
+ * If classes were removed or an added class was known before, if the class hierarchy or the
+ * signatures of members changed, or if the three-address code is computed using a domain which
+ * is not known to be local to a method, the call graph is completely recomputed.
+ *
+ * @example
+ * {{{
+ * val previousProject = Project(...)
+ * previousProject.get(RTACallGraphKey)
+ * ...
+ * val project = Project(...) // the changed version
+ * val callGraph = IncrementalCallGraph(previousProject, project, RTACallGraphKey)
+ * }}}
+ */
+object IncrementalCallGraph {
+
+    /**
+     * Compares the class files of the given projects. Class files that are shared by both
+     * projects (e.g., if the project was recreated) are not compared in detail.
+     */
+    def changes(previousProject: SomeProject, project: SomeProject): ClassFileChanges = {
+        var removedTypes = Set.empty[ObjectType]
+        var changedTypes = Set.empty[ObjectType]
+        var onlyMethodBodiesChanged = true
+
+        previousProject.allClassFiles foreach { previousClassFile =>
+            val classType = previousClassFile.thisType
+            project.classFile(classType) match {
+                case None =>
+                    removedTypes += classType
+                case Some(classFile) if (classFile ne previousClassFile) &&
+                    !classFile.similar(previousClassFile) =>
+                    changedTypes += classType
+                    if (onlyMethodBodiesChanged)
+                        onlyMethodBodiesChanged = classFile.similar(previousClassFile, IgnoreCode)
+                case _ =>
+            }
+        }
+
+        val addedTypes = project.allClassFiles.iterator.collect {
+            case cf if previousProject.classFile(cf.thisType).isEmpty => cf.thisType
+        }.toSet
+
+        ClassFileChanges(addedTypes, removedTypes, changedTypes, onlyMethodBodiesChanged)
+    }
+
+    /**
+     * Computes the call graph of the given project using the given key while reusing the
+     * results of the previous project's property store where possible.
+     *
+     * @param previousProject A previous version of the project for which the call graph was
+     *        computed using the same kind of call graph key.
+     * @param project The current version of the project for which no call graph (and
+     *        no property store) was computed so far.
+     */
+    def apply(
+        previousProject: SomeProject,
+        project:         SomeProject,
+        callGraphKey:    CallGraphKey
+    ): CallGraph = {
+        implicit val logContext: LogContext = project.logContext
+
+        previousProject.has(PropertyStoreKey) match {
+            case Some(previousPS) if canReuseTACAI(previousProject, project) =>
+                val changes = this.changes(previousProject, project)
+                val previousClassHierarchy = previousProject.classHierarchy
+                if (changes.preservesPreviousSignatures &&
+                    changes.addedTypes.forall(t => previousClassHierarchy.isUnknown(t))) {
+                    val mayReuseCallees =
+                        canReuseCallees(previousProject, project, changes, callGraphKey)
+                    if (mayReuseCallees) {
+                        // the ids have to be preserved before the declared methods are computed
+                        val previousDeclaredMethods = previousProject.get(DeclaredMethodsKey)
+                        project.updateProjectInformationKeyInitializationData(DeclaredMethodsKey) {
+                            _ => previousDeclaredMethods
+                        }
+                    }
+                    val ps = project.get(PropertyStoreKey)
+                    val reusedMethodsCount = reuseTACAI(previousPS, project, changes, ps)
+                    OPALLogger.info(
+                        "call graph",
+                        s"reused the three-address code of $reusedMethodsCount methods; "+
+                            s"${changes.changedTypes.size} classes changed, "+
+                            s"${changes.addedTypes.size} classes were added"
+                    )
+                    if (mayReuseCallees) {
+                        reuseCallees(previousPS, previousProject, project, changes, ps) match {
+                            case Some(reusedCalleesCount) =>
+                                OPALLogger.info(
+                                    "call graph",
+                                    s"reused the callees of $reusedCalleesCount methods"
+                                )
+                            case None =>
+                                OPALLogger.info(
+                                    "call graph",
+                                    "the changed methods may affect the callees of other methods; "+
+                                        "recomputing all callees"
+                                )
+                        }
+                    }
+                } else {
+                    OPALLogger.info(
+                        "call graph",
+                        "the class hierarchy or the signatures changed; recomputing everything"
+                    )
+                }
+            case _ =>
+                OPALLogger.info(
+                    "call graph",
+                    "no reusable results of the previous project; recomputing everything"
+                )
+        }
+
+        project.get(callGraphKey)
+    }
+
+    /**
+     * The domains whose results only depend on the analyzed method and the class hierarchy. In
+     * particular, domains which perform invocations or which use project-wide information (e.g.,
+     * refined field or return value types) are not contained.
+     */
+    private[this] val MethodLocalDomains: Set[Class[_]] = Set(
+        classOf[domain.l0.BaseDomain[_]],
+        classOf[domain.l0.BaseDomainWithDefUse[_]],
+        classOf[domain.l0.PrimitiveTACAIDomain],
+        classOf[domain.l1.DefaultIntervalValuesDomain[_]],
+        classOf[domain.l1.DefaultSetValuesDomain[_]],
+        classOf[domain.l1.DefaultReferenceValuesDomain[_]],
+        classOf[domain.l1.DefaultReferenceValuesDomainWithCFGAndDefUse[_]],
+        classOf[domain.l1.DefaultDomain[_]],
+        classOf[domain.l1.DefaultDomainWithCFG[_]],
+        classOf[domain.l1.DefaultDomainWithCFGAndDefUse[_]]
+    )
+
+    private[this] def canReuseTACAI(previousProject: SomeProject, project: SomeProject): Boolean = {
+        if (project.has(PropertyStoreKey).isDefined || project.config != previousProject.config)
+            return false;
+
+        (previousProject.has(AIDomainFactoryKey), project.has(AIDomainFactoryKey)) match {
+            case (Some(previousAI), None) =>
+                // The domain of the current project will be selected in the same way as the
+                // domain of the previous project, because the configurations are equal.
+                previousProject.getProjectInformationKeyInitializationData(AIDomainFactoryKey) ==
+                    project.getProjectInformationKeyInitializationData(AIDomainFactoryKey) &&
+                    MethodLocalDomains.contains(previousAI.domainClass)
+            case (Some(previousAI), Some(ai)) =>
+                (previousAI.domainClass eq ai.domainClass) &&
+                    MethodLocalDomains.contains(ai.domainClass)
+            case _ =>
+                false
+        }
+    }
+
+    /**
+     * Sets the final [[TACAI]] properties of all methods whose bodies did not change w.r.t. the
+     * previous project and which do not refer to an added class.
+     */
+    private[this] def reuseTACAI(
+        previousPS: PropertyStore,
+        project:    SomeProject,
+        changes:    ClassFileChanges,
+        ps:         PropertyStore
+    ): Int = {
+        var reusedMethodsCount = 0
+        previousPS.entities(TACAI.key) foreach {
+            case FinalEP(previousMethod: Method, tacai) =>
+                val classType = previousMethod.classFile.thisType
+                val classFile = project.classFile(classType).get
+                val reusableMethod =
+                    if (changes.changedTypes.contains(classType)) {
+                        classFile.findMethod(previousMethod.name, previousMethod.descriptor).filter {
+                            _.similar(previousMethod, CompareAllConfiguration)
+                        }
+                    } else {
+                        classFile.findMethod(previousMethod.name, previousMethod.descriptor)
+                    }
+                reusableMethod.filter(m => !refersToAnyOf(m, changes.addedTypes)) foreach { method =>
+                    ps.set(method, tacai)
+                    reusedMethodsCount += 1
+                }
+            case _ =>
+            // the computation was interrupted; hence, there is nothing to reuse
+        }
+        reusedMethodsCount
+    }
+
+    private[this] def canReuseCallees(
+        previousProject: SomeProject,
+        project:         SomeProject,
+        changes:         ClassFileChanges,
+        callGraphKey:    CallGraphKey
+    ): Boolean = {
+        // the contexts of these call graphs are identified by the ids of the declared methods
+        ((callGraphKey eq RTACallGraphKey) || (callGraphKey eq CHACallGraphKey)) &&
+            changes.preservesSignatures &&
+            previousProject.has(callGraphKey).isDefined &&
+            previousProject.has(DeclaredMethodsKey).isDefined &&
+            project.has(DeclaredMethodsKey).isEmpty
+    }
+
+    /**
+     * Sets the previous [[Callees]] of all unchanged methods as the callees that are reused by
+     * the call graph analysis (see [[ReusedCalleesKey]]) if the changed methods cannot affect
+     * them. Additionally, sets the [[TACAI]] of the changed methods that were analyzed before,
+     * because it was computed to compare it with the previous one.
+     *
+     * @return The number of methods whose callees are reused or `None` if the callees cannot be
+     *         reused.
+     */
+    private[this] def reuseCallees(
+        previousPS:      PropertyStore,
+        previousProject: SomeProject,
+        project:         SomeProject,
+        changes:         ClassFileChanges,
+        ps:              PropertyStore
+    ): Option[Int] = {
+        implicit val logContext: LogContext = project.logContext
+
+        // the methods of the previous project whose bodies changed and their new versions
+        val changedMethods: Map[Method, Method] = changes.changedTypes.iterator.flatMap { classType =>
+            val classFile = project.classFile(classType).get
+            previousProject.classFile(classType).get.methods.iterator.flatMap { previousMethod =>
+                classFile.findMethod(previousMethod.name, previousMethod.descriptor).filter {
+                    !_.similar(previousMethod, CompareAllConfiguration)
+                }.map(previousMethod -> _)
+            }
+        }.toMap
+
+        def allocations(method: Method): List[ObjectType] = {
+            method.body.map(_.instructions.iterator.collect { case NEW(t) => t }.toList).getOrElse(Nil)
+        }
+
+        val allocationsChanged = changedMethods.exists { methods =>
+            val (previousMethod, method) = methods
+            allocations(previousMethod) != allocations(method)
+        }
+        if (allocationsChanged)
+            return None;
+
+        implicit val aiFactory: ProjectSpecificAIExecutor = project.get(AIDomainFactoryKey)
+        var changedTACAI = false
+        previousPS.entities(TACAI.key) foreach {
+            case FinalEP(previousMethod: Method, previousTACAI) if !changedTACAI &&
+                changedMethods.contains(previousMethod) && previousTACAI.tac.isDefined =>
+                val method = changedMethods(previousMethod)
+                val aiResult = L0BaseAIResultAnalysis.performAI(method)
+                val tacai = computeTheTACAI(method, aiResult, detachFromAIResult = true)(project)
+                ps.set(method, tacai)
+                // the variables of the three-address code are compared by reference; hence,
+                // the textual representations - which include all value information - are
+                // compared
+                changedTACAI = tacai.tac.get.toString != previousTACAI.tac.get.toString
+            case _ =>
+        }
+        if (changedTACAI)
+            return None;
+
+        // the callees refer to the declared methods using their ids
+        val previousDeclaredMethods = previousProject.get(DeclaredMethodsKey)
+        val declaredMethods = project.get(DeclaredMethodsKey)
+        val idsArePreserved = previousDeclaredMethods.declaredMethods.forall { previousDM =>
+            declaredMethods.get(previousDM.id) exists { dm =>
+                (dm ne null) && dm.declaringClassType == previousDM.declaringClassType &&
+                    dm.name == previousDM.name && dm.descriptor == previousDM.descriptor
+            }
+        }
+        if (!idsArePreserved) {
+            OPALLogger.warn("call graph", "the ids of the declared methods were not preserved")
+            return None;
+        }
+
+        var reusedCallees = IntMap.empty[Callees]
+        var calleesAreFinal = true
+        previousPS.entities(Callees.key) foreach {
+            case FinalEP(_, NoCalleesDueToNotReachableMethod) =>
+            case FinalEP(dm: DeclaredMethod, callees) =>
+                if (!dm.hasSingleDefinedMethod || !changedMethods.contains(dm.definedMethod))
+                    reusedCallees = reusedCallees.updated(dm.id, callees)
+            case _ =>
+                // the computation was interrupted; hence, the callees are incomplete
+                calleesAreFinal = false
+        }
+        if (!calleesAreFinal)
+            return None;
+
+        project.updateProjectInformationKeyInitializationData(ReusedCalleesKey) {
+            _ => reusedCallees
+        }
+        Some(reusedCallees.size)
+    }
+
+    /**
+     * Returns `true` if the given method's descriptor or body may refer to one of the given types.
+     */
+    private[this] def refersToAnyOf(method: Method, types: Set[ObjectType]): Boolean = {
+        if (types.isEmpty)
+            return false;
+
+        def refersTo(t: Type): Boolean = {
+            if (t.isObjectType) {
+                types.contains(t.asObjectType)
+            } else if (t.isArrayType) {
+                val elementType = t.asArrayType.elementType
+                elementType.isObjectType && types.contains(elementType.asObjectType)
+            } else {
+                false
+            }
+        }
+
+        def descriptorRefersTo(descriptor: MethodDescriptor): Boolean = {
+            refersTo(descriptor.returnType) || descriptor.parameterTypes.exists(refersTo)
+        }
+
+        descriptorRefersTo(method.descriptor) || method.body.exists { code =>
+            code.exceptionHandlers.exists(_.catchType.exists(refersTo)) ||
+                code.instructions.exists {
+                    case null                           => false
+                    case i: FieldAccess                 => refersTo(i.declaringClass) || refersTo(i.fieldType)
+                    case i: MethodInvocationInstruction =>
+                        refersTo(i.declaringClass) || descriptorRefersTo(i.methodDescriptor)
+                    case NEW(objectType)                => refersTo(objectType)
+                    case CHECKCAST(referenceType)       => refersTo(referenceType)
+                    case INSTANCEOF(referenceType)      => refersTo(referenceType)
+                    case ANEWARRAY(componentType)       => refersTo(componentType)
+                    case MULTIANEWARRAY(arrayType, _)   => refersTo(arrayType)
+                    case LoadClass(referenceType)       => refersTo(referenceType)
+                    case LoadClass_W(referenceType)     => refersTo(referenceType)
+                    // the bootstrap methods and their arguments may refer to any type
+                    case _: INVOKEDYNAMIC | _: LoadMethodHandle | _: LoadMethodHandle_W |
+                        _: LoadMethodType | _: LoadMethodType_W | _: LoadDynamic |
+                        _: LoadDynamic_W | _: LoadDynamic2_W => true
+                    case _ => false
+                }
+        }
+    }
+
+    /**
+     * Compares all parts of a class file except of the bodies of its methods.
+     */
+    private[this] object IgnoreCode extends CompareAllConfiguration {
+
+        override def compareCode(
+            leftContext: JVMMethod,
+            left:        Option[Code],
+            right:       Option[Code]
+        ): (Option[Code], Option[Code]) = {
+            (None, None)
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package cg
+
+import scala.collection.immutable.IntMap
+
+import org.opalj.br.analyses.ProjectInformationKey
+import org.opalj.br.analyses.ProjectInformationKeys
+import org.opalj.br.analyses.SomeProject
+import org.opalj.tac.fpcf.properties.cg.Callees
+
+/**
+ * An [[org.opalj.br.analyses.ProjectInformationKey]] to get the final [[Callees]] of the methods
+ * whose callees are taken from a previous version of the project instead of being recomputed;
+ * the callees are indexed by the ids of the declared methods.
+ * This key is intended to be set up by the [[IncrementalCallGraph]]; by default, no callees are
+ * reused.
+ */
+object ReusedCalleesKey extends ProjectInformationKey[IntMap[Callees], IntMap[Callees]] {
+
+    override def requirements(project: SomeProject): ProjectInformationKeys = Nil
+
+    override def compute(project: SomeProject): IntMap[Callees] = {
+        project.getProjectInformationKeyInitializationData(this).getOrElse(IntMap.empty)
+    }
+}
@@ -40,6 +40,7 @@ import org.opalj.tac.fpcf.properties.cg.Callees
 import org.opalj.tac.fpcf.properties.cg.Callers
 import org.opalj.tac.fpcf.properties.cg.OnlyCallersWithUnknownContext
 import org.opalj.br.fpcf.BasicFPCFTriggeredAnalysisScheduler
+import org.opalj.tac.cg.ReusedCalleesKey
 import org.opalj.tac.cg.TypeProviderKey
 import org.opalj.tac.fpcf.properties.TACAI
 
@@ -62,6 +63,7 @@ class CallGraphAnalysis private[cg] (
     private[this] lazy val getCBSTargets = project.get(CallBySignatureKey)
     private[this] val resovleCallBySignature =
         project.config.getBoolean("org.opalj.br.analyses.cg.callBySignatureResolution")
+    private[this] val reusedCallees = project.get(ReusedCalleesKey)
 
     def c(state: CGState[ContextType])(eps: SomeEPS): ProperPropertyComputationResult = {
         eps match {
@@ -120,6 +122,10 @@ class CallGraphAnalysis private[cg] (
     override final def processMethod(
         callContext: ContextType, tacEP: EPS[Method, TACAI]
     ): ProperPropertyComputationResult = {
+        val reusedCalleesOfMethod = reusedCallees.get(callContext.method.id)
+        if (reusedCalleesOfMethod.isDefined)
+            return processReusedCallees(callContext, reusedCalleesOfMethod.get);
+
         val state = new CGState[ContextType](callContext, tacEP)
         if (tacEP ne null)
             processMethod(state, new DirectCalls())
@@ -129,6 +135,26 @@ class CallGraphAnalysis private[cg] (
 
     override final val processesMethodsWithoutBody = true
 
+    /**
+     * Derives the callers of the (direct) callees of a method whose [[Callees]] are reused (see
+     * [[org.opalj.tac.cg.ReusedCalleesKey]]) instead of analyzing the method again. The reused
+     * callees were already set when the analysis was scheduled (see
+     * `CallGraphAnalysisScheduler.init`).
+     */
+    private[this] def processReusedCallees(
+        callContext: ContextType, callees: Callees
+    ): ProperPropertyComputationResult = {
+        val calls = new DirectCalls()
+        for {
+            (pc, calleeContexts) <- callees.directCallSites(callContext)
+            calleeContext <- calleeContexts
+        } {
+            calls.addCall(callContext, pc, calleeContext)
+        }
+        // the partial result for the callees does not change the reused callees
+        Results(calls.partialResults(callContext))
+    }
+
     protected[this] def doHandleVirtualCall(
         callContext:                   ContextType,
         call:                          Call[V] with VirtualCall[V],
@@ -460,7 +486,7 @@ class CallGraphAnalysis private[cg] (
 object CallGraphAnalysisScheduler extends BasicFPCFTriggeredAnalysisScheduler {
 
     override def requiredProjectInformation: ProjectInformationKeys =
-        Seq(DeclaredMethodsKey, InitialEntryPointsKey, TypeProviderKey)
+        Seq(DeclaredMethodsKey, InitialEntryPointsKey, TypeProviderKey, ReusedCalleesKey)
 
     override def uses: Set[PropertyBounds] =
         PropertyBounds.ubs(Callers, Callees, TACAI)
@@ -477,6 +503,8 @@ object CallGraphAnalysisScheduler extends BasicFPCFTriggeredAnalysisScheduler {
      * Updates the caller properties of the initial entry points
      * ([[org.opalj.br.analyses.cg.InitialEntryPointsKey]]) to be called from an unknown context.
      * This will trigger the computation of the callees for these methods (see `processMethod`).
+     * Furthermore, sets the callees of the methods whose callees are reused
+     * ([[org.opalj.tac.cg.ReusedCalleesKey]]).
      */
     override def init(p: SomeProject, ps: PropertyStore): Null = {
         val declaredMethods = p.get(DeclaredMethodsKey)
@@ -498,6 +526,17 @@ object CallGraphAnalysisScheduler extends BasicFPCFTriggeredAnalysisScheduler {
             }
         }
 
+        p.get(ReusedCalleesKey) foreach { idAndCallees =>
+            val (id, callees) = idAndCallees
+            val dm = declaredMethods(id)
+            ps.preInitialize(dm, Callees.key) {
+                case _: EPK[_, _] =>
+                    InterimEUBP(dm, callees)
+                case eps =>
+                    throw new IllegalStateException(s"unexpected: $eps")
+            }
+        }
+
         null
     }
 
@@ -6,14 +6,22 @@ package analyses
 package cg
 
 import java.io.File
-import java.io.FileInputStream
+import java.util.Arrays
+import java.util.concurrent.ConcurrentLinkedQueue
 
+import scala.collection.mutable
 import scala.collection.mutable.ArrayBuffer
+import scala.jdk.CollectionConverters._
+
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
 
 import play.api.libs.json.Json
 import play.api.libs.json.Reads
 import play.api.libs.json.Writes
 
+import org.opalj.concurrent.parForeachArrayElement
 import org.opalj.fpcf.ProperPropertyComputationResult
 import org.opalj.fpcf.PropertyBounds
 import org.opalj.fpcf.PropertyComputationResult
@@ -109,11 +117,176 @@ object MethodDesc {
     implicit val methodWrites: Writes[MethodDesc] = Json.writes[MethodDesc]
 }
 
+/**
+ * A reachable method of a serialized call graph; all methods are identified using the ids
+ * assigned by the [[SerializedCallGraphReader]].
+ */
+private[cg] final class SerializedReachableMethod(
+        val method:    Int,
+        val callSites: Array[SerializedCallSite]
+)
+
+/**
+ * A call site of a serialized call graph; `pc` is `-1` if the pc is not known.
+ */
+private[cg] final class SerializedCallSite(
+        val declaredTarget: Int,
+        val line:           Int,
+        val pc:             Int,
+        val targets:        Array[Int]
+)
+
+/**
+ * Incrementally reads the reachable methods of a serialized call graph (in the JCG format)
+ * using Jackson's streaming API. Each distinct [[MethodDesc]] is interned and identified by
+ * an int id; the ids are assigned consecutively in the order in which the methods are
+ * encountered.
+ *
+ * ==Thread Safety==
+ * This class is not thread-safe.
+ */
+private[cg] class SerializedCallGraphReader(serializedCG: File) {
+
+    private[this] val parser: JsonParser = new JsonFactory().createParser(serializedCG)
+
+    private[this] val methodIds = mutable.HashMap.empty[MethodDesc, Int]
+    private[this] val methods = ArrayBuffer.empty[MethodDesc]
+
+    private[this] var isInitialized = false
+    private[this] var isExhausted = false
+
+    /** The number of distinct methods read so far. */
+    def methodsCount: Int = methods.size
+
+    def method(id: Int): MethodDesc = methods(id)
+
+    /**
+     * Reads the next (up to) `maxCount` reachable methods; returns an empty array if all
+     * reachable methods were read. The underlying file is closed when the end is reached.
+     */
+    def nextReachableMethods(maxCount: Int): Array[SerializedReachableMethod] = {
+        if (!isInitialized) {
+            isInitialized = true
+            if (!seekReachableMethods()) {
+                isExhausted = true
+                parser.close()
+            }
+        }
+        if (isExhausted)
+            return new Array[SerializedReachableMethod](0);
+
+        val reachableMethods = ArrayBuffer.empty[SerializedReachableMethod]
+        while (reachableMethods.size < maxCount && !isExhausted) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                reachableMethods += readReachableMethod()
+            } else { // END_ARRAY
+                isExhausted = true
+                parser.close()
+            }
+        }
+        reachableMethods.toArray
+    }
+
+    /**
+     * Moves the parser to the start of the array of reachable methods; returns `false` if the
+     * file does not contain reachable methods.
+     */
+    private[this] def seekReachableMethods(): Boolean = {
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            return false;
+
+        var field = parser.nextFieldName()
+        while (field ne null) {
+            if (parser.nextToken() == JsonToken.START_ARRAY && field == "reachableMethods")
+                return true;
+            parser.skipChildren()
+            field = parser.nextFieldName()
+        }
+        false
+    }
+
+    private[this] def readReachableMethod(): SerializedReachableMethod = {
+        var method = -1
+        val callSites = ArrayBuffer.empty[SerializedCallSite]
+        var field = parser.nextFieldName()
+        while (field ne null) {
+            val token = parser.nextToken()
+            field match {
+                case "method" => method = readMethod()
+                case "callSites" if token == JsonToken.START_ARRAY =>
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        callSites += readCallSite()
+                    }
+                case _ => parser.skipChildren()
+            }
+            field = parser.nextFieldName()
+        }
+        if (method == -1)
+            throw new IllegalArgumentException(s"$serializedCG: reachable method without method")
+        new SerializedReachableMethod(method, callSites.toArray)
+    }
+
+    private[this] def readCallSite(): SerializedCallSite = {
+        var declaredTarget = -1
+        var line = -1
+        var pc = -1
+        val targets = ArrayBuffer.empty[Int]
+        var field = parser.nextFieldName()
+        while (field ne null) {
+            val token = parser.nextToken()
+            field match {
+                case "declaredTarget" => declaredTarget = readMethod()
+                case "line"           => line = parser.getIntValue
+                case "pc" if token != JsonToken.VALUE_NULL => pc = parser.getIntValue
+                case "targets" if token == JsonToken.START_ARRAY =>
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        targets += readMethod()
+                    }
+                case _ => parser.skipChildren()
+            }
+            field = parser.nextFieldName()
+        }
+        if (declaredTarget == -1)
+            throw new IllegalArgumentException(s"$serializedCG: call site without declared target")
+        new SerializedCallSite(declaredTarget, line, pc, targets.toArray)
+    }
+
+    /** Reads a method description and returns its id. */
+    private[this] def readMethod(): Int = {
+        var name: String = null
+        var declaringClass: String = null
+        var returnType: String = null
+        var parameterTypes: List[String] = Nil
+        var field = parser.nextFieldName()
+        while (field ne null) {
+            val token = parser.nextToken()
+            field match {
+                case "name"           => name = parser.getText
+                case "declaringClass" => declaringClass = parser.getText
+                case "returnType"     => returnType = parser.getText
+                case "parameterTypes" if token == JsonToken.START_ARRAY =>
+                    val types = ArrayBuffer.empty[String]
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        types += parser.getText
+                    }
+                    parameterTypes = types.toList
+                case _ => parser.skipChildren()
+            }
+            field = parser.nextFieldName()
+        }
+        val methodDesc = MethodDesc(name, declaringClass, returnType, parameterTypes)
+        methodIds.getOrElseUpdate(methodDesc, { methods += methodDesc; methods.size - 1 })
+    }
+}
+
 /**
  * Reads the given serialized CG and stores the relations into the propertyStore.
  * The call graphs must be given in the JCG format.
  *
- * IMPROVE: Currently uses the Play's JSON API, which is not optimized for large files.
+ * The serialized call graph is read incrementally in batches of reachable methods. The
+ * methods of a batch are resolved and the batch's call sites are processed in parallel; the
+ * resulting [[Callees]] and [[Callers]] are passed to the property store before the next
+ * batch is read.
  *
  * @author Florian Kuebler
  */
@@ -124,37 +297,59 @@ private class CallGraphDeserializer private[analyses] (
     private implicit val declaredMethods: DeclaredMethods = project.get(DeclaredMethodsKey)
     private val simpleContexts: SimpleContexts = project.get(SimpleContextsKey)
 
-    private val data: Map[MethodDesc, List[CallSiteDescription]] = Json.parse(
-        new FileInputStream(serializedCG)
-    ).validate[ReachableMethodsDescription].get.toMap
+    private[this] final val BatchSize = 1024
+
+    // The declared methods of the methods read so far; indexed by the ids assigned by the reader.
+    private[this] var resolvedMethods: Array[DeclaredMethod] = new Array[DeclaredMethod](0)
 
     def analyze(p: SomeProject): PropertyComputationResult = {
-        val results = ArrayBuffer.empty[ProperPropertyComputationResult]
-        for (
-            (methodDesc, callSites) <- data
-        ) {
-            val calls = new DirectCalls()
-            val method = methodDesc.toDeclaredMethod
-            for (
-                x <- callSites.groupBy(cs => (cs.declaredTarget, cs.line)).values;
-                (CallSiteDescription(declaredTgtDesc, line, pcOpt, tgts), index) <- x.zipWithIndex
-            ) {
+        val reader = new SerializedCallGraphReader(serializedCG)
+        val batches = Iterator.continually(reader.nextReachableMethods(BatchSize)).takeWhile(_.nonEmpty)
+        Results(batches.flatMap(analyzeBatch(reader, _)))
+    }
 
-                val pc = if (pcOpt.isDefined)
-                    pcOpt.get
-                else
-                    getPCFromLineNumber(method, line, declaredTgtDesc.toDeclaredMethod, index)
+    private[this] def analyzeBatch(
+        reader:           SerializedCallGraphReader,
+        reachableMethods: Array[SerializedReachableMethod]
+    ): Iterator[ProperPropertyComputationResult] = {
+        // 1. resolve the methods that were read for the first time
+        val resolvedMethodsCount = resolvedMethods.length
+        if (reader.methodsCount > resolvedMethodsCount) {
+            val newResolvedMethods = Arrays.copyOf(resolvedMethods, reader.methodsCount)
+            parForeachArrayElement(Array.range(resolvedMethodsCount, reader.methodsCount)) { id =>
+                newResolvedMethods(id) = reader.method(id).toDeclaredMethod
+            }
+            resolvedMethods = newResolvedMethods
+        }
 
-                val context = simpleContexts(method)
+        // 2. compute the callees and callers of the batch's methods
+        val methods = resolvedMethods
+        val results = new ConcurrentLinkedQueue[ProperPropertyComputationResult]()
+        parForeachArrayElement(reachableMethods) { reachableMethod =>
+            val method = methods(reachableMethod.method)
+            val context = simpleContexts(method)
+            val calls = new DirectCalls()
+            // the index of a call site among the call sites with the same declared target and line
+            val callSiteIndexes = mutable.HashMap.empty[(Int, Int), Int]
+            reachableMethod.callSites foreach { callSite =>
+                val callSiteKey = (callSite.declaredTarget, callSite.line)
+                val index = callSiteIndexes.getOrElse(callSiteKey, 0)
+                callSiteIndexes(callSiteKey) = index + 1
+
+                val pc = if (callSite.pc >= 0)
+                    callSite.pc
+                else {
+                    val declaredTarget = methods(callSite.declaredTarget)
+                    getPCFromLineNumber(method, callSite.line, declaredTarget, index)
+                }
 
-                for (tgtDesc <- tgts) {
-                    calls.addCall(context, pc, simpleContexts(tgtDesc.toDeclaredMethod))
+                callSite.targets foreach { target =>
+                    calls.addCall(context, pc, simpleContexts(methods(target)))
                 }
-                results ++= calls.partialResults(context)
             }
+            calls.partialResults(context).iterator.foreach(results.add)
         }
-
-        Results(results)
+        results.iterator.asScala
     }
 
     private[this] def getPCFromLineNumber(
@@ -8,7 +8,6 @@ package cg
 import scala.collection.immutable.IntMap
 
 import org.opalj.collection.immutable.IntTrieSet
-import org.opalj.collection.immutable.LongLinkedTrieSet
 import org.opalj.fpcf.EPK
 import org.opalj.fpcf.InterimEUBP
 import org.opalj.fpcf.InterimUBP
@@ -23,7 +22,7 @@ import org.opalj.br.analyses.DeclaredMethods
 import org.opalj.br.fpcf.properties.Context
 import org.opalj.tac.fpcf.properties.cg.Callees
 import org.opalj.tac.fpcf.properties.cg.Callers
-import org.opalj.tac.fpcf.properties.cg.CallersOnlyWithConcreteCallers
+import org.opalj.tac.fpcf.properties.cg.NoCallers
 import org.opalj.tac.fpcf.properties.cg.ConcreteCallees
 import org.opalj.tac.fpcf.properties.cg.NoCallees
 import org.opalj.tac.fpcf.properties.cg.OnlyVMLevelCallers
@@ -66,15 +65,17 @@ sealed trait CalleesAndCallers {
                 None
 
             case InterimUBP(ub: Callees) =>
-                Some(InterimEUBP(
-                    callerContext.method,
-                    ub.updateWithCallees(
-                        callerContext,
-                        directCallees, indirectCallees,
-                        incompleteCallSites,
-                        receivers, parameters
-                    )
-                ))
+                val newCallees = ub.updateWithCallees(
+                    callerContext,
+                    directCallees, indirectCallees,
+                    incompleteCallSites,
+                    receivers, parameters
+                )
+                // here we assert that update returns the identity if there is no change
+                if (ub ne newCallees)
+                    Some(InterimEUBP(callerContext.method, newCallees))
+                else
+                    None
 
             case _: EPK[_, _] if directCallees.isEmpty && indirectCallees.isEmpty && incompleteCallSites.isEmpty =>
                 Some(InterimEUBP(
@@ -126,10 +127,9 @@ trait Calls extends CalleesAndCallers {
                     None
 
             case _: EPK[_, _] =>
-                val set = LongLinkedTrieSet(Callers.toLong(callerContext.id, pc, isDirect))
                 Some(InterimEUBP(
                     calleeContext.method,
-                    new CallersOnlyWithConcreteCallers(IntMap(calleeContext.id -> set), 1)
+                    NoCallers.updated(calleeContext, callerContext, pc, isDirect)
                 ))
 
             case r =>
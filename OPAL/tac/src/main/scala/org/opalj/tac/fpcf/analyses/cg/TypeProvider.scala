@@ -350,7 +350,7 @@ trait CallStringContextProvider extends TypeProvider {
     ): CallStringContext = {
         oldContext match {
             case csc: CallStringContext =>
-                callStringContexts(method, (oldContext.method, pc) :: csc.callString.take(k - 1))
+                callStringContexts(method, csc, pc, k)
             case _ if oldContext.hasContext =>
                 callStringContexts(method, List((oldContext.method, pc)))
             case _ =>
@@ -6,6 +6,8 @@ package analyses
 package cg
 package reflection
 
+import java.util.{BitSet => JBitSet}
+
 import org.opalj.value.IsNullValue
 import org.opalj.value.IsPrimitiveValue
 import org.opalj.value.IsReferenceValue
@@ -21,6 +23,8 @@ import org.opalj.br.ReferenceType
 
 import scala.collection.immutable.ArraySeq
 
+import org.opalj.tac.fpcf.analyses.cg.reflection.MethodMatching.union
+
 /**
  * Used to determine whether a certain method should be considered as a target for a reflective
  * call site. These call sites should be resolved by chaining matchers in
@@ -32,6 +36,19 @@ trait MethodMatcher {
     def initialMethods(implicit p: SomeProject): Iterator[Method]
     def contains(m: Method)(implicit p: SomeProject): Boolean
     def priority: Int
+
+    /**
+     * Returns the ids (w.r.t. the given index) of a superset of the methods accepted by this
+     * matcher or `null` if the index cannot be used to narrow down the accepted methods.
+     * The returned bit set must not be mutated.
+     */
+    def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = null
+
+    /**
+     * `true` if [[indexedMethods]] returns exactly the accepted methods, i.e., if `contains` need
+     * not be checked for methods taken from the index.
+     */
+    def isIndexedPrecisely: Boolean = false
 }
 
 final class NameBasedMethodMatcher(val possibleNames: Set[String]) extends MethodMatcher {
@@ -46,6 +63,12 @@ final class NameBasedMethodMatcher(val possibleNames: Set[String]) extends Metho
     }
 
     override def priority: Int = 2
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        union(possibleNames.iterator.map(index.methodsWithName))
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 class ClassBasedMethodMatcher(
@@ -70,6 +93,24 @@ class ClassBasedMethodMatcher(
     override def contains(m: Method)(implicit p: SomeProject): Boolean = methods.contains(m)
 
     override def priority: Int = 1
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        union(possibleClasses.iterator.map { c =>
+            val methodsInClass = index.methodsInClass(c)
+            if (onlyMethodsExactlyInClass) {
+                methodsInClass
+            } else {
+                val methods = methodsInClass.clone().asInstanceOf[JBitSet]
+                p.instanceMethods.getOrElse(c, ArraySeq.empty).foreach { mdc =>
+                    val methodId = index.methodId(mdc.method)
+                    if (methodId >= 0) methods.set(methodId)
+                }
+                methods
+            }
+        })
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 class DescriptorBasedMethodMatcher(
@@ -84,6 +125,12 @@ class DescriptorBasedMethodMatcher(
         possibleDescriptors.contains(m.descriptor)
 
     override def priority: Int = 3
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        union(possibleDescriptors.iterator.map(index.methodsWithDescriptor))
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 class ParameterTypesBasedMethodMatcher(val parameterTypes: FieldTypes) extends MethodMatcher {
@@ -97,6 +144,12 @@ class ParameterTypesBasedMethodMatcher(val parameterTypes: FieldTypes) extends M
     }
 
     override def priority: UShort = 3
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.methodsWithParameterTypes(parameterTypes)
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 class ActualParameterBasedMethodMatcher(val actualParams: Seq[V]) extends MethodMatcher {
@@ -141,6 +194,10 @@ class ActualParameterBasedMethodMatcher(val actualParams: Seq[V]) extends Method
     }
 
     override def priority: UShort = 3
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.methodsWithParametersCount(actualParams.size)
+    }
 }
 
 class ActualReceiverBasedMethodMatcher(val receiver: IsReferenceValue) extends MethodMatcher {
@@ -173,6 +230,12 @@ object StaticMethodMatcher extends MethodMatcher {
     override def contains(m: Method)(implicit p: SomeProject): Boolean = m.isStatic
 
     override def priority: Int = 4
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.staticMethods
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 object NonStaticMethodMatcher extends MethodMatcher {
@@ -182,6 +245,12 @@ object NonStaticMethodMatcher extends MethodMatcher {
     override def contains(m: Method)(implicit p: SomeProject): Boolean = !m.isStatic
 
     override def priority: Int = 4
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.nonStaticMethods
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 object PrivateMethodMatcher extends MethodMatcher {
@@ -191,6 +260,12 @@ object PrivateMethodMatcher extends MethodMatcher {
     override def contains(m: Method)(implicit p: SomeProject): Boolean = m.isPrivate
 
     override def priority: Int = 4
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.privateMethods
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 object PublicMethodMatcher extends MethodMatcher {
@@ -200,6 +275,12 @@ object PublicMethodMatcher extends MethodMatcher {
     override def contains(m: Method)(implicit p: SomeProject): Boolean = m.isPublic
 
     override def priority: Int = 4
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.publicMethods
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 object AllMethodsMatcher extends MethodMatcher {
@@ -208,6 +289,12 @@ object AllMethodsMatcher extends MethodMatcher {
     override def contains(m: Method)(implicit p: SomeProject): Boolean = true
 
     override def priority: Int = 5
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        index.allMethods
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 object NoMethodsMatcher extends MethodMatcher {
@@ -217,18 +304,69 @@ object NoMethodsMatcher extends MethodMatcher {
     override def contains(m: Method)(implicit p: SomeProject): Boolean = false
 
     override def priority: UShort = 0
+
+    override def indexedMethods(index: ReflectionIndex)(implicit p: SomeProject): JBitSet = {
+        ReflectionIndex.NoMethods
+    }
+
+    override def isIndexedPrecisely: Boolean = true
 }
 
 object MethodMatching {
 
+    /**
+     * Returns the methods accepted by all given matchers.
+     *
+     * The candidates are determined by intersecting the bit sets of all matchers that support
+     * the [[ReflectionIndex]]; only the remaining matchers are checked for each candidate.
+     * If no matcher supports the index, the candidates are the initial methods of the matcher with
+     * the highest priority.
+     */
     def getPossibleMethods(
         filters: Seq[MethodMatcher]
     )(implicit p: SomeProject): Iterator[Method] = {
         if (filters.isEmpty) {
             Iterator.empty
         } else {
-            val sortedMatchers = filters.sortBy(_.priority)
-            sortedMatchers.head.initialMethods.filter(m => sortedMatchers.tail.forall(_.contains(m)))
+            val index = p.get(ReflectionIndexKey)
+            var candidates: JBitSet = null
+            var remainingMatchers: List[MethodMatcher] = Nil
+            filters.foreach { matcher =>
+                val methods = matcher.indexedMethods(index)
+                if (methods eq null) {
+                    remainingMatchers ::= matcher
+                } else {
+                    if (!matcher.isIndexedPrecisely)
+                        remainingMatchers ::= matcher
+                    if (candidates eq null)
+                        candidates = methods.clone().asInstanceOf[JBitSet]
+                    else
+                        candidates.and(methods)
+                }
+            }
+
+            if (candidates eq null) {
+                val sortedMatchers = filters.sortBy(_.priority)
+                sortedMatchers.head.initialMethods.filter(m => sortedMatchers.tail.forall(_.contains(m)))
+            } else {
+                val sortedMatchers = remainingMatchers.sortBy(_.priority)
+                index.iterator(candidates).filter(m => sortedMatchers.forall(_.contains(m)))
+            }
+        }
+    }
+
+    private[reflection] def union(bitSets: Iterator[JBitSet]): JBitSet = {
+        if (!bitSets.hasNext) {
+            ReflectionIndex.NoMethods
+        } else {
+            val first = bitSets.next()
+            if (!bitSets.hasNext) {
+                first
+            } else {
+                val union = first.clone().asInstanceOf[JBitSet]
+                bitSets.foreach(union.or)
+                union
+            }
         }
     }
 }
@@ -0,0 +1,185 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package fpcf
+package analyses
+package cg
+package reflection
+
+import java.util.{BitSet => JBitSet}
+import scala.concurrent.Await
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.concurrent.duration.Duration
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap
+
+import org.opalj.concurrent.OPALUnboundedExecutionContext
+import org.opalj.br.FieldTypes
+import org.opalj.br.Method
+import org.opalj.br.MethodDescriptor
+import org.opalj.br.ObjectType
+import org.opalj.br.analyses.ProjectInformationKey
+import org.opalj.br.analyses.ProjectInformationKeys
+import org.opalj.br.analyses.SomeProject
+
+/**
+ * An index of all classes and methods of a project that enables [[MethodMatcher]]s to determine
+ * the methods they accept without scanning all methods of the project.
+ *
+ * Every method (see [[org.opalj.br.analyses.Project.allMethods]]) gets a unique id; the methods
+ * with a certain name, descriptor, number of parameters, etc. are then represented using bit sets
+ * over these ids. Hence, chained matchers can be evaluated by intersecting bit sets.
+ *
+ * @note The bit sets returned by this index are shared and must not be mutated.
+ */
+class ReflectionIndex private[reflection] (
+        val methods:                   Array[Method],
+        methodIds:                     Reference2IntOpenHashMap[Method],
+        classes:                       Map[String, ObjectType],
+        methodsByName:                 Map[String, JBitSet],
+        methodsByDescriptor:           Map[MethodDescriptor, JBitSet],
+        methodsByParameterTypes:       Map[FieldTypes, JBitSet],
+        methodsByParametersCount:      Array[JBitSet],
+        methodsByClass:                Map[ObjectType, JBitSet],
+        val staticMethods:             JBitSet,
+        val nonStaticMethods:          JBitSet,
+        val privateMethods:            JBitSet,
+        val publicMethods:             JBitSet,
+        val allMethods:                JBitSet
+) {
+
+    /** Returns the id of the given method or -1 if the method is unknown. */
+    def methodId(method: Method): Int = methodIds.getInt(method)
+
+    /**
+     * Returns the type of the class (of the project or a library) with the given fully qualified
+     * name (e.g., `java/lang/Object`) if it exists.
+     */
+    def classByName(fqn: String): Option[ObjectType] = classes.get(fqn)
+
+    def methodsWithName(name: String): JBitSet = methodsByName.getOrElse(name, ReflectionIndex.NoMethods)
+
+    def methodsWithDescriptor(descriptor: MethodDescriptor): JBitSet = {
+        methodsByDescriptor.getOrElse(descriptor, ReflectionIndex.NoMethods)
+    }
+
+    def methodsWithParameterTypes(parameterTypes: FieldTypes): JBitSet = {
+        methodsByParameterTypes.getOrElse(parameterTypes, ReflectionIndex.NoMethods)
+    }
+
+    def methodsWithParametersCount(parametersCount: Int): JBitSet = {
+        if (parametersCount < methodsByParametersCount.length)
+            methodsByParametersCount(parametersCount)
+        else
+            ReflectionIndex.NoMethods
+    }
+
+    /** The methods defined in the class file of the given type. */
+    def methodsInClass(classType: ObjectType): JBitSet = {
+        methodsByClass.getOrElse(classType, ReflectionIndex.NoMethods)
+    }
+
+    def iterator(methodIds: JBitSet): Iterator[Method] = new Iterator[Method] {
+        private[this] var nextId = methodIds.nextSetBit(0)
+        override def hasNext: Boolean = nextId >= 0
+        override def next(): Method = {
+            val m = methods(nextId)
+            nextId = methodIds.nextSetBit(nextId + 1)
+            m
+        }
+    }
+}
+
+object ReflectionIndex {
+
+    private[reflection] final val NoMethods: JBitSet = new JBitSet(0)
+
+    /**
+     * Creates the index; all maps are built concurrently.
+     */
+    def apply(project: SomeProject): ReflectionIndex = {
+        implicit val ec: ExecutionContext = OPALUnboundedExecutionContext
+
+        val methods = project.allMethods.toArray
+        val methodsCount = methods.length
+
+        def groupBy[K](key: Method => K): Future[Map[K, JBitSet]] = Future {
+            val builder = scala.collection.mutable.HashMap.empty[K, JBitSet]
+            var id = 0
+            while (id < methodsCount) {
+                builder.getOrElseUpdate(key(methods(id)), new JBitSet()).set(id)
+                id += 1
+            }
+            builder.toMap
+        }
+
+        def filter(p: Method => Boolean): Future[JBitSet] = Future {
+            val bitSet = new JBitSet(methodsCount)
+            var id = 0
+            while (id < methodsCount) {
+                if (p(methods(id))) bitSet.set(id)
+                id += 1
+            }
+            bitSet
+        }
+
+        val methodIdsFuture = Future {
+            val methodIds = new Reference2IntOpenHashMap[Method](methodsCount)
+            methodIds.defaultReturnValue(-1)
+            var id = 0
+            while (id < methodsCount) {
+                methodIds.put(methods(id), id)
+                id += 1
+            }
+            methodIds
+        }
+        val classesFuture = Future {
+            project.allClassFiles.iterator.map { cf => (cf.thisType.fqn, cf.thisType) }.toMap
+        }
+        val byNameFuture = groupBy(_.name)
+        val byDescriptorFuture = groupBy(_.descriptor)
+        val byParameterTypesFuture = groupBy(_.parameterTypes)
+        val byParametersCountFuture = groupBy(_.descriptor.parametersCount)
+        val byClassFuture = groupBy(_.classFile.thisType)
+        val staticMethodsFuture = filter(_.isStatic)
+        val nonStaticMethodsFuture = filter(!_.isStatic)
+        val privateMethodsFuture = filter(_.isPrivate)
+        val publicMethodsFuture = filter(_.isPublic)
+
+        val byParametersCount = Await.result(byParametersCountFuture, Duration.Inf)
+        val maxParametersCount = if (byParametersCount.isEmpty) -1 else byParametersCount.keys.max
+        val methodsByParametersCount = Array.tabulate(maxParametersCount + 1) { count =>
+            byParametersCount.getOrElse(count, NoMethods)
+        }
+
+        val allMethods = new JBitSet(methodsCount)
+        allMethods.set(0, methodsCount)
+
+        new ReflectionIndex(
+            methods,
+            Await.result(methodIdsFuture, Duration.Inf),
+            Await.result(classesFuture, Duration.Inf),
+            Await.result(byNameFuture, Duration.Inf),
+            Await.result(byDescriptorFuture, Duration.Inf),
+            Await.result(byParameterTypesFuture, Duration.Inf),
+            methodsByParametersCount,
+            Await.result(byClassFuture, Duration.Inf),
+            Await.result(staticMethodsFuture, Duration.Inf),
+            Await.result(nonStaticMethodsFuture, Duration.Inf),
+            Await.result(privateMethodsFuture, Duration.Inf),
+            Await.result(publicMethodsFuture, Duration.Inf),
+            allMethods
+        )
+    }
+}
+
+/**
+ * The ''key'' object to get the [[ReflectionIndex]] of a project.
+ */
+object ReflectionIndexKey extends ProjectInformationKey[ReflectionIndex, Nothing] {
+
+    override def requirements(project: SomeProject): ProjectInformationKeys = Nil
+
+    override def compute(project: SomeProject): ReflectionIndex = ReflectionIndex(project)
+}
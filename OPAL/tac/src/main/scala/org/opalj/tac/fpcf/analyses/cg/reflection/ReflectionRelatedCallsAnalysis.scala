@@ -1473,7 +1473,7 @@ class ReflectionRelatedCallsAnalysis private[analyses] (
 object ReflectionRelatedCallsAnalysisScheduler extends BasicFPCFEagerAnalysisScheduler {
 
     override def requiredProjectInformation: ProjectInformationKeys =
-        Seq(DeclaredMethodsKey, ProjectIndexKey, TypeProviderKey)
+        Seq(DeclaredMethodsKey, ProjectIndexKey, ReflectionIndexKey, TypeProviderKey)
 
     override def uses: Set[PropertyBounds] = PropertyBounds.ubs(
         Callers,
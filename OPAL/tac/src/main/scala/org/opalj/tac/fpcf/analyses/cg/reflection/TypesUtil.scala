@@ -29,16 +29,8 @@ object TypesUtil {
         onlyObjectTypes: Boolean
     ): Option[Set[ObjectType]] = {
         StringUtil.getPossibleStrings(className, stmts).map(_.flatMap { cls =>
-            try {
-                val tpe = ReferenceType(cls.replace('.', '/'))
-                if (tpe.isArrayType)
-                    if (onlyObjectTypes) None
-                    else Some(ObjectType.Object)
-                else Some(tpe.asObjectType)
-            } catch {
-                case _: Exception => None
-            }
-        }.filter(project.classFile(_).isDefined))
+            forNameClass(cls, project, onlyObjectTypes)
+        })
     }
 
     /**
@@ -64,16 +56,8 @@ object TypesUtil {
         ps:           PropertyStore
     ): Set[ObjectType] = {
         StringUtil.getPossibleStrings(className, context, depender, stmts, failure).flatMap { cls =>
-            try {
-                val tpe = ReferenceType(cls.replace('.', '/'))
-                if (tpe.isArrayType)
-                    if (onlyObjectTypes) None
-                    else Some(ObjectType.Object)
-                else Some(tpe.asObjectType)
-            } catch {
-                case _: Exception => None
-            }
-        }.filter(project.classFile(_).isDefined)
+            forNameClass(cls, project, onlyObjectTypes)
+        }
     }
 
     /**
@@ -86,16 +70,33 @@ object TypesUtil {
         onlyObjectTypes:  Boolean
     ): Option[ObjectType] = {
         StringUtil.getString(classNameDefSite, stmts).flatMap { cls =>
+            forNameClass(cls, project, onlyObjectTypes)
+        }
+    }
+
+    /**
+     * Returns the class that is loaded by Class.forName for the given name if the class (or, for
+     * arrays, java.lang.Object) is available. Class names are resolved using the
+     * [[ReflectionIndex]], i.e., no types are created for names of unknown classes.
+     */
+    private[reflection] def forNameClass(
+        className:       String,
+        project:         SomeProject,
+        onlyObjectTypes: Boolean
+    ): Option[ObjectType] = {
+        val fqn = className.replace('.', '/')
+        if (fqn.startsWith("[")) {
             try {
-                val tpe = ReferenceType(cls.replace('.', '/'))
-                if (tpe.isArrayType)
-                    if (onlyObjectTypes) None
-                    else Some(ObjectType.Object)
-                else Some(tpe.asObjectType)
+                if (ReferenceType(fqn).isArrayType && !onlyObjectTypes)
+                    project.classFile(ObjectType.Object).map(_.thisType)
+                else
+                    None
             } catch {
                 case _: Exception => None
             }
-        }.filter(project.classFile(_).isDefined)
+        } else {
+            project.get(ReflectionIndexKey).classByName(fqn)
+        }
     }
 
     /**
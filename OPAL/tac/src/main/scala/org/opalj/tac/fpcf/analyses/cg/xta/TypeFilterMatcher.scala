@@ -0,0 +1,202 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package fpcf
+package analyses
+package cg
+package xta
+
+import java.util.Arrays
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLongArray
+
+import org.opalj.br.ObjectType
+import org.opalj.br.ReferenceType
+import org.opalj.br.analyses.ProjectInformationKey
+import org.opalj.br.analyses.ProjectInformationKeys
+import org.opalj.br.analyses.SomeProject
+import org.opalj.collection.immutable.UIDSet
+
+/**
+ * Decides whether a candidate type passes the type filters used by the propagation-based
+ * call graph algorithms (XTA, MTA, FTA and CTA).
+ *
+ * The answers are derived from the class hierarchy once per pair of filter and candidate type
+ * and are then memoized in a bitset per filter type that is indexed by a dense index of the
+ * candidate. Hence, after a short warm-up phase, filtering a type only requires a few bit
+ * operations instead of a subtype test. To bound the memory usage, only project types are
+ * memoized as candidates and at most [[TypeFilterMatcher.MaxMemoizedFilterTypes]] filter types
+ * get a bitset; all other candidates (in particular array and library types) and filters are
+ * always tested directly.
+ *
+ * The matcher is thread-safe and is shared by all [[TypePropagationAnalysis]] instances of a
+ * project; use the [[TypeFilterMatcherKey]] to get it.
+ */
+private[xta] final class TypeFilterMatcher private (val project: SomeProject) {
+
+    private[this] val classHierarchy = project.classHierarchy
+
+    /** Maps the id of each project type to its index in the bitsets; `-1` for all other types. */
+    private[this] val projectTypeIndex: Array[Int] = {
+        val index = new Array[Int](ObjectType.objectTypesCount)
+        Arrays.fill(index, -1)
+        var nextIndex = 0
+        project.allProjectClassFiles foreach { cf =>
+            index(cf.thisType.id) = nextIndex
+            nextIndex += 1
+        }
+        index
+    }
+
+    private[this] val projectTypesCount = project.projectClassFilesCount
+
+    private[this] val filterBitSets = new ConcurrentHashMap[ReferenceType, FilterBitSet]()
+
+    private[this] val memoizedFilterTypesCount = new AtomicInteger(0)
+
+    /**
+     * Returns `true` if the candidate type passes at least one of the given filters.
+     */
+    def matchesAny(candidateType: ReferenceType, filters: UIDSet[ReferenceType]): Boolean = {
+        val fitr = filters.iterator
+        while (fitr.hasNext) {
+            if (matches(candidateType, fitr.next()))
+                return true;
+        }
+        false
+    }
+
+    /**
+     * Filters the given types by the given filters; the result contains each type which passes at
+     * least one of the filters.
+     */
+    def filter(
+        types:   IterableOnce[ReferenceType],
+        filters: UIDSet[ReferenceType]
+    ): UIDSet[ReferenceType] = {
+        val builder = UIDSet.newBuilder[ReferenceType]
+        val titr = types.iterator
+        while (titr.hasNext) {
+            val t = titr.next()
+            if (matchesAny(t, filters))
+                builder += t
+        }
+        builder.result()
+    }
+
+    def matches(candidateType: ReferenceType, filterType: ReferenceType): Boolean = {
+        val candidateIndex = projectTypeIndexOf(candidateType)
+        if (candidateIndex == -1)
+            return computeMatch(candidateType, filterType);
+
+        var bitSet = filterBitSets.get(filterType)
+        if (bitSet eq null) {
+            if (memoizedFilterTypesCount.get >= TypeFilterMatcher.MaxMemoizedFilterTypes)
+                return computeMatch(candidateType, filterType);
+
+            val newBitSet = new FilterBitSet(filterType)
+            bitSet = filterBitSets.putIfAbsent(filterType, newBitSet)
+            if (bitSet eq null) {
+                memoizedFilterTypesCount.incrementAndGet()
+                bitSet = newBitSet
+            }
+        }
+        bitSet.matches(candidateType, candidateIndex)
+    }
+
+    private[this] def projectTypeIndexOf(candidateType: ReferenceType): Int = {
+        if (candidateType.isObjectType) {
+            val candidateId = candidateType.id
+            if (candidateId < projectTypeIndex.length) projectTypeIndex(candidateId) else -1
+        } else {
+            -1
+        }
+    }
+
+    private[this] def computeMatch(candidateType: ReferenceType, filterType: ReferenceType): Boolean = {
+        val answer = classHierarchy.isASubtypeOf(candidateType, filterType)
+
+        if (answer.isYesOrNo) {
+            // Here, we know for sure that the candidate type is or is not a subtype of the filter type.
+            answer.isYes
+        } else {
+            // If the answer is Unknown, we don't know for sure whether the candidate is a subtype of the filter type.
+            // However, ClassHierarchy returns Unknown even for cases where it is very unlikely that this is the case.
+            // Therefore, we take some more features into account to make the filtering more precise.
+
+            // Important: This decision is a possible but unlikely cause of unsoundness in the call graph!
+
+            // If the filter type is not a project type (i.e., it is external), we assume that any candidate type
+            // is a subtype. This can be any external type or project types for which we have incomplete supertype
+            // information.
+            // If the filter type IS a project type, we consider the candidate type not to be a subtype since this is
+            // very likely to be not the case. For the candidate type, there are two options: Either it is an external
+            // type, in which case the candidate type could only be a subtype if project types are available in the
+            // external type's project at compile time. This is very unlikely since external types are almost always
+            // from libraries (like the JDK) which are not available in the analysis context, and which were almost
+            // certainly compiled separately ("Separate Compilation Assumption").
+            // The other option is that the candidate is also a project type, in which case we should have gotten a
+            // definitive Yes/No answer before. Since we didn't get one, the candidate type probably has a supertype
+            // which is not a project type. In that case, the above argument applies similarly.
+
+            val filterTypeIsProjectType = if (filterType.isObjectType) {
+                project.isProjectType(filterType.asObjectType)
+            } else {
+                val at = filterType.asArrayType
+                project.isProjectType(at.elementType.asObjectType)
+            }
+
+            !filterTypeIsProjectType
+        }
+    }
+
+    /**
+     * Memoizes the answers for a single filter type. For every project type two bits are used:
+     * the first one states whether the answer is known, the second one is the answer. The bits are
+     * only ever set; concurrent computations of the same answer are benign.
+     */
+    private[this] final class FilterBitSet(filterType: ReferenceType) {
+
+        private[this] val bits = new AtomicLongArray((projectTypesCount + 31) >>> 5)
+
+        def matches(candidateType: ReferenceType, candidateIndex: Int): Boolean = {
+            val index = candidateIndex >>> 5
+            val shift = (candidateIndex & 31) << 1
+            val word = bits.get(index)
+            if (((word >>> shift) & 1L) != 0L) {
+                ((word >>> shift) & 2L) != 0L
+            } else {
+                val matches = computeMatch(candidateType, filterType)
+                val mask = (if (matches) 3L else 1L) << shift
+                var current = word
+                while ((current & mask) != mask && !bits.compareAndSet(index, current, current | mask)) {
+                    current = bits.get(index)
+                }
+                matches
+            }
+        }
+    }
+}
+
+private[xta] object TypeFilterMatcher {
+
+    /**
+     * The maximum number of filter types for which the answers are memoized; each memoized filter
+     * type requires two bits per project type.
+     */
+    final val MaxMemoizedFilterTypes = 4096
+
+    def apply(project: SomeProject): TypeFilterMatcher = new TypeFilterMatcher(project)
+}
+
+/**
+ * The ''key'' object to get the [[TypeFilterMatcher]] shared by all type propagation analyses
+ * of a project.
+ */
+private[xta] object TypeFilterMatcherKey extends ProjectInformationKey[TypeFilterMatcher, Nothing] {
+
+    override def requirements(project: SomeProject): ProjectInformationKeys = Nil
+
+    override def compute(project: SomeProject): TypeFilterMatcher = TypeFilterMatcher(project)
+}
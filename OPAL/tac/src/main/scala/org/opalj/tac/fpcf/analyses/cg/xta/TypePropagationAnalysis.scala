@@ -6,6 +6,8 @@ package analyses
 package cg
 package xta
 
+import java.util.{HashMap => JHashMap}
+
 import scala.jdk.CollectionConverters._
 
 import org.opalj.br.Code
@@ -57,6 +59,8 @@ final class TypePropagationAnalysis private[analyses] (
     private[this] val debug = false
     private[this] val _trace: TypePropagationTrace = new TypePropagationTrace()
 
+    private[this] val typeFilterMatcher: TypeFilterMatcher = project.get(TypeFilterMatcherKey)
+
     private type State = TypePropagationState[ContextType]
 
     override def processMethod(
@@ -176,17 +180,30 @@ final class TypePropagationAnalysis private[analyses] (
     ): ProperPropertyComputationResult = {
         val previouslySeenTypes = state.ownInstantiatedTypes.size
         state.updateOwnInstantiatedTypesDependee(eps)
-        val unseenTypes = UIDSet(eps.ub.dropOldest(previouslySeenTypes).toSeq: _*)
+        // The type sets only ever grow and remember the order in which types were added; hence,
+        // the number of previously seen types identifies the delta we have to propagate.
+        val unseenTypes = state.newInstantiatedTypes(previouslySeenTypes).iterator.toList
 
         implicit val partialResults: ArrayBuffer[SomePartialResult] = ArrayBuffer.empty[SomePartialResult]
-        for (fpe <- state.forwardPropagationEntities.iterator().asScala) {
-            val filters = state.forwardPropagationFilters(fpe)
-            val propagation = propagateTypes(fpe, unseenTypes, filters)
-            if (propagation.isDefined)
-                partialResults += propagation.get
-        }
+        if (unseenTypes.nonEmpty) {
+            // Many forward propagation entities share the same filters (e.g., the parameter
+            // types of overloaded methods or the fields of the same type); hence, we filter the
+            // new types only once per distinct set of filters.
+            val filteredTypesByFilters = new JHashMap[UIDSet[ReferenceType], UIDSet[ReferenceType]]()
+            for (fpe <- state.forwardPropagationEntities.iterator().asScala) {
+                val filters = state.forwardPropagationFilters(fpe)
+                var filteredTypes = filteredTypesByFilters.get(filters)
+                if (filteredTypes eq null) {
+                    filteredTypes = typeFilterMatcher.filter(unseenTypes, filters)
+                    filteredTypesByFilters.put(filters, filteredTypes)
+                }
+                val propagation = createPartialResult(fpe, filteredTypes)
+                if (propagation.isDefined)
+                    partialResults += propagation.get
+            }
 
-        processArrayTypes(unseenTypes)
+            processArrayTypes(unseenTypes)
+        }
 
         returnResults(partialResults.iterator)
     }
@@ -200,7 +217,7 @@ final class TypePropagationAnalysis private[analyses] (
         val typeSetEntity = eps.e
         val previouslySeenTypes = state.seenTypes(typeSetEntity)
         state.updateBackwardPropagationDependee(eps)
-        val unseenTypes = UIDSet(eps.ub.dropOldest(previouslySeenTypes).toSeq: _*)
+        val unseenTypes = eps.ub.dropOldest(previouslySeenTypes)
 
         val filters = state.backwardPropagationFilters(typeSetEntity)
         val propagationResult = propagateTypes(state.typeSetEntity, unseenTypes, filters)
@@ -209,7 +226,7 @@ final class TypePropagationAnalysis private[analyses] (
     }
 
     private def processArrayTypes(
-        unseenTypes: UIDSet[ReferenceType]
+        unseenTypes: Iterable[ReferenceType]
     )(
         implicit
         state:          State,
@@ -399,66 +416,18 @@ final class TypePropagationAnalysis private[analyses] (
         }
     }
 
-    private def candidateMatchesTypeFilter(candidateType: ReferenceType, filterType: ReferenceType): Boolean = {
-        val answer = classHierarchy.isASubtypeOf(candidateType, filterType)
-
-        if (answer.isYesOrNo) {
-            // Here, we know for sure that the candidate type is or is not a subtype of the filter type.
-            answer.isYes
-        } else {
-            // If the answer is Unknown, we don't know for sure whether the candidate is a subtype of the filter type.
-            // However, ClassHierarchy returns Unknown even for cases where it is very unlikely that this is the case.
-            // Therefore, we take some more features into account to make the filtering more precise.
-
-            // Important: This decision is a possible but unlikely cause of unsoundness in the call graph!
-
-            // If the filter type is not a project type (i.e., it is external), we assume that any candidate type
-            // is a subtype. This can be any external type or project types for which we have incomplete supertype
-            // information.
-            // If the filter type IS a project type, we consider the candidate type not to be a subtype since this is
-            // very likely to be not the case. For the candidate type, there are two options: Either it is an external
-            // type, in which case the candidate type could only be a subtype if project types are available in the
-            // external type's project at compile time. This is very unlikely since external types are almost always
-            // from libraries (like the JDK) which are not available in the analysis context, and which were almost
-            // certainly compiled separately ("Separate Compilation Assumption").
-            // The other option is that the candidate is also a project type, in which case we should have gotten a
-            // definitive Yes/No answer before. Since we didn't get one, the candidate type probably has a supertype
-            // which is not a project type. In that case, the above argument applies similarly.
-
-            val filterTypeIsProjectType = if (filterType.isObjectType) {
-                project.isProjectType(filterType.asObjectType)
-            } else {
-                val at = filterType.asArrayType
-                project.isProjectType(at.elementType.asObjectType)
-            }
-
-            !filterTypeIsProjectType
-        }
-    }
-
     private def propagateTypes[E >: Null <: TypeSetEntity](
         targetSetEntity: E,
-        newTypes:        UIDSet[ReferenceType],
-        filters:         Set[ReferenceType]
+        newTypes:        IterableOnce[ReferenceType],
+        filters:         UIDSet[ReferenceType]
     ): Option[PartialResult[E, InstantiatedTypes]] = {
+        createPartialResult(targetSetEntity, typeFilterMatcher.filter(newTypes, filters))
+    }
 
-        if (newTypes.isEmpty) {
-            return None;
-        }
-
-        val filteredTypes = newTypes.foldLeft(UIDSet.newBuilder[ReferenceType]) { (builder, nt) =>
-            val fitr = filters.iterator
-            var canditateMatches = false
-            while (!canditateMatches && fitr.hasNext) {
-                val tf = fitr.next()
-                if (candidateMatchesTypeFilter(nt, tf)) {
-                    canditateMatches = true
-                    builder += nt
-                }
-            }
-            builder
-        }.result()
-
+    private def createPartialResult[E >: Null <: TypeSetEntity](
+        targetSetEntity: E,
+        filteredTypes:   UIDSet[ReferenceType]
+    ): Option[PartialResult[E, InstantiatedTypes]] = {
         if (filteredTypes.nonEmpty) {
             if (debug) _trace.traceTypePropagation(targetSetEntity, filteredTypes)
             val partialResult = PartialResult[E, InstantiatedTypes](
@@ -488,7 +457,8 @@ final class TypePropagationAnalysisScheduler(
         val selectSetEntity: TypeSetEntitySelector
 ) extends BasicFPCFTriggeredAnalysisScheduler {
 
-    override def requiredProjectInformation: ProjectInformationKeys = Seq(TypeProviderKey)
+    override def requiredProjectInformation: ProjectInformationKeys =
+        Seq(TypeProviderKey, TypeFilterMatcherKey)
 
     override type InitializationData = Null
 
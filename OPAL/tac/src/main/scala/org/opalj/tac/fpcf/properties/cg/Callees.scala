@@ -178,7 +178,8 @@ sealed trait Callees extends Property with CalleesPropertyMetaInformation {
 
     /**
      * Creates a copy of the current callees object, including the additional callee information
-     * specified in the parameters.
+     * specified in the parameters. If the current object already contains all of the
+     * information, it is returned.
      */
     def updateWithCallees(
         callerContext:          Context,
@@ -332,7 +333,15 @@ sealed class ConcreteCallees(
         indirectCallParameters: IntMap[IntMap[Seq[Option[(ValueInformation, br.PCs)]]]]
     ): Callees = {
         val cId = callerContext.id
-        directCalleesIds.updateWith(cId, directCallees, (o, n) => o.unionWith(n, (_, l, r) => l ++ r))
+        // if nothing is added, the identity is returned to avoid (useless) updates
+        if (containsAll(
+            cId,
+            directCallees, indirectCallees,
+            incompleteCallSites,
+            indirectCallReceivers, indirectCallParameters
+        ))
+            return this;
+
         new ConcreteCallees(
             directCalleesIds.updateWith(
                 cId, directCallees, (o, n) => o.unionWith(n, (_, l, r) => l ++ r)
@@ -376,6 +385,51 @@ sealed class ConcreteCallees(
         )
     }
 
+    /**
+     * Returns `true` if this object already contains all of the given information about the
+     * callees of the caller context with the given id.
+     */
+    private[this] def containsAll(
+        cId:                    Int,
+        directCallees:          IntMap[IntTrieSet],
+        indirectCallees:        IntMap[IntTrieSet],
+        incompleteCallSites:    br.PCs,
+        indirectCallReceivers:  IntMap[IntMap[Option[(ValueInformation, br.PCs)]]],
+        indirectCallParameters: IntMap[IntMap[Seq[Option[(ValueInformation, br.PCs)]]]]
+    ): Boolean = {
+        def containsAllCallees(
+            calleesIds: IntMap[IntMap[IntTrieSet]], newCallees: IntMap[IntTrieSet]
+        ): Boolean = {
+            newCallees.isEmpty || calleesIds.get(cId).exists { calleesOfCaller =>
+                newCallees.forall { pcAndCallees =>
+                    val (pc, newCalleesAtPC) = pcAndCallees
+                    calleesOfCaller.get(pc).exists(calleesAtPC => newCalleesAtPC.subsetOf(calleesAtPC))
+                }
+            }
+        }
+
+        def containsAllInfo[T](info: IntMap[IntMap[IntMap[T]]], newInfo: IntMap[IntMap[T]]): Boolean = {
+            newInfo.isEmpty || info.get(cId).exists { infoOfCaller =>
+                newInfo.forall { pcAndInfo =>
+                    val (pc, newInfoAtPC) = pcAndInfo
+                    infoOfCaller.get(pc).exists { infoAtPC =>
+                        newInfoAtPC.forall { calleeAndInfo =>
+                            val (calleeId, calleeInfo) = calleeAndInfo
+                            infoAtPC.get(calleeId).contains(calleeInfo)
+                        }
+                    }
+                }
+            }
+        }
+
+        containsAllCallees(directCalleesIds, directCallees) &&
+            containsAllCallees(indirectCalleesIds, indirectCallees) &&
+            (incompleteCallSites.isEmpty ||
+                _incompleteCallSites.get(cId).exists(pcs => incompleteCallSites.subsetOf(pcs))) &&
+            containsAllInfo(_indirectCallReceivers, indirectCallReceivers) &&
+            containsAllInfo(_indirectCallParameters, indirectCallParameters)
+    }
+
     override def containsCall(callerContext: Context, pc: Int, calleeContext: Context): Boolean = {
         containsDirectCall(callerContext, pc, calleeContext) ||
             containsIndirectCall(callerContext, pc, calleeContext)
@@ -58,8 +58,18 @@ sealed trait Callers extends OrderedProperty with CallersPropertyMetaInformation
         }
     }
 
+    /**
+     * Returns the encoded callers (see [[Callers.toLong]]) of the given callee context. The set is
+     * created on every call; use [[foreachCallerForContextId]] to only iterate over the callers.
+     */
     def callersForContextId(calleeContextId: Int): LongLinkedSet
 
+    /**
+     * Calls the given function for each encoded caller (see [[Callers.toLong]]) of the given
+     * callee context.
+     */
+    def foreachCallerForContextId[U](calleeContextId: Int)(f: Long => U): Unit
+
     def callContexts(method: DeclaredMethod)(
         implicit
         typeProvider: TypeProvider
@@ -137,6 +147,8 @@ sealed trait EmptyConcreteCallers extends Callers {
         LongLinkedTrieSet.empty
     }
 
+    override def foreachCallerForContextId[U](calleeContextId: Int)(f: Long => U): Unit = {}
+
     override def callContexts(method: DeclaredMethod)(
         implicit
         typeProvider: TypeProvider
@@ -181,12 +193,12 @@ sealed trait EmptyConcreteCallers extends Callers {
     final override def updated(
         calleeContext: Context, callerContext: Context, pc: Int, isDirect: Boolean
     ): Callers = {
-        val map = IntMap(calleeContext.id -> LongLinkedTrieSet(Callers.toLong(callerContext.id, pc, isDirect)))
+        val storage = CallersStorage(calleeContext.id, Callers.toLong(callerContext.id, pc, isDirect))
 
         if (!hasCallersWithUnknownContext && !hasVMLevelCallers) {
-            new CallersOnlyWithConcreteCallers(map, 1)
+            new CallersOnlyWithConcreteCallers(storage, 1)
         } else {
-            CallersImplWithOtherCalls(map, hasVMLevelCallers, hasCallersWithUnknownContext)
+            CallersImplWithOtherCalls(storage, 1, hasVMLevelCallers, hasCallersWithUnknownContext)
         }
     }
 }
@@ -212,28 +224,39 @@ object OnlyVMCallersAndWithUnknownContext
     extends EmptyConcreteCallers with CallersWithVMLevelCall with CallersWithUnknownContext
 
 sealed trait CallersImplementation extends Callers {
-    val encodedCallers: IntMap[LongLinkedSet] /* Callee ContextID => Caller ContextId + PC + isDirect */
+    /* Callee ContextID => Caller ContextId + PC + isDirect; shared with all derived callers */
+    private[cg] val storage: CallersStorage
     override val size: Int
 
     final override def isEmpty: Boolean = size == 0
 
     final override def nonEmpty: Boolean = size != 0
 
+    /**
+     * Callee ContextID => Caller ContextId + PC + isDirect; the map is created on every call.
+     */
+    def encodedCallers: IntMap[LongLinkedSet] = {
+        storage.calleeContextIds(size).foldLeft(IntMap.empty[LongLinkedSet]) { (map, calleeContextId) =>
+            map.updated(calleeContextId, callersForContextId(calleeContextId))
+        }
+    }
+
     override def callersForContextId(calleeContextId: Int): LongLinkedSet = {
-        encodedCallers.getOrElse(calleeContextId, LongLinkedTrieSet.empty)
+        storage.callersForContextId(size, calleeContextId)
+    }
+
+    override def foreachCallerForContextId[U](calleeContextId: Int)(f: Long => U): Unit = {
+        storage.foreachCallerForContextId(size, calleeContextId)(f)
     }
 
     final override def callContexts(method: DeclaredMethod)(
         implicit
         typeProvider: TypeProvider
     ): IterableOnce[(Context /*Callee*/ , Context /*Caller*/ , Int /*PC*/ , Boolean /*isDirect*/ )] = {
-        val contexts = encodedCallers.iterator.flatMap {
-            case (calleeContextId, callers) =>
-                val calleeContext = typeProvider.contextFromId(calleeContextId)
-                callers.iterator.map { callerData =>
-                    val (callerContextId, pc, isDirect) = Callers.toContextPcAndIsDirect(callerData)
-                    (calleeContext, typeProvider.contextFromId(callerContextId), pc, isDirect)
-                }
+        val contexts = Iterator.range(0, size).map { index =>
+            val calleeContext = typeProvider.contextFromId(storage.calleeContextId(index))
+            val (callerContextId, pc, isDirect) = Callers.toContextPcAndIsDirect(storage.encodedCaller(index))
+            (calleeContext, typeProvider.contextFromId(callerContextId), pc, isDirect)
         }
         if (hasCallersWithUnknownContext || hasVMLevelCallers)
             contexts ++ Iterator((typeProvider.newContext(method), NoContext, -1, true))
@@ -245,10 +268,10 @@ sealed trait CallersImplementation extends Callers {
         implicit
         typeProvider: TypeProvider
     ): IterableOnce[Context] = {
-        val contexts = encodedCallers.keysIterator.map(typeProvider.contextFromId)
+        val contexts = storage.calleeContextIds(size).map(typeProvider.contextFromId)
         if (hasCallersWithUnknownContext || hasVMLevelCallers) {
             val unknownContext = typeProvider.newContext(method)
-            if (!encodedCallers.contains(unknownContext.id))
+            if (!containsCalleeContext(unknownContext.id))
                 contexts ++ Iterator(unknownContext)
             else
                 contexts
@@ -265,20 +288,22 @@ sealed trait CallersImplementation extends Callers {
         val unknownContext = typeProvider.newContext(method)
         val unknownContextId = unknownContext.id
 
-        encodedCallers.foreach {
-            case (calleeContextId, _) =>
-                if (old eq null)
+        // The callers of `old` are always a prefix of our callers, i.e., only callee contexts
+        // whose first caller was added afterwards can be new.
+        var index = if (old eq null) 0 else old.size
+        while (index < size) {
+            if (storage.isFirstOfContext(index)) {
+                val calleeContextId = storage.calleeContextId(index)
+                if ((old eq null) || calleeContextId != unknownContextId ||
+                    !old.hasCallersWithUnknownContext && !old.hasVMLevelCallers)
                     handleContext(typeProvider.contextFromId(calleeContextId))
-                else if (old.callersForContextId(calleeContextId).isEmpty) {
-                    if (calleeContextId != unknownContextId ||
-                        !old.hasCallersWithUnknownContext && !old.hasVMLevelCallers)
-                        handleContext(typeProvider.contextFromId(calleeContextId))
-                }
+            }
+            index += 1
         }
 
         if ((hasCallersWithUnknownContext || hasVMLevelCallers) &&
             ((old eq null) || !old.hasCallersWithUnknownContext && !old.hasVMLevelCallers))
-            if (!encodedCallers.contains(unknownContextId))
+            if (!containsCalleeContext(unknownContextId))
                 handleContext(unknownContext)
     }
 
@@ -288,76 +313,80 @@ sealed trait CallersImplementation extends Callers {
         implicit
         typeProvider: TypeProvider
     ): Unit = {
-        encodedCallers.foreach {
-            case (calleeContextId, callers) =>
-                val calleeContext = typeProvider.contextFromId(calleeContextId)
-                val seen = if (old eq null) 0 else old.callersForContextId(calleeContextId).size
-                callers.forFirstN(callers.size - seen) { encodedPair: Long =>
-                    val (callerContextId, pc, isDirect) = Callers.toContextPcAndIsDirect(encodedPair)
-                    val callerContext = typeProvider.contextFromId(callerContextId)
-                    handleContext(calleeContext, callerContext, pc, isDirect)
-                }
+        // The callers of `old` are always a prefix of our callers; hence, we only have to
+        // continue reading where `old` ended.
+        var index = if (old eq null) 0 else old.size
+        while (index < size) {
+            val calleeContext = typeProvider.contextFromId(storage.calleeContextId(index))
+            val (callerContextId, pc, isDirect) = Callers.toContextPcAndIsDirect(storage.encodedCaller(index))
+            val callerContext = typeProvider.contextFromId(callerContextId)
+            handleContext(calleeContext, callerContext, pc, isDirect)
+            index += 1
         }
 
         if ((hasCallersWithUnknownContext || hasVMLevelCallers) &&
             ((old eq null) || !old.hasCallersWithUnknownContext && !old.hasVMLevelCallers))
             handleContext(typeProvider.newContext(method), NoContext, -1, true)
     }
+
+    private[this] def containsCalleeContext(calleeContextId: Int): Boolean = {
+        storage.firstIndexOf(size, calleeContextId) >= 0
+    }
 }
 
-class CallersOnlyWithConcreteCallers(
-        val encodedCallers: IntMap[LongLinkedSet] /* Callee Context => Caller Context + PC + isDirect */ ,
-        val size:           Int
+class CallersOnlyWithConcreteCallers private[cg] (
+        private[cg] val storage: CallersStorage,
+        val size:                Int
 ) extends CallersImplementation with CallersWithoutVMLevelCall with CallersWithoutUnknownContext {
 
+    def this(
+        encodedCallers: IntMap[LongLinkedSet] /* Callee Context => Caller Context + PC + isDirect */ ,
+        size:           Int
+    ) = this(CallersStorage(encodedCallers), size)
+
     override def updated(
         calleeContext: Context, callerContext: Context, pc: Int, isDirect: Boolean
     ): Callers = {
         val encodedCaller = Callers.toLong(callerContext.id, pc, isDirect)
 
-        val calleeContextId = calleeContext.id
-        if (encodedCallers.contains(calleeContextId)) {
-            val oldSet = encodedCallers(calleeContextId)
-            val newSet = oldSet + encodedCaller
-
-            // requires the LongTrieSet to return `this` if the `encodedCaller` is already contained.
-            if (newSet eq oldSet)
-                this
-            else
-                new CallersOnlyWithConcreteCallers(
-                    encodedCallers + (calleeContextId -> newSet),
-                    size + 1
-                )
-        } else {
-            new CallersOnlyWithConcreteCallers(
-                encodedCallers + (calleeContextId -> LongLinkedTrieSet(encodedCaller)), size + 1
-            )
-        }
+        val newStorage = storage.updated(size, calleeContext.id, encodedCaller)
+        if (newStorage eq null)
+            this
+        else
+            new CallersOnlyWithConcreteCallers(newStorage, size + 1)
     }
 
     override def updatedWithUnknownContext(): Callers =
         CallersImplWithOtherCalls(
-            encodedCallers,
+            storage,
+            size,
             hasVMLevelCallers = false,
             hasCallersWithUnknownContext = true
         )
 
     override def updatedWithVMLevelCall(): Callers =
         CallersImplWithOtherCalls(
-            encodedCallers,
+            storage,
+            size,
             hasVMLevelCallers = true,
             hasCallersWithUnknownContext = false
         )
 }
 
-class CallersImplWithOtherCalls(
-        val encodedCallers:                IntMap[LongLinkedSet] /* Callee Context => Caller Context + PC + isDirect */ ,
+class CallersImplWithOtherCalls private[cg] (
+        private[cg] val storage:           CallersStorage,
         val size:                          Int,
         private val specialCallSitesFlags: Byte // last bit vm lvl, second last bit unknown context
 ) extends CallersImplementation {
-    assert(encodedCallers.nonEmpty)
+    assert(size > 0)
     assert(specialCallSitesFlags >= 0 && specialCallSitesFlags <= 3)
 
+    def this(
+        encodedCallers:        IntMap[LongLinkedSet] /* Callee Context => Caller Context + PC + isDirect */ ,
+        size:                  Int,
+        specialCallSitesFlags: Byte
+    ) = this(CallersStorage(encodedCallers), size, specialCallSitesFlags)
+
     override def hasVMLevelCallers: Boolean = (specialCallSitesFlags & 1) != 0
 
     override def hasCallersWithUnknownContext: Boolean = (specialCallSitesFlags & 2) != 0
@@ -367,40 +396,24 @@ class CallersImplWithOtherCalls(
     ): Callers = {
         val encodedCaller = Callers.toLong(callerContext.id, pc, isDirect)
 
-        val calleeContextId = calleeContext.id
-        if (encodedCallers.contains(calleeContextId)) {
-            val oldSet = encodedCallers(calleeContextId)
-            val newSet = oldSet + encodedCaller
-
-            // requires the LongTrieSet to return `this` if the `encodedCaller` is already contained.
-            if (newSet eq oldSet)
-                this
-            else
-                new CallersImplWithOtherCalls(
-                    encodedCallers + (calleeContextId -> newSet),
-                    size + 1,
-                    specialCallSitesFlags
-                )
-        } else {
-            new CallersImplWithOtherCalls(
-                encodedCallers + (calleeContextId -> LongLinkedTrieSet(encodedCaller)),
-                size + 1,
-                specialCallSitesFlags
-            )
-        }
+        val newStorage = storage.updated(size, calleeContext.id, encodedCaller)
+        if (newStorage eq null)
+            this
+        else
+            new CallersImplWithOtherCalls(newStorage, size + 1, specialCallSitesFlags)
     }
 
     override def updatedWithVMLevelCall(): Callers =
         if (hasVMLevelCallers)
             this
         else
-            new CallersImplWithOtherCalls(encodedCallers, size, (specialCallSitesFlags | 1).toByte)
+            new CallersImplWithOtherCalls(storage, size, (specialCallSitesFlags | 1).toByte)
 
     override def updatedWithUnknownContext(): Callers =
         if (hasCallersWithUnknownContext)
             this
         else
-            new CallersImplWithOtherCalls(encodedCallers, size, (specialCallSitesFlags | 2).toByte)
+            new CallersImplWithOtherCalls(storage, size, (specialCallSitesFlags | 2).toByte)
 }
 
 object CallersImplWithOtherCalls {
@@ -409,17 +422,28 @@ object CallersImplWithOtherCalls {
         hasVMLevelCallers:            Boolean,
         hasCallersWithUnknownContext: Boolean
     ): CallersImplWithOtherCalls = {
-        assert(hasVMLevelCallers | hasCallersWithUnknownContext)
         assert(encodedCallers.nonEmpty)
 
+        apply(
+            CallersStorage(encodedCallers),
+            encodedCallers.iterator.map(_._2.size).sum,
+            hasVMLevelCallers,
+            hasCallersWithUnknownContext
+        )
+    }
+
+    private[cg] def apply(
+        storage:                      CallersStorage,
+        size:                         Int,
+        hasVMLevelCallers:            Boolean,
+        hasCallersWithUnknownContext: Boolean
+    ): CallersImplWithOtherCalls = {
+        assert(hasVMLevelCallers | hasCallersWithUnknownContext)
+
         val vmLvlCallers = if (hasVMLevelCallers) 1 else 0
         val unknownContext = if (hasCallersWithUnknownContext) 2 else 0
 
-        new CallersImplWithOtherCalls(
-            encodedCallers,
-            encodedCallers.iterator.map(_._2.size).sum,
-            (vmLvlCallers | unknownContext).toByte
-        )
+        new CallersImplWithOtherCalls(storage, size, (vmLvlCallers | unknownContext).toByte)
     }
 }
 
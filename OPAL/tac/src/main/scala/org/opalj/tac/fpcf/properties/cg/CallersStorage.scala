@@ -0,0 +1,398 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package fpcf
+package properties
+package cg
+
+import java.lang.{Integer => JInt}
+
+import org.opalj.collection.immutable.LongLinkedSet
+import org.opalj.collection.immutable.LongLinkedTrieSet
+
+/**
+ * Stores the callers of a method as a log of pairs of callee context id and encoded caller
+ * (caller context id, pc and isDirect; see [[Callers.toLong]]).
+ *
+ * Each version of a method's [[Callers]] property only sees the first `size` entries of its
+ * storage. Because new versions are always derived by appending, the entries of an older version
+ * are a prefix of the entries of every newer version. Hence, the callers that are new w.r.t. an
+ * older version are found by continuing to read at the older version's size.
+ *
+ * Most methods only have very few callers; their callers are stored in a
+ * [[SmallCallersStorage]], which is copied on every update. Once a method has more than
+ * [[CallersStorage.MaxSmallSize]] callers, they are stored in a [[LogCallersStorage]].
+ */
+private[cg] sealed abstract class CallersStorage {
+
+    def calleeContextId(index: Int): Int
+
+    def encodedCaller(index: Int): Long
+
+    /**
+     * Returns `true` if the log entry with the given index is the first entry of its callee
+     * context.
+     */
+    def isFirstOfContext(index: Int): Boolean
+
+    /**
+     * Returns the index of the first log entry of the given callee context among the first
+     * `size` entries or -1 if no such entry exists.
+     */
+    def firstIndexOf(size: Int, calleeContextId: Int): Int
+
+    /**
+     * Calls the given function for each encoded caller of the given callee context among the first
+     * `size` entries in the order in which the callers were added.
+     */
+    def foreachCallerForContextId[U](size: Int, calleeContextId: Int)(f: Long => U): Unit
+
+    /**
+     * Adds the given caller to the version of this storage that has the given size.
+     *
+     * @return `null` if the caller is already contained in the first `size` entries, `this` if
+     *         the entry was added in place, or a new storage otherwise.
+     */
+    def updated(size: Int, calleeContextId: Int, encodedCaller: Long): CallersStorage
+
+    /**
+     * Returns the encoded callers of the given callee context among the first `size` entries; the
+     * most recently added caller comes first.
+     */
+    final def callersForContextId(size: Int, calleeContextId: Int): LongLinkedSet = {
+        var callers = LongLinkedTrieSet.empty
+        foreachCallerForContextId(size, calleeContextId) { callers += _ }
+        callers
+    }
+
+    /**
+     * Returns the ids of the callee contexts among the first `size` entries.
+     */
+    final def calleeContextIds(size: Int): Iterator[Int] = {
+        Iterator.range(0, size).filter(isFirstOfContext).map(calleeContextId)
+    }
+}
+
+/**
+ * Stores the pairs of callee context id and encoded caller in a single array; all versions
+ * use their own array. Lookups scan the array.
+ */
+private[cg] final class SmallCallersStorage private[cg] (
+        // callee context id, encoded caller, callee context id, ...
+        private[this] val entries: Array[Long]
+) extends CallersStorage {
+
+    def calleeContextId(index: Int): Int = entries(index << 1).toInt
+
+    def encodedCaller(index: Int): Long = entries((index << 1) + 1)
+
+    def isFirstOfContext(index: Int): Boolean = firstIndexOf(index, calleeContextId(index)) == -1
+
+    def firstIndexOf(size: Int, calleeContextId: Int): Int = {
+        var i = 0
+        while (i < size) {
+            if (this.calleeContextId(i) == calleeContextId)
+                return i;
+            i += 1
+        }
+        -1
+    }
+
+    def foreachCallerForContextId[U](size: Int, calleeContextId: Int)(f: Long => U): Unit = {
+        var i = 0
+        while (i < size) {
+            if (this.calleeContextId(i) == calleeContextId)
+                f(encodedCaller(i))
+            i += 1
+        }
+    }
+
+    def updated(size: Int, calleeContextId: Int, encodedCaller: Long): CallersStorage = {
+        var i = 0
+        while (i < size) {
+            if (this.encodedCaller(i) == encodedCaller && this.calleeContextId(i) == calleeContextId)
+                return null;
+            i += 1
+        }
+        if (size < CallersStorage.MaxSmallSize) {
+            val newEntries = java.util.Arrays.copyOf(entries, (size + 1) << 1)
+            newEntries(size << 1) = calleeContextId.toLong
+            newEntries((size << 1) + 1) = encodedCaller
+            new SmallCallersStorage(newEntries)
+        } else {
+            val newStorage = new LogCallersStorage()
+            i = 0
+            while (i < size) {
+                newStorage.append(this.calleeContextId(i), this.encodedCaller(i))
+                i += 1
+            }
+            newStorage.append(calleeContextId, encodedCaller)
+            newStorage
+        }
+    }
+}
+
+/**
+ * Stores the callers of a method with many callers as an append-only log that is shared by all
+ * versions of a method's [[Callers]] property that were derived from one another.
+ *
+ * The log is stored in chunks of exponentially increasing size which are never copied. An entry is
+ * only appended in place if the updated version is the most recent one; otherwise, the version's
+ * prefix is first copied to a new storage. Duplicates are detected using a primitive,
+ * open-addressing hash table which stores (one plus) the index of the respective log entry.
+ * The entries of each callee context are linked: a second hash table stores the first entry of
+ * each callee context and each entry stores the index of the next entry of the same context.
+ *
+ * Reading the log and looking up the entries of a callee context are lock-free: an entry,
+ * its link and the hash table slot of a new callee context are written before the version
+ * containing the entry is published and readers ignore all entries that are not part of
+ * their version. Appending entries requires the storage's lock.
+ */
+private[cg] final class LogCallersStorage private[cg] () extends CallersStorage {
+
+    import LogCallersStorage._
+
+    @volatile private[this] var calleeContextIdChunks: Array[Array[Int]] = new Array(0)
+    @volatile private[this] var encodedCallerChunks: Array[Array[Long]] = new Array(0)
+    // (index of the next log entry of the same callee context + 1) | FirstOfContext
+    @volatile private[this] var linkChunks: Array[Array[Int]] = new Array(0)
+    private[this] var length: Int = 0
+
+    // callee context id and encoded caller => index of the log entry + 1
+    private[this] var entries: Array[Int] = new Array(MinTableSize)
+    // callee context id => index of the first log entry for the context + 1; the slots are
+    // never updated, the table is only replaced when it is rehashed
+    @volatile private[this] var contexts: Array[Int] = new Array(MinTableSize)
+    // the index of the last log entry for the context + 1 (w.r.t. the slots of `contexts`)
+    private[this] var lastOfContexts: Array[Int] = new Array(MinTableSize)
+    private[this] var contextsCount: Int = 0
+
+    def calleeContextId(index: Int): Int = {
+        val n = index + MinChunkSize
+        val chunk = 31 - JInt.numberOfLeadingZeros(n) - MinChunkSizeBits
+        calleeContextIdChunks(chunk)(n - (MinChunkSize << chunk))
+    }
+
+    def encodedCaller(index: Int): Long = {
+        val n = index + MinChunkSize
+        val chunk = 31 - JInt.numberOfLeadingZeros(n) - MinChunkSizeBits
+        encodedCallerChunks(chunk)(n - (MinChunkSize << chunk))
+    }
+
+    private[this] def link(index: Int): Int = {
+        val n = index + MinChunkSize
+        val chunk = 31 - JInt.numberOfLeadingZeros(n) - MinChunkSizeBits
+        linkChunks(chunk)(n - (MinChunkSize << chunk))
+    }
+
+    def isFirstOfContext(index: Int): Boolean = (link(index) & FirstOfContext) != 0
+
+    /**
+     * Returns the index of the next log entry of the callee context of the entry with the
+     * given index or -1 if no such entry exists (yet). The returned index may not be part of
+     * the reader's version.
+     */
+    private[this] def nextOfContext(index: Int): Int = (link(index) & ~FirstOfContext) - 1
+
+    def foreachCallerForContextId[U](size: Int, calleeContextId: Int)(f: Long => U): Unit = {
+        var i = firstIndexOf(size, calleeContextId)
+        while (i >= 0 && i < size) {
+            f(encodedCaller(i))
+            i = nextOfContext(i)
+        }
+    }
+
+    def firstIndexOf(size: Int, calleeContextId: Int): Int = {
+        val contexts = this.contexts
+        val mask = contexts.length - 1
+        var slot = hash(calleeContextId) & mask
+        var entry = contexts(slot)
+        while (entry != 0) {
+            // entries which are not part of the version may not be visible (yet)
+            if (entry <= size && this.calleeContextId(entry - 1) == calleeContextId)
+                return entry - 1;
+            slot = (slot + 1) & mask
+            entry = contexts(slot)
+        }
+        -1
+    }
+
+    def updated(size: Int, calleeContextId: Int, encodedCaller: Long): CallersStorage = synchronized {
+        val index = indexOf(calleeContextId, encodedCaller)
+        if (index >= 0 && index < size) {
+            null
+        } else if (size == length && index < 0) {
+            append(calleeContextId, encodedCaller)
+            this
+        } else {
+            val newStorage = new LogCallersStorage()
+            var i = 0
+            while (i < size) {
+                newStorage.append(this.calleeContextId(i), this.encodedCaller(i))
+                i += 1
+            }
+            newStorage.append(calleeContextId, encodedCaller)
+            newStorage
+        }
+    }
+
+    private[this] def indexOf(calleeContextId: Int, encodedCaller: Long): Int = {
+        val mask = entries.length - 1
+        var slot = hash(calleeContextId, encodedCaller) & mask
+        var entry = entries(slot)
+        while (entry != 0) {
+            if (this.encodedCaller(entry - 1) == encodedCaller &&
+                this.calleeContextId(entry - 1) == calleeContextId)
+                return entry - 1;
+            slot = (slot + 1) & mask
+            entry = entries(slot)
+        }
+        -1
+    }
+
+    // Requires that the entry is not yet contained and that the lock is held (or the storage is
+    // not yet published).
+    private[cg] def append(calleeContextId: Int, encodedCaller: Long): Unit = {
+        val index = length
+        val n = index + MinChunkSize
+        val chunk = 31 - JInt.numberOfLeadingZeros(n) - MinChunkSizeBits
+        if (chunk == calleeContextIdChunks.length) {
+            // Only the (small) arrays of chunks are copied, the chunks themselves are shared.
+            val chunkSize = MinChunkSize << chunk
+            val newCalleeContextIdChunks = java.util.Arrays.copyOf(calleeContextIdChunks, chunk + 1)
+            newCalleeContextIdChunks(chunk) = new Array[Int](chunkSize)
+            val newEncodedCallerChunks = java.util.Arrays.copyOf(encodedCallerChunks, chunk + 1)
+            newEncodedCallerChunks(chunk) = new Array[Long](chunkSize)
+            val newLinkChunks = java.util.Arrays.copyOf(linkChunks, chunk + 1)
+            newLinkChunks(chunk) = new Array[Int](chunkSize)
+            calleeContextIdChunks = newCalleeContextIdChunks
+            encodedCallerChunks = newEncodedCallerChunks
+            linkChunks = newLinkChunks
+        }
+        val offset = n - (MinChunkSize << chunk)
+        calleeContextIdChunks(chunk)(offset) = calleeContextId
+        encodedCallerChunks(chunk)(offset) = encodedCaller
+        length = index + 1
+
+        if (length * 2 > entries.length)
+            entries = rehash(entries, i => hash(this.calleeContextId(i), this.encodedCaller(i)))
+        insert(entries, hash(calleeContextId, encodedCaller), index)
+
+        val contextSlot = slotOfContext(calleeContextId)
+        if (contextSlot < 0) {
+            linkChunks(chunk)(offset) = FirstOfContext
+            contextsCount += 1
+            if (contextsCount * 2 > contexts.length) rehashContexts()
+            val slot = insert(contexts, hash(calleeContextId), index)
+            lastOfContexts(slot) = index + 1
+        } else {
+            val last = lastOfContexts(contextSlot) - 1
+            val lastN = last + MinChunkSize
+            val lastChunk = 31 - JInt.numberOfLeadingZeros(lastN) - MinChunkSizeBits
+            val lastOffset = lastN - (MinChunkSize << lastChunk)
+            val lastLinks = linkChunks(lastChunk)
+            lastLinks(lastOffset) = (lastLinks(lastOffset) & FirstOfContext) | (index + 1)
+            lastOfContexts(contextSlot) = index + 1
+        }
+    }
+
+    // Returns the slot of the given callee context in `contexts` or -1.
+    private[this] def slotOfContext(calleeContextId: Int): Int = {
+        val mask = contexts.length - 1
+        var slot = hash(calleeContextId) & mask
+        var entry = contexts(slot)
+        while (entry != 0) {
+            if (this.calleeContextId(entry - 1) == calleeContextId)
+                return slot;
+            slot = (slot + 1) & mask
+            entry = contexts(slot)
+        }
+        -1
+    }
+
+    // The new table is completely initialized before it is published.
+    private[this] def rehashContexts(): Unit = {
+        val newContexts = new Array[Int](contexts.length * 2)
+        val newLastOfContexts = new Array[Int](contexts.length * 2)
+        var slot = 0
+        while (slot < contexts.length) {
+            val entry = contexts(slot)
+            if (entry != 0) {
+                val newSlot = insert(newContexts, hash(this.calleeContextId(entry - 1)), entry - 1)
+                newLastOfContexts(newSlot) = lastOfContexts(slot)
+            }
+            slot += 1
+        }
+        lastOfContexts = newLastOfContexts
+        contexts = newContexts
+    }
+
+    private[this] def insert(table: Array[Int], hash: Int, index: Int): Int = {
+        val mask = table.length - 1
+        var slot = hash & mask
+        while (table(slot) != 0) {
+            slot = (slot + 1) & mask
+        }
+        table(slot) = index + 1
+        slot
+    }
+
+    private[this] def rehash(table: Array[Int], hashOfIndex: Int => Int): Array[Int] = {
+        val newTable = new Array[Int](table.length * 2)
+        table foreach { entry =>
+            if (entry != 0) insert(newTable, hashOfIndex(entry - 1), entry - 1)
+        }
+        newTable
+    }
+}
+
+private[cg] object CallersStorage {
+
+    /**
+     * The maximum number of callers stored in a [[SmallCallersStorage]].
+     */
+    final val MaxSmallSize = 4
+
+    def apply(calleeContextId: Int, encodedCaller: Long): CallersStorage = {
+        new SmallCallersStorage(Array(calleeContextId.toLong, encodedCaller))
+    }
+
+    /**
+     * Creates a storage from a map of callee context ids to (encoded) callers, where the
+     * callers are ordered such that the most recently added one comes first.
+     */
+    def apply(encodedCallers: Iterable[(Int, LongLinkedSet)]): CallersStorage = {
+        var storage: CallersStorage = new SmallCallersStorage(new Array[Long](0))
+        var size = 0
+        for ((calleeContextId, callers) <- encodedCallers) {
+            callers.foldLeft(List.empty[Long])((oldestFirst, caller) => caller :: oldestFirst).foreach {
+                encodedCaller =>
+                    val newStorage = storage.updated(size, calleeContextId, encodedCaller)
+                    if (newStorage ne null) {
+                        storage = newStorage
+                        size += 1
+                    }
+            }
+        }
+        storage
+    }
+}
+
+private[cg] object LogCallersStorage {
+
+    private final val MinChunkSizeBits = 2
+    private final val MinChunkSize = 1 << MinChunkSizeBits
+    private final val MinTableSize = 4
+
+    private final val FirstOfContext = 0x80000000
+
+    private def hash(calleeContextId: Int): Int = {
+        val h = calleeContextId * 0x9E3779B9
+        h ^ (h >>> 16)
+    }
+
+    private def hash(calleeContextId: Int, encodedCaller: Long): Int = {
+        val h = (encodedCaller ^ calleeContextId.toLong) * 0x9E3779B97F4A7C15L
+        (h ^ (h >>> 32)).toInt
+    }
+}
@@ -0,0 +1,32 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+
+import org.junit.runner.RunWith
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.br.TestSupport.biProject
+
+/**
+ * Tests that the [[ControlDependenciesKey]] provides the control dependencies of the
+ * 3-address code of the methods.
+ */
+@RunWith(classOf[JUnitRunner])
+class ControlDependenciesKeyTest extends AnyFunSpec with Matchers {
+
+    describe("the ControlDependenciesKey") {
+        val project = biProject("controlflow.jar")
+        val taCodes = project.get(EagerDetachedTACAIKey)
+        val controlDependencies = project.get(ControlDependenciesKey)
+
+        it("should provide the control dependencies of the CFGs of the 3-address code") {
+            project.allMethodsWithBody foreach { m =>
+                val cfg = taCodes(m).cfg
+                controlDependencies(m) should be theSameInstanceAs cfg.controlDependencies
+                controlDependencies(m).maxNode should be >= (taCodes(m).stmts.length - 1)
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+
+import org.junit.runner.RunWith
+import org.scalatest.funspec.AnyFunSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.value.ValueInformation
+import org.opalj.br.TestSupport.biProject
+
+/**
+ * Tests that the 3-address code provided by the [[EagerDetachedTACAIKey]] is detached from the
+ * underlying abstract interpretation results.
+ */
+@RunWith(classOf[JUnitRunner])
+class EagerDetachedTACAIKeyTest extends AnyFunSpec with Matchers {
+
+    type V = DUVar[ValueInformation]
+
+    // the canonical forms of the domain values are defined in org.opalj.value; the domain
+    // values themselves are defined by the domains
+    def isDetached(value: ValueInformation): Boolean = {
+        value.getClass.getName.startsWith("org.opalj.value.")
+    }
+
+    def valuesAreDetached(expr: Expr[V]): Boolean = expr match {
+        case v: DUVar[ValueInformation] @unchecked => isDetached(v.value)
+        case e                                     => e.forallSubExpressions[V](valuesAreDetached)
+    }
+
+    describe("the EagerDetachedTACAIKey") {
+        val project = biProject("methods.jar")
+        val methods = project.allMethodsWithBody
+        val taCodes = project.get(EagerDetachedTACAIKey)
+
+        it("should provide the 3-address code of all methods with a body") {
+            methods foreach { m => taCodes(m) should not be null }
+        }
+
+        it("should only store values that are no longer tied to the domain") {
+            methods foreach { m =>
+                val taCode = taCodes(m)
+                taCode.stmts foreach { stmt =>
+                    stmt match {
+                        case Assignment(_, targetVar, _) => assert(isDetached(targetVar.value), stmt)
+                        case _                           =>
+                    }
+                    assert(stmt.forallSubExpressions[V](valuesAreDetached), stmt)
+                }
+                taCode.cfg.code.instructions should be theSameInstanceAs taCode.stmts
+            }
+        }
+
+        it("should pass detached code to the consumers") {
+            EagerDetachedTACAIKey.foreachTACode(project, parallelizationLevel = 1) { (m, taCode) =>
+                taCode.stmts foreach { stmt =>
+                    assert(stmt.forallSubExpressions[V](valuesAreDetached), s"$m: $stmt")
+                }
+                taCode.cfg.code.instructions should be theSameInstanceAs taCode.stmts
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+
+import java.net.URL
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.collection.immutable.IntTrieSet
+import org.opalj.value.ValueInformation
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.Method
+import org.opalj.br.analyses.Project
+import org.opalj.br.cfg.CFG
+
+/**
+ * Tests that the sparse data-flow analysis computes the same results as the corresponding dense
+ * data-flow analysis which propagates the facts along the control-flow graph.
+ */
+@RunWith(classOf[JUnitRunner])
+class SparseDataFlowAnalysisTest extends AnyFlatSpec with Matchers {
+
+    type V = DUVar[ValueInformation]
+    type Facts = Map[Int, IntTrieSet]
+
+    val project: Project[URL] = Project(locateTestResources("ai.jar", "bi"))
+
+    def parameterFact(origin: Int): Int = {
+        if (origin < 0 && !ai.isImplicitOrExternalException(origin)) -origin - 1 else -1
+    }
+
+    /** The parameters the value with the given origin depends on w.r.t. the given facts. */
+    def dependencies(origin: Int, facts: Facts): IntTrieSet = {
+        if (origin >= 0) {
+            facts.getOrElse(origin, IntTrieSet.empty)
+        } else {
+            val fact = parameterFact(origin)
+            if (fact >= 0) IntTrieSet(fact) else IntTrieSet.empty
+        }
+    }
+
+    /** The parameters the given variable depends on w.r.t. the facts of its definition sites. */
+    def dependencies(uVar: V, facts: Facts): IntTrieSet = {
+        uVar.definedBy.foldLeft(IntTrieSet.empty) { (deps, defSite) =>
+            deps ++ dependencies(defSite, facts)
+        }
+    }
+
+    /** Computes the parameters each value depends on by propagating the facts of all vars. */
+    def denseAnalysis(code: TACode[TACMethodParameter, V]): Array[Facts] = {
+        def transfer(facts: Facts, stmt: Stmt[V], index: Int, succId: CFG.SuccessorId): Facts = {
+            stmt match {
+                case Assignment(_, _, expr) =>
+                    val exprDependencies = uVars(expr).foldLeft(IntTrieSet.empty) { (deps, uVar) =>
+                        deps ++ dependencies(uVar, facts)
+                    }
+                    facts.updated(index, exprDependencies)
+                case caughtException: CaughtException[V] =>
+                    val exceptionDependencies = caughtException.origins.foldLeft(IntTrieSet.empty) {
+                        (deps, origin) => deps ++ dependencies(origin, facts)
+                    }
+                    facts.updated(index, exceptionDependencies)
+                case _ =>
+                    facts
+            }
+        }
+
+        def join(oldFacts: Facts, newFacts: Facts): Facts = {
+            var facts = oldFacts
+            newFacts foreach { e =>
+                val (defSite, dependencies) = e
+                val oldDependencies = facts.getOrElse(defSite, IntTrieSet.empty)
+                val joinedDependencies = oldDependencies ++ dependencies
+                if (joinedDependencies.size != oldDependencies.size || !facts.contains(defSite))
+                    facts = facts.updated(defSite, joinedDependencies)
+            }
+            facts
+        }
+
+        code.cfg.performForwardDataFlowAnalysis(Map.empty[Int, IntTrieSet], transfer, join)._1
+    }
+
+    def sparseAnalysis(m: Method, code: TACode[TACMethodParameter, V]): SparseBitVectorAnalysis = {
+        // the fact 0 is the implicit this parameter
+        new SparseBitVectorAnalysis(code, m.descriptor.parametersCount + 1) {
+
+            override def originFacts(origin: Int, facts: BitVector): Unit = {
+                val fact = parameterFact(origin)
+                if (fact >= 0) facts += fact
+            }
+
+            override def transfer(index: Int, expr: Expr[V], facts: BitVector): Unit = {
+                uVars(expr) foreach facts.addFactsOf
+            }
+        }.solve()
+    }
+
+    /** All variables used by the given expression. */
+    def uVars(expr: Expr[V]): List[V] = {
+        if (expr.isVar)
+            List(expr.asVar)
+        else
+            (0 until expr.subExprCount).toList.flatMap(i => uVars(expr.subExpr(i)))
+    }
+
+    behavior of "the sparse data-flow analysis"
+
+    it should "compute the same facts as the dense data-flow analysis" in {
+        val tacProvider = project.get(LazyDetachedTACAIKey)
+        var comparedUsesCount = 0
+        project.allMethodsWithBody foreach { m =>
+            val code = tacProvider(m)
+            val denseFacts = denseAnalysis(code)
+            val sparse = sparseAnalysis(m, code)
+
+            code.stmts.iterator.zipWithIndex foreach { stmtAndIndex =>
+                val (stmt, index) = stmtAndIndex
+                val facts = denseFacts(index)
+                if (facts ne null) {
+                    var subExprs = List.empty[Expr[V]]
+                    stmt.forallSubExpressions[V] { subExpr => subExprs ::= subExpr; true }
+                    for { subExpr <- subExprs; uVar <- uVars(subExpr) } {
+                        withClue(s"${m.toJava}: $index: $stmt") {
+                            sparse.facts(uVar) should be(dependencies(uVar, facts))
+                        }
+                        comparedUsesCount += 1
+                    }
+                }
+            }
+        }
+        info(s"compared the facts of $comparedUsesCount uses")
+    }
+
+    it should "propagate the facts of caught exceptions to their uses" in {
+        val classFile = project.classFile(br.ObjectType("ai/domain/ExceptionValuesFrenzy")).get
+        val m = classFile.findMethod("handleExceptions", br.MethodDescriptor.NoArgsAndReturnVoid).get
+        val code = project.get(LazyDetachedTACAIKey)(m)
+        // the fact 0 is used for all exceptions that are raised by the JVM or by called methods
+        val ExceptionFact = 0
+        val analysis = new SparseBitVectorAnalysis(code, 1) {
+            override def originFacts(origin: Int, facts: BitVector): Unit = {
+                if (ai.isImplicitOrExternalException(origin)) facts += ExceptionFact
+            }
+            override def transfer(index: Int, expr: Expr[V], facts: BitVector): Unit = {
+                uVars(expr) foreach facts.addFactsOf
+            }
+        }.solve()
+
+        val caughtExceptions = code.stmts.indices.filter(i => code.stmts(i).isCaughtException)
+        caughtExceptions should not be empty
+        caughtExceptions foreach { index => analysis.facts(index) should be(IntTrieSet(ExceptionFact)) }
+        val thrownExceptions = code.stmts.collect { case Throw(_, exception) => exception.asVar }
+        thrownExceptions should not be empty
+        thrownExceptions foreach { uVar => analysis.facts(uVar) should be(IntTrieSet(ExceptionFact)) }
+    }
+}
@@ -0,0 +1,208 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package cg
+
+import java.net.URL
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.ClassFile
+import org.opalj.br.Code
+import org.opalj.br.MethodTemplate
+import org.opalj.br.ObjectType
+import org.opalj.br.analyses.DeclaredMethodsKey
+import org.opalj.br.analyses.Project
+import org.opalj.br.analyses.SomeProject
+import org.opalj.br.fpcf.PropertyStoreKey
+import org.opalj.br.instructions.RETURN
+import org.opalj.br.instructions.Instruction
+import org.opalj.br.reader.Java8Framework.ClassFiles
+import org.opalj.tac.fpcf.properties.TACAI
+import org.opalj.tac.fpcf.properties.cg.Callees
+
+/**
+ * Tests that an incrementally computed call graph is identical to the call graph that is
+ * computed from scratch.
+ */
+@RunWith(classOf[JUnitRunner])
+class IncrementalCallGraphTest extends AnyFlatSpec with Matchers {
+
+    val UserType: ObjectType = ObjectType("methods/a/User")
+
+    val classFiles: Iterable[(ClassFile, URL)] = ClassFiles(locateTestResources("methods.jar", "bi"))
+
+    def createProject(classFiles: Iterable[(ClassFile, URL)]): Project[URL] = {
+        Project(classFiles, Iterable.empty, libraryClassFilesAreInterfacesOnly = true)
+    }
+
+    def previousProject(): Project[URL] = {
+        val project = createProject(classFiles)
+        project.get(RTACallGraphKey)
+        project
+    }
+
+    /** Replaces the body of the method `second` of `methods.a.User` by a plain return. */
+    def changedClassFiles: Iterable[(ClassFile, URL)] = classFiles map { cfAndSource =>
+        val (cf, source) = cfAndSource
+        if (cf.thisType == UserType) {
+            val methods = cf.methods map[MethodTemplate] { m =>
+                if (m.name == "second")
+                    m.copy(body = Some(Code(0, 0, Array[Instruction](RETURN))))
+                else
+                    m.copy()
+            }
+            (cf.copy(methods = methods), source)
+        } else {
+            cfAndSource
+        }
+    }
+
+    /**
+     * Increases the maximum stack size of the method `first` of `methods.a.User`; i.e., the
+     * method changes, but its three-address code does not.
+     */
+    def changedMaxStackClassFiles: Iterable[(ClassFile, URL)] = classFiles map { cfAndSource =>
+        val (cf, source) = cfAndSource
+        if (cf.thisType == UserType) {
+            val methods = cf.methods map[MethodTemplate] { m =>
+                if (m.name == "first")
+                    m.copy(body = m.body.map(code => code.copy(maxStack = code.maxStack + 1)))
+                else
+                    m.copy()
+            }
+            (cf.copy(methods = methods), source)
+        } else {
+            cfAndSource
+        }
+    }
+
+    def edges(callGraph: CallGraph): Set[String] = {
+        callGraph.reachableMethods().flatMap { context =>
+            val caller = context.method
+            callGraph.calleesOf(caller).flatMap { callSite =>
+                val (pc, callees) = callSite
+                callees.map(callee => s"${caller.toJava}@$pc -> ${callee.method.toJava}")
+            }
+        }.toSet
+    }
+
+    def reachableMethods(callGraph: CallGraph): Set[String] = {
+        callGraph.reachableMethods().map(_.method.toJava).toSet
+    }
+
+    def tacai(project: SomeProject, name: String): TACAI = {
+        val method = project.classFile(UserType).get.findMethod(name).head
+        project.get(PropertyStoreKey)(method, TACAI.key).ub
+    }
+
+    def callees(project: SomeProject, name: String): Callees = {
+        val method = project.classFile(UserType).get.findMethod(name).head
+        val declaredMethod = project.get(DeclaredMethodsKey)(method)
+        project.get(PropertyStoreKey)(declaredMethod, Callees.key).ub
+    }
+
+    def assertSameCallGraph(incremental: CallGraph, fromScratch: CallGraph): Unit = {
+        reachableMethods(incremental) should be(reachableMethods(fromScratch))
+        edges(incremental) should be(edges(fromScratch))
+        incremental.numEdges should be(fromScratch.numEdges)
+    }
+
+    behavior of "the incremental call graph"
+
+    it should "report that a recreated project did not change" in {
+        val previous = previousProject()
+        val changes = IncrementalCallGraph.changes(previous, previous.recreate())
+        assert(changes.isEmpty)
+        assert(changes.preservesSignatures)
+    }
+
+    it should "detect changed method bodies" in {
+        val previous = previousProject()
+        val changes = IncrementalCallGraph.changes(previous, createProject(changedClassFiles))
+        changes.changedTypes should be(Set(UserType))
+        assert(changes.addedTypes.isEmpty)
+        assert(changes.removedTypes.isEmpty)
+        assert(changes.preservesSignatures)
+    }
+
+    it should "be identical to the call graph computed from scratch if nothing changed" in {
+        val previous = previousProject()
+        val project = previous.recreate()
+        val incremental = IncrementalCallGraph(previous, project, RTACallGraphKey)
+        val fromScratch = previous.recreate().get(RTACallGraphKey)
+
+        assertSameCallGraph(incremental, fromScratch)
+        assert(tacai(project, "first") eq tacai(previous, "first"))
+        assert(callees(project, "main") eq callees(previous, "main"))
+        assert(callees(project, "first") eq callees(previous, "first"))
+    }
+
+    it should "be identical to the call graph computed from scratch if a method body changed" in {
+        val previous = previousProject()
+        val previousCallGraph = CallGraphKey.compute(previous)
+        val project = createProject(changedClassFiles)
+        val incremental = IncrementalCallGraph(previous, project, RTACallGraphKey)
+        val fromScratch = createProject(changedClassFiles).get(RTACallGraphKey)
+
+        assertSameCallGraph(incremental, fromScratch)
+        // the call edges of the changed method were removed...
+        reachableMethods(previousCallGraph) should not be (reachableMethods(incremental))
+        // ... and only the three-address code of the changed method was recomputed
+        assert(tacai(project, "first") eq tacai(previous, "first"))
+        assert(tacai(project, "third") eq tacai(previous, "third"))
+        assert(tacai(project, "second") ne tacai(previous, "second"))
+        // the changed method no longer allocates objects; hence, all callees were recomputed
+        assert(callees(project, "first") ne callees(previous, "first"))
+    }
+
+    it should "reuse the callees of the unchanged methods if the changed methods' three-address code is unchanged" in {
+        val previous = previousProject()
+        val project = createProject(changedMaxStackClassFiles)
+        val incremental = IncrementalCallGraph(previous, project, RTACallGraphKey)
+        val fromScratch = createProject(changedMaxStackClassFiles).get(RTACallGraphKey)
+
+        IncrementalCallGraph.changes(previous, project).changedTypes should be(Set(UserType))
+        assertSameCallGraph(incremental, fromScratch)
+        assert(callees(project, "main") eq callees(previous, "main"))
+        assert(callees(project, "second") eq callees(previous, "second"))
+        assert(callees(project, "third") eq callees(previous, "third"))
+        assert(tacai(project, "second") eq tacai(previous, "second"))
+        // only the changed method was analyzed again
+        assert(callees(project, "first") ne callees(previous, "first"))
+        assert(tacai(project, "first") ne tacai(previous, "first"))
+    }
+
+    it should "be identical to the call graph computed from scratch if classes were added" in {
+        val previous = previousProject()
+        val addedClassFiles = ClassFiles(locateTestResources("classhierarchy.jar", "bi"))
+        val project = previous.extend(addedClassFiles)
+        val incremental = IncrementalCallGraph(previous, project, RTACallGraphKey)
+        val fromScratch = previous.extend(addedClassFiles).get(RTACallGraphKey)
+
+        val changes = IncrementalCallGraph.changes(previous, project)
+        assert(changes.addedTypes.nonEmpty)
+        assert(!changes.preservesSignatures)
+        assert(changes.preservesPreviousSignatures)
+        assertSameCallGraph(incremental, fromScratch)
+        // the added classes are not referenced by the previous classes
+        assert(tacai(project, "first") eq tacai(previous, "first"))
+        assert(tacai(project, "second") eq tacai(previous, "second"))
+    }
+
+    it should "be identical to the call graph computed from scratch if classes were added and a method body changed" in {
+        val previous = previousProject()
+        val addedClassFiles = ClassFiles(locateTestResources("classhierarchy.jar", "bi"))
+        val project = createProject(changedClassFiles ++ addedClassFiles)
+        val incremental = IncrementalCallGraph(previous, project, RTACallGraphKey)
+        val fromScratch = createProject(changedClassFiles ++ addedClassFiles).get(RTACallGraphKey)
+
+        assertSameCallGraph(incremental, fromScratch)
+        assert(tacai(project, "first") eq tacai(previous, "first"))
+        assert(tacai(project, "second") ne tacai(previous, "second"))
+    }
+}
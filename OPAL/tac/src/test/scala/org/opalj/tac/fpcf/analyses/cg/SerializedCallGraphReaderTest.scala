@@ -0,0 +1,92 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package fpcf
+package analyses
+package cg
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.runner.RunWith
+import org.scalatest.funsuite.AnyFunSuite
+import org.scalatestplus.junit.JUnitRunner
+import play.api.libs.json.Json
+
+/**
+ * Tests that the [[SerializedCallGraphReader]] reads the same call graph as Play's JSON API.
+ */
+@RunWith(classOf[JUnitRunner])
+class SerializedCallGraphReaderTest extends AnyFunSuite {
+
+    val main = MethodDesc("main", "Lapp/Main;", "V", List("[Ljava/lang/String;"))
+    val run = MethodDesc("run", "Lapp/Task;", "V", Nil)
+    val runImpl = MethodDesc("run", "Lapp/TaskImpl;", "V", Nil)
+    val compute = MethodDesc("compute", "Lapp/TaskImpl;", "I", List("I", "J"))
+
+    val callGraph = ReachableMethodsDescription(List(
+        ReachableMethodDescription(main, List(
+            CallSiteDescription(run, 3, Some(5), List(runImpl)),
+            CallSiteDescription(run, 3, None, List(runImpl, compute))
+        )),
+        ReachableMethodDescription(runImpl, List(
+            CallSiteDescription(compute, 10, None, List(compute))
+        )),
+        ReachableMethodDescription(compute, Nil)
+    ))
+
+    def read(callGraph: String, batchSize: Int): List[ReachableMethodDescription] = {
+        val file = File.createTempFile("callgraph", ".json")
+        try {
+            Files.write(file.toPath, callGraph.getBytes("UTF-8"))
+            val reader = new SerializedCallGraphReader(file)
+            Iterator.continually(reader.nextReachableMethods(batchSize)).takeWhile(_.nonEmpty).flatMap { batch =>
+                batch.iterator.map { rm =>
+                    ReachableMethodDescription(
+                        reader.method(rm.method),
+                        rm.callSites.iterator.map { cs =>
+                            CallSiteDescription(
+                                reader.method(cs.declaredTarget),
+                                cs.line,
+                                if (cs.pc >= 0) Some(cs.pc) else None,
+                                cs.targets.iterator.map(reader.method).toList
+                            )
+                        }.toList
+                    )
+                }
+            }.toList
+        } finally {
+            file.delete()
+        }
+    }
+
+    test("reading a call graph serialized using Play's JSON API") {
+        val serializedCallGraph = Json.toJson(callGraph).toString
+        assert(read(serializedCallGraph, 1) == callGraph.reachableMethods)
+        assert(read(serializedCallGraph, 1024) == callGraph.reachableMethods)
+    }
+
+    test("reading a call graph with unknown fields and explicit null pcs") {
+        val serializedCallGraph =
+            """{ "version": { "major": 1, "minor": [0] },
+              |  "reachableMethods": [
+              |    { "callSites": [
+              |        { "declaredTarget": { "name": "run", "declaringClass": "Lapp/Task;",
+              |                              "returnType": "V", "parameterTypes": [] },
+              |          "line": 3, "pc": null, "comment": "virtual",
+              |          "targets": [ { "name": "run", "declaringClass": "Lapp/TaskImpl;",
+              |                         "returnType": "V", "parameterTypes": [] } ] } ],
+              |      "method": { "name": "main", "declaringClass": "Lapp/Main;",
+              |                  "returnType": "V", "parameterTypes": ["[Ljava/lang/String;"] } }
+              |  ]
+              |}""".stripMargin
+        assert(read(serializedCallGraph, 16) == List(
+            ReachableMethodDescription(main, List(CallSiteDescription(run, 3, None, List(runImpl))))
+        ))
+    }
+
+    test("reading an empty call graph") {
+        assert(read("""{ "reachableMethods": [] }""", 16).isEmpty)
+        assert(read("{}", 16).isEmpty)
+    }
+}
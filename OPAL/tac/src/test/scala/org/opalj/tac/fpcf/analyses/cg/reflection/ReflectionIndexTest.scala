@@ -0,0 +1,173 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package tac
+package fpcf
+package analyses
+package cg
+package reflection
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import org.opalj.bi.TestResources.locateTestResources
+import org.opalj.br.FieldTypes
+import org.opalj.br.Method
+import org.opalj.br.MethodDescriptor
+import org.opalj.br.ObjectType
+import org.opalj.br.ReferenceType
+import org.opalj.br.analyses.Project
+import org.opalj.br.analyses.SomeProject
+
+/**
+ * Tests that the [[MethodMatcher]]s and [[TypesUtil]] compute the same results using the
+ * [[ReflectionIndex]] as without it.
+ */
+@RunWith(classOf[JUnitRunner])
+class ReflectionIndexTest extends AnyFlatSpec with Matchers {
+
+    implicit val project: SomeProject = Project(
+        locateTestResources("classfiles/Flashcards 0.4 - target 1.6.jar", "bi"),
+        org.opalj.bytecode.RTJar
+    )
+
+    // every 97th method of the project and its libraries
+    val sampledMethods: Seq[Method] = project.allMethods.iterator.zipWithIndex.collect {
+        case (m, i) if i % 97 == 0 => m
+    }.toSeq ++ project.allProjectClassFiles.flatMap(_.methods)
+
+    val names: Seq[String] = sampledMethods.map(_.name).distinct :+ "<init>" :+ "unknownMethodName"
+
+    val descriptors: Seq[MethodDescriptor] = sampledMethods.map(_.descriptor).distinct
+
+    val parameterTypes: Seq[FieldTypes] = descriptors.map(_.parameterTypes).distinct
+
+    val classes: Seq[ObjectType] = {
+        sampledMethods.map(_.classFile.thisType).distinct :+ ObjectType("unknown/UnknownClass")
+    }
+
+    val simpleMatchers: Seq[MethodMatcher] = Seq(
+        StaticMethodMatcher,
+        NonStaticMethodMatcher,
+        PrivateMethodMatcher,
+        PublicMethodMatcher,
+        AllMethodsMatcher,
+        NoMethodsMatcher
+    )
+
+    /**
+     * Returns the methods accepted by all matchers by checking the initial methods of the
+     * matcher with the highest priority against all other matchers, i.e., without the index.
+     */
+    def unindexedMethods(matchers: Seq[MethodMatcher]): Set[Method] = {
+        val sortedMatchers = matchers.sortBy(_.priority)
+        sortedMatchers.head.initialMethods.filter(m => sortedMatchers.tail.forall(_.contains(m))).toSet
+    }
+
+    def testMatchers(matchers: Seq[MethodMatcher]): Unit = {
+        val indexed = MethodMatching.getPossibleMethods(matchers).toList
+        indexed.size should be(indexed.toSet.size)
+        indexed.toSet should be(unindexedMethods(matchers))
+    }
+
+    behavior of "the indexed method matching"
+
+    it should "find the same methods as the unindexed one for name based matchers" in {
+        names.grouped(3) foreach { someNames =>
+            testMatchers(Seq(new NameBasedMethodMatcher(someNames.toSet)))
+        }
+        for { name <- names.take(100); matcher <- simpleMatchers } {
+            testMatchers(Seq(new NameBasedMethodMatcher(Set(name)), matcher))
+        }
+        testMatchers(Seq(new NameBasedMethodMatcher(Set.empty)))
+    }
+
+    it should "find the same methods as the unindexed one for parameter types based matchers" in {
+        for { types <- parameterTypes.take(200) } {
+            testMatchers(Seq(new ParameterTypesBasedMethodMatcher(types)))
+        }
+        for { types <- parameterTypes.take(20); matcher <- simpleMatchers } {
+            testMatchers(Seq(new ParameterTypesBasedMethodMatcher(types), matcher))
+        }
+    }
+
+    it should "find the same methods as the unindexed one for descriptor based matchers" in {
+        descriptors.take(300).grouped(3) foreach { someDescriptors =>
+            testMatchers(Seq(new DescriptorBasedMethodMatcher(someDescriptors.toSet)))
+        }
+    }
+
+    it should "find the same methods as the unindexed one for class based matchers" in {
+        for { onlyMethodsExactlyInClass <- Seq(true, false) } {
+            classes.grouped(2) foreach { someClasses =>
+                testMatchers(Seq(new ClassBasedMethodMatcher(someClasses.toSet, onlyMethodsExactlyInClass)))
+            }
+            for { classType <- classes.take(20); matcher <- simpleMatchers } {
+                testMatchers(Seq(new ClassBasedMethodMatcher(Set(classType), onlyMethodsExactlyInClass), matcher))
+            }
+        }
+    }
+
+    it should "find the same methods as the unindexed one for chained matchers" in {
+        for { m <- sampledMethods } {
+            val classType = m.classFile.thisType
+            testMatchers(Seq(
+                new ClassBasedMethodMatcher(Set(classType), onlyMethodsExactlyInClass = false),
+                new NameBasedMethodMatcher(Set(m.name)),
+                new ParameterTypesBasedMethodMatcher(m.parameterTypes)
+            ))
+            testMatchers(Seq(
+                new NameBasedMethodMatcher(Set(m.name)),
+                new DescriptorBasedMethodMatcher(Set(m.descriptor)),
+                if (m.isStatic) StaticMethodMatcher else NonStaticMethodMatcher
+            ))
+            testMatchers(Seq(
+                new ClassBasedMethodMatcher(Set(classType), onlyMethodsExactlyInClass = true),
+                new ParameterTypesBasedMethodMatcher(m.parameterTypes),
+                PublicMethodMatcher
+            ))
+        }
+    }
+
+    it should "find the same methods as the unindexed one for matchers which do not support the index" in {
+        val synchronizedMethodsMatcher = new MethodMatcher {
+            override def initialMethods(implicit p: SomeProject): Iterator[Method] = {
+                p.allMethods.iterator.filter(_.isSynchronized)
+            }
+            override def contains(m: Method)(implicit p: SomeProject): Boolean = m.isSynchronized
+            override def priority: Int = 3
+        }
+        testMatchers(Seq(synchronizedMethodsMatcher))
+        for { name <- names.take(100) } {
+            testMatchers(Seq(new NameBasedMethodMatcher(Set(name)), synchronizedMethodsMatcher))
+        }
+    }
+
+    behavior of "the resolution of class names"
+
+    it should "find the same classes as the resolution without the index" in {
+        def unindexedForNameClass(className: String, onlyObjectTypes: Boolean): Option[ObjectType] = {
+            try {
+                val tpe = ReferenceType(className.replace('.', '/'))
+                val classType =
+                    if (tpe.isArrayType)
+                        if (onlyObjectTypes) None
+                        else Some(ObjectType.Object)
+                    else Some(tpe.asObjectType)
+                classType.filter(project.classFile(_).isDefined)
+            } catch {
+                case _: Exception => None
+            }
+        }
+
+        val classNames = classes.flatMap { classType =>
+            Seq(classType.fqn, classType.toJava, "[L" + classType.toJava + ";")
+        } ++ Seq("[I", "[[Ljava.lang.String;", "java.lang.Object", "unknown.Class", "[", "")
+        for { className <- classNames; onlyObjectTypes <- Seq(true, false) } {
+            TypesUtil.forNameClass(className, project, onlyObjectTypes) should be(
+                unindexedForNameClass(className, onlyObjectTypes)
+            )
+        }
+    }
+}
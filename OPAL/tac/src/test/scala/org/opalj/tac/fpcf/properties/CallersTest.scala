@@ -185,6 +185,116 @@ class CallersTest extends AnyFlatSpec with Matchers {
         assert(!callers.hasVMLevelCallers)
     }
 
+    it should "only report new callers w.r.t. an older version" in {
+        val oneCaller = NoCallers.updated(
+            simpleContexts(otherMethod), simpleContexts(declaredMethod), pc = 0, isDirect = true
+        )
+        val twoCallers = oneCaller.updated(
+            simpleContexts(otherMethod), simpleContexts(otherMethod), pc = 1, isDirect = false
+        )
+        val threeCallers = twoCallers.updated(
+            simpleContexts(declaredMethod), simpleContexts(otherMethod), pc = 2, isDirect = true
+        )
+
+        var newCallers = List.empty[(DeclaredMethod, Int, Boolean)]
+        threeCallers.forNewCallerContexts(oneCaller, otherMethod) { (_, callerContext, pc, isDirect) =>
+            newCallers ::= ((callerContext.method, pc, isDirect))
+        }
+        assert(newCallers == List((otherMethod, 2, true), (otherMethod, 1, false)))
+
+        var newCalleeContexts = List.empty[DeclaredMethod]
+        threeCallers.forNewCalleeContexts(oneCaller, otherMethod) { calleeContext =>
+            newCalleeContexts ::= calleeContext.method
+        }
+        assert(newCalleeContexts == List(declaredMethod))
+
+        assert(oneCaller.size == 1)
+        assert(oneCaller.callersForContextId(simpleContexts(otherMethod).id).size == 1)
+        assert(threeCallers.callersForContextId(simpleContexts(otherMethod).id).size == 2)
+    }
+
+    it should "provide the same callers when iterating and when creating the sets" in {
+        val methods = declaredMethods.declaredMethods.take(3).toIndexedSeq
+        var callers: Callers = NoCallers
+        // crosses the threshold between the small and the log-based representation
+        for { i <- 0 until 10 } {
+            callers = callers.updated(
+                simpleContexts(methods(i % 3)), simpleContexts(otherMethod), pc = i, isDirect = true
+            )
+            methods foreach { m =>
+                val calleeContextId = simpleContexts(m).id
+                var iterated = Set.empty[Long]
+                callers.foreachCallerForContextId(calleeContextId) { iterated += _ }
+                assert(iterated == callers.callersForContextId(calleeContextId).foldLeft(Set.empty[Long])(_ + _))
+            }
+            val encodedCallers = callers.asInstanceOf[CallersOnlyWithConcreteCallers].encodedCallers
+            assert(encodedCallers.valuesIterator.map(_.size).sum == i + 1)
+            val copy = new CallersOnlyWithConcreteCallers(encodedCallers, i + 1)
+            assert(copy.callers(otherMethod).iterator.toSet == callers.callers(otherMethod).iterator.toSet)
+        }
+    }
+
+    it should "not be affected by updates of an older version" in {
+        val oneCaller = NoCallers.updated(
+            simpleContexts(otherMethod), simpleContexts(declaredMethod), pc = 0, isDirect = true
+        )
+        val twoCallers = oneCaller.updated(
+            simpleContexts(otherMethod), simpleContexts(otherMethod), pc = 1, isDirect = true
+        )
+        val otherTwoCallers = oneCaller.updated(
+            simpleContexts(otherMethod), simpleContexts(otherMethod), pc = 2, isDirect = true
+        )
+
+        assert(twoCallers.size == 2 && otherTwoCallers.size == 2)
+        assert(twoCallers.callers(otherMethod).iterator.exists {
+            case (dm, pc, _) => (dm eq otherMethod) && (pc == 1)
+        })
+        assert(!twoCallers.callers(otherMethod).iterator.exists {
+            case (_, pc, _) => pc == 2
+        })
+        assert(otherTwoCallers.callers(otherMethod).iterator.exists {
+            case (dm, pc, _) => (dm eq otherMethod) && (pc == 2)
+        })
+        assert(!otherTwoCallers.callers(otherMethod).iterator.exists {
+            case (_, pc, _) => pc == 1
+        })
+        val updateWithSame = otherTwoCallers.updated(
+            simpleContexts(otherMethod), simpleContexts(otherMethod), pc = 2, isDirect = true
+        )
+        assert(updateWithSame eq otherTwoCallers)
+    }
+
+    it should "find the callers of each callee context in every version" in {
+        val methods = declaredMethods.declaredMethods.take(20).toIndexedSeq
+        var versions = List.empty[(Callers, IntMap[Set[Long]])]
+        var callers: Callers = NoCallers
+        var expected = IntMap.empty[Set[Long]]
+        for { i <- 0 until 300 } {
+            val calleeContext = simpleContexts(methods((i * 7) % methods.size))
+            val callerContext = simpleContexts(methods(i % methods.size))
+            callers = callers.updated(calleeContext, callerContext, pc = i, isDirect = i % 2 == 0)
+            expected = expected.updated(
+                calleeContext.id,
+                expected.getOrElse(calleeContext.id, Set.empty[Long]) +
+                    Callers.toLong(callerContext.id, i, i % 2 == 0)
+            )
+            versions ::= ((callers, expected))
+        }
+
+        versions foreach { versionAndExpected =>
+            val (version, expectedCallers) = versionAndExpected
+            expectedCallers foreach { e =>
+                val (calleeContextId, encodedCallers) = e
+                val actualCallers = version.callersForContextId(calleeContextId)
+                assert(actualCallers.foldLeft(Set.empty[Long])(_ + _) == encodedCallers)
+            }
+            assert(version.calleeContexts(otherMethod).iterator.map(_.id).toSet == expectedCallers.keySet)
+        }
+        val calleeContexts = List.newBuilder[Int]
+        callers.forNewCalleeContexts(versions.last._1, otherMethod) { c => calleeContexts += c.id }
+        assert(calleeContexts.result().toSet == expected.keySet -- versions.last._2.keySet)
+    }
+
     behavior of "any kind of callers"
 
     it should "update correctly" in {
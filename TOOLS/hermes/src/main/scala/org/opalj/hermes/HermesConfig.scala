@@ -95,4 +95,18 @@ trait HermesConfig {
     /** The number of locations per feature pre project that is stored. */
     final lazy val MaxLocations: Int = validateInitialized { Config.getInt(MaxLocationsKey) }
 
+    /**
+     * The config key of the budget (in MB) for the projects that are instantiated while
+     * the previous projects are still analyzed.
+     */
+    final val MaxInFlightProjectsSizeKey: String = "org.opalj.hermes.maxInFlightProjectsSize"
+
+    /**
+     * The budget (in bytes) for the projects that are instantiated while the previous
+     * projects are still analyzed.
+     */
+    final lazy val MaxInFlightProjectsSize: Long = validateInitialized {
+        Config.getLong(MaxInFlightProjectsSizeKey) * 1024L * 1024L
+    }
+
 }
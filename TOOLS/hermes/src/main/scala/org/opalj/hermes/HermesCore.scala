@@ -8,6 +8,9 @@ import java.net.URL
 import java.io.FileWriter
 import java.io.BufferedWriter
 import java.util.concurrent.atomic.AtomicInteger
+import scala.util.Failure
+import scala.util.Success
+import scala.util.Try
 import scala.jdk.CollectionConverters._
 import net.ceedubs.ficus.Ficus._
 import net.ceedubs.ficus.readers.ArbitraryTypeReader._
@@ -16,11 +19,14 @@ import com.fasterxml.jackson.dataformat.csv.CsvFactory
 import javafx.collections.FXCollections
 import javafx.collections.ObservableList
 import javafx.beans.property.BooleanProperty
+import javafx.beans.property.ObjectProperty
 import javafx.beans.property.SimpleBooleanProperty
 import javafx.beans.property.IntegerProperty
 import javafx.beans.property.SimpleIntegerProperty
 import javafx.beans.property.LongProperty
 import javafx.beans.property.SimpleLongProperty
+import org.opalj.log.GlobalLogContext
+import org.opalj.log.OPALLogger.error
 import org.opalj.br.analyses.Project
 
 import scala.collection.parallel.CollectionConverters.ImmutableIterableIsParallelizable
@@ -155,40 +161,111 @@ trait HermesCore extends HermesConfig {
             }
         }
 
+        // Projects which cannot be instantiated are skipped; the analysis of the
+        // remaining projects of the corpus continues.
+        def instantiated(
+            projectFeatures:      ProjectFeatures[URL],
+            projectInstantiation: Try[ProjectInstantiation]
+        ): Option[ProjectInstantiation] = {
+            projectInstantiation match {
+                case Success(projectInstantiation) =>
+                    Some(projectInstantiation)
+                case Failure(t) =>
+                    error(
+                        "project setup",
+                        s"instantiating ${projectFeatures.projectConfiguration.id} failed; skipped",
+                        t
+                    )(GlobalLogContext)
+                    updateProjectData { projectFeatures.id.setValue("! "+projectFeatures.id.getValue()) }
+                    None
+            }
+        }
+
         val analysesStartTime = System.nanoTime()
         val t = new Thread {
             override def run(): Unit = {
                 val totalSteps = (featureQueries.size * projectConfigurations.size).toDouble
                 val stepsDone = new AtomicInteger(0)
-                for {
-                    // Using an iterator is required to avoid eager initialization of all projects!
-                    projectFeatures <- featureMatrix.iterator.asScala
-                    if !Thread.currentThread.isInterrupted()
-                    projectConfiguration = projectFeatures.projectConfiguration
-                    projectAnalysisStartTime = System.nanoTime()
-                    projectInstantiation = projectConfiguration.instantiate
-                    project = projectInstantiation.project
-                    rawClassFiles = projectInstantiation.rawClassFiles
-                    if isValid(projectFeatures, project, projectAnalysisStartTime)
-                    (featureQuery, features) <- projectFeatures.featureGroups.par
-                    featuresMap = features.map(f => (f.getValue.id, f)).toMap
-                    if !Thread.currentThread.isInterrupted()
-                } {
-                    val featureAnalysisStartTime = System.nanoTime()
-                    val features = featureQuery(projectConfiguration, project, rawClassFiles)
-                    val featureAnalysisEndTime = System.nanoTime()
-                    val featureAnalysisTime = featureAnalysisEndTime - featureAnalysisStartTime
-
-                    reportProgress {
-                        featureQuery.accumulatedAnalysisTime.setValue(
-                            featureQuery.accumulatedAnalysisTime.getValue + featureAnalysisTime
-                        )
-                        corpusAnalysisTime.setValue(featureAnalysisEndTime - analysesStartTime)
-                        // (implicitly) update the feature matrix
-                        features.iterator.foreach { f => featuresMap(f.id).setValue(f) }
-
-                        stepsDone.incrementAndGet() / totalSteps
+                val projects = new ProjectInstantiationPipeline(
+                    featureMatrix.asScala.toList,
+                    MaxInFlightProjectsSize
+                )
+                try {
+                    for {
+                        // The next project is instantiated while the current project is analyzed.
+                        (projectFeatures, projectInstantiationResult) <- projects
+                        if !Thread.currentThread.isInterrupted()
+                        projectConfiguration = projectFeatures.projectConfiguration
+                        projectAnalysisStartTime = System.nanoTime()
+                        projectInstantiation <- instantiated(projectFeatures, projectInstantiationResult)
+                        project = projectInstantiation.project
+                        rawClassFiles = projectInstantiation.rawClassFiles
+                        if isValid(projectFeatures, project, projectAnalysisStartTime)
+                    } {
+                        def updateFeatures(
+                            featureQuery:           FeatureQuery,
+                            featuresProperties:     Seq[ObjectProperty[Feature[URL]]],
+                            features:               IterableOnce[Feature[URL]],
+                            featureAnalysisTime:    Long,
+                            featureAnalysisEndTime: Long
+                        ): Unit = {
+                            val featuresMap = featuresProperties.map(f => (f.getValue.id, f)).toMap
+                            reportProgress {
+                                featureQuery.accumulatedAnalysisTime.setValue(
+                                    featureQuery.accumulatedAnalysisTime.getValue + featureAnalysisTime
+                                )
+                                corpusAnalysisTime.setValue(featureAnalysisEndTime - analysesStartTime)
+                                // (implicitly) update the feature matrix
+                                features.iterator.foreach { f => featuresMap(f.id).setValue(f) }
+
+                                stepsDone.incrementAndGet() / totalSteps
+                            }
+                        }
+
+                        // All visitor based queries are evaluated using a single traversal of the
+                        // project; the time of the traversal is attributed evenly to the queries.
+                        val (visitorBasedFeatureGroups, otherFeatureGroups) =
+                            projectFeatures.featureGroups.partition { featureGroup =>
+                                featureGroup._1.isInstanceOf[VisitorBasedFeatureQuery]
+                            }
+                        if (visitorBasedFeatureGroups.nonEmpty && !Thread.currentThread.isInterrupted()) {
+                            val featureQueries = visitorBasedFeatureGroups.map { featureGroup =>
+                                featureGroup._1.asInstanceOf[VisitorBasedFeatureQuery]
+                            }
+                            val featureAnalysisStartTime = System.nanoTime()
+                            val features = VisitorBasedFeatureQueries(
+                                projectConfiguration, project, rawClassFiles, featureQueries
+                            )(HermesCore.this)
+                            val featureAnalysisEndTime = System.nanoTime()
+                            val featureAnalysisTime =
+                                (featureAnalysisEndTime - featureAnalysisStartTime) / featureQueries.size
+                            visitorBasedFeatureGroups.iterator.zip(features.iterator) foreach { e =>
+                                val ((featureQuery, featuresProperties), queryFeatures) = e
+                                updateFeatures(
+                                    featureQuery, featuresProperties, queryFeatures,
+                                    featureAnalysisTime, featureAnalysisEndTime
+                                )
+                            }
+                        }
+
+                        for {
+                            (featureQuery, featuresProperties) <- otherFeatureGroups.par
+                            if !Thread.currentThread.isInterrupted()
+                        } {
+                            val featureAnalysisStartTime = System.nanoTime()
+                            val features = featureQuery(projectConfiguration, project, rawClassFiles)
+                            val featureAnalysisEndTime = System.nanoTime()
+                            val featureAnalysisTime = featureAnalysisEndTime - featureAnalysisStartTime
+                            updateFeatures(
+                                featureQuery, featuresProperties, features,
+                                featureAnalysisTime, featureAnalysisEndTime
+                            )
+                        }
                     }
+                } catch {
+                    case _: InterruptedException => // the analysis was aborted
+                } finally {
+                    projects.close()
                 }
 
                 // we are done with everything
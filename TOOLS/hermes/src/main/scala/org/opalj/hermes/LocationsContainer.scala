@@ -26,6 +26,20 @@ class LocationsContainer[S](implicit hermes: HermesConfig) {
         }
     }
 
+    /**
+     * Adds the locations (and the count) of the given container to this container.
+     */
+    private[hermes] def ++=(other: LocationsContainer[S]): Unit = {
+        var locationsToAdd = hermes.MaxLocations - math.min(theLocationsCount, hermes.MaxLocations)
+        var otherLocations = other.theLocations
+        while (locationsToAdd > 0 && otherLocations.nonEmpty) {
+            theLocations = otherLocations.head :: theLocations
+            otherLocations = otherLocations.tail
+            locationsToAdd -= 1
+        }
+        theLocationsCount += other.theLocationsCount
+    }
+
     /** The number of locations that were seen. */
     def size: Int = theLocationsCount
 
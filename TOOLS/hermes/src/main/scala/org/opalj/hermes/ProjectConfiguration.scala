@@ -2,8 +2,12 @@
 package org.opalj
 package hermes
 
+import java.io.ByteArrayInputStream
 import java.io.File
 import java.net.URL
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import scala.jdk.CollectionConverters._
 
 import scala.collection.Map
 import scala.collection.immutable
@@ -57,17 +61,35 @@ case class ProjectConfiguration(
         }
     }
 
+    /**
+     * The size (in bytes) of the files on the project's class path and library class path;
+     * used to estimate the amount of memory that is required by the instantiated project.
+     */
+    lazy val classPathSize: Long = {
+        def size(file: File): Long = {
+            if (file.isDirectory) {
+                val files = file.listFiles()
+                if (files eq null) 0L else files.iterator.map(size).sum
+            } else {
+                file.length()
+            }
+        }
+
+        (cp :: libcp.toList).iterator.flatMap(_.split(File.pathSeparatorChar)).map { path =>
+            size(new File(path))
+        }.sum
+    }
+
     /**
      * Instantiates the project and initializes the meta-information.
      *
      * For the classes belonging to the project the naive bytecode representation is
      * also returned to facilitate analyses w.r.t. the representativeness of the bytecode.
+     * Both representations are created from the same bytes; i.e., each class file of the
+     * project is read only once.
      */
     def instantiate: ProjectInstantiation = {
 
-        // let's try to garbage collect previous projects
-        new Thread(new Runnable { def run: Unit = { System.gc() } }).start
-
         info(
             "project setup",
             s"creating new project: $id\n\t\t"+
@@ -84,13 +106,31 @@ case class ProjectConfiguration(
             }
         }
 
+        //
+        // READ THE PROJECT'S CLASS FILES (BR AND DA REPRESENTATION)
+        //
+        val brClassFileReader = JavaClassFileReader()
+        val brClassFiles = new ConcurrentLinkedQueue[(br.ClassFile, URL)]()
+        val daClassFiles = new ConcurrentLinkedQueue[(da.ClassFile, URL)]()
+        cpJARs foreach { cpJAR =>
+            brClassFileReader.processClassFileBytes(
+                cpJAR,
+                (bytes, url) => {
+                    val in = () => new ByteArrayInputStream(bytes)
+                    val brClassFile = brClassFileReader.ClassFile(in)
+                    val daClassFile = da.ClassFileReader.ClassFile(in)
+                    brClassFile foreach { cf => brClassFiles.add((cf, url)) }
+                    daClassFile foreach { cf => daClassFiles.add((cf, url)) }
+                }
+            )
+        }
+        val brProjectClassFiles: Iterable[(br.ClassFile, URL)] = brClassFiles.asScala
+        val daProjectClassFiles: Iterable[(da.ClassFile, URL)] = daClassFiles.asScala
+
         //
         // SETUP BR PROJECT
         //
         val noBRClassFiles = Iterable.empty[(br.ClassFile, URL)]
-        val brProjectClassFiles = cpJARs.foldLeft(noBRClassFiles) { (classFiles, cpJAR) =>
-            classFiles ++ JavaClassFileReader().ClassFiles(cpJAR)
-        }
         val libcpJARs = {
             libcp match {
                 case None =>
@@ -137,14 +177,6 @@ case class ProjectConfiguration(
             theProjectStatistics ++= brProject.statistics.map { kv => val (k, v) = kv; (k, v.toDouble) }
         }
 
-        //
-        // SETUP DA CLASS FILE
-        //
-        val noDAClassFiles = Iterable.empty[(da.ClassFile, URL)]
-        val daProjectClassFiles = cpJARs.foldLeft(noDAClassFiles) { (classFiles, cpJAR) =>
-            classFiles ++ da.ClassFileReader.ClassFiles(cpJAR)
-        }
-
         ProjectInstantiation(brProject, daProjectClassFiles)
     }
 
@@ -0,0 +1,93 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package hermes
+
+import java.net.URL
+import java.util.concurrent.LinkedBlockingQueue
+
+import scala.util.Try
+
+/**
+ * Instantiates the projects of a corpus - one after the other - in a background thread while
+ * the previously instantiated projects are analyzed. A project is only instantiated if
+ * the (estimated) sizes of all projects that are instantiated, but not yet completely
+ * analyzed, do not exceed the given budget; the next project is always instantiated if no other
+ * project is in flight.
+ *
+ * A project is considered to be completely analyzed when the next project is requested.
+ *
+ * @param maxInFlightProjectsSize The budget (in bytes) for the projects that are in flight;
+ *        the size of a project is estimated using
+ *        [[org.opalj.hermes.ProjectConfiguration.classPathSize]].
+ */
+private[hermes] class ProjectInstantiationPipeline(
+        projectsFeatures:        List[ProjectFeatures[URL]],
+        maxInFlightProjectsSize: Long
+) extends Iterator[(ProjectFeatures[URL], Try[ProjectInstantiation])] {
+
+    private[this] val instantiations =
+        new LinkedBlockingQueue[(ProjectFeatures[URL], Try[ProjectInstantiation])]()
+
+    // Guarded by `this`.
+    private[this] var inFlightProjectsSize: Long = 0L
+
+    private[this] var remainingProjects: Int = projectsFeatures.size
+
+    // The size of the project that was returned last; it is released when the next
+    // project is requested.
+    private[this] var currentProjectSize: Long = 0L
+
+    private[this] val loader: Thread = new Thread("Hermes - Project Instantiation") {
+        override def run(): Unit = {
+            try {
+                projectsFeatures foreach { projectFeatures =>
+                    val projectSize = projectFeatures.projectConfiguration.classPathSize
+                    ProjectInstantiationPipeline.this.synchronized {
+                        while (inFlightProjectsSize > 0L &&
+                            inFlightProjectsSize + projectSize > maxInFlightProjectsSize) {
+                            ProjectInstantiationPipeline.this.wait()
+                        }
+                        inFlightProjectsSize += projectSize
+                    }
+                    val instantiation = Try(projectFeatures.projectConfiguration.instantiate)
+                    instantiations.put((projectFeatures, instantiation))
+                }
+            } catch {
+                case _: InterruptedException => // the analysis was aborted
+            }
+        }
+    }
+    loader.setDaemon(true)
+    loader.start()
+
+    private[this] def releaseCurrentProject(): Unit = {
+        this.synchronized {
+            inFlightProjectsSize -= currentProjectSize
+            currentProjectSize = 0L
+            this.notifyAll()
+        }
+    }
+
+    override def hasNext: Boolean = remainingProjects > 0
+
+    /**
+     * Returns the next instantiated project; blocks until the project is instantiated.
+     */
+    override def next(): (ProjectFeatures[URL], Try[ProjectInstantiation]) = {
+        if (remainingProjects == 0)
+            throw new NoSuchElementException("no more projects")
+
+        releaseCurrentProject()
+        val next = instantiations.take()
+        currentProjectSize = next._1.projectConfiguration.classPathSize
+        remainingProjects -= 1
+        next
+    }
+
+    /**
+     * Stops the instantiation of further projects.
+     */
+    def close(): Unit = {
+        loader.interrupt()
+    }
+}
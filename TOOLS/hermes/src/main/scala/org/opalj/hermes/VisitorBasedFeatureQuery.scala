@@ -0,0 +1,166 @@
+/* BSD 2-Clause License - see OPAL/LICENSE for details. */
+package org.opalj
+package hermes
+
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import scala.jdk.CollectionConverters._
+
+import org.opalj.br.ClassFile
+import org.opalj.br.Method
+import org.opalj.br.instructions.Instruction
+import org.opalj.br.analyses.Project
+
+/**
+ * A feature query that does not traverse the project on its own, but which is instead
+ * notified about each class file, method and instruction of a project by the
+ * [[VisitorBasedFeatureQueries]] engine. This enables the engine to evaluate all such queries
+ * using a single (parallel) traversal of the project.
+ */
+abstract class VisitorBasedFeatureQuery(implicit hermes: HermesConfig) extends FeatureQuery {
+
+    /**
+     * `true` if the visitors of this query are interested in the project's methods.
+     */
+    def visitsMethods: Boolean = true
+
+    /**
+     * `true` if the visitors of this query are interested in the instructions of the
+     * project's methods.
+     */
+    def visitsInstructions: Boolean = false
+
+    /**
+     * Creates a new visitor which collects the locations of the features of this query.
+     *
+     * While a project is traversed, each thread uses its own visitor; hence, a visitor does
+     * not need to be thread-safe, but this method may be called concurrently.
+     */
+    def createVisitor[S](
+        projectConfiguration: ProjectConfiguration,
+        project:              Project[S],
+        rawClassFiles:        Iterable[(da.ClassFile, S)]
+    ): FeatureQueryVisitor[S]
+
+    /**
+     * Creates the features given the (merged) locations collected by all visitors; the
+     * locations are stored in the order of the [[featureIDs]].
+     */
+    def features[S](locations: IndexedSeq[LocationsContainer[S]]): IterableOnce[Feature[S]] = {
+        for { (featureID, featureIDIndex) <- featureIDs.iterator.zipWithIndex } yield {
+            Feature[S](featureID, locations(featureIDIndex))
+        }
+    }
+
+    final override def apply[S](
+        projectConfiguration: ProjectConfiguration,
+        project:              Project[S],
+        rawClassFiles:        Iterable[(da.ClassFile, S)]
+    ): IterableOnce[Feature[S]] = {
+        VisitorBasedFeatureQueries(projectConfiguration, project, rawClassFiles, List(this)).head
+    }
+}
+
+/**
+ * Collects the locations of the features of a [[VisitorBasedFeatureQuery]]; the `i`-th
+ * container stores the locations of the query's `i`-th feature.
+ *
+ * @param featuresCount The number of features of the query.
+ */
+abstract class FeatureQueryVisitor[S](featuresCount: Int)(implicit hermes: HermesConfig) {
+
+    final val locations: Array[LocationsContainer[S]] = {
+        Array.fill(featuresCount)(new LocationsContainer[S])
+    }
+
+    def visitClassFile(classFile: ClassFile, location: ClassFileLocation[S]): Unit = {}
+
+    /**
+     * Called for each method of a class file after the class file was visited.
+     */
+    def visitMethod(method: Method, location: MethodLocation[S]): Unit = {}
+
+    /**
+     * Called for each instruction of a method after the method was visited.
+     */
+    def visitInstruction(pc: Int, instruction: Instruction, location: MethodLocation[S]): Unit = {}
+}
+
+/**
+ * Evaluates a set of [[VisitorBasedFeatureQuery]]s using a single traversal of a project.
+ */
+object VisitorBasedFeatureQueries {
+
+    /**
+     * Traverses the project's class files in parallel and returns the features of each query;
+     * the results are in the order of the given queries.
+     */
+    def apply[S](
+        projectConfiguration: ProjectConfiguration,
+        project:              Project[S],
+        rawClassFiles:        Iterable[(da.ClassFile, S)],
+        queries:              Seq[VisitorBasedFeatureQuery]
+    )(
+        implicit
+        hermes: HermesConfig
+    ): Seq[IterableOnce[Feature[S]]] = {
+        val queriesCount = queries.size
+        val visitsMethods = queries.map(q => q.visitsMethods || q.visitsInstructions).toArray
+        val visitsInstructions = queries.map(_.visitsInstructions).toArray
+        val anyVisitsMethods = visitsMethods.contains(true)
+        val anyVisitsInstructions = visitsInstructions.contains(true)
+
+        val allVisitors = new ConcurrentLinkedQueue[Array[FeatureQueryVisitor[S]]]()
+        val threadVisitors: ThreadLocal[Array[FeatureQueryVisitor[S]]] = ThreadLocal.withInitial { () =>
+            val visitors = queries.map(_.createVisitor(projectConfiguration, project, rawClassFiles)).toArray
+            allVisitors.add(visitors)
+            visitors
+        }
+
+        val thread = Thread.currentThread()
+        project.parForeachProjectClassFile(() => thread.isInterrupted()) { classFile =>
+            val visitors = threadVisitors.get
+            val classFileLocation = ClassFileLocation(project, classFile)
+            var i = 0
+            while (i < queriesCount) {
+                visitors(i).visitClassFile(classFile, classFileLocation)
+                i += 1
+            }
+            if (anyVisitsMethods) {
+                classFile.methods foreach { method =>
+                    val methodLocation = MethodLocation(classFileLocation, method)
+                    var i = 0
+                    while (i < queriesCount) {
+                        if (visitsMethods(i)) visitors(i).visitMethod(method, methodLocation)
+                        i += 1
+                    }
+                    if (anyVisitsInstructions && method.body.isDefined) {
+                        method.body.get iterate { (pc, instruction) =>
+                            var i = 0
+                            while (i < queriesCount) {
+                                if (visitsInstructions(i))
+                                    visitors(i).visitInstruction(pc, instruction, methodLocation)
+                                i += 1
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        val visitors = allVisitors.asScala.toList
+        queries.iterator.zipWithIndex.map { e =>
+            val (query, queryIndex) = e
+            val locations = Array.fill(query.featureIDs.size)(new LocationsContainer[S])
+            visitors foreach { threadVisitors =>
+                val threadLocations = threadVisitors(queryIndex).locations
+                var i = 0
+                while (i < locations.length) {
+                    locations(i) ++= threadLocations(i)
+                    i += 1
+                }
+            }
+            query.features(locations.toIndexedSeq)
+        }.toList
+    }
+}
@@ -5,15 +5,15 @@ package queries
 
 import java.net.URL
 
+import org.opalj.br.instructions.Instruction
 import org.opalj.br.analyses.Project
-import org.opalj.br.MethodWithBody
 
 /**
  * Counts the number of occurrences of each bytecode instruction.
  *
  * @author Michael Eichberg
  */
-class BytecodeInstructions(implicit hermes: HermesConfig) extends FeatureQuery {
+class BytecodeInstructions(implicit hermes: HermesConfig) extends VisitorBasedFeatureQuery {
 
     // Let's do some caching...
     final val JVMInstructions: List[(Int, String)] = bytecode.JVMInstructions
@@ -23,7 +23,7 @@ class BytecodeInstructions(implicit hermes: HermesConfig) extends FeatureQuery {
         Right(new URL("https://www.opal-project.de/bi/JVMInstructions.xml"))
     }
 
-    override def featureIDs: IndexedSeq[String] = {
+    override val featureIDs: IndexedSeq[String] = {
         var ordinalNumber = 0
         JVMInstructions.map { i =>
             val (opcode, mnemonic) = i
@@ -33,28 +33,20 @@ class BytecodeInstructions(implicit hermes: HermesConfig) extends FeatureQuery {
         }.toIndexedSeq
     }
 
-    override def apply[S](
+    override def visitsInstructions: Boolean = true
+
+    override def createVisitor[S](
         projectConfiguration: ProjectConfiguration,
         project:              Project[S],
         rawClassFiles:        Iterable[(da.ClassFile, S)]
-    ): IterableOnce[Feature[S]] = {
-        val instructionsLocations = Array.fill(256)(new LocationsContainer[S])
-
-        for {
-            (classFile, source) <- project.projectClassFilesWithSources
-            if !isInterrupted()
-            classFileLocation = ClassFileLocation(source, classFile)
-            method @ MethodWithBody(body) <- classFile.methods
-            methodLocation = MethodLocation(classFileLocation, method)
-            pcAndInstruction <- body
-        } {
-            val instruction = pcAndInstruction.instruction
-            val pc = pcAndInstruction.pc
-            instructionsLocations(instruction.opcode) += InstructionLocation(methodLocation, pc)
-        }
-
-        for { (locations, opcode) <- instructionsLocations.iterator.zipWithIndex } yield {
-            Feature[S](featureIDs(OpcodesToOrdinalNumbers(opcode)), locations)
+    ): FeatureQueryVisitor[S] = new FeatureQueryVisitor[S](featureIDs.size) {
+
+        override def visitInstruction(
+            pc:          Int,
+            instruction: Instruction,
+            location:    MethodLocation[S]
+        ): Unit = {
+            locations(OpcodesToOrdinalNumbers(instruction.opcode)) += InstructionLocation(location, pc)
         }
     }
 }
@@ -3,6 +3,7 @@ package org.opalj
 package hermes
 package queries
 
+import org.opalj.br.ClassFile
 import org.opalj.br.analyses.Project
 
 /**
@@ -10,7 +11,7 @@ import org.opalj.br.analyses.Project
  *
  * @author Michael Eichberg
  */
-class ClassTypes(implicit hermes: HermesConfig) extends FeatureQuery {
+class ClassTypes(implicit hermes: HermesConfig) extends VisitorBasedFeatureQuery {
 
     override val featureIDs: List[String] = {
         List(
@@ -27,21 +28,18 @@ class ClassTypes(implicit hermes: HermesConfig) extends FeatureQuery {
         )
     }
 
-    override def apply[S](
+    override def visitsMethods: Boolean = false
+
+    override def createVisitor[S](
         projectConfiguration: ProjectConfiguration,
         project:              Project[S],
         rawClassFiles:        Iterable[(da.ClassFile, S)]
-    ): IterableOnce[Feature[S]] = {
-
-        val classTypesLocations = Array.fill(10)(new LocationsContainer[S])
+    ): FeatureQueryVisitor[S] = new FeatureQueryVisitor[S](featureIDs.size) {
 
-        val functionalInterfaces = project.functionalInterfaces
+        private[this] val functionalInterfaces = project.functionalInterfaces
 
-        for {
-            (classFile, source) <- project.projectClassFilesWithSources
-            if !isInterrupted()
-        } {
-            val location = ClassFileLocation(source, classFile)
+        override def visitClassFile(classFile: ClassFile, location: ClassFileLocation[S]): Unit = {
+            val classTypesLocations = locations
 
             if (classFile.isClassDeclaration) {
                 if (!classFile.isAbstract) {
@@ -88,9 +86,5 @@ class ClassTypes(implicit hermes: HermesConfig) extends FeatureQuery {
                 classTypesLocations(9) += location
             }
         }
-
-        for { (featureID, featureIDIndex) <- featureIDs.iterator.zipWithIndex } yield {
-            Feature[S](featureID, classTypesLocations(featureIDIndex))
-        }
     }
 }
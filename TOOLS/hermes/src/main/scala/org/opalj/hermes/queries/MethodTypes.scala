@@ -3,6 +3,7 @@ package org.opalj
 package hermes
 package queries
 
+import org.opalj.br.Method
 import org.opalj.br.analyses.Project
 
 /**
@@ -10,7 +11,7 @@ import org.opalj.br.analyses.Project
  *
  * @author Michael Eichberg
  */
-class MethodTypes(implicit hermes: HermesConfig) extends FeatureQuery {
+class MethodTypes(implicit hermes: HermesConfig) extends VisitorBasedFeatureQuery {
 
     override val featureIDs: List[String] = {
         List(
@@ -27,21 +28,14 @@ class MethodTypes(implicit hermes: HermesConfig) extends FeatureQuery {
         )
     }
 
-    override def apply[S](
+    override def createVisitor[S](
         projectConfiguration: ProjectConfiguration,
         project:              Project[S],
         rawClassFiles:        Iterable[(da.ClassFile, S)]
-    ): IterableOnce[Feature[S]] = {
+    ): FeatureQueryVisitor[S] = new FeatureQueryVisitor[S](featureIDs.size) {
 
-        val methodLocations = Array.fill(featureIDs.size)(new LocationsContainer[S])
-
-        for {
-            (classFile, source) <- project.projectClassFilesWithSources
-            if !isInterrupted()
-            classLocation = ClassFileLocation(source, classFile)
-            m <- classFile.methods
-        } {
-            val location = MethodLocation(classLocation, m)
+        override def visitMethod(m: Method, location: MethodLocation[S]): Unit = {
+            val methodLocations = locations
             if (m.isNative) methodLocations(0) += location
             if (m.isSynthetic) methodLocations(1) += location
             if (m.isBridge) methodLocations(2) += location
@@ -61,9 +55,5 @@ class MethodTypes(implicit hermes: HermesConfig) extends FeatureQuery {
                 }
             }
         }
-
-        for { (featureID, featureIDIndex) <- featureIDs.iterator.zipWithIndex } yield {
-            Feature[S](featureID, methodLocations(featureIDIndex))
-        }
     }
 }
@@ -4,14 +4,10 @@ package hermes
 package queries
 package util
 
-import scala.collection.mutable
-
-import org.opalj.da.ClassFile
-import org.opalj.br.MethodWithBody
+import org.opalj.br.ClassFile
 import org.opalj.br.ObjectType
 import org.opalj.br.analyses.Project
 import org.opalj.br.instructions.Instruction
-import org.opalj.br.instructions.MethodInvocationInstruction
 
 /**
  * A predefined query for finding simple API features. It supports - in particular -
@@ -40,7 +36,7 @@ import org.opalj.br.instructions.MethodInvocationInstruction
  *
  * @author Michael Reif
  */
-abstract class APIFeatureQuery(implicit hermes: HermesConfig) extends FeatureQuery {
+abstract class APIFeatureQuery(implicit hermes: HermesConfig) extends VisitorBasedFeatureQuery {
 
     def apiFeatures: List[APIFeature]
 
@@ -57,86 +53,62 @@ abstract class APIFeatureQuery(implicit hermes: HermesConfig) extends FeatureQue
     }
 
     /**
-     * Analyzes the project and extracts the feature information.
-     *
-     * @note '''Every query should regularly check that its thread is not interrupted!''' E.g.,
-     *       using `Thread.currentThread().isInterrupted()`.
+     * The class extension features along with the index of the feature.
      */
-    override def apply[S](
-        projectConfiguration: ProjectConfiguration,
-        project:              Project[S],
-        rawClassFiles:        Iterable[(ClassFile, S)]
-    ): IterableOnce[Feature[S]] = {
-
-        val classHierarchy = project.classHierarchy
-        import classHierarchy.allSubtypes
-        import project.isProjectType
-
-        def getClassFileLocation(objectType: ObjectType): Option[ClassFileLocation[S]] = {
-            val classFile = project.classFile(objectType)
-            classFile.flatMap { cf => project.source(cf).map(src => ClassFileLocation(src, cf)) }
-        }
+    private[this] final lazy val classExtensions: Array[(ClassExtension, Int)] = {
+        apiFeatures.iterator.zipWithIndex.collect {
+            case (ce: ClassExtension, featureIndex) => (ce, featureIndex)
+        }.toArray
+    }
 
-        var occurrencesCount = apiFeatures.foldLeft(Map.empty[String, Int])(
-            (result, feature) => result + ((feature.featureID, 0))
-        )
+    /**
+     * The API method features along with the index of the feature.
+     */
+    private[this] final lazy val apiMethodFeatures: Array[(APIFeature, Int)] = {
+        apiFeatures.iterator.zipWithIndex.filter(_._1.apiMethods.nonEmpty).toArray
+    }
 
-        // TODO Use LocationsContainer
-        val locations = mutable.Map.empty[String, List[Location[S]]]
+    override def visitsMethods: Boolean = false
 
-        for {
-            classFeature <- apiFeatures.collect { case ce: ClassExtension => ce }
-            featureID = classFeature.featureID
-            subtypes = allSubtypes(classFeature.declClass, reflexive = false).filter(isProjectType)
-            size = subtypes.size
-            if size > 0
-        } {
-            val count = occurrencesCount(featureID) + size
-            occurrencesCount += ((featureID, count))
+    override def visitsInstructions: Boolean = true
 
-            for {
-                subtype <- subtypes
-                if project.isProjectType(subtype)
-                classFileLocation <- getClassFileLocation(subtype)
-            } {
-                locations += ((
-                    featureID,
-                    classFileLocation :: locations.getOrElse(featureID, List.empty)
-                ))
+    override def createVisitor[S](
+        projectConfiguration: ProjectConfiguration,
+        project:              Project[S],
+        rawClassFiles:        Iterable[(da.ClassFile, S)]
+    ): FeatureQueryVisitor[S] = new FeatureQueryVisitor[S](apiFeatures.size) {
+
+        private[this] val classHierarchy = project.classHierarchy
+
+        override def visitClassFile(classFile: ClassFile, location: ClassFileLocation[S]): Unit = {
+            val thisType = classFile.thisType
+            classExtensions foreach { e =>
+                val (classExtension, featureIndex) = e
+                val declClass = classExtension.declClass
+                if ((thisType ne declClass) && classHierarchy.isSubtypeOf(thisType, declClass)) {
+                    locations(featureIndex) += location
+                }
             }
         }
 
-        // Checking method API features
-
-        for {
-            cf <- project.allProjectClassFiles
-            if !isInterrupted()
-            source <- project.source(cf)
-            m @ MethodWithBody(code) <- cf.methods
-            pcAndInvocation <- code collect ({ case mii: MethodInvocationInstruction => mii }: PartialFunction[Instruction, MethodInvocationInstruction])
-            pc = pcAndInvocation.pc
-            mii = pcAndInvocation.value
-            declClass = mii.declaringClass
-            if declClass.isObjectType
-            if apiTypes.contains(declClass.asObjectType)
-            apiFeature <- apiFeatures
-            featureID = apiFeature.featureID
-            APIMethod <- apiFeature.apiMethods
-            if APIMethod.matches(mii)
-        } {
-            val l = InstructionLocation(source, m, pc)
-            locations += ((featureID, l :: locations.getOrElse(featureID, List.empty)))
-            val count = occurrencesCount(featureID) + 1
-            occurrencesCount = occurrencesCount + ((featureID, count))
-        }
-
-        apiFeatures.map { apiFeature =>
-            val featureID = apiFeature.featureID
-            Feature(
-                featureID,
-                occurrencesCount(featureID),
-                locations.getOrElse(featureID, List.empty)
-            )
+        override def visitInstruction(
+            pc:          Int,
+            instruction: Instruction,
+            location:    MethodLocation[S]
+        ): Unit = {
+            if (instruction.isMethodInvocationInstruction) {
+                val mii = instruction.asMethodInvocationInstruction
+                val declClass = mii.declaringClass
+                if (declClass.isObjectType && apiTypes.contains(declClass.asObjectType)) {
+                    apiMethodFeatures foreach { e =>
+                        val (apiFeature, featureIndex) = e
+                        apiFeature.apiMethods foreach { apiMethod =>
+                            if (apiMethod.matches(mii))
+                                locations(featureIndex) += InstructionLocation(location, pc)
+                        }
+                    }
+                }
+            }
         }
     }
 
@@ -23,6 +23,7 @@ object Dependencies {
     val commonstext = "1.9"
     val txtmark = "0.16"
     val jacksonDF = "2.12.2"
+    val jacksoncore = "2.12.2"
     val fastutil = "8.5.4"
 
     val openjfx = "16"
@@ -49,6 +50,7 @@ object Dependencies {
     val scalaparsercombinators = "org.scala-lang.modules"   %% "scala-parser-combinators"   % version.scalaparsercombinators
     val txtmark = "es.nitaur.markdown"                      % "txtmark"                     % version.txtmark withSources () withJavadoc ()
     val jacksonDF = "com.fasterxml.jackson.dataformat"      % "jackson-dataformat-csv"      % version.jacksonDF withSources () withJavadoc ()
+    val jacksoncore = "com.fasterxml.jackson.core"          % "jackson-core"                % version.jacksoncore
     val fastutil = "it.unimi.dsi"                           % "fastutil"                    % version.fastutil withSources () withJavadoc ()
     val javafxBase = "org.openjfx" % "javafx-base" % version.openjfx classifier osName
 
@@ -70,6 +72,7 @@ object Dependencies {
   val bi = Seq(commonstext)
   val br = Seq(scalaparsercombinators, scalaxml)
   val ifds = Seq()
+  val tac = Seq(jacksoncore)
   val tools = Seq(txtmark, jacksonDF)
   val hermes = Seq(txtmark, jacksonDF, javafxBase)
 